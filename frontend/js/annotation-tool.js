@@ -33,9 +33,6 @@ define(
         "templates/delete-modal",
         "player-adapter",
         "colors",
-        "xlsx",
-        "papaparse",
-        "filesaver",
         "jquery.colorPicker"
     ],
     function (
@@ -51,9 +48,7 @@ define(
         alerts,
         DeleteModalTmpl,
         PlayerAdapter,
-        ColorManager,
-        XLSX,
-        PapaParse
+        ColorManager
     ) {
         "use strict";
 
@@ -604,205 +599,39 @@ define(
             /**
              * Offer the user a spreadsheet version of the annotations for download.
              * @param {Track[]} tracks The tracks to include in the export
-             * @param {Category[]} categories The tracks to include in the export
+             * @param {Category[]} categories The categories to include in the export
              * @param {Boolean} freeText Should free-text annotations be exported?
              */
             exportCSV: function (tracks, categories, freeText) {
-                var bookData = this.gatherExportData(tracks, categories, freeText);
-                var csv = PapaParse.unparse(JSON.stringify(bookData));
-                saveAs(new Blob([csv], { type: "text/csv;charset=utf-8;" }), "export.csv");
+                this.download("csv", tracks, categories, freeText);
             },
 
             /**
              * Offer the user an excel version of the annotations for download.
              * @param {Track[]} tracks The tracks to include in the export
-             * @param {Category[]} categories The tracks to include in the export
+             * @param {Category[]} categories The categories to include in the export
              * @param {Boolean} freeText Should free-text annotations be exported?
              */
             exportXLSX: function (tracks, categories, freeText) {
-                var bookData = this.gatherExportData(tracks, categories, freeText);
-
-                // Generate workbook
-                var wb = XLSX.utils.book_new();
-                wb.SheetNames.push("Sheet 1");
-
-                // Generate worksheet
-                var ws = XLSX.utils.aoa_to_sheet(bookData);
-
-                // Scale column width to content (which is apparently non built-in in SheetJS)
-                var objectMaxLength = [];
-
-                bookData.forEach(function (arr) {
-                    Object.keys(arr).forEach(function (key) {
-                        var value = arr[key] || "";
-
-                        // Arbitrarily increase len by one to avoid cases where just len would
-                        // lead to too small columns
-                        var len = value.toString().length + 1;
-
-                        objectMaxLength[key] = Math.max(objectMaxLength[key] || 0, len);
-                    });
-                });
-
-                var worksheetCols = objectMaxLength.map(function (width) {
-                    return { width: width };
-                });
-
-                ws["!cols"] = worksheetCols;
-
-                // Put worksheet
-                wb.Sheets["Sheet 1"] = ws;
-
-                // Export workbook
-                var wbout = XLSX.write(wb, { bookType: "xlsx", type: "binary" });
-
-                function s2ab(s) {
-                    var buf = new ArrayBuffer(s.length); // convert s to arrayBuffer
-                    var view = new Uint8Array(buf); // create uint8array as viewer
-                    for (var i = 0; i < s.length; i++) {
-                        view[i] = s.charCodeAt(i) & 0xFF; // convert to octet
-                    }
-                    return buf;
-                }
-
-                saveAs(new Blob([s2ab(wbout)], { type: "application/octet-stream" }), "export.xlsx");
+                this.download("xlsx", tracks, categories, freeText);
             },
 
-            gatherExportData: function (tracks, categories, freeText) {
-                var bookData = [];
-                var header = [];
-
-                // Header indexes: 0-4
-                addResourceHeaders(header);
-                // Header indexes: 5-22
-                header.push("Track name"); // 5
-                header.push("Leadin");
-                header.push("Leadout");
-                header.push("Duration");
-                header.push("Text");
-                header.push("Category name"); // 10
-                header.push("Label name");
-                header.push("Label abbreviation");
-                header.push("Scale name");
-                header.push("Scale value name");
-                header.push("Scale value value"); // 15
-                addResourceHeaders(header, "comment"); // 16-20
-                header.push("Comment text");
-                header.push("Comment replies to");
-                header.push("Type"); // 23
-                bookData.push(header);
-
-                _.each(tracks, function (track) {
-                    track.annotations.each(function (annotation) {
-                        var line = [];
-
-                        var label = annotation.attributes.label;
-                        // Exclude annotations that are currently not visible
-                        if (label) {
-                            if (categories && !categories.map(function (category) {
-                                return category.id;
-                            }).includes(label.category.id)) return;
-                        } else {
-                            if (!freeText) return;
-                        }
-
-                        addResource(line, annotation, track);
-
-                        _.each(annotation.attributes.content.models, function (content) {
-                            addContentLine(line, content);
-                        });
-
-                        _.each(annotation.attributes.comments.models, function (comment) {
-                            addCommentLine(line, comment);
-
-                            if (comment.replies.length > 0) {
-                                commentReplies(line, comment.replies.models);
-                            }
-                        });
-                    });
-                });
-
-                return bookData;
-
-                function addResourceHeaders(header, presuffix) {
-                    if (presuffix == null) presuffix = "";
-                    var prefix = "";
-                    var suffix = "";
-                    if (presuffix) {
-                        prefix = presuffix + " ";
-                        suffix = " of " + presuffix;
-                    }
-                    header.push(util.capitalize(prefix + "ID"));
-                    header.push(util.capitalize(prefix + "Creation date"));
-                    header.push(util.capitalize("Last update" + suffix));
-                    header.push(util.capitalize(prefix + "Author nickname"));
-                    header.push(util.capitalize(prefix + "Author mail"));
-                }
-
-                function addResource(line, resource, track) {
-                    line.push(resource.id);
-                    line.push(resource.attributes.created_at.toISOString());
-                    line.push(resource.attributes.updated_at.toISOString());
-                    line.push(resource.attributes.created_by_nickname);
-                    line.push(resource.attributes.created_by_email);
-
-                    line.push(track.attributes.name);
-                    line.push(util.formatTime(resource.attributes.start));
-                    line.push(util.formatTime(resource.attributes.start + resource.attributes.duration));
-                    line.push(util.formatTime(resource.attributes.duration));
-                }
-
-                function addCommentLine(line, comment) {
-                    var commentLine = [];
-                    Array.prototype.push.apply(commentLine, line);
-
-                    commentLine[16] = comment.attributes.id;
-                    commentLine[17] = comment.attributes.created_at.toISOString();
-                    commentLine[18] = comment.attributes.updated_at.toISOString();
-                    commentLine[19] = comment.attributes.updated_by_nickname;
-                    commentLine[20] = "";
-                    commentLine[21] = comment.attributes.text;
-
-                    if (comment.collection.replyTo) {
-                        commentLine[22] = comment.collection.replyTo.id;
-                    }
-
-                    commentLine[23] = "comment";
-
-                    bookData.push(commentLine);
-                }
-
-                function commentReplies(line, replies) {
-                    _.each(replies, function (comment) {
-                        addCommentLine(line, comment);
-
-                        commentReplies(line, comment.attributes.replies);
+            /**
+             * Let the browser download an export of the annotations.
+             * The backend streams the file while reading the annotations,
+             * so that even large videos do not have to be loaded into the tool first.
+             * @param {String} format The file format, either <code>csv</code> or <code>xlsx</code>
+             * @param {Track[]} tracks The tracks to include in the export
+             * @param {Category[]} categories The categories to include in the export
+             * @param {Boolean} freeText Should free-text annotations be exported?
+             */
+            download: function (format, tracks, categories, freeText) {
+                window.location.href = "../../extended-annotations" + _.result(this.video, "url")
+                    + "/export." + format + "?" + $.param({
+                        tracks: _.pluck(tracks, "id").join(","),
+                        categories: _.pluck(categories, "id").join(","),
+                        freetext: !!freeText
                     });
-                }
-
-                function addContentLine(line, content) {
-                    var contentLine = [];
-                    Array.prototype.push.apply(contentLine, line);
-
-                    var category = content.getCategory();
-                    var label = content.getLabel();
-                    var scaleValue = content.getScaleValue();
-
-                    contentLine[9] = content.getText();
-                    contentLine[10] = category ? category.attributes.name : "";
-                    contentLine[11] = label ? label.attributes.value : "";
-                    contentLine[12] = label ? label.attributes.abbreviation : "";
-
-                    if (!!scaleValue) {
-                        contentLine[13] = scaleValue.collection.scale.get("name");
-                        contentLine[14] = scaleValue.attributes.name;
-                        contentLine[15] = scaleValue.attributes.value;
-                    }
-
-                    contentLine[23] = (scaleValue) ? "content-scale" : "content";
-
-                    bookData.push(contentLine);
-                }
             }
         });
 
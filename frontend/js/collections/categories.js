@@ -49,7 +49,6 @@ define(
              */
             initialize: function (models, options) {
                 this.video = options.video;
-                this.seriesExtId = options.seriesExtId;
             },
 
             /**
@@ -58,8 +57,7 @@ define(
              */
             url: function () {
                 return (this.video ? _.result(this.video, "url") : "")
-                    + "/categories/"
-                    + (this.seriesExtId ? "?series-extid=" + this.seriesExtId : "");
+                    + "/categories/";
             },
 
             /**
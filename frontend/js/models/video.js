@@ -81,7 +81,6 @@ define(
                 _.bindAll(this,
                     "getLabels");
 
-                this.get("categories").seriesExtId = this.get("series_extid");
                 Resource.prototype.initialize.apply(this, arguments);
             },
 
@@ -0,0 +1,93 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.api;
+
+import org.opencastproject.util.data.Option;
+
+/**
+ * A resource of a video which has been created, updated or deleted.
+ * Events only identify the changed resource; clients fetch it themselves if they are interested in it.
+ */
+public final class ChangeEvent {
+
+  /** The type of the changed resource. */
+  public enum Type {
+    VIDEO("video"), TRACK("track"), ANNOTATION("annotation"), CATEGORY("category"), LABEL("label"), SCALE("scale"),
+    SCALE_VALUE("scaleValue"), QUESTIONNAIRE("questionnaire"), COMMENT("comment");
+
+    private final String name;
+
+    Type(String name) {
+      this.name = name;
+    }
+
+    /** The name of the type as used in the REST API. */
+    public String getName() {
+      return name;
+    }
+  }
+
+  /** What happened to the resource. */
+  public enum Action {
+    CREATED, UPDATED, DELETED
+  }
+
+  private final Type type;
+  private final Action action;
+  private final long videoId;
+  private final long id;
+  private final Option<Long> parentId;
+  private final Resource resource;
+
+  public ChangeEvent(Type type, Action action, long videoId, long id, Option<Long> parentId, Resource resource) {
+    this.type = type;
+    this.action = action;
+    this.videoId = videoId;
+    this.id = id;
+    this.parentId = parentId;
+    this.resource = resource;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public Action getAction() {
+    return action;
+  }
+
+  /** The id of the video the resource belongs to. */
+  public long getVideoId() {
+    return videoId;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * The id of the parent of the resource: the track of an annotation, the category of a label, the scale of a scale
+   * value or the annotation of a comment.
+   */
+  public Option<Long> getParentId() {
+    return parentId;
+  }
+
+  /** The changed resource, to check whether a subscriber may see the event. */
+  public Resource getResource() {
+    return resource;
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.api;
+
+import org.opencastproject.util.data.Option;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A subscription to the {@link ChangeEvent}s of a video.
+ * Events are buffered until they are taken. A subscriber not keeping up with the events is evicted once its buffer is
+ * full, since it missed events then; it has to fetch the current state of the video and subscribe again.
+ */
+public interface ChangeSubscription extends AutoCloseable {
+
+  /**
+   * Take the next event, waiting for it up to the given time.
+   *
+   * @return the next event, or none if there was none in time or the subscription is closed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  Option<ChangeEvent> next(long timeout, TimeUnit unit) throws InterruptedException;
+
+  /** Whether the subscription was closed or the subscriber was evicted. No more events are delivered then. */
+  boolean isClosed();
+
+  /** Whether the subscriber was evicted for not keeping up, so that it missed events and has to catch up. */
+  boolean isEvicted();
+
+  /** Stop receiving events. */
+  @Override
+  void close();
+}
@@ -0,0 +1,90 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.api;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The resources of a video which have been created, updated or deleted since a given time.
+ * Deleted resources are included as well, with their deletion date set, so that clients can drop them.
+ */
+public final class Changes {
+
+  private final Date cursor;
+  private final List<Track> tracks;
+  private final List<Annotation> annotations;
+  private final List<Category> categories;
+  private final List<Label> labels;
+  private final List<Scale> scales;
+  private final List<ScaleValue> scaleValues;
+  private final List<Questionnaire> questionnaires;
+  private final List<Comment> comments;
+
+  public Changes(Date cursor, List<Track> tracks, List<Annotation> annotations, List<Category> categories,
+          List<Label> labels, List<Scale> scales, List<ScaleValue> scaleValues, List<Questionnaire> questionnaires,
+          List<Comment> comments) {
+    this.cursor = cursor;
+    this.tracks = tracks;
+    this.annotations = annotations;
+    this.categories = categories;
+    this.labels = labels;
+    this.scales = scales;
+    this.scaleValues = scaleValues;
+    this.questionnaires = questionnaires;
+    this.comments = comments;
+  }
+
+  /**
+   * The time to ask for the following changes with.
+   * Changes close to it might be returned again then, but none are missed.
+   */
+  public Date getCursor() {
+    return cursor;
+  }
+
+  public List<Track> getTracks() {
+    return tracks;
+  }
+
+  public List<Annotation> getAnnotations() {
+    return annotations;
+  }
+
+  public List<Category> getCategories() {
+    return categories;
+  }
+
+  public List<Label> getLabels() {
+    return labels;
+  }
+
+  public List<Scale> getScales() {
+    return scales;
+  }
+
+  public List<ScaleValue> getScaleValues() {
+    return scaleValues;
+  }
+
+  public List<Questionnaire> getQuestionnaires() {
+    return questionnaires;
+  }
+
+  public List<Comment> getComments() {
+    return comments;
+  }
+}
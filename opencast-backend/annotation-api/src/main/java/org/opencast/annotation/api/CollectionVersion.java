@@ -0,0 +1,120 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.api;
+
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencastproject.util.data.Option;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * A cheap validator of a collection of resources, computed without loading them. It changes whenever a resource of the
+ * collection is created, updated or deleted, so that requests for unchanged collections can be answered with
+ * <code>304 Not Modified</code>.
+ * A version may be qualified, e.g. by who it is computed for, as the resources of a collection one may see depend on
+ * that, too.
+ */
+public final class CollectionVersion {
+
+  private final long count;
+  private final Option<Date> lastModified;
+  private final String qualifier;
+
+  public CollectionVersion(long count, Option<Date> lastModified) {
+    this(count, lastModified, "");
+  }
+
+  private CollectionVersion(long count, Option<Date> lastModified, String qualifier) {
+    this.count = count;
+    this.lastModified = lastModified;
+    this.qualifier = qualifier;
+  }
+
+  /** The number of resources, including the deleted ones. */
+  public long getCount() {
+    return count;
+  }
+
+  /** The latest creation, update or deletion date of the resources, or none if there are none. */
+  public Option<Date> getLastModified() {
+    return lastModified;
+  }
+
+  /** What else than its resources this version depends on, empty if nothing. */
+  public String getQualifier() {
+    return qualifier;
+  }
+
+  /** Combine this version with the one of other resources the collection depends on. */
+  public CollectionVersion and(CollectionVersion other) {
+    return new CollectionVersion(count + other.count, latest(lastModified, other.lastModified),
+            qualifier.isEmpty() ? other.qualifier
+                    : other.qualifier.isEmpty() ? qualifier : qualifier + "." + other.qualifier);
+  }
+
+  /** Qualify this version by something else than its resources it depends on. */
+  public CollectionVersion qualify(String qualifier) {
+    return and(new CollectionVersion(0, none(), qualifier));
+  }
+
+  /** Get the later of two dates, either of which might be missing. */
+  public static Option<Date> latest(Option<Date> a, Option<Date> b) {
+    if (a.isNone()) {
+      return b;
+    }
+    if (b.isNone()) {
+      return a;
+    }
+    return a.get().after(b.get()) ? a : b;
+  }
+
+  /** Get the later of two nullable dates. */
+  public static Option<Date> latest(Date a, Date b) {
+    return latest(a != null ? some(a) : none(), b != null ? some(b) : none());
+  }
+
+  /** A string identifying this version, e.g. to be used as an entity tag. */
+  public String getTag() {
+    final String tag = count + "-" + (lastModified.isSome() ? lastModified.get().getTime() : 0);
+    return qualifier.isEmpty() ? tag : tag + "-" + qualifier;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CollectionVersion)) {
+      return false;
+    }
+    final CollectionVersion that = (CollectionVersion) o;
+    return count == that.count && Objects.equals(lastModified, that.lastModified)
+            && qualifier.equals(that.qualifier);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(count, lastModified, qualifier);
+  }
+
+  @Override
+  public String toString() {
+    return "CollectionVersion{" + getTag() + "}";
+  }
+}
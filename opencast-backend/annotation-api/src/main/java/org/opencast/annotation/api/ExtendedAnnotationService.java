@@ -18,6 +18,10 @@ package org.opencast.annotation.api;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.util.data.Option;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -71,6 +75,39 @@ public interface ExtendedAnnotationService {
    */
   boolean clearDatabase() throws ExtendedAnnotationException;
 
+  /**
+   * Import users, videos, scales, scale values, categories, labels, tracks, annotations and comments in one
+   * transaction. Every record has a <code>type</code> and otherwise the properties of the resource in the REST API,
+   * plus the id of its parent, e.g. <code>video_id</code> for tracks. A record has to follow the records it refers to.
+   * <p>
+   * The resources get new ids, and all references between them are translated, including the labels and scale values
+   * referenced by the content of annotations. Users and videos whose external id is known already are not imported
+   * again but referred to, and references to users that are not part of the import are dropped. Only Opencast
+   * administrators may import.
+   * <p>
+   * The records of a series export are accepted as well. The labels, categories, scale values and scales named by the
+   * content of their annotations are created in the video of the annotation the first time they are named.
+   *
+   * @param records
+   *          the records to import, read while importing
+   * @return how many records were imported and how long that took
+   * @throws IllegalArgumentException
+   *           if a record is malformed or refers to a record that has not been imported before
+   * @throws ExtendedAnnotationException
+   *           if the current user is no administrator or an error occurs while storing to persistence storage
+   */
+  ImportReport importRecords(Iterator<Map<String, Object>> records) throws ExtendedAnnotationException;
+
+  /**
+   * Get the counters of the background work and the caches of this node, by what they belong to, e.g. the progress of
+   * the propagation of series categories. Only Opencast administrators may get them.
+   *
+   * @return the counters by their name, by what they belong to
+   * @throws ExtendedAnnotationException
+   *           if the current user is no administrator
+   */
+  Map<String, Map<String, Long>> getStatistics() throws ExtendedAnnotationException;
+
   /**
    * Get a user by id.
    *
@@ -82,6 +119,17 @@ public interface ExtendedAnnotationService {
    */
   Option<User> getUser(long id) throws ExtendedAnnotationException;
 
+  /**
+   * Get several users by id at once. Ids of unknown or deleted users are skipped.
+   *
+   * @param ids
+   *          the users' internal ids
+   * @return the users found
+   * @throws ExtendedAnnotationException
+   *           if an error occurs while storing/retrieving from persistence storage
+   */
+  Stream<User> getUsers(Collection<Long> ids) throws ExtendedAnnotationException;
+
   /**
    * Get a user by his external id, which is the id he has in the surrounding video portal.
    *
@@ -149,6 +197,17 @@ public interface ExtendedAnnotationService {
    */
   Option<Video> getVideoByExtId(String id) throws ExtendedAnnotationException;
 
+  /**
+   * Get the videos of a series, i.e. the videos having categories of the series.
+   *
+   * @param seriesExtId
+   *          the external id of the series
+   * @return the videos, ordered by id
+   * @throws ExtendedAnnotationException
+   *           if an error occurs while storing/retrieving from persistence storage
+   */
+  Stream<Video> getVideosOfSeries(String seriesExtId) throws ExtendedAnnotationException;
+
   /**
    * Create a new track in a given video.
    *
@@ -246,6 +305,19 @@ public interface ExtendedAnnotationService {
    */
   Annotation createAnnotation(Annotation annotation) throws ExtendedAnnotationException;
 
+  /**
+   * Create several annotations at once. All of them are stored in a single transaction, so their number is limited.
+   *
+   * @param annotations
+   *          the annotations to store
+   * @return the stored annotations in the order they were given
+   * @throws ExtendedAnnotationException
+   *           if one of the tracks does not exist or an error occurs while storing to persistence storage
+   * @throws IllegalArgumentException
+   *           if there are more annotations than may be created at once
+   */
+  List<Annotation> createAnnotations(List<Annotation> annotations) throws ExtendedAnnotationException;
+
   /**
    * Update an annotation.
    *
@@ -280,6 +352,8 @@ public interface ExtendedAnnotationService {
 
   /**
    * Get annotations of a track.
+   * The annotations are read from the database while the stream is consumed. The stream has to be closed
+   * if it is not read to the end.
    *
    * @param trackId the track id
    * @return the annotation list or an empty list if no annotation has been found
@@ -287,6 +361,152 @@ public interface ExtendedAnnotationService {
    */
   Stream<Annotation> getAnnotations(long trackId) throws ExtendedAnnotationException;
 
+  /**
+   * Get a page of the annotations of a track, ordered by their start time.
+   *
+   * @param trackId the track id
+   * @param after   the cursor returned with the previous page or none to get the first page
+   * @param limit   the maximum number of annotations on the page
+   * @return the page of annotations
+   * @throws IllegalArgumentException if the cursor is malformed
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  Page<Annotation> getAnnotations(long trackId, Option<String> after, int limit) throws ExtendedAnnotationException;
+
+  /**
+   * Get the annotations of a track overlapping a time window.
+   * Annotations without a duration are treated as points in time.
+   * Like with {@link #getAnnotations(long)}, the stream has to be closed if it is not read to the end.
+   *
+   * @param trackId the track id
+   * @param from    the beginning of the window in seconds, or none to not restrict it
+   * @param to      the end of the window in seconds, or none to not restrict it
+   * @return the annotation list or an empty list if no annotation has been found
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  Stream<Annotation> getAnnotations(long trackId, Option<Double> from, Option<Double> to)
+          throws ExtendedAnnotationException;
+
+  /**
+   * Get a page of the annotations of a track overlapping a time window, ordered by their start time.
+   *
+   * @param trackId the track id
+   * @param from    the beginning of the window in seconds, or none to not restrict it
+   * @param to      the end of the window in seconds, or none to not restrict it
+   * @param after   the cursor returned with the previous page or none to get the first page
+   * @param limit   the maximum number of annotations on the page
+   * @return the page of annotations
+   * @throws IllegalArgumentException if the cursor is malformed
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  Page<Annotation> getAnnotations(long trackId, Option<Double> from, Option<Double> to, Option<String> after,
+          int limit) throws ExtendedAnnotationException;
+
+  /**
+   * Get the annotations of all tracks of a video the current user has access to.
+   * The annotations are ordered by the track they belong to.
+   * Like with {@link #getAnnotations(long)}, the stream has to be closed if it is not read to the end.
+   *
+   * @param videoId the video id
+   * @return the annotation list or an empty list if no annotation has been found
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  Stream<Annotation> getAnnotationsOfVideo(long videoId) throws ExtendedAnnotationException;
+
+  /**
+   * Get the annotations of all tracks of a video the current user has access to, overlapping a time window.
+   * The annotations are ordered by the track they belong to.
+   * Like with {@link #getAnnotations(long)}, the stream has to be closed if it is not read to the end.
+   *
+   * @param videoId the video id
+   * @param from    the beginning of the window in seconds, or none to not restrict it
+   * @param to      the end of the window in seconds, or none to not restrict it
+   * @return the annotation list or an empty list if no annotation has been found
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  Stream<Annotation> getAnnotationsOfVideo(long videoId, Option<Double> from, Option<Double> to)
+          throws ExtendedAnnotationException;
+
+  /**
+   * Get the annotations of all tracks of a video the current user has access to, overlapping a time window.
+   * Unlike {@link #getAnnotationsOfVideo(long, Option, Option)} this is answered from an in-memory index
+   * of the annotations of the video, which is built on first use and kept up to date on changes.
+   * Pass the same time as <code>from</code> and <code>to</code> to get the annotations active at that time.
+   *
+   * @param videoId the video id
+   * @param from    the beginning of the window in seconds
+   * @param to      the end of the window in seconds
+   * @return the annotations ordered by their start, or an empty list if no annotation has been found
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  Stream<Annotation> getActiveAnnotations(long videoId, double from, double to) throws ExtendedAnnotationException;
+
+  /**
+   * Get the tracks, annotations, categories, labels, scales, scale values, questionnaires and comments of a video
+   * which have been created, updated or deleted after the given time, filtered by access like the change events of
+   * the video, see {@link #hasEventAccess(ChangeEvent)}.
+   *
+   * @param videoId the video id
+   * @param since   the cursor returned with the previous changes, or any earlier time
+   * @return the changes
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  Changes getChanges(long videoId, Date since) throws ExtendedAnnotationException;
+
+  /**
+   * Subscribe to the changes of the resources of a video. The subscription has to be closed when it is not needed
+   * anymore. The number of subscriptions is limited in total and per video.
+   *
+   * @param videoId the video id
+   * @return the subscription, none if there are as many subscriptions as allowed already
+   */
+  Option<ChangeSubscription> subscribe(long videoId);
+
+  /**
+   * Checks if the current user may learn about a change, i.e. has access to the changed resource as it would be
+   * returned in its list: annotations also require access to their track and to the categories of their labels,
+   * comments to their annotation, labels to their category and scale values to their scale.
+   *
+   * @param event the change
+   * @return true if the current user may learn about the change
+   * @throws ExtendedAnnotationException if an error occurs while retrieving from persistence storage
+   */
+  boolean hasEventAccess(ChangeEvent event) throws ExtendedAnnotationException;
+
+  /**
+   * Get the version of the tracks of a video, to answer conditional requests without loading them.
+   * It covers the deleted tracks as well, since deleting a track changes the collection.
+   *
+   * @param videoId the video id
+   * @return the version
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  CollectionVersion getTracksVersion(long videoId) throws ExtendedAnnotationException;
+
+  /**
+   * Get the version of the annotations of a track, which also covers the track and the categories of its video,
+   * since the access to the annotations depends on them.
+   */
+  CollectionVersion getAnnotationsVersion(long trackId) throws ExtendedAnnotationException;
+
+  /** Get the version of the annotations of all tracks of a video, including the tracks and categories of the video. */
+  CollectionVersion getAnnotationsOfVideoVersion(long videoId) throws ExtendedAnnotationException;
+
+  /** Get the version of the categories of a video, including its copies of series categories. */
+  CollectionVersion getCategoriesVersion(long videoId) throws ExtendedAnnotationException;
+
+  /** Get the version of the labels of a category, including those of its series category and the categories. */
+  CollectionVersion getLabelsVersion(long categoryId) throws ExtendedAnnotationException;
+
+  /** Get the version of the scales of a video. */
+  CollectionVersion getScalesVersion(long videoId) throws ExtendedAnnotationException;
+
+  /** Get the version of the values of a scale, including the scale. */
+  CollectionVersion getScaleValuesVersion(long scaleId) throws ExtendedAnnotationException;
+
+  /** Get the version of the questionnaires of a video. */
+  CollectionVersion getQuestionnairesVersion(long videoId) throws ExtendedAnnotationException;
+
   /**
    * Create a scale
    *
@@ -388,6 +608,15 @@ public interface ExtendedAnnotationService {
    */
   Stream<ScaleValue> getScaleValues(long scaleId) throws ExtendedAnnotationException;
 
+  /**
+   * Get the scale values of all scales of a video, including deleted ones.
+   *
+   * @param videoId the video id
+   * @return the scale value list or an empty list if no scale values has been found
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  Stream<ScaleValue> getScaleValuesOfVideo(long videoId) throws ExtendedAnnotationException;
+
   /**
    * Update a scale value
    *
@@ -513,14 +742,27 @@ public interface ExtendedAnnotationService {
   Option<Category> getCategory(long id, boolean includeDeleted) throws ExtendedAnnotationException;
 
   /**
-   * Get all categories from a video.
+   * Get all categories from a video, including its copies of the series categories of its series.
+   * This only reads; the copies are written by {@link #copySeriesCategories(String, long)} and whenever their series
+   * category is updated.
    *
-   * @param seriesExtId the external series the category belongs to
-   * @param videoId     the video id
+   * @param videoId the video id
    * @return the category list or an empty list if no categories has been found
    * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
    */
-  Stream<Category> getCategories(Option<String> seriesExtId, long videoId) throws ExtendedAnnotationException;
+  Stream<Category> getCategories(long videoId) throws ExtendedAnnotationException;
+
+  /**
+   * Give a video a copy of every series category of a series it does not have a copy of yet, and bring its stale copies
+   * up to date. Copies are kept up to date in the background whenever their series category is updated, so this
+   * usually only writes the first time a video is opened after a series category has been added to its series, or
+   * when a background update got lost.
+   *
+   * @param seriesExtId the external id of the series the video belongs to
+   * @param videoId     the video id
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  void copySeriesCategories(String seriesExtId, long videoId) throws ExtendedAnnotationException;
 
   /**
    * Update a category.
@@ -598,6 +840,16 @@ public interface ExtendedAnnotationService {
    */
   Stream<Label> getLabels(long categoryId) throws ExtendedAnnotationException;
 
+  /**
+   * Get the labels of all categories of a video, including deleted ones.
+   * Unlike {@link #getLabels(long)} this does not synchronize labels of series category copies.
+   *
+   * @param videoId the video id
+   * @return the label list or an empty list if no labels has been found
+   * @throws ExtendedAnnotationException if an error occurs while storing/retrieving from persistence storage
+   */
+  Stream<Label> getLabelsOfVideo(long videoId) throws ExtendedAnnotationException;
+
   /**
    * Update a label.
    *
@@ -652,6 +904,26 @@ public interface ExtendedAnnotationService {
    */
   Stream<Comment> getComments(long annotationId, Option<Long> replyToId);
 
+  /**
+   * Get a page of the comments of an annotation, ordered by their creation.
+   *
+   * @param annotationId the annotation id
+   * @param replyToId    id of the comment to ge the replies to
+   * @param after        the cursor returned with the previous page or none to get the first page
+   * @param limit        the maximum number of comments on the page
+   * @return the page of comments
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  Page<Comment> getComments(long annotationId, Option<Long> replyToId, Option<String> after, int limit);
+
+  /**
+   * Get the comments of several annotations at once, replies included, ordered by their creation.
+   *
+   * @param annotationIds the annotation ids
+   * @return the comments of the annotations
+   */
+  Stream<Comment> getCommentsOfAnnotations(Collection<Long> annotationIds);
+
   /**
    * Update a comment
    *
@@ -750,4 +1022,22 @@ public interface ExtendedAnnotationService {
    * @return the media package corresponding to the given id, if it can be found
    */
   Option<MediaPackage> findMediaPackage(String id);
+
+  /**
+   * Forget the media package lookups and access decisions cached for a media package, e.g. after its access rights
+   * changed, so that they take effect right away instead of once the cached ones expire. Only Opencast administrators
+   * may do so.
+   *
+   * @param mediaPackageId
+   *          the Opencast-level id of a media package
+   * @throws ExtendedAnnotationException
+   *           if the current user is no administrator
+   */
+  void invalidateMediaPackage(String mediaPackageId) throws ExtendedAnnotationException;
+
+  /**
+   * Forget who the current thread acts as. It is looked up once per request and reused by the following calls,
+   * so callers have to end every request with this, including the writing of streamed responses.
+   */
+  void endRequest();
 }
@@ -0,0 +1,60 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.api;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The outcome of a bulk import: how many records of each type were imported and how long that took.
+ */
+public final class ImportReport {
+
+  private final Map<String, Long> counts;
+  private final long millis;
+
+  /**
+   * @param counts
+   *          the number of imported records by record type
+   * @param millis
+   *          the duration of the import in milliseconds
+   */
+  public ImportReport(Map<String, Long> counts, long millis) {
+    this.counts = Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+    this.millis = millis;
+  }
+
+  /** The number of imported records by record type, in the order the types first occurred. */
+  public Map<String, Long> getCounts() {
+    return counts;
+  }
+
+  /** The number of imported records. */
+  public long getRecords() {
+    return counts.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  /** The duration of the import in milliseconds. */
+  public long getMillis() {
+    return millis;
+  }
+
+  /** The throughput of the import. */
+  public double getRecordsPerSecond() {
+    return getRecords() * 1000.0 / Math.max(millis, 1);
+  }
+}
@@ -0,0 +1,49 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.api;
+
+import org.opencastproject.util.data.Option;
+
+import java.util.List;
+
+/**
+ * A page of a list of resources, fetched using keyset pagination.
+ * Pass the cursor returned by {@link #getNext()} to fetch the following page.
+ */
+public final class Page<A> {
+
+  private final List<A> items;
+  private final Option<String> next;
+
+  public Page(List<A> items, Option<String> next) {
+    this.items = items;
+    this.next = next;
+  }
+
+  /**
+   * The resources of this page.
+   * A page might hold fewer resources than requested even if it is not the last one,
+   * since resources the current user has no access to are left out.
+   */
+  public List<A> getItems() {
+    return items;
+  }
+
+  /** The cursor pointing behind this page, or none if this is the last page. */
+  public Option<String> getNext() {
+    return next;
+  }
+}
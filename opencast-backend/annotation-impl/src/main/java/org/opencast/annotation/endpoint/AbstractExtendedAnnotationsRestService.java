@@ -17,6 +17,8 @@ package org.opencast.annotation.endpoint;
 
 import static org.opencast.annotation.api.ExtendedAnnotationService.ANNOTATE_ACTION;
 import static org.opencast.annotation.api.ExtendedAnnotationService.ANNOTATE_ADMIN_ACTION;
+import static org.opencast.annotation.impl.Jsons.jO;
+import static org.opencast.annotation.impl.Jsons.p;
 import static org.opencastproject.util.UrlSupport.uri;
 import static org.opencastproject.util.data.Arrays.array;
 import static org.opencastproject.util.data.Option.option;
@@ -24,12 +26,14 @@ import static org.opencastproject.util.data.functions.Strings.trimToNone;
 
 import org.opencast.annotation.api.ExtendedAnnotationException;
 import org.opencast.annotation.api.ExtendedAnnotationService;
+import org.opencast.annotation.api.ImportReport;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.api.User;
 import org.opencast.annotation.api.Video;
 import org.opencast.annotation.impl.ResourceImpl;
 import org.opencast.annotation.impl.UserImpl;
 import org.opencast.annotation.impl.VideoImpl;
+import org.opencast.annotation.impl.persistence.SeriesExport;
 import org.opencast.annotation.impl.persistence.UserDto;
 import org.opencast.annotation.impl.persistence.VideoDto;
 
@@ -38,10 +42,25 @@ import org.opencastproject.util.data.Function0;
 import org.opencastproject.util.data.Option;
 
 import org.apache.commons.lang3.StringUtils;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 import javax.ws.rs.DELETE;
 import javax.ws.rs.FormParam;
@@ -53,6 +72,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 // no @Path annotation here since this class cannot be created by JAX-RS. Put it on implementations.
 public abstract class AbstractExtendedAnnotationsRestService {
@@ -62,6 +82,9 @@ public abstract class AbstractExtendedAnnotationsRestService {
   /** Location header. */
   static final String LOCATION = "Location";
 
+  /** The media type of newline delimited JSON. */
+  static final String NDJSON = "application/x-ndjson";
+
   protected abstract ExtendedAnnotationService getExtendedAnnotationsService();
 
   protected abstract String getEndpointBaseUrl();
@@ -194,11 +217,29 @@ public abstract class AbstractExtendedAnnotationsRestService {
   @Produces(MediaType.TEXT_PLAIN)
   @Path("/users/is-annotate-admin/{mpId}")
   public Response isAnnotateAdmin(@PathParam("mpId") final String mpId) {
-    Option<MediaPackage> mpOpt = eas().findMediaPackage(mpId);
-    if (mpOpt.isSome()) {
-      return Response.ok(Boolean.toString(eas().hasVideoAccess(mpOpt.get(), ANNOTATE_ADMIN_ACTION))).build();
-    }
-    return Response.ok("false").build();
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        Option<MediaPackage> mpOpt = eas().findMediaPackage(mpId);
+        if (mpOpt.isSome()) {
+          return Response.ok(Boolean.toString(eas().hasVideoAccess(mpOpt.get(), ANNOTATE_ADMIN_ACTION))).build();
+        }
+        return Response.ok("false").build();
+      }
+    });
+  }
+
+  /** Forget the cached lookup and access decisions of a media package, e.g. right after its access rights changed. */
+  @DELETE
+  @Path("/media-packages/{mpId}/cache")
+  public Response deleteMediaPackageCache(@PathParam("mpId") final String mpId) {
+    return run(array(mpId), new Function0<>() {
+      @Override
+      public Response apply() {
+        eas().invalidateMediaPackage(mpId);
+        return NO_CONTENT;
+      }
+    });
   }
 
   @POST
@@ -232,7 +273,8 @@ public abstract class AbstractExtendedAnnotationsRestService {
   @Produces(MediaType.APPLICATION_JSON)
   @Path("/videos")
   public Response putVideo(@FormParam("video_extid") final String videoExtId,
-          @FormParam("access") final Integer access) {
+          @FormParam("series_extid") final String seriesExtId, @FormParam("access") final Integer access) {
+    final Option<String> seriesExtIdOpt = trimToNone(seriesExtId);
     return run(array(videoExtId), new Function0<>() {
       @Override
       public Response apply() {
@@ -258,6 +300,7 @@ public abstract class AbstractExtendedAnnotationsRestService {
               eas().updateVideo(updated);
               v = updated;
             }
+            copySeriesCategories(seriesExtIdOpt, v);
             return Response.ok(VideoDto.toJson.apply(eas(), v).toString()).header(LOCATION, videoLocationUri(v)).build();
           }
 
@@ -267,6 +310,7 @@ public abstract class AbstractExtendedAnnotationsRestService {
             final Video v = eas().createVideo(videoExtId,
                 new ResourceImpl(option(access), resource.getCreatedBy(), resource.getUpdatedBy(), resource.getDeletedBy(), resource.getCreatedAt(), resource.getUpdatedAt(), resource.getDeletedAt(),
                     resource.getTags()));
+            copySeriesCategories(seriesExtIdOpt, v);
             return Response.created(videoLocationUri(v)).entity(VideoDto.toJson.apply(eas(), v).toString()).build();
           }
         });
@@ -274,11 +318,121 @@ public abstract class AbstractExtendedAnnotationsRestService {
     });
   }
 
+  /** Give a video the series categories of its series, so that reading its categories finds them. */
+  private void copySeriesCategories(Option<String> seriesExtId, Video v) {
+    if (seriesExtId.isSome()) {
+      eas().copySeriesCategories(seriesExtId.get(), v.getId());
+    }
+  }
+
   @Path("/videos/{id}")
   public VideoEndpoint video(@PathParam("id") final long id) {
+    // Forget a principal left behind by a request which ended before reaching any resource method
+    eas().endRequest();
     return new VideoEndpoint(id, this, eas());
   }
 
+  /**
+   * Export the annotations of all videos of a series the current user has access to as newline delimited JSON,
+   * streaming the records while they are read.
+   */
+  @GET
+  @Produces(NDJSON)
+  @Path("/series/{seriesExtId}/export.ndjson")
+  public Response getSeriesExport(@PathParam("seriesExtId") final String seriesExtId) {
+    return run(array(seriesExtId), new Function0<>() {
+      @Override
+      public Response apply() {
+        final SeriesExport export = new SeriesExport(eas(), seriesExtId);
+        final StreamingOutput entity = out -> {
+          try {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            export.write(writer);
+            writer.flush();
+          } finally {
+            eas().endRequest();
+          }
+        };
+        return Response.ok(entity).header("Content-Disposition", "attachment; filename=export.ndjson").build();
+      }
+    });
+  }
+
+  @POST
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("/import")
+  public Response postImport(final InputStream body) {
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        final ImportReport report;
+        try {
+          report = eas().importRecords(records(reader));
+        } catch (IllegalArgumentException e) {
+          return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).type(MediaType.TEXT_PLAIN)
+                  .build();
+        }
+        return Response.ok(jO(p("records", report.getRecords()), p("millis", report.getMillis()),
+                p("records_per_second", report.getRecordsPerSecond()),
+                p("imported", new JSONObject(report.getCounts()))).toString()).build();
+      }
+    });
+  }
+
+  /** Get the counters of the background work of this node, e.g. to monitor the propagation of series categories. */
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("/statistics")
+  public Response getStatistics() {
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        return Response.ok(new JSONObject(eas().getStatistics()).toString()).build();
+      }
+    });
+  }
+
+  /** Parse the lines of newline delimited JSON one by one while they are iterated, skipping blank lines. */
+  private static Iterator<Map<String, Object>> records(BufferedReader reader) {
+    final JSONParser parser = new JSONParser();
+    return new Iterator<>() {
+      private String line;
+      private long lineNumber;
+
+      @Override
+      public boolean hasNext() {
+        try {
+          while (line == null || line.isBlank()) {
+            line = reader.readLine();
+            if (line == null) {
+              return false;
+            }
+            lineNumber++;
+          }
+          return true;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public Map<String, Object> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final String current = line;
+        line = null;
+        try {
+          return (Map<String, Object>) parser.parse(current);
+        } catch (ParseException | ClassCastException e) {
+          throw new IllegalArgumentException("Line " + lineNumber + ": no JSON object");
+        }
+      }
+    };
+  }
+
   // --
 
   static final Response NOT_FOUND = Response.status(Response.Status.NOT_FOUND).build();
@@ -291,13 +445,13 @@ public abstract class AbstractExtendedAnnotationsRestService {
 
   static final Object[] nil = new Object[0];
 
-  /** Run <code>f</code> doing common exception transformation. */
-  static Response run(Object[] mandatoryParams, Function0<Response> f) {
-    for (Object a : mandatoryParams) {
-      if (a == null || StringUtils.isEmpty(a.toString()))
-        return BAD_REQUEST;
-    }
+  /** Run <code>f</code> doing common exception transformation and ending the request of the service afterwards. */
+  Response run(Object[] mandatoryParams, Function0<Response> f) {
     try {
+      for (Object a : mandatoryParams) {
+        if (a == null || StringUtils.isEmpty(a.toString()))
+          return BAD_REQUEST;
+      }
       return f.apply();
     } catch (ExtendedAnnotationException e) {
       switch (e.getCauseCode()) {
@@ -311,6 +465,8 @@ public abstract class AbstractExtendedAnnotationsRestService {
           logger.error("The annotation tool endpoint experienced an unexpected error.", e);
           return SERVER_ERROR;
       }
+    } finally {
+      eas().endRequest();
     }
   }
 
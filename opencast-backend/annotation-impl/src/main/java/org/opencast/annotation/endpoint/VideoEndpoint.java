@@ -8,7 +8,10 @@ import static org.opencast.annotation.endpoint.AbstractExtendedAnnotationsRestSe
 import static org.opencast.annotation.endpoint.AbstractExtendedAnnotationsRestService.NO_CONTENT;
 import static org.opencast.annotation.endpoint.AbstractExtendedAnnotationsRestService.UNAUTHORIZED;
 import static org.opencast.annotation.endpoint.AbstractExtendedAnnotationsRestService.nil;
-import static org.opencast.annotation.endpoint.AbstractExtendedAnnotationsRestService.run;
+import static org.opencast.annotation.impl.Jsons.conc;
+import static org.opencast.annotation.impl.Jsons.jA;
+import static org.opencast.annotation.impl.Jsons.jO;
+import static org.opencast.annotation.impl.Jsons.p;
 import static org.opencastproject.util.UrlSupport.uri;
 import static org.opencastproject.util.data.Arrays.array;
 import static org.opencastproject.util.data.Option.none;
@@ -18,10 +21,15 @@ import static org.opencastproject.util.data.functions.Strings.trimToNone;
 
 import org.opencast.annotation.api.Annotation;
 import org.opencast.annotation.api.Category;
+import org.opencast.annotation.api.ChangeEvent;
+import org.opencast.annotation.api.ChangeSubscription;
+import org.opencast.annotation.api.Changes;
+import org.opencast.annotation.api.CollectionVersion;
 import org.opencast.annotation.api.Comment;
 import org.opencast.annotation.api.ExtendedAnnotationException;
 import org.opencast.annotation.api.ExtendedAnnotationService;
 import org.opencast.annotation.api.Label;
+import org.opencast.annotation.api.Page;
 import org.opencast.annotation.api.Questionnaire;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.api.Scale;
@@ -31,18 +39,24 @@ import org.opencast.annotation.api.Video;
 import org.opencast.annotation.impl.AnnotationImpl;
 import org.opencast.annotation.impl.CategoryImpl;
 import org.opencast.annotation.impl.CommentImpl;
+import org.opencast.annotation.impl.CsvTableWriter;
+import org.opencast.annotation.impl.JsonStreamWriter;
 import org.opencast.annotation.impl.LabelImpl;
 import org.opencast.annotation.impl.ResourceImpl;
 import org.opencast.annotation.impl.ScaleImpl;
 import org.opencast.annotation.impl.ScaleValueImpl;
+import org.opencast.annotation.impl.TableWriter;
 import org.opencast.annotation.impl.TrackImpl;
+import org.opencast.annotation.impl.XlsxTableWriter;
 import org.opencast.annotation.impl.persistence.AnnotationDto;
+import org.opencast.annotation.impl.persistence.AnnotationExport;
 import org.opencast.annotation.impl.persistence.CategoryDto;
 import org.opencast.annotation.impl.persistence.CommentDto;
 import org.opencast.annotation.impl.persistence.LabelDto;
 import org.opencast.annotation.impl.persistence.QuestionnaireDto;
 import org.opencast.annotation.impl.persistence.ScaleDto;
 import org.opencast.annotation.impl.persistence.ScaleValueDto;
+import org.opencast.annotation.impl.persistence.SerializationContext;
 import org.opencast.annotation.impl.persistence.TrackDto;
 import org.opencast.annotation.impl.persistence.VideoDto;
 
@@ -51,8 +65,29 @@ import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Function0;
 import org.opencastproject.util.data.Option;
 
-import java.net.URI;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
 
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.FormParam;
@@ -64,11 +99,34 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 public class VideoEndpoint {
 
+  /** The number of resources to put on a page, if the client paginates but does not ask for a page size. */
+  static final int DEFAULT_PAGE_SIZE = 100;
+
+  /** The maximum number of resources to put on a page. */
+  static final int MAX_PAGE_SIZE = 1000;
+
+  /** How long the event stream waits for a change before sending a comment, to keep proxies from closing it. */
+  static final long EVENTS_KEEP_ALIVE_SECONDS = 15;
+
+  /** How long a client refused to listen to the events, as too many clients listen already, should poll instead. */
+  static final long EVENTS_RETRY_AFTER_SECONDS = 60;
+
+  /** The media type of Excel workbooks. */
+  static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+  /** The name of the sheet holding the annotations in Excel exports, like in the exports of the annotation tool. */
+  static final String EXPORT_SHEET_NAME = "Sheet 1";
+
   private final AbstractExtendedAnnotationsRestService host;
   private final ExtendedAnnotationService eas;
 
@@ -81,13 +139,19 @@ public class VideoEndpoint {
     this.host = host;
     this.eas = eas;
 
-    this.videoOpt = this.eas.getVideo(videoId);
+    try {
+      this.videoOpt = this.eas.getVideo(videoId);
 
-    if (this.videoOpt.isSome()) {
-      MediaPackage mediaPackage = eas.findMediaPackage(videoOpt.get().getExtId()).get();
-      if (!eas.hasVideoAccess(mediaPackage, ANNOTATE_ACTION)) {
-        throw new WebApplicationException(FORBIDDEN);
+      if (this.videoOpt.isSome()) {
+        MediaPackage mediaPackage = eas.findMediaPackage(videoOpt.get().getExtId()).get();
+        if (!eas.hasVideoAccess(mediaPackage, ANNOTATE_ACTION)) {
+          throw new WebApplicationException(FORBIDDEN);
+        }
       }
+    } catch (RuntimeException e) {
+      // No resource method runs, so the request ends here
+      eas.endRequest();
+      throw e;
     }
   }
 
@@ -115,6 +179,210 @@ public class VideoEndpoint {
     });
   }
 
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("snapshot")
+  public Response getSnapshot() {
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        return videoOpt.fold(new Option.Match<>() {
+          @Override
+          public Response some(Video v) {
+            if (!eas.hasResourceAccess(v)) {
+              return UNAUTHORIZED;
+            }
+            return Response.ok(snapshot(v).toString()).build();
+          }
+
+          @Override
+          public Response none() {
+            return NOT_FOUND;
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Serialize a video together with everything the annotation tool loads initially. Children are fetched per video
+   * and grouped in memory, so the number of queries does not depend on the number of categories, scales or tracks.
+   */
+  private JSONObject snapshot(Video v) {
+    final List<Category> categories = eas.getCategories(videoId).collect(Collectors.toList());
+    final List<Label> labels = eas.getLabelsOfVideo(videoId).collect(Collectors.toList());
+    final List<Scale> scales = eas.getScales(videoId).collect(Collectors.toList());
+    final List<ScaleValue> scaleValues = eas.getScaleValuesOfVideo(videoId).collect(Collectors.toList());
+    final List<Track> tracks = eas.getTracks(videoId).collect(Collectors.toList());
+    final List<Annotation> annotations = eas.getAnnotationsOfVideo(videoId).collect(Collectors.toList());
+    final List<Questionnaire> questionnaires = eas.getQuestionnaires(videoId).collect(Collectors.toList());
+
+    final List<Resource> resources = new ArrayList<>();
+    resources.add(v);
+    resources.addAll(categories);
+    resources.addAll(labels);
+    resources.addAll(scales);
+    resources.addAll(scaleValues);
+    resources.addAll(tracks);
+    resources.addAll(annotations);
+    resources.addAll(questionnaires);
+    final SerializationContext ctx = SerializationContext.of(eas, resources);
+
+    final Map<Long, List<Label>> labelsByCategory = labels.stream()
+            .collect(Collectors.groupingBy(Label::getCategoryId));
+    final Map<Long, List<ScaleValue>> scaleValuesByScale = scaleValues.stream()
+            .collect(Collectors.groupingBy(ScaleValue::getScaleId));
+    final Map<Long, List<Annotation>> annotationsByTrack = annotations.stream()
+            .collect(Collectors.groupingBy(Annotation::getTrackId));
+
+    return conc(VideoDto.toJson(ctx, v), jO(
+            p("categories", jA(categories.stream()
+                    .map(c -> conc(CategoryDto.toJson(ctx, c), jO(p("labels", jA(
+                            labelsByCategory.getOrDefault(c.getId(), List.of()).stream()
+                                    .map(l -> LabelDto.toJson(ctx, l, c)).toArray())))))
+                    .toArray())),
+            p("scales", jA(scales.stream()
+                    .map(s -> conc(ScaleDto.toJson(ctx, s), jO(p("scaleValues", jA(
+                            scaleValuesByScale.getOrDefault(s.getId(), List.of()).stream()
+                                    .map(sv -> ScaleValueDto.toJson(ctx, sv, s)).toArray())))))
+                    .toArray())),
+            p("tracks", jA(tracks.stream()
+                    .map(t -> conc(TrackDto.toJson(ctx, t), jO(p("annotations", jA(
+                            annotationsByTrack.getOrDefault(t.getId(), List.of()).stream()
+                                    .map(a -> AnnotationDto.toJson(ctx, a)).toArray())))))
+                    .toArray())),
+            p("questionnaires", jA(questionnaires.stream()
+                    .map(q -> QuestionnaireDto.toJson(ctx, q)).toArray()))));
+  }
+
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("changes")
+  public Response getChanges(@QueryParam("since") final Long since) {
+    return run(array(since), new Function0<>() {
+      @Override
+      public Response apply() {
+        return videoOpt.fold(new Option.Match<>() {
+          @Override
+          public Response some(Video v) {
+            if (!eas.hasResourceAccess(v)) {
+              return UNAUTHORIZED;
+            }
+            return Response.ok(changes(eas.getChanges(videoId, new Date(since))).toString()).build();
+          }
+
+          @Override
+          public Response none() {
+            return NOT_FOUND;
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Serialize the changes of a video as flat lists per resource type. Unlike in the snapshot, children are not nested
+   * into their parents, which might not have changed, so annotations and comments carry the ids of their parents.
+   */
+  private JSONObject changes(Changes changes) {
+    final List<Resource> resources = new ArrayList<>();
+    resources.addAll(changes.getTracks());
+    resources.addAll(changes.getAnnotations());
+    resources.addAll(changes.getCategories());
+    resources.addAll(changes.getLabels());
+    resources.addAll(changes.getScales());
+    resources.addAll(changes.getScaleValues());
+    resources.addAll(changes.getQuestionnaires());
+    resources.addAll(changes.getComments());
+    final SerializationContext ctx = SerializationContext.of(eas, resources);
+
+    return jO(p("cursor", changes.getCursor().getTime()),
+            p("tracks", jA(changes.getTracks().stream().map(t -> TrackDto.toJson(ctx, t)).toArray())),
+            p("annotations", jA(changes.getAnnotations().stream()
+                    .map(a -> conc(AnnotationDto.toJson(ctx, a), jO(p("track_id", a.getTrackId()))))
+                    .toArray())),
+            p("categories", jA(changes.getCategories().stream().map(c -> CategoryDto.toJson(ctx, c)).toArray())),
+            p("labels", jA(changes.getLabels().stream().map(l -> LabelDto.toJson(ctx, l)).toArray())),
+            p("scales", jA(changes.getScales().stream().map(s -> ScaleDto.toJson(ctx, s)).toArray())),
+            p("scaleValues", jA(changes.getScaleValues().stream().map(sv -> ScaleValueDto.toJson(ctx, sv)).toArray())),
+            p("questionnaires", jA(changes.getQuestionnaires().stream()
+                    .map(q -> QuestionnaireDto.toJson(ctx, q)).toArray())),
+            p("comments", jA(changes.getComments().stream()
+                    .map(c -> conc(CommentDto.toJson(ctx, c), jO(p("annotation_id", c.getAnnotationId()),
+                            p("reply_to_id", c.getReplyToId()))))
+                    .toArray())));
+  }
+
+  @GET
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  @Path("events")
+  public Response getEvents() {
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        return videoOpt.fold(new Option.Match<>() {
+          @Override
+          public Response some(Video v) {
+            if (!eas.hasResourceAccess(v)) {
+              return UNAUTHORIZED;
+            }
+            final Option<ChangeSubscription> subscription = eas.subscribe(videoId);
+            if (subscription.isNone()) {
+              // Clients have to poll the changes of the video instead
+              return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                      .header("Retry-After", EVENTS_RETRY_AFTER_SECONDS).build();
+            }
+            return Response.ok(events(subscription.get())).header("Cache-Control", "no-cache").build();
+          }
+
+          @Override
+          public Response none() {
+            return NOT_FOUND;
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Stream the changes of the video as server-sent events until the client disconnects, closing the subscription then.
+   * Events the current user may not learn about are left out, like the resources they are about are left out of their
+   * lists. A client not keeping up with the events is evicted by the service and gets an <code>evicted</code> event,
+   * after which it has to catch up using the changes of the video before listening again.
+   */
+  private StreamingOutput events(ChangeSubscription subscription) {
+    return out -> {
+      final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      try (subscription) {
+        while (!subscription.isClosed()) {
+          final Option<ChangeEvent> event = subscription.next(EVENTS_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+          if (event.isSome()) {
+            if (eas.hasEventAccess(event.get())) {
+              writer.write("event: change\ndata: " + toJson(event.get()) + "\n\n");
+            }
+          } else if (!subscription.isClosed()) {
+            writer.write(": keep-alive\n\n");
+          }
+          writer.flush();
+        }
+        // The subscription may be evicted at any time, not only while waiting for the next event
+        if (subscription.isEvicted()) {
+          writer.write("event: evicted\ndata: {}\n\n");
+          writer.flush();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        eas.endRequest();
+      }
+    };
+  }
+
+  private static JSONObject toJson(ChangeEvent event) {
+    return jO(p("type", event.getType().getName()), p("action", event.getAction().name().toLowerCase()),
+            p("id", event.getId()), p("parent_id", event.getParentId()));
+  }
+
   @DELETE
   public Response deleteVideo() {
     return run(nil, new Function0<>() {
@@ -210,29 +478,28 @@ public class VideoEndpoint {
   @Path("tracks/{trackId}")
   public Response deleteTrack(@PathParam("trackId") final long trackId) {
     // TODO optimize querying for the existence of video and track
-    if (videoOpt.isSome()) {
-      return run(nil, new Function0<>() {
-        @Override
-        public Response apply() {
-          return eas.getTrack(trackId).fold(new Option.Match<>() {
-            @Override
-            public Response some(Track t) {
-              if (!eas.hasResourceAccess(t)) {
-                return UNAUTHORIZED;
-              }
-              return eas.deleteTrack(t) ? NO_CONTENT : NOT_FOUND;
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        if (videoOpt.isNone()) {
+          return BAD_REQUEST;
+        }
+        return eas.getTrack(trackId).fold(new Option.Match<>() {
+          @Override
+          public Response some(Track t) {
+            if (!eas.hasResourceAccess(t)) {
+              return UNAUTHORIZED;
             }
+            return eas.deleteTrack(t) ? NO_CONTENT : NOT_FOUND;
+          }
 
-            @Override
-            public Response none() {
-              return NOT_FOUND;
-            }
-          });
-        }
-      });
-    } else {
-      return BAD_REQUEST;
-    }
+          @Override
+          public Response none() {
+            return NOT_FOUND;
+          }
+        });
+      }
+    });
   }
 
   @GET
@@ -267,14 +534,15 @@ public class VideoEndpoint {
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Path("tracks")
-  public Response getTracks() {
+  public Response getTracks(@Context final Request request) {
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
         if (videoOpt.isNone()) {
           return BAD_REQUEST;
         } else {
-          return Response.ok(TrackDto.toJson(eas, eas.getTracks(videoId)).toString()).build();
+          return conditional(request, eas.getTracksVersion(videoId),
+                  () -> json(TrackDto.writeJson(eas, eas.getTracks(videoId))));
         }
       }
     });
@@ -302,6 +570,74 @@ public class VideoEndpoint {
     });
   }
 
+  /**
+   * Create several annotations in one transaction. Batches larger than configured by
+   * <code>annotations.batch.max</code> in the service configuration are refused with
+   * <code>413 Payload Too Large</code>.
+   */
+  @POST
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("tracks/{trackId}/annotations/batch")
+  public Response postAnnotations(@PathParam("trackId") final long trackId, final String annotations) {
+    return run(array(annotations), new Function0<>() {
+      @Override
+      public Response apply() {
+        if (videoOpt.isNone()) {
+          return BAD_REQUEST;
+        }
+        final List<Annotation> parsed;
+        try {
+          parsed = parseAnnotations(trackId, annotations, eas.createResource());
+        } catch (ParseException | ClassCastException | IllegalArgumentException e) {
+          return BAD_REQUEST;
+        }
+        final List<Annotation> created;
+        try {
+          created = eas.createAnnotations(parsed);
+        } catch (IllegalArgumentException e) {
+          // more annotations than may be created at once
+          return Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE).build();
+        }
+        return Response.status(Response.Status.CREATED)
+                .entity(jO(p("ids", jA(created.stream().map(Annotation::getId).toArray()))).toString())
+                .build();
+      }
+    });
+  }
+
+  /**
+   * Parse a JSON array of annotations. Each of them is an object with the same fields
+   * as the form parameters used to post a single annotation.
+   */
+  private static List<Annotation> parseAnnotations(long trackId, String json, Resource resource)
+          throws ParseException {
+    final List<Annotation> annotations = new ArrayList<>();
+    for (Object item : (List<?>) new JSONParser().parse(json)) {
+      final Map<?, ?> annotation = (Map<?, ?>) item;
+      final Number start = (Number) annotation.get("start");
+      if (start == null) {
+        throw new IllegalArgumentException("Every annotation needs a start");
+      }
+      final Number duration = (Number) annotation.get("duration");
+      final Number createdFromQuestionnaire = (Number) annotation.get("createdFromQuestionnaire");
+      annotations.add(new AnnotationImpl(0, trackId, start.doubleValue(),
+              option(duration == null ? null : duration.doubleValue()),
+              toJsonString(annotation.get("content"), "[]"),
+              createdFromQuestionnaire == null ? 0 : createdFromQuestionnaire.longValue(),
+              trimToNone(toJsonString(annotation.get("settings"), null)), resource));
+    }
+    return annotations;
+  }
+
+  /** Take strings as they are, like form parameters, but also accept inline JSON. */
+  private static String toJsonString(Object value, String defaultValue) {
+    if (value == null) {
+      return defaultValue;
+    }
+    return value instanceof String ? (String) value : JSONValue.toJSONString(value);
+  }
+
   @PUT
   @Produces(MediaType.APPLICATION_JSON)
   @Path("tracks/{trackId}/annotations/{id}")
@@ -350,29 +686,28 @@ public class VideoEndpoint {
   @DELETE
   @Path("tracks/{trackId}/annotations/{id}")
   public Response deleteAnnotation(@PathParam("trackId") final long trackId, @PathParam("id") final long id) {
-    if (videoOpt.isSome() && eas.getTrack(trackId).isSome()) {
-      return run(nil, new Function0<>() {
-        @Override
-        public Response apply() {
-          return eas.getAnnotation(id).fold(new Option.Match<>() {
-            @Override
-            public Response some(Annotation a) {
-              if (!eas.hasResourceAccess(a)) {
-                return UNAUTHORIZED;
-              }
-              return eas.deleteAnnotation(a) ? NO_CONTENT : NOT_FOUND;
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        if (videoOpt.isNone() || eas.getTrack(trackId).isNone()) {
+          return BAD_REQUEST;
+        }
+        return eas.getAnnotation(id).fold(new Option.Match<>() {
+          @Override
+          public Response some(Annotation a) {
+            if (!eas.hasResourceAccess(a)) {
+              return UNAUTHORIZED;
             }
+            return eas.deleteAnnotation(a) ? NO_CONTENT : NOT_FOUND;
+          }
 
-            @Override
-            public Response none() {
-              return NOT_FOUND;
-            }
-          });
-        }
-      });
-    } else {
-      return BAD_REQUEST;
-    }
+          @Override
+          public Response none() {
+            return NOT_FOUND;
+          }
+        });
+      }
+    });
   }
 
   @GET
@@ -380,43 +715,60 @@ public class VideoEndpoint {
   @Path("tracks/{trackId}/annotations/{id}")
   public Response getAnnotation(@PathParam("trackId") final long trackId, @PathParam("id") final long id) {
     // TODO optimize querying for the existence of video and track
-    if (videoOpt.isSome() && eas.getTrack(trackId).isSome()) {
-      return run(nil, new Function0<>() {
-        @Override
-        public Response apply() {
-          return eas.getAnnotation(id).fold(new Option.Match<>() {
-            @Override
-            public Response some(Annotation a) {
-              if (!eas.hasResourceAccess(a)) {
-                return UNAUTHORIZED;
-              }
-              return Response.ok(AnnotationDto.toJson.apply(eas, a).toString()).build();
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        // track and/or video do not exist
+        if (videoOpt.isNone() || eas.getTrack(trackId).isNone()) {
+          return BAD_REQUEST;
+        }
+        return eas.getAnnotation(id).fold(new Option.Match<>() {
+          @Override
+          public Response some(Annotation a) {
+            if (!eas.hasResourceAccess(a)) {
+              return UNAUTHORIZED;
             }
+            return Response.ok(AnnotationDto.toJson.apply(eas, a).toString()).build();
+          }
 
-            @Override
-            public Response none() {
-              return NOT_FOUND;
-            }
-          });
-        }
-      });
-    } else {
-      // track and/or video do not exist
-      return BAD_REQUEST;
-    }
+          @Override
+          public Response none() {
+            return NOT_FOUND;
+          }
+        });
+      }
+    });
   }
 
   // TODO Is this even used?
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Path("tracks/{trackId}/annotations")
-  public Response getAnnotations(@PathParam("trackId") final long trackId) {
+  public Response getAnnotations(@PathParam("trackId") final long trackId, @QueryParam("after") final String after,
+          @QueryParam("limit") final Integer limit, @QueryParam("from") final Double from,
+          @QueryParam("to") final Double to, @Context final Request request) {
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
         if (videoOpt.isSome()) {
-          return Response.ok(AnnotationDto.toJson(eas,
-                  eas.getAnnotations(trackId)).toString()).build();
+          if (!isWindow(from, to)) {
+            return BAD_REQUEST;
+          }
+          if (after == null && limit == null) {
+            // The annotations are only read while the response is written
+            return conditional(request, eas.getAnnotationsVersion(trackId),
+                    () -> json(AnnotationDto.writeJson(eas, () -> from == null && to == null
+                            ? eas.getAnnotations(trackId)
+                            : eas.getAnnotations(trackId, option(from), option(to)))));
+          }
+          final Page<Annotation> page;
+          try {
+            page = eas.getAnnotations(trackId, option(from), option(to), trimToNone(after), pageSize(limit));
+          } catch (IllegalArgumentException e) {
+            return BAD_REQUEST;
+          }
+          return Response.ok(conc(AnnotationDto.toJson(eas, page.getItems().stream()),
+                  jO(p("next", page.getNext()))).toString()).build();
         } else {
           return NOT_FOUND;
         }
@@ -424,6 +776,129 @@ public class VideoEndpoint {
     });
   }
 
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("annotations")
+  public Response getAnnotationsOfVideo(@QueryParam("from") final Double from, @QueryParam("to") final Double to,
+          @Context final Request request) {
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        if (videoOpt.isSome()) {
+          if (!isWindow(from, to)) {
+            return BAD_REQUEST;
+          }
+          return conditional(request, eas.getAnnotationsOfVideoVersion(videoId),
+                  () -> json(AnnotationDto.writeJsonByTrack(eas, () -> from == null && to == null
+                          ? eas.getAnnotationsOfVideo(videoId)
+                          : eas.getAnnotationsOfVideo(videoId, option(from), option(to)))));
+        } else {
+          return NOT_FOUND;
+        }
+      }
+    });
+  }
+
+  /**
+   * Get the annotations active at a point in time (<code>t</code>) or overlapping a window
+   * (<code>from</code> and/or <code>to</code>), answered from an in-memory index of the annotations of the video.
+   */
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("annotations/at")
+  public Response getActiveAnnotations(@QueryParam("t") final Double t, @QueryParam("from") final Double from,
+          @QueryParam("to") final Double to) {
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        if (videoOpt.isNone()) {
+          return NOT_FOUND;
+        }
+        // Either a point in time or a window has to be given
+        final boolean window = from != null || to != null;
+        if ((t != null) == window || !isWindow(from, to)) {
+          return BAD_REQUEST;
+        }
+        final Stream<Annotation> annotations = t != null
+                ? eas.getActiveAnnotations(videoId, t, t)
+                : eas.getActiveAnnotations(videoId, from != null ? from : Double.NEGATIVE_INFINITY,
+                        to != null ? to : Double.POSITIVE_INFINITY);
+        return Response.ok(AnnotationDto.toJsonByTrack(eas, annotations).toString()).build();
+      }
+    });
+  }
+
+  /**
+   * Export the annotations of the video as CSV, with the columns of the spreadsheet export of the annotation tool.
+   * <code>tracks</code> and <code>categories</code> are comma separated lists of ids restricting the export,
+   * <code>freetext</code> tells whether to include annotations without labels.
+   */
+  @GET
+  @Produces("text/csv")
+  @Path("export.csv")
+  public Response getCsvExport(@QueryParam("tracks") final String tracks,
+          @QueryParam("categories") final String categories,
+          @DefaultValue("true") @QueryParam("freetext") final boolean freeText) {
+    return export(tracks, categories, freeText, "export.csv", out -> {
+      final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      return new CsvTableWriter(writer);
+    });
+  }
+
+  /** Like {@link #getCsvExport(String, String, boolean)}, but export an Excel workbook. */
+  @GET
+  @Produces(XLSX)
+  @Path("export.xlsx")
+  public Response getXlsxExport(@QueryParam("tracks") final String tracks,
+          @QueryParam("categories") final String categories,
+          @DefaultValue("true") @QueryParam("freetext") final boolean freeText) {
+    return export(tracks, categories, freeText, "export.xlsx",
+            out -> new XlsxTableWriter(out, EXPORT_SHEET_NAME));
+  }
+
+  private Response export(final String tracks, final String categories, final boolean freeText,
+          final String fileName, final java.util.function.Function<OutputStream, TableWriter> tableWriter) {
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        if (videoOpt.isNone()) {
+          return NOT_FOUND;
+        }
+        if (!eas.hasResourceAccess(videoOpt.get())) {
+          return UNAUTHORIZED;
+        }
+        final AnnotationExport export;
+        try {
+          export = new AnnotationExport(eas, videoId, ids(tracks), ids(categories), freeText);
+        } catch (NumberFormatException e) {
+          return BAD_REQUEST;
+        }
+        final StreamingOutput entity = out -> {
+          try {
+            export.write(tableWriter.apply(out));
+          } finally {
+            eas.endRequest();
+          }
+        };
+        return Response.ok(entity).header("Content-Disposition", "attachment; filename=" + fileName).build();
+      }
+    });
+  }
+
+  /** Parse a comma separated list of ids. A missing list means no restriction, unlike an empty one. */
+  private static Option<Set<Long>> ids(String ids) {
+    if (ids == null) {
+      return none();
+    }
+    final Set<Long> parsed = new HashSet<>();
+    for (String id : ids.split(",")) {
+      if (!id.isBlank()) {
+        parsed.add(Long.parseLong(id.trim()));
+      }
+    }
+    return some(parsed);
+  }
+
   @POST
   @Produces(MediaType.APPLICATION_JSON)
   @Path("scales")
@@ -482,12 +957,12 @@ public class VideoEndpoint {
   @Produces(MediaType.APPLICATION_JSON)
   @Path("scales/{scaleId}")
   public Response getScale(@PathParam("scaleId") final long id) {
-    if (eas.getVideo(videoId).isNone())
-      return BAD_REQUEST;
-
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getScale(id, false).fold(new Option.Match<>() {
           @Override
           public Response some(Scale s) {
@@ -509,14 +984,15 @@ public class VideoEndpoint {
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Path("scales")
-  public Response getScales() {
+  public Response getScales(@Context final Request request) {
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
         if (eas.getVideo(videoId).isNone()) {
           return BAD_REQUEST;
         } else {
-          return Response.ok(ScaleDto.toJson(eas, eas.getScales(videoId)).toString()).build();
+          return conditional(request, eas.getScalesVersion(videoId),
+                  () -> json(ScaleDto.writeJson(eas, eas.getScales(videoId))));
         }
       }
     });
@@ -525,20 +1001,19 @@ public class VideoEndpoint {
   @DELETE
   @Path("scales/{scaleId}")
   public Response deleteScale(@PathParam("scaleId") final long id) {
-    if (eas.getVideo(videoId).isNone())
-      return BAD_REQUEST;
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getScale(id, true).fold(new Option.Match<>() {
           @Override
           public Response some(Scale s) {
             if (!eas.hasResourceAccess(s)) {
               return UNAUTHORIZED;
             }
-            // Delete all scale values
-            eas.getScaleValues(s.getId()).forEach(eas::deleteScaleValue);
-            // Delete scale itself
+            // Deletes the scale values along with the scale
             s = eas.deleteScale(s);
             return Response.ok(ScaleDto.toJson.apply(eas, s).toString()).header(LOCATION, scaleLocationUri(s)).build();
           }
@@ -614,12 +1089,12 @@ public class VideoEndpoint {
   @Produces(MediaType.APPLICATION_JSON)
   @Path("scales/{scaleId}/scalevalues/{scaleValueId}")
   public Response getScaleValue(@PathParam("scaleId") final long scaleId, @PathParam("scaleValueId") final long id) {
-    if (eas.getVideo(videoId).isNone() || eas.getScale(scaleId, false).isNone())
-      return BAD_REQUEST;
-
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone() || eas.getScale(scaleId, false).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getScaleValue(id, false).fold(new Option.Match<>() {
           @Override
           public Response some(ScaleValue s) {
@@ -641,7 +1116,7 @@ public class VideoEndpoint {
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Path("scales/{scaleId}/scalevalues")
-  public Response getScaleValues(@PathParam("scaleId") final long scaleId) {
+  public Response getScaleValues(@PathParam("scaleId") final long scaleId, @Context final Request request) {
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
@@ -649,7 +1124,8 @@ public class VideoEndpoint {
           return BAD_REQUEST;
         }
 
-        return Response.ok(ScaleValueDto.toJson(eas, eas.getScaleValues(scaleId)).toString()).build();
+        return conditional(request, eas.getScaleValuesVersion(scaleId),
+                () -> ScaleValueDto.toJson(eas, eas.getScaleValues(scaleId)).toString());
       }
     });
   }
@@ -657,12 +1133,12 @@ public class VideoEndpoint {
   @DELETE
   @Path("scales/{scaleId}/scalevalues/{scaleValueId}")
   public Response deleteScaleValue(@PathParam("scaleId") final long scaleId, @PathParam("scaleValueId") final long id) {
-    if (eas.getVideo(videoId).isNone() || eas.getScale(scaleId, false).isNone())
-      return BAD_REQUEST;
-
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone() || eas.getScale(scaleId, false).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getScaleValue(id, true).fold(new Option.Match<>() {
           @Override
           public Response some(ScaleValue s) {
@@ -777,12 +1253,12 @@ public class VideoEndpoint {
   @Produces(MediaType.APPLICATION_JSON)
   @Path("categories/{categoryId}")
   public Response getCategory(@PathParam("categoryId") final long id) {
-    if (eas.getVideo(videoId).isNone())
-      return BAD_REQUEST;
-
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getCategory(id, false).fold(new Option.Match<>() {
           @Override
           public Response some(Category c) {
@@ -804,16 +1280,15 @@ public class VideoEndpoint {
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Path("categories")
-  public Response getCategories(@QueryParam("series-extid") final String seriesExtId) {
+  public Response getCategories(@Context final Request request) {
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
-        final Option<String> seriesExtIdm = trimToNone(seriesExtId);
-
         if (eas.getVideo(videoId).isNone()) {
           return BAD_REQUEST;
         } else {
-          return Response.ok(CategoryDto.toJson(eas, eas.getCategories(seriesExtIdm, videoId)).toString()).build();
+          return conditional(request, eas.getCategoriesVersion(videoId),
+                  () -> json(CategoryDto.writeJson(eas, eas.getCategories(videoId))));
         }
       }
     });
@@ -822,12 +1297,12 @@ public class VideoEndpoint {
   @DELETE
   @Path("categories/{categoryId}")
   public Response deleteCategory(@PathParam("categoryId") final long categoryId) {
-    if (eas.getVideo(videoId).isNone() || eas.getCategory(categoryId, false).isNone())
-      return BAD_REQUEST;
-
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone() || eas.getCategory(categoryId, false).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getCategory(categoryId, true).fold(new Option.Match<>() {
           @Override
           public Response some(Category c) {
@@ -912,12 +1387,12 @@ public class VideoEndpoint {
   @Produces(MediaType.APPLICATION_JSON)
   @Path("categories/{categoryId}/labels/{labelId}")
   public Response getLabel(@PathParam("categoryId") final long categoryId, @PathParam("labelId") final long id) {
-    if (eas.getVideo(videoId).isNone() || eas.getCategory(categoryId, false).isNone())
-      return BAD_REQUEST;
-
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone() || eas.getCategory(categoryId, false).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getLabel(id, false).fold(new Option.Match<>() {
           @Override
           public Response some(Label l) {
@@ -939,7 +1414,7 @@ public class VideoEndpoint {
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Path("categories/{categoryId}/labels")
-  public Response getLabels(@PathParam("categoryId") final long categoryId) {
+  public Response getLabels(@PathParam("categoryId") final long categoryId, @Context final Request request) {
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
@@ -947,7 +1422,8 @@ public class VideoEndpoint {
           return BAD_REQUEST;
         }
 
-        return Response.ok(LabelDto.toJson(eas, eas.getLabels(categoryId)).toString()).build();
+        return conditional(request, eas.getLabelsVersion(categoryId),
+                () -> LabelDto.toJson(eas, eas.getLabels(categoryId)).toString());
       }
     });
   }
@@ -955,12 +1431,12 @@ public class VideoEndpoint {
   @DELETE
   @Path("categories/{categoryId}/labels/{labelId}")
   public Response deleteLabel(@PathParam("categoryId") final long categoryId, @PathParam("labelId") final long id) {
-    if (eas.getVideo(videoId).isNone() || eas.getCategory(categoryId, false).isNone())
-      return BAD_REQUEST;
-
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone() || eas.getCategory(categoryId, false).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getLabel(id, true).fold(new Option.Match<>() {
           @Override
           public Response some(Label l) {
@@ -1007,12 +1483,12 @@ public class VideoEndpoint {
   @Produces(MediaType.APPLICATION_JSON)
   @Path("questionnaires/{questionnaireId}")
   public Response getQuestionnaire(@PathParam("questionnaireId") final long id) {
-    if (eas.getVideo(videoId).isNone())
-      return BAD_REQUEST;
-
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getQuestionnaire(id, false).fold(new Option.Match<>() {
           @Override
           public Response some(Questionnaire c) {
@@ -1034,15 +1510,15 @@ public class VideoEndpoint {
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Path("questionnaires")
-  public Response getQuestionnaires() {
+  public Response getQuestionnaires(@Context final Request request) {
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
         if (eas.getVideo(videoId).isNone()) {
           return BAD_REQUEST;
         } else {
-          return Response.ok(QuestionnaireDto.toJson(eas, eas.getQuestionnaires(videoId)).toString())
-                  .build();
+          return conditional(request, eas.getQuestionnairesVersion(videoId),
+                  () -> json(QuestionnaireDto.writeJson(eas, eas.getQuestionnaires(videoId))));
         }
       }
     });
@@ -1075,13 +1551,12 @@ public class VideoEndpoint {
   @DELETE
   @Path("questionnaires/{questionnaireId}")
   public Response deleteQuestionnaire(@PathParam("questionnaireId") final long questionnaireId) {
-    if (eas.getVideo(videoId).isNone() || eas.getQuestionnaire(
-        questionnaireId, false).isNone())
-      return BAD_REQUEST;
-
     return run(nil, new Function0<>() {
       @Override
       public Response apply() {
+        if (eas.getVideo(videoId).isNone() || eas.getQuestionnaire(questionnaireId, false).isNone()) {
+          return BAD_REQUEST;
+        }
         return eas.getQuestionnaire(questionnaireId, true).fold(new Option.Match<>() {
           @Override
           public Response some(Questionnaire q) {
@@ -1114,21 +1589,21 @@ public class VideoEndpoint {
 
   private Response postCommentResponse(final long trackId, final long annotationId, final Option<Long> replyToId,
           final String text) {
-    if (videoOpt.isSome() && eas.getTrack(trackId).isSome()
-            && eas.getAnnotation(annotationId).isSome()) {
-      return run(array(text), new Function0<>() {
-        @Override
-        public Response apply() {
-          Resource resource = eas.createResource();
-          final Comment comment = eas.createComment(annotationId, replyToId, text, resource);
-
-          return Response.created(commentLocationUri(comment, videoId, trackId)).entity(CommentDto.toJson.apply(eas, comment).toString()).build();
+    return run(array(text), new Function0<>() {
+      @Override
+      public Response apply() {
+        // track, video, annotation and/or replied comment does not exist
+        if (videoOpt.isNone() || eas.getTrack(trackId).isNone()
+                || eas.getAnnotation(annotationId).isNone()
+                || replyToId.isSome() && eas.getComment(replyToId.get()).isNone()) {
+          return BAD_REQUEST;
         }
-      });
-    } else {
-      // track, video and/or annotation does not exist
-      return BAD_REQUEST;
-    }
+        Resource resource = eas.createResource();
+        final Comment comment = eas.createComment(annotationId, replyToId, text, resource);
+
+        return Response.created(commentLocationUri(comment, videoId, trackId)).entity(CommentDto.toJson.apply(eas, comment).toString()).build();
+      }
+    });
   }
 
   @PUT
@@ -1137,68 +1612,66 @@ public class VideoEndpoint {
   public Response putComment(@PathParam("trackId") final long trackId,
           @PathParam("annotationId") final long annotationId, @PathParam("commentId") final long commentId,
           @FormParam("text") final String text) {
-    if (videoOpt.isSome() && eas.getTrack(trackId).isSome()
-            && eas.getAnnotation(annotationId).isSome()) {
-      return run(array(text), new Function0<>() {
-        @Override
-        public Response apply() {
-          return eas.getComment(commentId).fold(new Option.Match<>() {
-            @Override
-            public Response some(Comment c) {
-              if (!eas.hasResourceAccess(c)) {
-                return UNAUTHORIZED;
-              }
-              Resource resource = eas.updateResource(c, Option.none());
-              final Comment updated = new CommentImpl(commentId, annotationId, text, Option.none(), resource);
-              if (!c.equals(updated)) {
-                eas.updateComment(updated);
-                c = updated;
-              }
-              return Response.ok(CommentDto.toJson.apply(eas, c).toString()).header(LOCATION, commentLocationUri(c, videoId, trackId)).build();
+    return run(array(text), new Function0<>() {
+      @Override
+      public Response apply() {
+        // track, video and/or annotation does not exist
+        if (videoOpt.isNone() || eas.getTrack(trackId).isNone()
+                || eas.getAnnotation(annotationId).isNone()) {
+          return BAD_REQUEST;
+        }
+        return eas.getComment(commentId).fold(new Option.Match<>() {
+          @Override
+          public Response some(Comment c) {
+            if (!eas.hasResourceAccess(c)) {
+              return UNAUTHORIZED;
             }
-
-            @Override
-            public Response none() {
-              return NOT_FOUND;
+            Resource resource = eas.updateResource(c, Option.none());
+            final Comment updated = new CommentImpl(commentId, annotationId, text, Option.none(), resource);
+            if (!c.equals(updated)) {
+              eas.updateComment(updated);
+              c = updated;
             }
-          });
-        }
-      });
-    } else {
-      // track, video and/or annotation does not exist
-      return BAD_REQUEST;
-    }
+            return Response.ok(CommentDto.toJson.apply(eas, c).toString()).header(LOCATION, commentLocationUri(c, videoId, trackId)).build();
+          }
+
+          @Override
+          public Response none() {
+            return NOT_FOUND;
+          }
+        });
+      }
+    });
   }
 
   @DELETE
   @Path("tracks/{trackId}/annotations/{annotationId}/comments/{id}")
   public Response deleteComment(@PathParam("trackId") final long trackId,
           @PathParam("annotationId") final long annotationId, @PathParam("id") final long commentId) {
-    if (videoOpt.isSome() && eas.getTrack(trackId).isSome()
-            && eas.getAnnotation(annotationId).isSome()) {
-      return run(nil, new Function0<>() {
-        @Override
-        public Response apply() {
-          return eas.getComment(commentId).fold(new Option.Match<>() {
-            @Override
-            public Response some(Comment c) {
-              if (!eas.hasResourceAccess(c)) {
-                return UNAUTHORIZED;
-              }
-              return eas.deleteComment(c) ? NO_CONTENT : NOT_FOUND;
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        // track, video and/or annotation does not exist
+        if (videoOpt.isNone() || eas.getTrack(trackId).isNone()
+                || eas.getAnnotation(annotationId).isNone()) {
+          return BAD_REQUEST;
+        }
+        return eas.getComment(commentId).fold(new Option.Match<>() {
+          @Override
+          public Response some(Comment c) {
+            if (!eas.hasResourceAccess(c)) {
+              return UNAUTHORIZED;
             }
+            return eas.deleteComment(c) ? NO_CONTENT : NOT_FOUND;
+          }
 
-            @Override
-            public Response none() {
-              return NOT_FOUND;
-            }
-          });
-        }
-      });
-    } else {
-      // track, video and/or annotation does not exist
-      return BAD_REQUEST;
-    }
+          @Override
+          public Response none() {
+            return NOT_FOUND;
+          }
+        });
+      }
+    });
   }
 
   @GET
@@ -1206,54 +1679,65 @@ public class VideoEndpoint {
   @Path("tracks/{trackId}/annotations/{annotationId}/comments/{id}")
   public Response getComment(@PathParam("trackId") final long trackId,
           @PathParam("annotationId") final long annotationId, @PathParam("id") final long id) {
-    if (videoOpt.isSome() && eas.getTrack(trackId).isSome()
-            && eas.getAnnotation(annotationId).isSome()) {
-      return run(nil, new Function0<>() {
-        @Override
-        public Response apply() {
-          return eas.getComment(id).fold(new Option.Match<>() {
-            @Override
-            public Response some(Comment c) {
-              if (!eas.hasResourceAccess(c)) {
-                return UNAUTHORIZED;
-              }
-              return Response.ok(CommentDto.toJson.apply(eas, c).toString()).build();
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        // track, video and/or annotation does not exist
+        if (videoOpt.isNone() || eas.getTrack(trackId).isNone()
+                || eas.getAnnotation(annotationId).isNone()) {
+          return BAD_REQUEST;
+        }
+        return eas.getComment(id).fold(new Option.Match<>() {
+          @Override
+          public Response some(Comment c) {
+            if (!eas.hasResourceAccess(c)) {
+              return UNAUTHORIZED;
             }
+            return Response.ok(CommentDto.toJson.apply(eas, c).toString()).build();
+          }
 
-            @Override
-            public Response none() {
-              return NOT_FOUND;
-            }
-          });
-        }
-      });
-    } else {
-      // track, video and/or annotation does not exist
-      return BAD_REQUEST;
-    }
+          @Override
+          public Response none() {
+            return NOT_FOUND;
+          }
+        });
+      }
+    });
   }
 
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Path("tracks/{trackId}/annotations/{annotationId}/comments")
   public Response getComments(@PathParam("trackId") final long trackId,
-          @PathParam("annotationId") final long annotationId) {
-    return getCommentsResponse(trackId, annotationId, none());
+          @PathParam("annotationId") final long annotationId, @QueryParam("after") final String after,
+          @QueryParam("limit") final Integer limit) {
+    return getCommentsResponse(trackId, annotationId, none(), after, limit);
   }
 
-  private Response getCommentsResponse(final long trackId, final long annotationId, final Option<Long> replyToId) {
-    if (videoOpt.isSome() && eas.getTrack(trackId).isSome()
-            && eas.getAnnotation(annotationId).isSome()) {
-      return run(nil, new Function0<>() {
-        @Override
-        public Response apply() {
+  private Response getCommentsResponse(final long trackId, final long annotationId, final Option<Long> replyToId,
+          final String after, final Integer limit) {
+    return run(nil, new Function0<>() {
+      @Override
+      public Response apply() {
+        // track, video, annotation and/or replied comment does not exist
+        if (videoOpt.isNone() || eas.getTrack(trackId).isNone()
+                || eas.getAnnotation(annotationId).isNone()
+                || replyToId.isSome() && eas.getComment(replyToId.get()).isNone()) {
+          return BAD_REQUEST;
+        }
+        if (after == null && limit == null) {
           return Response.ok(CommentDto.toJson(eas, eas.getComments(annotationId, replyToId)).toString()).build();
         }
-      });
-    } else {
-      // track, video and/or annotation does not exist
-      return BAD_REQUEST;
-    }
+        final Page<Comment> page;
+        try {
+          page = eas.getComments(annotationId, replyToId, trimToNone(after), pageSize(limit));
+        } catch (IllegalArgumentException e) {
+          return BAD_REQUEST;
+        }
+        return Response.ok(conc(CommentDto.toJson(eas, page.getItems().stream()),
+                jO(p("next", page.getNext()))).toString()).build();
+      }
+    });
   }
 
   @POST
@@ -1262,19 +1746,65 @@ public class VideoEndpoint {
   public Response postReply(@PathParam("trackId") final long trackId,
           @PathParam("annotationId") final long annotationId, @PathParam("commentId") final long commentId,
           @FormParam("text") final String text) {
-    Option<Comment> comment = eas.getComment(commentId);
-    if (comment.isNone()) return BAD_REQUEST;
-    return postCommentResponse(trackId, annotationId, Option.some(comment.get().getId()), text);
+    return postCommentResponse(trackId, annotationId, some(commentId), text);
   }
 
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Path("tracks/{trackId}/annotations/{annotationId}/comments/{commentId}/replies")
   public Response getReplies(@PathParam("trackId") final long trackId,
-          @PathParam("annotationId") final long annotationId, @PathParam("commentId") final long commentId) {
-    Option<Comment> comment = eas.getComment(commentId);
-    if (comment.isNone()) return BAD_REQUEST;
-    return getCommentsResponse(trackId, annotationId, some(commentId));
+          @PathParam("annotationId") final long annotationId, @PathParam("commentId") final long commentId,
+          @QueryParam("after") final String after, @QueryParam("limit") final Integer limit) {
+    return getCommentsResponse(trackId, annotationId, some(commentId), after, limit);
+  }
+
+  /**
+   * Answer a GET of a collection conditionally: with <code>304 Not Modified</code> if the version the client already
+   * has, as given by <code>If-None-Match</code>, is still the current one, and with the entity created by
+   * <code>entity</code> otherwise. Either response carries the current version as entity tag.
+   * The version is qualified by the principal, which a modification date could not be, so no
+   * <code>Last-Modified</code> header is sent and <code>If-Modified-Since</code> is ignored.
+   */
+  private static Response conditional(Request request, CollectionVersion version, Supplier<Object> entity) {
+    final EntityTag tag = new EntityTag(version.getTag());
+    final Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+    final Response.ResponseBuilder response = notModified != null ? notModified : Response.ok(entity.get());
+    // The collections depend on the access rights of the user, and have to be revalidated on every use
+    final CacheControl cacheControl = new CacheControl();
+    cacheControl.setPrivate(true);
+    cacheControl.setNoCache(true);
+    return response.tag(tag).cacheControl(cacheControl).build();
+  }
+
+  /**
+   * Stream a JSON entity to the client as it is written. The queries should have been run already, so that failing
+   * to run them is still answered with the usual status codes, but their results may be read while writing. Queries
+   * holding a database cursor until they are read are run while writing, as writing might never happen.
+   */
+  private StreamingOutput json(JsonStreamWriter.Value value) {
+    return out -> {
+      try {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        value.write(new JsonStreamWriter(writer));
+        writer.flush();
+      } finally {
+        eas.endRequest();
+      }
+    };
+  }
+
+  /** Run <code>f</code> like the host does, see {@link AbstractExtendedAnnotationsRestService#run}. */
+  private Response run(Object[] mandatoryParams, Function0<Response> f) {
+    return host.run(mandatoryParams, f);
+  }
+
+  /** Check that the optional bounds of a time window do not contradict each other. */
+  private static boolean isWindow(Double from, Double to) {
+    return from == null || to == null || from <= to;
+  }
+
+  private static int pageSize(Integer limit) {
+    return limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
   }
 
   private URI trackLocationUri(Track t) {
@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes a table as comma separated values the way PapaParse does: rows are separated by CRLF and values are only
+ * quoted if they have to be.
+ */
+public final class CsvTableWriter implements TableWriter {
+  private static final String SEPARATOR = ",";
+  private static final String NEWLINE = "\r\n";
+
+  private final Writer out;
+  private boolean first = true;
+
+  public CsvTableWriter(Writer out) {
+    this.out = out;
+  }
+
+  @Override
+  public void row(List<?> cells) throws IOException {
+    if (!first) {
+      out.write(NEWLINE);
+    }
+    first = false;
+    for (int i = 0; i < cells.size(); i++) {
+      if (i > 0) {
+        out.write(SEPARATOR);
+      }
+      out.write(quote(cells.get(i)));
+    }
+  }
+
+  @Override
+  public void finish() throws IOException {
+    out.flush();
+  }
+
+  static String quote(Object cell) {
+    if (cell == null) {
+      return "";
+    }
+    if (cell instanceof Number) {
+      return formatNumber((Number) cell);
+    }
+    final String value = cell.toString();
+    if (value.isEmpty()) {
+      return value;
+    }
+    if (value.contains(SEPARATOR) || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0
+            || value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ') {
+      return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    return value;
+  }
+
+  /** Format a number like JavaScript does, i.e. without a fraction if it is integral. */
+  private static String formatNumber(Number number) {
+    final double value = number.doubleValue();
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      return Long.toString((long) value);
+    }
+    return number.toString();
+  }
+}
@@ -0,0 +1,273 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl;
+
+import static org.opencast.annotation.impl.Jsons.jO;
+import static org.opencast.annotation.impl.Jsons.p;
+
+import org.opencastproject.util.data.Option;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Writes JSON straight to a stream, producing the same output as building the objects with {@link Jsons} and
+ * calling <code>toString()</code> on them, but without allocating the intermediate objects.
+ * <p>
+ * json-simple objects are hash maps, so the order of their keys depends on the keys and on how the objects were
+ * merged. Therefore the fields of an object are buffered until it ends, and then written in the key order of a
+ * template object. The template is built with {@link Jsons} only once for every distinct sequence of keys.
+ * <p>
+ * Nested objects and arrays are written by {@link Value}s, which run while the field holding them is written.
+ * Instances are not thread safe.
+ */
+public final class JsonStreamWriter {
+
+  /** A value writing itself, e.g. an array of many objects. */
+  public interface Value {
+    void write(JsonStreamWriter writer) throws IOException;
+  }
+
+  /** Writes an element of a collection. */
+  public interface Element<A> {
+    void write(A element, JsonStreamWriter writer) throws IOException;
+  }
+
+  private final Writer out;
+  /** The objects whose fields are being collected, innermost last. */
+  private final List<Fields> objects = new ArrayList<>();
+  private int depth;
+  /** Whether the containers being written are arrays, and whether they are still empty. */
+  private boolean[] arrays = new boolean[8];
+  private boolean[] empty = new boolean[8];
+  private int open;
+  private final List<Shape> shapes = new ArrayList<>();
+
+  public JsonStreamWriter(Writer out) {
+    this.out = out;
+  }
+
+  /** Start collecting the fields of an object. */
+  public JsonStreamWriter beginObject() {
+    if (depth == objects.size()) {
+      objects.add(new Fields());
+    }
+    objects.get(depth++).size = 0;
+    return this;
+  }
+
+  /** Add a field to the current object, like {@link Jsons#p(String, Object)}. */
+  public JsonStreamWriter field(String key, Object value) {
+    objects.get(depth - 1).add(key, value);
+    return this;
+  }
+
+  /** Add an optional field to the current object, like {@link Jsons#p(String, Option)}. */
+  public <A> JsonStreamWriter field(String key, Option<A> value) {
+    if (value.isSome()) {
+      objects.get(depth - 1).add(key, value.get());
+    }
+    return this;
+  }
+
+  /** Add a field to the current object whose value is written by <code>value</code>. */
+  public JsonStreamWriter field(String key, Value value) {
+    objects.get(depth - 1).add(key, value);
+    return this;
+  }
+
+  /**
+   * Write the current object.
+   *
+   * @param template
+   *          builds the same object with {@link Jsons}, to find out the order of its keys
+   * @throws IllegalStateException
+   *           if the template does not have the same keys as the object
+   */
+  public void endObject(Supplier<JSONObject> template) throws IOException {
+    final Fields fields = objects.get(depth - 1);
+    final Shape shape = shape(fields, template);
+    separate();
+    push(false);
+    out.write('{');
+    for (int i = 0; i < shape.order.length; i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      out.write(shape.keys[i]);
+      write(fields.values[shape.order[i]]);
+    }
+    out.write('}');
+    open--;
+    depth--;
+  }
+
+  /** Start writing an array. */
+  public JsonStreamWriter beginArray() throws IOException {
+    separate();
+    push(true);
+    out.write('[');
+    return this;
+  }
+
+  /** Write an element of the current array. */
+  public JsonStreamWriter value(Object value) throws IOException {
+    separate();
+    write(value);
+    return this;
+  }
+
+  /** Finish writing the current array. */
+  public void endArray() throws IOException {
+    out.write(']');
+    open--;
+  }
+
+  /** A value writing the given elements as an array. */
+  public static <A> Value array(Iterable<A> elements, Element<A> element) {
+    return writer -> {
+      writer.beginArray();
+      for (A a : elements) {
+        element.write(a, writer);
+      }
+      writer.endArray();
+    };
+  }
+
+  /** A value writing an object with a single field, like <code>jO(p(key, value))</code>. */
+  public static Value object(String key, Value value) {
+    return writer -> {
+      writer.beginObject().field(key, value);
+      writer.endObject(() -> jO(p(key, "")));
+    };
+  }
+
+  private void write(Object value) throws IOException {
+    if (value instanceof Value) {
+      ((Value) value).write(this);
+    } else {
+      JSONValue.writeJSONString(value, out);
+    }
+  }
+
+  /** Separate the elements of an array. */
+  private void separate() throws IOException {
+    if (open > 0 && arrays[open - 1]) {
+      if (!empty[open - 1]) {
+        out.write(',');
+      }
+      empty[open - 1] = false;
+    }
+  }
+
+  private void push(boolean array) {
+    if (open == arrays.length) {
+      arrays = Arrays.copyOf(arrays, open * 2);
+      empty = Arrays.copyOf(empty, open * 2);
+    }
+    arrays[open] = array;
+    empty[open] = true;
+    open++;
+  }
+
+  /** Find the shape of an object with the given fields, building it from the template the first time. */
+  private Shape shape(Fields fields, Supplier<JSONObject> template) {
+    for (Shape shape : shapes) {
+      if (shape.matches(fields)) {
+        return shape;
+      }
+    }
+    final Shape shape = new Shape(fields, template.get());
+    shapes.add(shape);
+    return shape;
+  }
+
+  /** The fields of an object, in the order they were added. */
+  private static final class Fields {
+    private String[] keys = new String[32];
+    private Object[] values = new Object[32];
+    private int size;
+
+    private void add(String key, Object value) {
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      keys[size] = key;
+      values[size] = value;
+      size++;
+    }
+  }
+
+  /** The order in which the keys of objects with the same sequence of keys are written. */
+  private static final class Shape {
+    /** The keys in the order they were added. */
+    private final String[] added;
+    /** The escaped and quoted keys with the following colon, in the order they are written. */
+    private final String[] keys;
+    /** The index of the field written at each position; later fields replace earlier ones with the same key. */
+    private final int[] order;
+
+    private Shape(Fields fields, JSONObject template) {
+      added = Arrays.copyOf(fields.keys, fields.size);
+      keys = new String[template.size()];
+      order = new int[template.size()];
+      int i = 0;
+      for (Object key : template.keySet()) {
+        final int index = lastIndexOf(added, (String) key);
+        if (index < 0) {
+          throw new IllegalStateException("The template has a key which was not written: " + key);
+        }
+        keys[i] = '"' + JSONValue.escape((String) key) + "\":";
+        order[i] = index;
+        i++;
+      }
+      for (String key : added) {
+        if (!template.containsKey(key)) {
+          throw new IllegalStateException("A key was written which the template does not have: " + key);
+        }
+      }
+    }
+
+    private boolean matches(Fields fields) {
+      if (fields.size != added.length) {
+        return false;
+      }
+      for (int i = 0; i < added.length; i++) {
+        if (!added[i].equals(fields.keys[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static int lastIndexOf(String[] keys, String key) {
+      for (int i = keys.length - 1; i >= 0; i--) {
+        if (keys[i].equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+}
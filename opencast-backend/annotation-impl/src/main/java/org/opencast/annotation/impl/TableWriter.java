@@ -0,0 +1,33 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a table row by row, so that it does not have to be held in memory as a whole.
+ * Cells are written as numbers if they are {@link Number}s and as text otherwise, <code>null</code> cells are left
+ * empty.
+ */
+public interface TableWriter {
+
+  /** Append a row. */
+  void row(List<?> cells) throws IOException;
+
+  /** Write whatever has to follow the last row. The underlying stream is flushed but not closed. */
+  void finish() throws IOException;
+}
@@ -0,0 +1,179 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a table as an Office Open XML workbook with a single sheet. The sheet is written to the zip archive while
+ * the rows come in, using inline strings instead of a shared string table, which would have to be complete before
+ * the sheet. For the same reason the widths of the columns are derived from the first row only.
+ */
+public final class XlsxTableWriter implements TableWriter {
+  private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+  private static final String RELATIONSHIPS = "http://schemas.openxmlformats.org/package/2006/relationships";
+  private static final String OFFICE_RELATIONSHIPS
+          = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+  private static final String SPREADSHEET = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+  private static final String CONTENT_TYPES = XML_DECLARATION
+          + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+          + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+          + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+          + "<Override PartName=\"/xl/workbook.xml\""
+          + " ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+          + "<Override PartName=\"/xl/worksheets/sheet1.xml\""
+          + " ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+          + "</Types>";
+  private static final String ROOT_RELATIONSHIPS = XML_DECLARATION
+          + "<Relationships xmlns=\"" + RELATIONSHIPS + "\">"
+          + "<Relationship Id=\"rId1\" Type=\"" + OFFICE_RELATIONSHIPS + "/officeDocument\""
+          + " Target=\"xl/workbook.xml\"/>"
+          + "</Relationships>";
+  private static final String WORKBOOK_RELATIONSHIPS = XML_DECLARATION
+          + "<Relationships xmlns=\"" + RELATIONSHIPS + "\">"
+          + "<Relationship Id=\"rId1\" Type=\"" + OFFICE_RELATIONSHIPS + "/worksheet\""
+          + " Target=\"worksheets/sheet1.xml\"/>"
+          + "</Relationships>";
+
+  private final ZipOutputStream zip;
+  private final Writer out;
+  private final String sheetName;
+  private int rows;
+
+  /**
+   * @param out
+   *          the stream to write the workbook to
+   * @param sheetName
+   *          the name of the only sheet
+   */
+  public XlsxTableWriter(OutputStream out, String sheetName) {
+    this.zip = new ZipOutputStream(out);
+    this.out = new BufferedWriter(new OutputStreamWriter(zip, UTF_8));
+    this.sheetName = sheetName;
+  }
+
+  @Override
+  public void row(List<?> cells) throws IOException {
+    if (rows == 0) {
+      beginSheet(cells);
+    }
+    rows++;
+    out.write("<row r=\"" + rows + "\">");
+    for (int i = 0; i < cells.size(); i++) {
+      final Object cell = cells.get(i);
+      if (cell == null) {
+        continue;
+      }
+      final String reference = column(i) + rows;
+      if (cell instanceof Number) {
+        out.write("<c r=\"" + reference + "\"><v>" + cell + "</v></c>");
+      } else {
+        out.write("<c r=\"" + reference + "\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+        out.write(escape(cell.toString()));
+        out.write("</t></is></c>");
+      }
+    }
+    out.write("</row>");
+  }
+
+  @Override
+  public void finish() throws IOException {
+    if (rows == 0) {
+      beginSheet(List.of());
+    }
+    out.write("</sheetData></worksheet>");
+    out.flush();
+    zip.closeEntry();
+    part("[Content_Types].xml", CONTENT_TYPES);
+    part("_rels/.rels", ROOT_RELATIONSHIPS);
+    part("xl/workbook.xml", XML_DECLARATION
+            + "<workbook xmlns=\"" + SPREADSHEET + "\" xmlns:r=\"" + OFFICE_RELATIONSHIPS + "\">"
+            + "<sheets><sheet name=\"" + escape(sheetName) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>"
+            + "</workbook>");
+    part("xl/_rels/workbook.xml.rels", WORKBOOK_RELATIONSHIPS);
+    zip.finish();
+    zip.flush();
+  }
+
+  private void beginSheet(List<?> firstRow) throws IOException {
+    zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+    out.write(XML_DECLARATION);
+    out.write("<worksheet xmlns=\"" + SPREADSHEET + "\">");
+    if (!firstRow.isEmpty()) {
+      out.write("<cols>");
+      for (int i = 0; i < firstRow.size(); i++) {
+        final Object cell = firstRow.get(i);
+        // Like the exports of the annotation tool, leave a character of room
+        final int width = (cell == null ? 0 : cell.toString().length()) + 1;
+        out.write("<col min=\"" + (i + 1) + "\" max=\"" + (i + 1) + "\" width=\"" + width + "\" customWidth=\"1\"/>");
+      }
+      out.write("</cols>");
+    }
+    out.write("<sheetData>");
+  }
+
+  private void part(String name, String content) throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    out.write(content);
+    out.flush();
+    zip.closeEntry();
+  }
+
+  /** Get the letters of the column with the given zero based index. */
+  static String column(int index) {
+    final StringBuilder letters = new StringBuilder();
+    for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+      letters.insert(0, (char) ('A' + (i - 1) % 26));
+    }
+    return letters.toString();
+  }
+
+  /** Escape text for XML, dropping the characters XML cannot represent at all. */
+  static String escape(String text) {
+    final StringBuilder escaped = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      switch (c) {
+        case '&':
+          escaped.append("&amp;");
+          break;
+        case '<':
+          escaped.append("&lt;");
+          break;
+        case '>':
+          escaped.append("&gt;");
+          break;
+        case '"':
+          escaped.append("&quot;");
+          break;
+        default:
+          if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+            escaped.append(c);
+          }
+      }
+    }
+    return escaped.toString();
+  }
+}
@@ -23,6 +23,7 @@ import static org.opencast.annotation.impl.Jsons.p;
 import org.opencast.annotation.api.ExtendedAnnotationService;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.api.User;
+import org.opencast.annotation.impl.JsonStreamWriter;
 
 import org.opencastproject.util.DateTimeSupport;
 import org.opencastproject.util.data.Function;
@@ -31,7 +32,13 @@ import org.opencastproject.util.data.Option;
 
 import org.json.simple.JSONObject;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
 
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
@@ -40,6 +47,8 @@ import javax.persistence.TemporalType;
 
 @MappedSuperclass
 public abstract class AbstractResourceDto {
+  /** The number of resources whose users are loaded at once while writing them. */
+  private static final int PRELOAD_BATCH_SIZE = 500;
 
   @Column(name = "access")
   protected Integer access = Resource.PRIVATE;
@@ -79,29 +88,103 @@ public abstract class AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, Resource, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService s, Resource resource) {
-      String createdAt = resource.getCreatedAt().map(getDateAsUtc).getOrElseNull();
-      String updatedAt = resource.getUpdatedAt().map(getDateAsUtc).getOrElseNull();
-      String deletedAt = resource.getDeletedAt().map(getDateAsUtc).getOrElseNull();
-
-      Long createdBy = resource.getCreatedBy().getOrElseNull();
-      Long updatedBy = resource.getUpdatedBy().getOrElseNull();
-      Long deletedBy = resource.getDeletedBy().getOrElseNull();
-
-      String createdByNickname = resource.getCreatedBy().map(getUserNickname.curry(s)).getOrElseNull();
-      String updatedByNickname = resource.getUpdatedBy().map(getUserNickname.curry(s)).getOrElseNull();
-      String deletedByNickname = resource.getDeletedBy().map(getUserNickname.curry(s)).getOrElseNull();
-
-      String createdByEmail = resource.getCreatedBy().flatMap(getUserEmail.curry(s)).getOrElse("");
-      return conc(
-              jO(p("access", resource.getAccess()), p("created_by", createdBy), p("updated_by", updatedBy),
-                      p("deleted_by", deletedBy), p("created_at", createdAt), p("updated_at", updatedAt),
-                      p("deleted_at", deletedAt), p("created_by_nickname", createdByNickname),
-                      p("created_by_email", createdByEmail),
-                      p("updated_by_nickname", updatedByNickname), p("deleted_by_nickname", deletedByNickname)),
-              jOTags(resource.getTags()));
+      return AbstractResourceDto.toJson(new SerializationContext(s), resource);
     }
   };
 
+  /** Serialize the common resource properties, resolving the referenced users through the given context. */
+  public static JSONObject toJson(SerializationContext ctx, Resource resource) {
+    String createdAt = resource.getCreatedAt().map(getDateAsUtc).getOrElseNull();
+    String updatedAt = resource.getUpdatedAt().map(getDateAsUtc).getOrElseNull();
+    String deletedAt = resource.getDeletedAt().map(getDateAsUtc).getOrElseNull();
+
+    Long createdBy = resource.getCreatedBy().getOrElseNull();
+    Long updatedBy = resource.getUpdatedBy().getOrElseNull();
+    Long deletedBy = resource.getDeletedBy().getOrElseNull();
+
+    String createdByNickname = getUserNickname(ctx, resource.getCreatedBy());
+    String updatedByNickname = getUserNickname(ctx, resource.getUpdatedBy());
+    String deletedByNickname = getUserNickname(ctx, resource.getDeletedBy());
+
+    String createdByEmail = getUserEmail(ctx, resource.getCreatedBy());
+    return conc(
+            jO(p("access", resource.getAccess()), p("created_by", createdBy), p("updated_by", updatedBy),
+                    p("deleted_by", deletedBy), p("created_at", createdAt), p("updated_at", updatedAt),
+                    p("deleted_at", deletedAt), p("created_by_nickname", createdByNickname),
+                    p("created_by_email", createdByEmail),
+                    p("updated_by_nickname", updatedByNickname), p("deleted_by_nickname", deletedByNickname)),
+            jOTags(resource.getTags()));
+  }
+
+  /**
+   * Add the common resource properties to the object being written,
+   * like {@link #toJson(SerializationContext, Resource)}.
+   */
+  static void writeFields(SerializationContext ctx, Resource resource, JsonStreamWriter writer) {
+    final Map<String, String> tags = resource.getTags();
+    writer.field("access", resource.getAccess())
+            .field("created_by", resource.getCreatedBy().getOrElseNull())
+            .field("updated_by", resource.getUpdatedBy().getOrElseNull())
+            .field("deleted_by", resource.getDeletedBy().getOrElseNull())
+            .field("created_at", resource.getCreatedAt().map(getDateAsUtc).getOrElseNull())
+            .field("updated_at", resource.getUpdatedAt().map(getDateAsUtc).getOrElseNull())
+            .field("deleted_at", resource.getDeletedAt().map(getDateAsUtc).getOrElseNull())
+            .field("created_by_nickname", getUserNickname(ctx, resource.getCreatedBy()))
+            .field("created_by_email", getUserEmail(ctx, resource.getCreatedBy()))
+            .field("updated_by_nickname", getUserNickname(ctx, resource.getUpdatedBy()))
+            .field("deleted_by_nickname", getUserNickname(ctx, resource.getDeletedBy()))
+            // Copy the tags like jOTags does, since the order of their keys depends on the map
+            .field("tags", tags.isEmpty() ? tags : new JSONObject(tags));
+  }
+
+  /**
+   * Write resources as an array while reading them from the stream, which is closed afterwards.
+   * The users referenced by the resources are loaded batch by batch.
+   */
+  static <A extends Resource> JsonStreamWriter.Value writeAll(SerializationContext ctx, Stream<A> resources,
+          JsonStreamWriter.Element<A> element) {
+    return writer -> {
+      try (Stream<A> closing = resources) {
+        final Iterator<A> iterator = preloading(ctx, closing);
+        writer.beginArray();
+        while (iterator.hasNext()) {
+          element.write(iterator.next(), writer);
+        }
+        writer.endArray();
+      }
+    };
+  }
+
+  /** Iterate over resources, loading the users referenced by each batch of them before it is handed out. */
+  static <A extends Resource> Iterator<A> preloading(SerializationContext ctx, Stream<A> resources) {
+    final Iterator<A> source = resources.iterator();
+    return new Iterator<>() {
+      private final List<A> batch = new ArrayList<>(PRELOAD_BATCH_SIZE);
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        if (next == batch.size()) {
+          batch.clear();
+          next = 0;
+          while (batch.size() < PRELOAD_BATCH_SIZE && source.hasNext()) {
+            batch.add(source.next());
+          }
+          ctx.preload(batch);
+        }
+        return next < batch.size();
+      }
+
+      @Override
+      public A next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return batch.get(next++);
+      }
+    };
+  }
+
   public static final Function<Date, String> getDateAsUtc = new Function<>() {
     @Override
     public String apply(Date date) {
@@ -109,26 +192,25 @@ public abstract class AbstractResourceDto {
     }
   };
 
-  public static final Function2<ExtendedAnnotationService, Long, String> getUserNickname = new Function2<>() {
-    @Override
-    public String apply(ExtendedAnnotationService s, Long userId) {
-      Option<User> user = s.getUser(userId);
-      if (user.isNone())
-        return null;
+  private static String getUserNickname(SerializationContext ctx, Option<Long> userId) {
+    if (userId.isNone())
+      return null;
 
-      return user.get().getNickname();
-    }
-  };
+    Option<User> user = ctx.getUser(userId.get());
+    if (user.isNone())
+      return null;
 
-  private static final Function2<ExtendedAnnotationService, Long, Option<String>> getUserEmail = new Function2<>() {
-    @Override
-    public Option<String> apply(ExtendedAnnotationService s, Long userId) {
-      return s.getUser(userId).flatMap(new Function<>() {
-        @Override
-        public Option<String> apply(User user) {
-          return user.getEmail();
-        }
-      });
-    }
-  };
+    return user.get().getNickname();
+  }
+
+  private static String getUserEmail(SerializationContext ctx, Option<Long> userId) {
+    if (userId.isNone())
+      return "";
+
+    Option<User> user = ctx.getUser(userId.get());
+    if (user.isNone())
+      return "";
+
+    return user.get().getEmail().getOrElse("");
+  }
 }
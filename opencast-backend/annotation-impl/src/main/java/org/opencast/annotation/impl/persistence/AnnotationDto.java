@@ -15,16 +15,20 @@
  */
 package org.opencast.annotation.impl.persistence;
 
+import static org.opencast.annotation.impl.JsonStreamWriter.object;
 import static org.opencast.annotation.impl.Jsons.conc;
 import static org.opencast.annotation.impl.Jsons.jA;
 import static org.opencast.annotation.impl.Jsons.jO;
 import static org.opencast.annotation.impl.Jsons.p;
+import static org.opencast.annotation.impl.persistence.AbstractResourceDto.preloading;
+import static org.opencast.annotation.impl.persistence.AbstractResourceDto.writeAll;
 import static org.opencastproject.util.data.Option.option;
 
 import org.opencast.annotation.api.Annotation;
 import org.opencast.annotation.api.ExtendedAnnotationService;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.impl.AnnotationImpl;
+import org.opencast.annotation.impl.JsonStreamWriter;
 import org.opencast.annotation.impl.ResourceImpl;
 
 import org.opencastproject.util.data.Function;
@@ -33,6 +37,13 @@ import org.opencastproject.util.data.Option;
 
 import org.json.simple.JSONObject;
 
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.persistence.Column;
@@ -40,6 +51,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
@@ -47,10 +59,21 @@ import javax.persistence.Table;
 
 /** JPA/JSON link to {@link org.opencast.annotation.api.Annotation}. */
 @Entity(name = "Annotation")
-@Table(name = "xannotations_annotation")
+@Table(name = "xannotations_annotation", indexes = {
+        @Index(name = "IX_xannotations_annotation_track", columnList = "track_id, deleted_at, start"),
+        @Index(name = "IX_xannotations_annotation_track_end", columnList = "track_id, deleted_at, end_time") })
 @NamedQueries({
         @NamedQuery(name = "Annotation.findById", query = "select a from Annotation a where a.id = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "Annotation.findAllOfTrack", query = "select a from Annotation a where a.trackId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Annotation.findAllOfTrackInWindow", query = "select a from Annotation a where a.trackId = :id and a.deletedAt IS NULL and a.start <= :to and a.endTime >= :from"),
+        @NamedQuery(name = "Annotation.findAllOfVideoInWindow", query = "select a from Annotation a, Track t where a.trackId = t.id and t.videoId = :id and a.deletedAt IS NULL and t.deletedAt IS NULL and a.start <= :to and a.endTime >= :from order by a.trackId"),
+        @NamedQuery(name = "Annotation.findAllOfVideo", query = "select a from Annotation a, Track t where a.trackId = t.id and t.videoId = :id and a.deletedAt IS NULL and t.deletedAt IS NULL order by a.trackId, a.start, a.id"),
+        @NamedQuery(name = "Annotation.deleteOfTrack", query = "update Annotation a set a.deletedAt = :deletedAt, a.deletedBy = :deletedBy where a.trackId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Annotation.deleteOfVideo", query = "update Annotation a set a.deletedAt = :deletedAt, a.deletedBy = :deletedBy where a.deletedAt IS NULL and a.trackId in (select t.id from Track t where t.videoId = :id and t.deletedAt IS NULL)"),
+        @NamedQuery(name = "Annotation.findPageOfTrack", query = "select a from Annotation a where a.trackId = :id and a.deletedAt IS NULL and a.start <= :to and a.endTime >= :from and (a.start > :start or (a.start = :start and a.id > :after)) order by a.start, a.id"),
+        @NamedQuery(name = "Annotation.findChangesOfVideo", query = "select a from Annotation a, Track t where a.trackId = t.id and t.videoId = :id and (a.updatedAt > :since or a.deletedAt > :since)"),
+        @NamedQuery(name = "Annotation.versionOfTrack", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Annotation a where a.trackId = :id"),
+        @NamedQuery(name = "Annotation.versionOfVideo", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Annotation a, Track t where a.trackId = t.id and t.videoId = :id"),
         @NamedQuery(name = "Annotation.clear", query = "delete from Annotation") })
 public class AnnotationDto extends AbstractResourceDto {
   @Id
@@ -64,6 +87,10 @@ public class AnnotationDto extends AbstractResourceDto {
   @Column(name = "duration")
   private Double duration;
 
+  // The end of the annotation, derived from start and duration so that overlaps can be queried
+  @Column(name = "end_time")
+  private double endTime;
+
   @Lob
   @Column(name = "content", nullable = false)
   private String content;
@@ -93,6 +120,7 @@ public class AnnotationDto extends AbstractResourceDto {
     this.content = content;
     this.start = start;
     this.duration = duration.getOrElseNull();
+    this.endTime = start + duration.getOrElse(0.0);
     this.createdFromQuestionnaire = createdFromQuestionnaire;
     this.settings = settings.getOrElseNull();
     return this;
@@ -121,13 +149,82 @@ public class AnnotationDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, Annotation, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService s, Annotation a) {
-      return conc(AbstractResourceDto.toJson.apply(s, a),
-          jO(p("id", a.getId()), p("start", a.getStart()), p("duration", a.getDuration()), p("content", a.getContent()),
-              p("createdFromQuestionnaire", a.getCreatedFromQuestionnaire()), p("settings", a.getSettings())));
+      return AnnotationDto.toJson(new SerializationContext(s), a);
     }
   };
 
+  public static JSONObject toJson(SerializationContext ctx, Annotation a) {
+    return conc(AbstractResourceDto.toJson(ctx, a),
+        jO(p("id", a.getId()), p("start", a.getStart()), p("duration", a.getDuration()), p("content", a.getContent()),
+            p("createdFromQuestionnaire", a.getCreatedFromQuestionnaire()), p("settings", a.getSettings())));
+  }
+
+  /** Write an annotation, like {@link #toJson(SerializationContext, Annotation)}. */
+  public static void writeJson(SerializationContext ctx, Annotation a, JsonStreamWriter writer) throws IOException {
+    writer.beginObject();
+    AbstractResourceDto.writeFields(ctx, a, writer);
+    writer.field("id", a.getId()).field("start", a.getStart()).field("duration", a.getDuration())
+            .field("content", a.getContent()).field("createdFromQuestionnaire", a.getCreatedFromQuestionnaire())
+            .field("settings", a.getSettings());
+    writer.endObject(() -> toJson(ctx, a));
+  }
+
   public static JSONObject toJson(ExtendedAnnotationService s, Stream<Annotation> as) {
-    return jO(p("annotations", jA(as.map(a -> toJson.apply(s, a)).toArray())));
+    final List<Annotation> annotations = as.collect(Collectors.toList());
+    final SerializationContext ctx = SerializationContext.of(s, annotations);
+    return jO(p("annotations", jA(annotations.stream().map(a -> toJson(ctx, a)).toArray())));
+  }
+
+  /** Serialize annotations of possibly multiple tracks, grouped by the track they belong to. */
+  public static JSONObject toJsonByTrack(ExtendedAnnotationService s, Stream<Annotation> as) {
+    final List<Annotation> annotations = as.collect(Collectors.toList());
+    final SerializationContext ctx = SerializationContext.of(s, annotations);
+    final Map<Long, List<Annotation>> byTrack = annotations.stream().collect(
+            Collectors.groupingBy(Annotation::getTrackId, LinkedHashMap::new, Collectors.toList()));
+    return jO(p("tracks", jA(byTrack.entrySet().stream()
+            .map(e -> jO(p("id", e.getKey()),
+                    p("annotations", jA(e.getValue().stream().map(a -> toJson(ctx, a)).toArray()))))
+            .toArray())));
+  }
+
+  /**
+   * Write annotations like {@link #toJson(ExtendedAnnotationService, Stream)}, reading them from the stream while they
+   * are written. The stream is only opened once writing starts and closed afterwards, so that the database cursor
+   * behind it is not left open if the value is never written.
+   */
+  public static JsonStreamWriter.Value writeJson(ExtendedAnnotationService s, Supplier<Stream<Annotation>> as) {
+    final SerializationContext ctx = new SerializationContext(s);
+    return object("annotations", writer -> writeAll(ctx, as.get(), (a, w) -> writeJson(ctx, a, w)).write(writer));
+  }
+
+  /**
+   * Write annotations like {@link #toJsonByTrack(ExtendedAnnotationService, Stream)}, reading them from the stream
+   * while they are written. The annotations have to be ordered by track. Like with
+   * {@link #writeJson(ExtendedAnnotationService, Supplier)}, the stream is only opened once writing starts.
+   */
+  public static JsonStreamWriter.Value writeJsonByTrack(ExtendedAnnotationService s,
+          Supplier<Stream<Annotation>> as) {
+    final SerializationContext ctx = new SerializationContext(s);
+    return object("tracks", writer -> {
+      try (Stream<Annotation> annotations = as.get()) {
+        final Iterator<Annotation> iterator = preloading(ctx, annotations);
+        // The first annotation of the next track, read ahead while writing the annotations of the current one
+        final Annotation[] next = { iterator.hasNext() ? iterator.next() : null };
+        writer.beginArray();
+        while (next[0] != null) {
+          final long trackId = next[0].getTrackId();
+          writer.beginObject().field("id", trackId).field("annotations", w -> {
+            w.beginArray();
+            do {
+              writeJson(ctx, next[0], w);
+              next[0] = iterator.hasNext() ? iterator.next() : null;
+            } while (next[0] != null && next[0].getTrackId() == trackId);
+            w.endArray();
+          });
+          writer.endObject(() -> jO(p("id", ""), p("annotations", "")));
+        }
+        writer.endArray();
+      }
+    });
   }
 }
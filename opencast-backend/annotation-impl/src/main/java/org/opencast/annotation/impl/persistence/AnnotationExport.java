@@ -0,0 +1,262 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.opencastproject.util.data.Option.none;
+
+import org.opencast.annotation.api.Annotation;
+import org.opencast.annotation.api.Category;
+import org.opencast.annotation.api.Comment;
+import org.opencast.annotation.api.ExtendedAnnotationService;
+import org.opencast.annotation.api.Label;
+import org.opencast.annotation.api.Scale;
+import org.opencast.annotation.api.ScaleValue;
+import org.opencast.annotation.api.Track;
+import org.opencast.annotation.api.User;
+import org.opencast.annotation.impl.TableWriter;
+
+import org.opencastproject.util.data.Option;
+
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Exports the annotations of a video as a table with the columns of the spreadsheet export of the annotation tool:
+ * a row for every content item and every comment of an annotation, the latter followed by their replies.
+ * <p>
+ * The annotations are read through a cursor and written in batches, each resolving the users and comments it needs
+ * with a few queries, so that the memory needed does not grow with the number of annotations. Their content is
+ * resolved with a {@link ContentDictionary} of the video. Instances are meant to be used for one export only.
+ */
+public final class AnnotationExport {
+  public static final List<String> HEADER = Collections.unmodifiableList(Arrays.asList("ID", "Creation date",
+          "Last update", "Author nickname", "Author mail", "Track name", "Leadin", "Leadout", "Duration", "Text",
+          "Category name", "Label name", "Label abbreviation", "Scale name", "Scale value name", "Scale value value",
+          "Comment ID", "Comment creation date", "Last update of comment", "Comment author nickname",
+          "Comment author mail", "Comment text", "Comment replies to", "Type"));
+
+  private static final int BATCH_SIZE = 500;
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+          .withZone(ZoneOffset.UTC);
+
+  private final ExtendedAnnotationService eas;
+  private final SerializationContext ctx;
+  private final long videoId;
+  private final Option<Set<Long>> trackIds;
+  private final Option<Set<Long>> categoryIds;
+  private final boolean freeText;
+  private final ContentDictionary dictionary;
+
+  /**
+   * @param videoId
+   *          the video to export the annotations of
+   * @param trackIds
+   *          the tracks to export or none to export all tracks
+   * @param categoryIds
+   *          the categories whose labels an annotation may use to be exported or none to allow any label
+   * @param freeText
+   *          whether to export annotations without any label
+   */
+  public AnnotationExport(ExtendedAnnotationService eas, long videoId, Option<Set<Long>> trackIds,
+          Option<Set<Long>> categoryIds, boolean freeText) {
+    this.eas = eas;
+    this.ctx = new SerializationContext(eas);
+    this.dictionary = new ContentDictionary(eas);
+    this.videoId = videoId;
+    this.trackIds = trackIds;
+    this.categoryIds = categoryIds;
+    this.freeText = freeText;
+  }
+
+  /** Write the header and the rows of all exported annotations to the given table and finish it. */
+  public void write(TableWriter table) throws IOException {
+    table.row(HEADER);
+    final Map<Long, Track> tracks = eas.getTracks(videoId)
+            .filter(track -> trackIds.isNone() || trackIds.get().contains(track.getId()))
+            .collect(Collectors.toMap(Track::getId, Function.identity()));
+    if (!tracks.isEmpty()) {
+      dictionary.addVideo(videoId);
+      try (Stream<Annotation> annotations = eas.getAnnotationsOfVideo(videoId)) {
+        final Iterator<Annotation> source = annotations.iterator();
+        final List<Annotation> batch = new ArrayList<>(BATCH_SIZE);
+        final List<List<Map<?, ?>>> contents = new ArrayList<>(BATCH_SIZE);
+        while (source.hasNext()) {
+          final Annotation annotation = source.next();
+          if (!tracks.containsKey(annotation.getTrackId())) {
+            continue;
+          }
+          final List<Map<?, ?>> content = dictionary.items(annotation.getContent());
+          if (!isExported(content)) {
+            continue;
+          }
+          batch.add(annotation);
+          contents.add(content);
+          if (batch.size() == BATCH_SIZE) {
+            write(table, tracks, batch, contents);
+          }
+        }
+        write(table, tracks, batch, contents);
+      }
+    }
+    table.finish();
+  }
+
+  /** Write the rows of a batch of annotations and empty it. */
+  private void write(TableWriter table, Map<Long, Track> tracks, List<Annotation> batch,
+          List<List<Map<?, ?>>> contents) throws IOException {
+    if (batch.isEmpty()) {
+      return;
+    }
+    ctx.preload(batch);
+    final List<Comment> comments = eas.getCommentsOfAnnotations(
+            batch.stream().map(Annotation::getId).collect(Collectors.toList())).collect(Collectors.toList());
+    ctx.preload(comments);
+    final Map<Long, List<Comment>> topLevel = new HashMap<>();
+    final Map<Long, List<Comment>> replies = new HashMap<>();
+    for (Comment comment : comments) {
+      if (comment.getReplyToId().isSome()) {
+        replies.computeIfAbsent(comment.getReplyToId().get(), id -> new ArrayList<>()).add(comment);
+      } else {
+        topLevel.computeIfAbsent(comment.getAnnotationId(), id -> new ArrayList<>()).add(comment);
+      }
+    }
+
+    for (int i = 0; i < batch.size(); i++) {
+      final Annotation annotation = batch.get(i);
+      final List<Object> line = line(annotation, tracks.get(annotation.getTrackId()));
+      for (Map<?, ?> item : contents.get(i)) {
+        table.row(contentRow(line, item));
+      }
+      writeComments(table, line, topLevel.getOrDefault(annotation.getId(), Collections.emptyList()), replies);
+    }
+    batch.clear();
+    contents.clear();
+  }
+
+  /** Write the rows of the given comments, each followed by the rows of its replies. */
+  private void writeComments(TableWriter table, List<Object> line, List<Comment> comments,
+          Map<Long, List<Comment>> replies) throws IOException {
+    for (Comment comment : comments) {
+      final List<Object> row = new ArrayList<>(line);
+      row.set(16, comment.getId());
+      row.set(17, date(comment.getCreatedAt()));
+      row.set(18, date(comment.getUpdatedAt()));
+      row.set(19, nickname(comment.getUpdatedBy()));
+      row.set(20, "");
+      row.set(21, comment.getText());
+      row.set(22, comment.getReplyToId().isSome() ? comment.getReplyToId().get() : null);
+      row.set(23, "comment");
+      table.row(row);
+      writeComments(table, line, replies.getOrDefault(comment.getId(), Collections.emptyList()), replies);
+    }
+  }
+
+  /** The cells shared by all rows of an annotation. */
+  private List<Object> line(Annotation annotation, Track track) {
+    final double duration = annotation.getDuration().getOrElse(0D);
+    final Object[] line = new Object[HEADER.size()];
+    line[0] = annotation.getId();
+    line[1] = date(annotation.getCreatedAt());
+    line[2] = date(annotation.getUpdatedAt());
+    line[3] = nickname(annotation.getCreatedBy());
+    final Option<User> author = user(annotation.getCreatedBy());
+    line[4] = author.isSome() ? author.get().getEmail().getOrElseNull() : null;
+    line[5] = track.getName();
+    line[6] = formatTime(annotation.getStart());
+    line[7] = formatTime(annotation.getStart() + duration);
+    line[8] = formatTime(duration);
+    return Arrays.asList(line);
+  }
+
+  private List<Object> contentRow(List<Object> line, Map<?, ?> item) {
+    final List<Object> row = new ArrayList<>(line);
+    final Object type = item.get("type");
+    final Option<Label> label = dictionary.labelOf(item);
+    final Option<ScaleValue> scaleValue = dictionary.scaleValueOf(item);
+    final Option<Category> category = label.isSome() ? dictionary.getCategory(label.get().getCategoryId()) : none();
+
+    if ("text".equals(type)) {
+      row.set(9, item.get("value"));
+    } else if ("label".equals(type)) {
+      row.set(9, label.isSome() ? label.get().getValue() : null);
+    } else if ("scaling".equals(type) && label.isSome() && scaleValue.isSome()) {
+      row.set(9, label.get().getAbbreviation() + " (" + scaleValue.get().getName() + ")");
+    }
+    row.set(10, category.isSome() ? category.get().getName() : "");
+    row.set(11, label.isSome() ? label.get().getValue() : "");
+    row.set(12, label.isSome() ? label.get().getAbbreviation() : "");
+    if (scaleValue.isSome()) {
+      final Option<Scale> scale = dictionary.getScale(scaleValue.get().getScaleId());
+      row.set(13, scale.isSome() ? scale.get().getName() : null);
+      row.set(14, scaleValue.get().getName());
+      row.set(15, scaleValue.get().getValue());
+    }
+    row.set(23, scaleValue.isSome() ? "content-scale" : "content");
+    return row;
+  }
+
+  /**
+   * Annotations using labels are exported if one of their labels belongs to an exported category,
+   * annotations without labels if free text is exported.
+   */
+  private boolean isExported(List<Map<?, ?>> content) {
+    boolean hasLabels = false;
+    for (Map<?, ?> item : content) {
+      final Object type = item.get("type");
+      if (!"label".equals(type) && !"scaling".equals(type)) {
+        continue;
+      }
+      final Option<Label> label = dictionary.labelOf(item);
+      hasLabels = true;
+      if (categoryIds.isNone() || label.isSome() && categoryIds.get().contains(label.get().getCategoryId())) {
+        return true;
+      }
+    }
+    return !hasLabels && freeText;
+  }
+
+  private Option<User> user(Option<Long> id) {
+    return id.isSome() ? ctx.getUser(id.get()) : none();
+  }
+
+  private String nickname(Option<Long> id) {
+    final Option<User> user = user(id);
+    return user.isSome() ? user.get().getNickname() : null;
+  }
+
+  private static String date(Option<Date> date) {
+    return date.isSome() ? DATE_FORMAT.format(date.get().toInstant()) : null;
+  }
+
+  /** Format seconds as <code>H:MM:SS</code> like the annotation tool does. */
+  static String formatTime(double seconds) {
+    final long time = (long) Math.floor(seconds);
+    return String.format("%d:%02d:%02d", time / 3600, time / 60 % 60, time % 60);
+  }
+}
@@ -0,0 +1,292 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import org.opencast.annotation.api.Annotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable index of the annotations of a video, answering which of them overlap a point or window in time.
+ * <p>
+ * The annotations are kept in primitive arrays sorted by their start, with a centered interval tree on top.
+ * A window <code>[from, to]</code> is answered by a stabbing query for <code>from</code> in the tree, plus the
+ * contiguous range of annotations starting after <code>from</code> but not after <code>to</code>, which takes
+ * <code>O(log n + k)</code> for <code>k</code> results.
+ * <p>
+ * Changes are collected in a small overlay that is scanned linearly, and folded into a new tree once it grows past
+ * roughly the square root of the number of annotations.
+ */
+public final class AnnotationIntervalIndex {
+  /** The overlay size that never causes a rebuild, no matter how few annotations are indexed. */
+  private static final int MIN_OVERLAY_SIZE = 64;
+
+  private final Tree tree;
+  /** Annotations created or updated since the tree was built, by id. */
+  private final Map<Long, Annotation> added;
+  /** Ids of annotations in the tree which have been updated or deleted since it was built. */
+  private final Set<Long> removed;
+
+  private AnnotationIntervalIndex(Tree tree, Map<Long, Annotation> added, Set<Long> removed) {
+    this.tree = tree;
+    this.added = added;
+    this.removed = removed;
+  }
+
+  /** Build an index of the given annotations. */
+  public static AnnotationIntervalIndex of(Collection<Annotation> annotations) {
+    return new AnnotationIntervalIndex(new Tree(annotations), Map.of(), Set.of());
+  }
+
+  /** Get an index which additionally holds the given annotations, replacing earlier versions of them. */
+  public AnnotationIntervalIndex with(Collection<Annotation> annotations) {
+    final Map<Long, Annotation> added = new HashMap<>(this.added);
+    final Set<Long> removed = new HashSet<>(this.removed);
+    for (Annotation a : annotations) {
+      added.put(a.getId(), a);
+      if (tree.positions.containsKey(a.getId())) {
+        removed.add(a.getId());
+      }
+    }
+    return changed(added, removed);
+  }
+
+  /** Get an index which no longer holds the annotation with the given id. */
+  public AnnotationIntervalIndex without(long id) {
+    if (!added.containsKey(id) && (!tree.positions.containsKey(id) || removed.contains(id))) {
+      return this;
+    }
+    final Map<Long, Annotation> added = new HashMap<>(this.added);
+    final Set<Long> removed = new HashSet<>(this.removed);
+    added.remove(id);
+    if (tree.positions.containsKey(id)) {
+      removed.add(id);
+    }
+    return changed(added, removed);
+  }
+
+  private AnnotationIntervalIndex changed(Map<Long, Annotation> added, Set<Long> removed) {
+    final AnnotationIntervalIndex index = new AnnotationIntervalIndex(tree, added, removed);
+    if (added.size() + removed.size() > Math.max(MIN_OVERLAY_SIZE, (int) Math.sqrt(tree.size()))) {
+      return of(index.annotations());
+    }
+    return index;
+  }
+
+  /** The number of indexed annotations. */
+  public int size() {
+    return tree.size() - removed.size() + added.size();
+  }
+
+  /**
+   * Get the annotations overlapping the window <code>[from, to]</code>, ordered by their start.
+   * Pass the same value twice to get the annotations active at that point in time.
+   */
+  public List<Annotation> overlapping(double from, double to) {
+    final List<Annotation> result = new ArrayList<>();
+    for (int position : tree.overlapping(from, to)) {
+      final Annotation a = tree.annotations[position];
+      if (!removed.contains(a.getId())) {
+        result.add(a);
+      }
+    }
+    if (!added.isEmpty()) {
+      for (Annotation a : added.values()) {
+        if (a.getStart() <= to && end(a) >= from) {
+          result.add(a);
+        }
+      }
+      result.sort(BY_START);
+    }
+    return result;
+  }
+
+  private List<Annotation> annotations() {
+    final List<Annotation> annotations = new ArrayList<>(added.values());
+    for (Annotation a : tree.annotations) {
+      if (!removed.contains(a.getId())) {
+        annotations.add(a);
+      }
+    }
+    return annotations;
+  }
+
+  /** The end of an annotation; annotations without a duration are points in time. */
+  static double end(Annotation a) {
+    return a.getStart() + a.getDuration().getOrElse(0.0);
+  }
+
+  private static final Comparator<Annotation> BY_START = Comparator.comparingDouble(Annotation::getStart)
+          .thenComparingLong(Annotation::getId);
+
+  /** The static part of the index: the annotations sorted by start, and a centered interval tree over them. */
+  private static final class Tree {
+    private final Annotation[] annotations;
+    private final double[] starts;
+    private final double[] ends;
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private final Node root;
+
+    Tree(Collection<Annotation> annotations) {
+      this.annotations = annotations.toArray(new Annotation[0]);
+      Arrays.sort(this.annotations, BY_START);
+      starts = new double[this.annotations.length];
+      ends = new double[this.annotations.length];
+      for (int i = 0; i < this.annotations.length; i++) {
+        starts[i] = this.annotations[i].getStart();
+        ends[i] = end(this.annotations[i]);
+        positions.put(this.annotations[i].getId(), i);
+      }
+      root = build(IntStream.range(0, this.annotations.length).toArray());
+    }
+
+    int size() {
+      return annotations.length;
+    }
+
+    /**
+     * Build the subtree of the given positions, which are in ascending order.
+     * The center of a node is the median of the endpoints below it, so every child holds at most half of them.
+     */
+    private Node build(int[] positions) {
+      if (positions.length == 0) {
+        return null;
+      }
+      final double[] endpoints = new double[positions.length * 2];
+      for (int i = 0; i < positions.length; i++) {
+        endpoints[2 * i] = starts[positions[i]];
+        endpoints[2 * i + 1] = ends[positions[i]];
+      }
+      Arrays.sort(endpoints);
+      final double center = endpoints[positions.length];
+
+      final int[] left = new int[positions.length];
+      final int[] right = new int[positions.length];
+      final int[] here = new int[positions.length];
+      int leftCount = 0;
+      int rightCount = 0;
+      int hereCount = 0;
+      for (int position : positions) {
+        if (ends[position] < center) {
+          left[leftCount++] = position;
+        } else if (starts[position] > center) {
+          right[rightCount++] = position;
+        } else {
+          here[hereCount++] = position;
+        }
+      }
+      final int[] byStart = Arrays.copyOf(here, hereCount);
+      final int[] byEnd = IntStream.of(byStart).boxed()
+              .sorted(Comparator.comparingDouble((Integer position) -> ends[position]).reversed())
+              .mapToInt(Integer::intValue)
+              .toArray();
+      return new Node(center, byStart, byEnd, build(Arrays.copyOf(left, leftCount)),
+              build(Arrays.copyOf(right, rightCount)));
+    }
+
+    /** Get the positions of the annotations overlapping <code>[from, to]</code> in ascending order. */
+    int[] overlapping(double from, double to) {
+      if (from > to) {
+        return new int[0];
+      }
+      // Annotations starting up to "from" which have not ended before it
+      final int[] stabbed = stab(from);
+      Arrays.sort(stabbed);
+      // Annotations starting within the window, which are contiguous since the positions are sorted by start
+      final int first = upperBound(from);
+      final int last = upperBound(to);
+      final int[] result = Arrays.copyOf(stabbed, stabbed.length + last - first);
+      for (int i = first; i < last; i++) {
+        result[stabbed.length + i - first] = i;
+      }
+      return result;
+    }
+
+    /** Get the positions of the annotations containing <code>t</code>, in no particular order. */
+    private int[] stab(double t) {
+      final IntStream.Builder result = IntStream.builder();
+      Node node = root;
+      while (node != null) {
+        if (t < node.center) {
+          for (int position : node.byStart) {
+            if (starts[position] > t) {
+              break;
+            }
+            result.add(position);
+          }
+          node = node.left;
+        } else if (t > node.center) {
+          for (int position : node.byEnd) {
+            if (ends[position] < t) {
+              break;
+            }
+            result.add(position);
+          }
+          node = node.right;
+        } else {
+          for (int position : node.byStart) {
+            result.add(position);
+          }
+          node = null;
+        }
+      }
+      return result.build().toArray();
+    }
+
+    /** Get the first position starting after <code>t</code>. */
+    private int upperBound(double t) {
+      int low = 0;
+      int high = starts.length;
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+        if (starts[middle] <= t) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+
+  /** A node of the interval tree, holding the annotations which contain its center. */
+  private static final class Node {
+    private final double center;
+    /** The positions of the annotations containing the center, by ascending start. */
+    private final int[] byStart;
+    /** The positions of the annotations containing the center, by descending end. */
+    private final int[] byEnd;
+    private final Node left;
+    private final Node right;
+
+    Node(double center, int[] byStart, int[] byEnd, Node left, Node right) {
+      this.center = center;
+      this.byStart = byStart;
+      this.byEnd = byEnd;
+      this.left = left;
+      this.right = right;
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import org.opencast.annotation.api.Annotation;
+import org.opencast.annotation.api.Category;
+
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Decides whether annotations may be seen by looking at the categories of the labels they reference.
+ * The owning categories of unknown labels are loaded in bulk and every access decision is remembered,
+ * so filtering a batch of annotations costs at most one lookup for its new labels and a hash lookup per content item.
+ * An index reflects the access rights at the time it is used and is meant to live for one request only.
+ */
+final class CategoryAccessIndex {
+  private final Function<Collection<Long>, Map<Long, Category>> categoriesOfLabels;
+  private final Predicate<Category> hasAccess;
+  private final Map<Long, Boolean> labelAccess = new HashMap<>();
+  private final Map<Long, Boolean> categoryAccess = new HashMap<>();
+  private final JSONParser parser = new JSONParser();
+
+  /**
+   * @param categoriesOfLabels
+   *          loads the owning categories of the given label ids, including deleted ones
+   * @param hasAccess
+   *          the access check for a single category
+   */
+  CategoryAccessIndex(Function<Collection<Long>, Map<Long, Category>> categoriesOfLabels,
+          Predicate<Category> hasAccess) {
+    this.categoriesOfLabels = categoriesOfLabels;
+    this.hasAccess = hasAccess;
+  }
+
+  /** Keep only the annotations whose labels all belong to accessible categories. */
+  <A extends Annotation> List<A> filter(List<A> annotations) {
+    final List<List<Long>> labelIds = new ArrayList<>(annotations.size());
+    final Set<Long> unknown = new HashSet<>();
+    for (A annotation : annotations) {
+      final List<Long> ids = labelIds(annotation.getContent());
+      for (Long id : ids) {
+        if (!labelAccess.containsKey(id)) {
+          unknown.add(id);
+        }
+      }
+      labelIds.add(ids);
+    }
+    load(unknown);
+
+    final List<A> accessible = new ArrayList<>(annotations.size());
+    for (int i = 0; i < annotations.size(); i++) {
+      if (labelIds.get(i).stream().allMatch(labelAccess::get)) {
+        accessible.add(annotations.get(i));
+      }
+    }
+    return accessible;
+  }
+
+  /**
+   * Like {@link #filter(List)}, but filter the annotations lazily in batches of the given size while the returned
+   * stream is read, so that they do not have to be held in memory all at once. Closing the returned stream closes the
+   * given one.
+   */
+  <A extends Annotation> Stream<A> filter(Stream<A> annotations, int batchSize) {
+    final Iterator<A> source = annotations.iterator();
+    final Iterator<List<A>> batches = new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return source.hasNext();
+      }
+
+      @Override
+      public List<A> next() {
+        final List<A> batch = new ArrayList<>(batchSize);
+        while (batch.size() < batchSize && source.hasNext()) {
+          batch.add(source.next());
+        }
+        return filter(batch);
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+            .flatMap(List::stream)
+            .onClose(annotations::close);
+  }
+
+  private void load(Set<Long> labelIds) {
+    if (labelIds.isEmpty()) {
+      return;
+    }
+    final Map<Long, Category> categories = categoriesOfLabels.apply(labelIds);
+    for (Long labelId : labelIds) {
+      final Category category = categories.get(labelId);
+      // A label that does not exist anymore does not restrict anything
+      labelAccess.put(labelId, category == null
+              || categoryAccess.computeIfAbsent(category.getId(), id -> hasAccess.test(category)));
+    }
+  }
+
+  /** Extract the ids of the labels referenced by label and scaling content items. */
+  private List<Long> labelIds(String content) {
+    // Without a quoted "label" the content cannot reference any, so spare parsing it
+    if (content == null || !content.contains("\"label\"")) {
+      return Collections.emptyList();
+    }
+    final List<?> items;
+    try {
+      items = (List<?>) parser.parse(content);
+    } catch (ParseException e) {
+      throw new RuntimeException(e);
+    }
+    final List<Long> ids = new ArrayList<>();
+    for (Object item : items) {
+      final Map<?, ?> contentItem = (Map<?, ?>) item;
+      final Object type = contentItem.get("type");
+      if ("label".equals(type)) {
+        ids.add(((Number) contentItem.get("value")).longValue());
+      } else if ("scaling".equals(type)) {
+        ids.add(((Number) ((Map<?, ?>) contentItem.get("value")).get("label")).longValue());
+      }
+    }
+    return ids;
+  }
+}
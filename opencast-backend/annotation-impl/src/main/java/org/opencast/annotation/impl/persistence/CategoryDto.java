@@ -15,24 +15,35 @@
  */
 package org.opencast.annotation.impl.persistence;
 
+import static org.opencast.annotation.impl.JsonStreamWriter.object;
 import static org.opencast.annotation.impl.Jsons.conc;
 import static org.opencast.annotation.impl.Jsons.jA;
 import static org.opencast.annotation.impl.Jsons.jO;
 import static org.opencast.annotation.impl.Jsons.p;
+import static org.opencast.annotation.impl.persistence.AbstractResourceDto.writeAll;
 import static org.opencastproject.util.data.Option.option;
 
 import org.opencast.annotation.api.Category;
 import org.opencast.annotation.api.ExtendedAnnotationService;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.impl.CategoryImpl;
+import org.opencast.annotation.impl.JsonStreamWriter;
 import org.opencast.annotation.impl.ResourceImpl;
 
 import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Function2;
 import org.opencastproject.util.data.Option;
 
+import org.apache.commons.lang3.StringUtils;
 import org.json.simple.JSONObject;
 
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.persistence.Column;
@@ -40,19 +51,34 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 /** JPA/JSON link to {@link Category}. */
 @Entity(name = "Category")
-@Table(name = "xannotations_category")
+@Table(name = "xannotations_category", indexes = {
+        @Index(name = "IX_xannotations_category_video", columnList = "video_id, deleted_at"),
+        @Index(name = "IX_xannotations_category_series", columnList = "series_extid, deleted_at"),
+        @Index(name = "IX_xannotations_category_series_category", columnList = "series_category_id, deleted_at"),
+        @Index(name = "IX_xannotations_category_series_content", columnList = "series_extid, content_hash") })
 @NamedQueries({
         @NamedQuery(name = "Category.findByIdIncludeDeleted", query = "select a from Category a where a.id = :id"),
         @NamedQuery(name = "Category.findById", query = "select a from Category a where a.id = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "Category.findAllOfExtSeries", query = "select a from Category a where a.seriesExtId = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "Category.findAllOfSeriesCategory", query = "select a from Category a where a.seriesCategoryId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Category.findAllOfSeriesCategoryInVideos", query = "select a from Category a where a.seriesCategoryId = :id and a.videoId in :ids and a.deletedAt IS NULL"),
         @NamedQuery(name = "Category.findAllOfVideo", query = "select a from Category a where a.videoId = :id"),
+        @NamedQuery(name = "Category.findLinkableOfVideo", query = "select c, m from Category c, Category m where c.videoId = :id and c.seriesCategoryId IS NULL and c.deletedAt IS NULL and m.seriesExtId = :seriesExtId and m.seriesCategoryId = m.id and m.videoId <> :id and m.deletedAt IS NULL and m.contentHash = c.contentHash order by c.id"),
+        @NamedQuery(name = "Category.findLinkableOfSeriesCategory", query = "select a from Category a where a.contentHash = :contentHash and a.videoId in :ids and a.seriesCategoryId IS NULL and a.deletedAt IS NULL order by a.id"),
+        @NamedQuery(name = "Category.findWithoutContentHash", query = "select a from Category a where a.contentHash IS NULL order by a.id"),
+        @NamedQuery(name = "Category.findIdsOfSeriesCategory", query = "select a.id from Category a where a.seriesCategoryId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Category.findIdsOfVideo", query = "select a.id from Category a where a.deletedAt IS NULL and (a.videoId = :id or a.seriesCategoryId in (select c.seriesCategoryId from Category c where c.videoId = :id and c.deletedAt IS NULL))"),
+        @NamedQuery(name = "Category.deleteByIds", query = "update Category a set a.deletedAt = :deletedAt, a.deletedBy = :deletedBy where a.id in :ids and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Category.findChangesOfVideo", query = "select a from Category a where a.videoId = :id and (a.updatedAt > :since or a.deletedAt > :since)"),
+        @NamedQuery(name = "Category.versionOfVideo", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Category a where a.videoId = :id"),
+        @NamedQuery(name = "Category.versionOfCategory", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Category a where a.id = :id or a.id in (select c.seriesCategoryId from Category c where c.id = :id)"),
         @NamedQuery(name = "Category.clear", query = "delete from Category") })
 public class CategoryDto extends AbstractResourceDto {
   @Id
@@ -82,6 +108,13 @@ public class CategoryDto extends AbstractResourceDto {
   @Column(name = "scale_id")
   private Long scaleId;
 
+  /**
+   * The hash of the content deciding whether two categories are the same, so that categories of different videos can
+   * be matched by the database. See {@link #contentHash(String, Option, Option)}.
+   */
+  @Column(name = "content_hash", length = 64)
+  private String contentHash;
+
   public static CategoryDto create(Option<String> seriesExtId, Option<Long> seriesCategoryId, long videoId,
           Option<Long> scaleId, String name, Option<String> description, Option<String> settings, Resource resource) {
     CategoryDto dto = new CategoryDto().update(seriesExtId, seriesCategoryId, videoId, name, description, scaleId,
@@ -103,9 +136,32 @@ public class CategoryDto extends AbstractResourceDto {
     this.description = description.getOrElseNull();
     this.scaleId = scaleId.getOrElseNull();
     this.settings = settings.getOrElseNull();
+    this.contentHash = contentHash(name, description, settings);
+    return this;
+  }
+
+  /** Hash the content of a category stored before content hashes were introduced, without touching anything else. */
+  CategoryDto hashContent() {
+    this.contentHash = contentHash(name, option(description), option(settings));
     return this;
   }
 
+  /**
+   * Hash the name, description and settings of a category as hex encoded SHA-256. Surrounding white space is ignored
+   * and missing descriptions and settings count as empty ones.
+   */
+  static String contentHash(String name, Option<String> description, Option<String> settings) {
+    final String content = StringUtils.trimToEmpty(name) + '\0' + StringUtils.trimToEmpty(description.getOrElseNull())
+            + '\0' + StringUtils.trimToEmpty(settings.getOrElseNull());
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+      return String.format("%064x", new BigInteger(1, digest));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform has to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
   public Category toCategory() {
     return new CategoryImpl(id, option(seriesExtId), option(seriesCategoryId), videoId, option(scaleId), name,
             option(description), option(settings), new ResourceImpl(option(access), option(createdBy),
@@ -123,13 +179,40 @@ public class CategoryDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, Category, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService eas, Category s) {
-      return conc(AbstractResourceDto.toJson.apply(eas, s),
-          jO(p("id", s.getId()), p("series_extid", s.getSeriesExtId()), p("series_category_id", s.getSeriesCategoryId()), p("name", s.getName()),
-              p("description", s.getDescription()), p("settings", s.getSettings()), p("scale_id", s.getScaleId())));
+      return CategoryDto.toJson(new SerializationContext(eas), s);
     }
   };
 
+  public static JSONObject toJson(SerializationContext ctx, Category s) {
+    return conc(AbstractResourceDto.toJson(ctx, s),
+        jO(p("id", s.getId()), p("series_extid", s.getSeriesExtId()), p("series_category_id", s.getSeriesCategoryId()), p("name", s.getName()),
+            p("description", s.getDescription()), p("settings", s.getSettings()), p("scale_id", s.getScaleId())));
+  }
+
+  /** Write a category, like {@link #toJson(SerializationContext, Category)}. */
+  public static void writeJson(SerializationContext ctx, Category s, JsonStreamWriter writer) throws IOException {
+    writer.beginObject();
+    AbstractResourceDto.writeFields(ctx, s, writer);
+    writer.field("id", s.getId()).field("series_extid", s.getSeriesExtId())
+            .field("series_category_id", s.getSeriesCategoryId()).field("name", s.getName())
+            .field("description", s.getDescription()).field("settings", s.getSettings())
+            .field("scale_id", s.getScaleId());
+    writer.endObject(() -> toJson(ctx, s));
+  }
+
   public static JSONObject toJson(ExtendedAnnotationService eas, Stream<Category> categories) {
-    return jO(p("categories", jA(categories.map(c -> toJson.apply(eas, c)).toArray())));
+    final List<Category> categoryList = categories.collect(Collectors.toList());
+    final SerializationContext ctx = SerializationContext.of(eas, categoryList);
+    return jO(p("categories", jA(categoryList.stream().map(c -> toJson(ctx, c)).toArray())));
   }
+  /**
+   * Write categories like {@link #toJson(ExtendedAnnotationService, Stream)}, reading them from the stream while they
+   * are written. The stream is closed afterwards.
+   */
+  public static JsonStreamWriter.Value writeJson(ExtendedAnnotationService eas, Stream<Category> categories) {
+    final SerializationContext ctx = new SerializationContext(eas);
+    return object("categories", writeAll(ctx, categories, (c, writer) -> writeJson(ctx, c, writer)));
+  }
+
+
 }
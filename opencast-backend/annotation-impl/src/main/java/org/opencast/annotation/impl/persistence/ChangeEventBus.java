@@ -0,0 +1,196 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.option;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencast.annotation.api.ChangeEvent;
+import org.opencast.annotation.api.ChangeSubscription;
+
+import org.opencastproject.util.data.Option;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the {@link ChangeEvent}s of a video to the subscribers of that video, within this process.
+ * Every subscriber has a bounded buffer. Publishing never blocks: a subscriber whose buffer is full is evicted instead,
+ * so a slow consumer can neither hold up writes nor make the buffers grow without limit.
+ * Every subscriber ties up a thread waiting for its events, so the number of subscribers is limited in total and per
+ * video. Subscribing beyond either limit is refused.
+ */
+public final class ChangeEventBus {
+  private final int capacity;
+  private final int maxSubscribers;
+  private final int maxSubscribersPerVideo;
+  private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+  private final AtomicLong published = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong rejections = new AtomicLong();
+
+  /**
+   * @param capacity
+   *          the maximum number of events buffered per subscriber
+   * @param maxSubscribers
+   *          the maximum number of subscribers in total
+   * @param maxSubscribersPerVideo
+   *          the maximum number of subscribers of one video
+   */
+  public ChangeEventBus(int capacity, int maxSubscribers, int maxSubscribersPerVideo) {
+    if (capacity < 1 || maxSubscribers < 1 || maxSubscribersPerVideo < 1) {
+      throw new IllegalArgumentException("The buffer size and the maximum numbers of subscribers must be positive: "
+              + capacity + ", " + maxSubscribers + ", " + maxSubscribersPerVideo);
+    }
+    this.capacity = capacity;
+    this.maxSubscribers = maxSubscribers;
+    this.maxSubscribersPerVideo = maxSubscribersPerVideo;
+  }
+
+  /** Subscribe to the events of a video, none if there are as many subscribers as allowed already. */
+  public Option<ChangeSubscription> subscribe(long videoId) {
+    if (subscriberCount.incrementAndGet() > maxSubscribers) {
+      subscriberCount.decrementAndGet();
+      rejections.incrementAndGet();
+      return none();
+    }
+    final Subscriber subscriber = new Subscriber(videoId);
+    final AtomicBoolean added = new AtomicBoolean();
+    // Add inside of compute, since closing the last subscriber of a video removes its set concurrently
+    subscribers.compute(videoId, (id, ofVideo) -> {
+      final Set<Subscriber> set = ofVideo != null ? ofVideo : ConcurrentHashMap.newKeySet();
+      if (set.size() < maxSubscribersPerVideo) {
+        added.set(set.add(subscriber));
+      }
+      return set.isEmpty() ? null : set;
+    });
+    if (!added.get()) {
+      subscriberCount.decrementAndGet();
+      rejections.incrementAndGet();
+      return none();
+    }
+    return some(subscriber);
+  }
+
+  /** Whether anybody listens to the events of any video, to spare looking up the video of a change otherwise. */
+  public boolean hasSubscribers() {
+    return !subscribers.isEmpty();
+  }
+
+  /** Deliver an event to the subscribers of its video, evicting those whose buffer is full. */
+  public void publish(ChangeEvent event) {
+    final Set<Subscriber> ofVideo = subscribers.get(event.getVideoId());
+    if (ofVideo == null) {
+      return;
+    }
+    published.incrementAndGet();
+    for (Subscriber subscriber : ofVideo) {
+      if (!subscriber.events.offer(event)) {
+        evictions.incrementAndGet();
+        subscriber.evict();
+      }
+    }
+  }
+
+  /** Close all subscriptions, e.g. on shutdown. */
+  public void closeAll() {
+    subscribers.values().forEach(ofVideo -> ofVideo.forEach(Subscriber::close));
+  }
+
+  /** The number of events delivered to at least one subscriber. */
+  public long getPublished() {
+    return published.get();
+  }
+
+  /** The number of subscribers evicted because their buffer was full. */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /** The number of current subscribers. */
+  public int getSubscribers() {
+    return subscriberCount.get();
+  }
+
+  /** The number of subscriptions refused because there were as many subscribers as allowed already. */
+  public long getRejections() {
+    return rejections.get();
+  }
+
+  @Override
+  public String toString() {
+    return "ChangeEventBus{videos=" + subscribers.size() + ", subscribers=" + subscriberCount + ", published="
+            + published + ", evictions=" + evictions + ", rejections=" + rejections + "}";
+  }
+
+  private final class Subscriber implements ChangeSubscription {
+    private final long videoId;
+    private final BlockingQueue<ChangeEvent> events = new ArrayBlockingQueue<>(capacity);
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean evicted;
+
+    private Subscriber(long videoId) {
+      this.videoId = videoId;
+    }
+
+    @Override
+    public Option<ChangeEvent> next(long timeout, TimeUnit unit) throws InterruptedException {
+      if (closed.get()) {
+        return none();
+      }
+      return option(events.poll(timeout, unit));
+    }
+
+    @Override
+    public boolean isClosed() {
+      return closed.get();
+    }
+
+    @Override
+    public boolean isEvicted() {
+      return evicted;
+    }
+
+    private void evict() {
+      // Mark the eviction before closing, so that whoever sees the subscription closed also sees why
+      evicted = true;
+      close();
+    }
+
+    @Override
+    public void close() {
+      // Both the publisher evicting and the consumer may close
+      if (!closed.compareAndSet(false, true)) {
+        return;
+      }
+      subscriberCount.decrementAndGet();
+      events.clear();
+      subscribers.computeIfPresent(videoId, (id, ofVideo) -> {
+        ofVideo.remove(this);
+        return ofVideo.isEmpty() ? null : ofVideo;
+      });
+    }
+  }
+}
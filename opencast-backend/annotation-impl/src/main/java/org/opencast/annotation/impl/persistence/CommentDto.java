@@ -33,6 +33,8 @@ import org.opencastproject.util.data.Option;
 
 import org.json.simple.JSONObject;
 
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.persistence.Column;
@@ -40,6 +42,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
@@ -47,11 +50,17 @@ import javax.persistence.Table;
 
 /** JPA/JSON link to {@link Comment}. */
 @Entity(name = "Comment")
-@Table(name = "xannotations_comment")
+@Table(name = "xannotations_comment", indexes = {
+        @Index(name = "IX_xannotations_comment_annotation", columnList = "annotation_id, deleted_at, reply_to_id"),
+        @Index(name = "IX_xannotations_comment_reply_to", columnList = "reply_to_id, deleted_at") })
 @NamedQueries({
         @NamedQuery(name = "Comment.findById", query = "select a from Comment a where a.id = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "Comment.findAllOfAnnotation", query = "select a from Comment a where a.annotationId = :id and a.deletedAt IS NULL AND a.replyToId IS NULL"),
         @NamedQuery(name = "Comment.findAllReplies", query = "select a from Comment a where a.replyToId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Comment.findAllOfAnnotations", query = "select a from Comment a where a.annotationId in :ids and a.deletedAt IS NULL order by a.id"),
+        @NamedQuery(name = "Comment.findPageOfAnnotation", query = "select a from Comment a where a.annotationId = :id and a.deletedAt IS NULL AND a.replyToId IS NULL and a.id > :after order by a.id"),
+        @NamedQuery(name = "Comment.findPageOfReplies", query = "select a from Comment a where a.replyToId = :id and a.deletedAt IS NULL and a.id > :after order by a.id"),
+        @NamedQuery(name = "Comment.findChangesOfVideo", query = "select a from Comment a, Annotation n, Track t where a.annotationId = n.id and n.trackId = t.id and t.videoId = :id and (a.updatedAt > :since or a.deletedAt > :since)"),
         @NamedQuery(name = "Comment.clear", query = "delete from Comment") })
 public class CommentDto extends AbstractResourceDto {
   @Id
@@ -99,11 +108,17 @@ public class CommentDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, Comment, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService s, Comment c) {
-      return conc(AbstractResourceDto.toJson.apply(s, c), jO(p("id", c.getId()), p("text", c.getText())));
+      return CommentDto.toJson(new SerializationContext(s), c);
     }
   };
 
+  public static JSONObject toJson(SerializationContext ctx, Comment c) {
+    return conc(AbstractResourceDto.toJson(ctx, c), jO(p("id", c.getId()), p("text", c.getText())));
+  }
+
   public static JSONObject toJson(ExtendedAnnotationService s, Stream<Comment> cs) {
-    return jO(p("comments", jA(cs.map(c -> toJson.apply(s, c)).toArray())));
+    final List<Comment> comments = cs.collect(Collectors.toList());
+    final SerializationContext ctx = SerializationContext.of(s, comments);
+    return jO(p("comments", jA(comments.stream().map(c -> toJson(ctx, c)).toArray())));
   }
 }
@@ -0,0 +1,115 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencast.annotation.api.Category;
+import org.opencast.annotation.api.ExtendedAnnotationService;
+import org.opencast.annotation.api.Label;
+import org.opencast.annotation.api.Scale;
+import org.opencast.annotation.api.ScaleValue;
+
+import org.opencastproject.util.data.Option;
+
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the labels, categories, scale values and scales referenced by the content of annotations.
+ * The definitions of a video are loaded in bulk with {@link #addVideo(long)}, so that resolving the content of its
+ * annotations does not cost a query per annotation. Anything not found that way, e.g. a label of another video, is
+ * looked up once and remembered, including deleted definitions. A dictionary is meant to be used for one export only.
+ */
+final class ContentDictionary {
+  private final ExtendedAnnotationService eas;
+  private final Map<Long, Option<Label>> labels = new HashMap<>();
+  private final Map<Long, Option<Category>> categories = new HashMap<>();
+  private final Map<Long, Option<ScaleValue>> scaleValues = new HashMap<>();
+  private final Map<Long, Option<Scale>> scales = new HashMap<>();
+  private final JSONParser parser = new JSONParser();
+
+  ContentDictionary(ExtendedAnnotationService eas) {
+    this.eas = eas;
+  }
+
+  /** Load the labels, categories, scale values and scales of a video. */
+  ContentDictionary addVideo(long videoId) {
+    eas.getLabelsOfVideo(videoId).forEach(label -> labels.put(label.getId(), some(label)));
+    eas.getCategories(videoId).forEach(category -> categories.put(category.getId(), some(category)));
+    eas.getScaleValuesOfVideo(videoId).forEach(value -> scaleValues.put(value.getId(), some(value)));
+    eas.getScales(videoId).forEach(scale -> scales.put(scale.getId(), some(scale)));
+    return this;
+  }
+
+  /** Parse the content of an annotation into its items. */
+  List<Map<?, ?>> items(String content) {
+    if (content == null) {
+      return Collections.emptyList();
+    }
+    final List<Map<?, ?>> items = new ArrayList<>();
+    try {
+      for (Object item : (List<?>) parser.parse(content)) {
+        items.add((Map<?, ?>) item);
+      }
+    } catch (ParseException e) {
+      throw new RuntimeException(e);
+    }
+    return items;
+  }
+
+  /** Get the label referenced by a label or scaling content item. */
+  Option<Label> labelOf(Map<?, ?> item) {
+    final Object type = item.get("type");
+    if ("label".equals(type)) {
+      return getLabel(((Number) item.get("value")).longValue());
+    } else if ("scaling".equals(type)) {
+      return getLabel(((Number) ((Map<?, ?>) item.get("value")).get("label")).longValue());
+    }
+    return none();
+  }
+
+  /** Get the scale value referenced by a scaling content item. */
+  Option<ScaleValue> scaleValueOf(Map<?, ?> item) {
+    if ("scaling".equals(item.get("type"))) {
+      return getScaleValue(((Number) ((Map<?, ?>) item.get("value")).get("scaling")).longValue());
+    }
+    return none();
+  }
+
+  Option<Label> getLabel(long id) {
+    return labels.computeIfAbsent(id, labelId -> eas.getLabel(labelId, true));
+  }
+
+  Option<Category> getCategory(long id) {
+    return categories.computeIfAbsent(id, categoryId -> eas.getCategory(categoryId, true));
+  }
+
+  Option<ScaleValue> getScaleValue(long id) {
+    return scaleValues.computeIfAbsent(id, valueId -> eas.getScaleValue(valueId, true));
+  }
+
+  Option<Scale> getScale(long id) {
+    return scales.computeIfAbsent(id, scaleId -> eas.getScale(scaleId, true));
+  }
+}
@@ -0,0 +1,201 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A bounded read-through cache for entities which are read a lot and changed rarely.
+ * Entries are keyed by the named query and parameter used to load them, and the least recently used ones are evicted
+ * once the cache is full. Every write to an entity type invalidates all cached entries of that type,
+ * which keeps lookups by other keys than the id (like the external id of a user) consistent as well.
+ * Only writes through this process invalidate entries, so when other processes write to the same database, entries
+ * should expire after a while to see their writes eventually.
+ */
+public final class EntityCache {
+  private final Set<Class<?>> types;
+  private final long ttl;
+  private final LongSupplier clock;
+  private final Map<Key, CacheEntry> entries;
+  private final Map<Class<?>, Long> generations = new HashMap<>();
+  private long hits;
+  private long misses;
+  private long expirations;
+  private long evictions;
+
+  /**
+   * @param types
+   *          the entity types to cache; lookups of any other type always go to the database
+   * @param size
+   *          the maximum number of cached entries; <code>0</code> disables the cache
+   * @param ttl
+   *          the milliseconds an entry is used for; <code>0</code> keeps entries until they are invalidated or evicted
+   */
+  public EntityCache(Set<Class<?>> types, int size, long ttl) {
+    this(types, size, ttl, System::currentTimeMillis);
+  }
+
+  EntityCache(Set<Class<?>> types, final int size, long ttl, LongSupplier clock) {
+    if (size < 0 || ttl < 0) {
+      throw new IllegalArgumentException("The cache size and the time to live must not be negative: " + size + ", "
+              + ttl);
+    }
+    this.types = size > 0 ? Set.copyOf(types) : Set.of();
+    this.ttl = ttl;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CacheEntry> eldest) {
+        if (size() > size) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Get an entity from the cache, loading and remembering it on a miss.
+   * The loader runs outside of the cache's lock. If the type has been written to in the meantime,
+   * the loaded value is returned but not cached.
+   */
+  public <A> A get(Class<?> type, String query, Object param, Supplier<A> load) {
+    if (!types.contains(type)) {
+      return load.get();
+    }
+    final Key key = new Key(type, query, param);
+    final long generation;
+    synchronized (this) {
+      generation = generation(type);
+      final CacheEntry entry = entries.get(key);
+      if (entry != null && entry.generation == generation) {
+        if (clock.getAsLong() < entry.expires) {
+          hits++;
+          @SuppressWarnings("unchecked")
+          final A value = (A) entry.value;
+          return value;
+        }
+        entries.remove(key);
+        expirations++;
+      }
+      misses++;
+    }
+    final A value = load.get();
+    synchronized (this) {
+      if (generation(type) == generation) {
+        entries.put(key, new CacheEntry(generation, ttl > 0 ? clock.getAsLong() + ttl : Long.MAX_VALUE, value));
+      }
+    }
+    return value;
+  }
+
+  /** Drop all cached entities of the given type. */
+  public synchronized void invalidate(Class<?> type) {
+    if (types.contains(type)) {
+      generations.put(type, generation(type) + 1);
+      entries.keySet().removeIf(key -> key.type == type);
+    }
+  }
+
+  /** Drop all cached entities. */
+  public synchronized void clear() {
+    for (Class<?> type : types) {
+      generations.put(type, generation(type) + 1);
+    }
+    entries.clear();
+  }
+
+  private long generation(Class<?> type) {
+    return generations.getOrDefault(type, 0L);
+  }
+
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /** The number of entries dropped because they were used for as long as allowed. */
+  public synchronized long getExpirations() {
+    return expirations;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "EntityCache(size=" + entries.size() + ", hits=" + hits + ", misses=" + misses
+            + ", expirations=" + expirations + ", evictions=" + evictions + ")";
+  }
+
+  private static final class Key {
+    private final Class<?> type;
+    private final String query;
+    private final Object param;
+
+    Key(Class<?> type, String query, Object param) {
+      this.type = type;
+      this.query = query;
+      this.param = param;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key that = (Key) o;
+      return type == that.type && query.equals(that.query) && Objects.equals(param, that.param);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, query, param);
+    }
+  }
+
+  private static final class CacheEntry {
+    private final long generation;
+    private final long expires;
+    private final Object value;
+
+    CacheEntry(long generation, long expires, Object value) {
+      this.generation = generation;
+      this.expires = expires;
+      this.value = value;
+    }
+  }
+}
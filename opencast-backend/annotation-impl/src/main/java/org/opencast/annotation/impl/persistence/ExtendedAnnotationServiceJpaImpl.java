@@ -33,11 +33,19 @@ import static org.opencastproject.util.data.Option.some;
 
 import org.opencast.annotation.api.Annotation;
 import org.opencast.annotation.api.Category;
+import org.opencast.annotation.api.ChangeEvent;
+import org.opencast.annotation.api.ChangeEvent.Action;
+import org.opencast.annotation.api.ChangeEvent.Type;
+import org.opencast.annotation.api.ChangeSubscription;
+import org.opencast.annotation.api.Changes;
+import org.opencast.annotation.api.CollectionVersion;
 import org.opencast.annotation.api.Comment;
 import org.opencast.annotation.api.ExtendedAnnotationException;
 import org.opencast.annotation.api.ExtendedAnnotationException.Cause;
 import org.opencast.annotation.api.ExtendedAnnotationService;
+import org.opencast.annotation.api.ImportReport;
 import org.opencast.annotation.api.Label;
+import org.opencast.annotation.api.Page;
 import org.opencast.annotation.api.Questionnaire;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.api.Scale;
@@ -53,15 +61,14 @@ import org.opencast.annotation.impl.QuestionnaireImpl;
 import org.opencast.annotation.impl.ResourceImpl;
 import org.opencast.annotation.impl.ScaleImpl;
 import org.opencast.annotation.impl.ScaleValueImpl;
-import org.opencast.annotation.impl.TrackImpl;
 import org.opencast.annotation.impl.UserImpl;
-import org.opencast.annotation.impl.VideoImpl;
 
 import org.opencastproject.db.DBSession;
 import org.opencastproject.db.DBSessionFactory;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.search.api.SearchService;
 import org.opencastproject.security.api.AuthorizationService;
+import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.SecurityConstants;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.UnauthorizedException;
@@ -74,19 +81,34 @@ import org.opencastproject.util.data.Option.Match;
 import org.opencastproject.util.data.Predicate;
 
 import org.apache.commons.lang3.tuple.Pair;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.queries.ScrollableCursor;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -102,23 +124,251 @@ import javax.persistence.TypedQuery;
 @Component
 public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotationService {
 
+  private static final Logger logger = LoggerFactory.getLogger(ExtendedAnnotationServiceJpaImpl.class);
+
+  /** Configuration key for the maximum number of entities kept in the {@link EntityCache}. */
+  public static final String ENTITY_CACHE_SIZE_KEY = "entity.cache.size";
+  public static final int DEFAULT_ENTITY_CACHE_SIZE = 10000;
+
+  /** Configuration key for the seconds entities are cached for, to see writes of other nodes eventually. */
+  public static final String ENTITY_CACHE_TTL_KEY = "entity.cache.ttl";
+  public static final int DEFAULT_ENTITY_CACHE_TTL = 60;
+
+  /** Configuration key for the maximum number of videos whose {@link AnnotationIntervalIndex} is kept in memory. */
+  public static final String INTERVAL_INDEX_VIDEOS_KEY = "interval.index.videos";
+  public static final int DEFAULT_INTERVAL_INDEX_VIDEOS = 100;
+
+  /** Configuration key for the maximum number of change events buffered per subscriber. */
+  public static final String EVENTS_BUFFER_SIZE_KEY = "events.buffer.size";
+  public static final int DEFAULT_EVENTS_BUFFER_SIZE = 100;
+
+  /** Configuration key for the maximum number of clients listening to change events, over all videos. */
+  public static final String EVENTS_SUBSCRIBERS_KEY = "events.subscribers";
+  public static final int DEFAULT_EVENTS_SUBSCRIBERS = 200;
+
+  /** Configuration key for the maximum number of clients listening to the change events of one video. */
+  public static final String EVENTS_VIDEO_SUBSCRIBERS_KEY = "events.video.subscribers";
+  public static final int DEFAULT_EVENTS_VIDEO_SUBSCRIBERS = 50;
+
+  /** Configuration key for the number of rows fetched at once when reading large result sets through a cursor. */
+  public static final String CURSOR_FETCH_SIZE_KEY = "cursor.fetch.size";
+  public static final int DEFAULT_CURSOR_FETCH_SIZE = 500;
+
+  /** Configuration key for the maximum number of annotations created at once, all of them in one transaction. */
+  public static final String ANNOTATIONS_BATCH_MAX_KEY = "annotations.batch.max";
+  public static final int DEFAULT_ANNOTATIONS_BATCH_MAX = 1000;
+
+  /** Configuration key for the number of records after which an import flushes and clears its persistence context. */
+  public static final String IMPORT_BATCH_SIZE_KEY = "import.batch.size";
+  public static final int DEFAULT_IMPORT_BATCH_SIZE = 500;
+
+  /** Configuration key for the number of videos a series category is propagated to in one transaction. */
+  public static final String PROPAGATION_BATCH_SIZE_KEY = "propagation.batch.size";
+  public static final int DEFAULT_PROPAGATION_BATCH_SIZE = 50;
+
+  /** Configuration key for the maximum number of attempts to propagate a series category to its videos. */
+  public static final String PROPAGATION_ATTEMPTS_KEY = "propagation.attempts";
+  public static final int DEFAULT_PROPAGATION_ATTEMPTS = 3;
+
+  /** Configuration key for the seconds media package lookups and access decisions are cached for. */
+  public static final String MEDIA_PACKAGE_CACHE_TTL_KEY = "media.package.cache.ttl";
+  public static final int DEFAULT_MEDIA_PACKAGE_CACHE_TTL = 30;
+
+  /** Configuration key for the maximum number of media package lookups and access decisions kept in the cache. */
+  public static final String MEDIA_PACKAGE_CACHE_SIZE_KEY = "media.package.cache.size";
+  public static final int DEFAULT_MEDIA_PACKAGE_CACHE_SIZE = 10000;
+
+  /**
+   * Configuration key for the milliseconds a change may take from being stamped to being committed. Changes within
+   * that time might not be visible yet, so the cursor of {@link #getChanges(long, Date)} lags behind by it and versions
+   * of collections changed within it are never reused.
+   */
+  public static final String COMMIT_LAG_KEY = "commit.lag";
+  public static final int DEFAULT_COMMIT_LAG = 5000;
+
+  /** The number of categories given their content hash in one transaction when upgrading. */
+  static final int CONTENT_HASH_BATCH_SIZE = 500;
+
+  /** Milliseconds to wait before retrying to propagate a series category. */
+  static final long PROPAGATION_RETRY_DELAY = 10000;
+
+  /** Entities which are read on almost every request but rarely change. */
+  private static final Set<Class<?>> CACHED_TYPES = Set.of(VideoDto.class, UserDto.class, CategoryDto.class,
+          LabelDto.class, ScaleDto.class, ScaleValueDto.class);
+
   private EntityManagerFactory entityManagerFactory;
   private DBSessionFactory dbSessionFactory;
   private DBSession db;
   private SecurityService securityService;
   private AuthorizationService authorizationService;
   private SearchService searchService;
+  private EntityCache entityCache;
+  private MediaPackageCache mediaPackageCache;
+  /** Interval indexes of the annotations of the most recently queried videos, by video id. Guarded by itself. */
+  private Map<Long, AnnotationIntervalIndex> intervalIndexes;
+  /** Counts the writes to annotations, to not keep indexes missing concurrent writes. Guarded by intervalIndexes. */
+  private long annotationWrites;
+  private ChangeEventBus changeEvents;
+  private int cursorFetchSize;
+  private int importBatchSize;
+  private int annotationsBatchMax;
+  /** Milliseconds a change may take from being stamped to being committed. */
+  private int commitLag;
+  private SeriesPropagation seriesPropagation;
+  /** The principal the request of each thread acts as, to reuse it until the request ends, see {@link #endRequest}. */
+  private final ThreadLocal<Principal> principals = new ThreadLocal<>();
+  /** Counts the writes to users, to not reuse principals resolved before. */
+  private final AtomicLong userWrites = new AtomicLong();
 
   @Activate
-  public void activate() {
+  public void activate(Map<String, Object> properties) {
+    entityCache = new EntityCache(CACHED_TYPES,
+            intProperty(properties, ENTITY_CACHE_SIZE_KEY, DEFAULT_ENTITY_CACHE_SIZE),
+            TimeUnit.SECONDS.toMillis(intProperty(properties, ENTITY_CACHE_TTL_KEY, DEFAULT_ENTITY_CACHE_TTL)));
+    mediaPackageCache = new MediaPackageCache(
+            TimeUnit.SECONDS.toMillis(intProperty(properties, MEDIA_PACKAGE_CACHE_TTL_KEY,
+                    DEFAULT_MEDIA_PACKAGE_CACHE_TTL)),
+            intProperty(properties, MEDIA_PACKAGE_CACHE_SIZE_KEY, DEFAULT_MEDIA_PACKAGE_CACHE_SIZE));
+    final int indexedVideos = intProperty(properties, INTERVAL_INDEX_VIDEOS_KEY, DEFAULT_INTERVAL_INDEX_VIDEOS);
+    intervalIndexes = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, AnnotationIntervalIndex> eldest) {
+        return size() > indexedVideos;
+      }
+    };
+    changeEvents = new ChangeEventBus(intProperty(properties, EVENTS_BUFFER_SIZE_KEY, DEFAULT_EVENTS_BUFFER_SIZE),
+            intProperty(properties, EVENTS_SUBSCRIBERS_KEY, DEFAULT_EVENTS_SUBSCRIBERS),
+            intProperty(properties, EVENTS_VIDEO_SUBSCRIBERS_KEY, DEFAULT_EVENTS_VIDEO_SUBSCRIBERS));
+    cursorFetchSize = intProperty(properties, CURSOR_FETCH_SIZE_KEY, DEFAULT_CURSOR_FETCH_SIZE);
+    importBatchSize = intProperty(properties, IMPORT_BATCH_SIZE_KEY, DEFAULT_IMPORT_BATCH_SIZE);
+    annotationsBatchMax = intProperty(properties, ANNOTATIONS_BATCH_MAX_KEY, DEFAULT_ANNOTATIONS_BATCH_MAX);
+    commitLag = intProperty(properties, COMMIT_LAG_KEY, DEFAULT_COMMIT_LAG);
+    seriesPropagation = new SeriesPropagation(new SeriesPropagation.Worker() {
+      @Override
+      public List<Long> videosOf(long seriesCategoryId) {
+        return videosOfSeriesCategory(seriesCategoryId);
+      }
+
+      @Override
+      public void propagate(long seriesCategoryId, List<Long> videoIds) {
+        propagateSeriesCategory(seriesCategoryId, videoIds);
+      }
+    }, intProperty(properties, PROPAGATION_BATCH_SIZE_KEY, DEFAULT_PROPAGATION_BATCH_SIZE),
+            intProperty(properties, PROPAGATION_ATTEMPTS_KEY, DEFAULT_PROPAGATION_ATTEMPTS), PROPAGATION_RETRY_DELAY);
     db = dbSessionFactory.createSession(entityManagerFactory);
+    hashCategoryContents();
+  }
+
+  /**
+   * Give the categories stored before content hashes were introduced their hash, in batches of one transaction each.
+   * This runs on activation, so that no category can be linked to a series category before, which would copy the
+   * series category next to an equal category of the video instead of linking them.
+   */
+  private void hashCategoryContents() {
+    long total = 0;
+    int hashed;
+    do {
+      hashed = tx(em -> {
+        final List<CategoryDto> batch = em.createNamedQuery("Category.findWithoutContentHash", CategoryDto.class)
+                .setMaxResults(CONTENT_HASH_BATCH_SIZE)
+                .getResultList();
+        batch.forEach(CategoryDto::hashContent);
+        return batch.size();
+      });
+      total += hashed;
+    } while (hashed == CONTENT_HASH_BATCH_SIZE);
+    if (total > 0) {
+      logger.info("Hashed the content of {} categories stored before content hashes", total);
+    }
+  }
+
+  private static int intProperty(Map<String, Object> properties, String key, int defaultValue) {
+    return Optional.ofNullable(properties.get(key))
+            .map(value -> Integer.parseInt(value.toString().trim()))
+            .orElse(defaultValue);
   }
 
   @Deactivate
   public synchronized void deactivate() {
+    logger.info("Shutting down with {}, {}, {} and {}", entityCache, mediaPackageCache, changeEvents,
+            seriesPropagation);
+    seriesPropagation.shutdown();
+    changeEvents.closeAll();
     db.close();
   }
 
+  @Override
+  public Map<String, Map<String, Long>> getStatistics() throws ExtendedAnnotationException {
+    if (!principal().isAdmin()) {
+      throw new ExtendedAnnotationException(Cause.UNAUTHORIZED);
+    }
+    final Map<String, Map<String, Long>> statistics = new LinkedHashMap<>();
+    final Map<String, Long> propagation = new LinkedHashMap<>();
+    synchronized (seriesPropagation) {
+      propagation.put("pending", (long) seriesPropagation.getPending());
+      propagation.put("running", seriesPropagation.isRunning() ? 1L : 0L);
+      propagation.put("videos_done", seriesPropagation.getVideosDone());
+      propagation.put("videos_total", seriesPropagation.getVideosTotal());
+      propagation.put("completed", seriesPropagation.getCompleted());
+      propagation.put("failed", seriesPropagation.getFailed());
+      propagation.put("retries", seriesPropagation.getRetries());
+    }
+    statistics.put("series_propagation", propagation);
+    final Map<String, Long> events = new LinkedHashMap<>();
+    events.put("subscribers", (long) changeEvents.getSubscribers());
+    events.put("published", changeEvents.getPublished());
+    events.put("evictions", changeEvents.getEvictions());
+    events.put("rejections", changeEvents.getRejections());
+    statistics.put("change_events", events);
+    final Map<String, Long> mediaPackages = new LinkedHashMap<>();
+    synchronized (mediaPackageCache) {
+      mediaPackages.put("size", (long) mediaPackageCache.getSize());
+      mediaPackages.put("hits", mediaPackageCache.getHits());
+      mediaPackages.put("misses", mediaPackageCache.getMisses());
+      mediaPackages.put("expirations", mediaPackageCache.getExpirations());
+      mediaPackages.put("evictions", mediaPackageCache.getEvictions());
+    }
+    statistics.put("media_package_cache", mediaPackages);
+    final Map<String, Long> entities = new LinkedHashMap<>();
+    synchronized (entityCache) {
+      entities.put("size", (long) entityCache.getSize());
+      entities.put("hits", entityCache.getHits());
+      entities.put("misses", entityCache.getMisses());
+      entities.put("expirations", entityCache.getExpirations());
+      entities.put("evictions", entityCache.getEvictions());
+    }
+    statistics.put("entity_cache", entities);
+    return statistics;
+  }
+
+  @Override
+  public void invalidateMediaPackage(String mediaPackageId) throws ExtendedAnnotationException {
+    if (!principal().isAdmin()) {
+      throw new ExtendedAnnotationException(Cause.UNAUTHORIZED);
+    }
+    mediaPackageCache.invalidate(mediaPackageId);
+  }
+
+  /** Get the cache of frequently read entities, e.g. to inspect its hit, miss and eviction counters. */
+  public EntityCache getEntityCache() {
+    return entityCache;
+  }
+
+  /**
+   * Get the cache of media package lookups and access decisions, e.g. to inspect its hit and miss counters or to
+   * invalidate the entries of a media package whose access rights changed.
+   */
+  public MediaPackageCache getMediaPackageCache() {
+    return mediaPackageCache;
+  }
+
+  /** Get the background propagation of series categories, e.g. to inspect its progress. */
+  public SeriesPropagation getSeriesPropagation() {
+    return seriesPropagation;
+  }
+
   @Reference(target = "(osgi.unit.name=org.opencast.annotation.impl.persistence)")
   public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
     this.entityManagerFactory = entityManagerFactory;
@@ -167,7 +417,9 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   @Override
   public User createUser(String extId, String nickname, Option<String> email, Resource resource) {
     final UserDto dto = UserDto.create(extId, nickname, email, resource);
-    return tx(namedQuery.persist(dto)).toUser();
+    final User created = persist(dto).toUser();
+    userWrites.incrementAndGet();
+    return created;
   }
 
   @Override
@@ -178,6 +430,7 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
         dto.update(u.getExtId(), u.getNickname(), u.getEmail(), u);
       }
     });
+    userWrites.incrementAndGet();
   }
 
   @Override
@@ -190,7 +443,7 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
 
   @Override
   public boolean clearDatabase() throws ExtendedAnnotationException {
-    return tx(em -> {
+    final boolean cleared = tx(em -> {
       namedQuery.update("Annotation.clear").apply(em);
       namedQuery.update("Track.clear").apply(em);
       namedQuery.update("User.clear").apply(em);
@@ -208,6 +461,43 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
       namedQuery.update("Comment.clear").apply(em);
       return true;
     });
+    entityCache.clear();
+    mediaPackageCache.clear();
+    userWrites.incrementAndGet();
+    synchronized (intervalIndexes) {
+      annotationWrites++;
+      intervalIndexes.clear();
+    }
+    return cleared;
+  }
+
+  @Override
+  public ImportReport importRecords(Iterator<Map<String, Object>> records) throws ExtendedAnnotationException {
+    if (!principal().isAdmin()) {
+      throw new ExtendedAnnotationException(Cause.UNAUTHORIZED);
+    }
+    final long start = System.currentTimeMillis();
+    final Map<String, Long> counts;
+    try {
+      counts = tx(em -> new RecordImport(em, importBatchSize).run(records));
+    } catch (ExtendedAnnotationException e) {
+      // Malformed records are the caller's fault, so do not report them as server errors
+      if (e.getCause() instanceof IllegalArgumentException) {
+        throw (IllegalArgumentException) e.getCause();
+      }
+      throw e;
+    }
+    // Imported resources bypass the caches and indexes, so drop them instead of tracking every record
+    entityCache.clear();
+    userWrites.incrementAndGet();
+    synchronized (intervalIndexes) {
+      annotationWrites++;
+      intervalIndexes.clear();
+    }
+    final ImportReport report = new ImportReport(counts, System.currentTimeMillis() - start);
+    logger.info("Imported {} records in {} ms ({} records per second): {}", report.getRecords(), report.getMillis(),
+            Math.round(report.getRecordsPerSecond()), report.getCounts());
+    return report;
   }
 
   @Override
@@ -215,6 +505,13 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
     return findById(toUser, "User.findById", id, UserDto.class);
   }
 
+  @Override
+  public Stream<User> getUsers(final Collection<Long> ids) {
+    return partition(ids).stream()
+            .flatMap(chunk -> findAll(UserDto.class, "User.findByIds", Pair.of("ids", chunk)).stream())
+            .map(UserDto::toUser);
+  }
+
   @Override
   public Option<User> getUserByExtId(final String id) {
     return findById(toUser, "User.findByUserId", id, UserDto.class);
@@ -223,30 +520,44 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   @Override
   public Video createVideo(String extId, Resource resource) throws ExtendedAnnotationException {
     final VideoDto dto = VideoDto.create(extId, resource);
-    return tx(namedQuery.persist(dto)).toVideo();
+    final Video created = persist(dto).toVideo();
+    publish(Type.VIDEO, created.getId(), none(), created, true, () -> some(created.getId()));
+    return created;
   }
 
   @Override
   public void updateVideo(final Video v) throws ExtendedAnnotationException {
-    update(VideoDto.class, "Video.findById", v.getId(), new Effect<>() {
+    final Video updated = update(VideoDto.class, "Video.findById", v.getId(), new Effect<>() {
       @Override
       protected void run(VideoDto dto) {
         dto.update(v.getExtId(), v);
       }
-    });
+    }).toVideo();
+    publish(Type.VIDEO, updated.getId(), none(), updated, false, () -> some(updated.getId()));
   }
 
   @Override
   public boolean deleteVideo(Video video) throws ExtendedAnnotationException {
-    Resource deleteResource = deleteResource(video);
-    final Video updated = new VideoImpl(video.getId(), video.getExtId(), deleteResource);
-    updateVideo(updated);
-
-    getTracks(video.getId()).forEach(this::deleteTrack);
-
-    getCategories(none(), video.getId()).forEach(this::deleteCategory);
-
-    getScales(video.getId()).forEach(this::deleteScale);
+    final Resource deleteResource = deleteResource(video);
+    final Pair<String, Object> videoId = id(video.getId());
+    tx(em -> {
+      namedQuery.find("Video.findById", VideoDto.class, videoId).apply(em).update(video.getExtId(), deleteResource);
+      // Children first, since their queries select the not yet deleted parents
+      softDelete(em, "Annotation.deleteOfVideo", deleteResource, videoId);
+      softDelete(em, "Track.deleteOfVideo", deleteResource, videoId);
+      deleteCategories(em, namedQuery.findAll("Category.findIdsOfVideo", Long.class, videoId).apply(em),
+              deleteResource);
+      softDelete(em, "ScaleValue.deleteOfVideo", deleteResource, videoId);
+      return softDelete(em, "Scale.deleteOfVideo", deleteResource, videoId);
+    });
+    entityCache.invalidate(VideoDto.class);
+    entityCache.invalidate(CategoryDto.class);
+    entityCache.invalidate(LabelDto.class);
+    entityCache.invalidate(ScaleDto.class);
+    entityCache.invalidate(ScaleValueDto.class);
+    mediaPackageCache.invalidate(video.getExtId());
+    dropIntervalIndex(video.getId());
+    publish(Type.VIDEO, video.getId(), none(), deleteResource, false, () -> some(video.getId()));
     return true;
   }
 
@@ -260,12 +571,19 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
     return findById(toVideo, "Video.findByExtId", id, VideoDto.class);
   }
 
+  @Override
+  public Stream<Video> getVideosOfSeries(final String seriesExtId) throws ExtendedAnnotationException {
+    return findAll(VideoDto.class, "Video.findAllOfExtSeries", id(seriesExtId)).stream().map(VideoDto::toVideo);
+  }
+
   @Override
   public Track createTrack(final long videoId, final String name, final Option<String> description,
           final Option<String> settings, final Resource resource) throws ExtendedAnnotationException {
     if (getVideo(videoId).isSome()) {
       final TrackDto dto = TrackDto.create(videoId, name, description, settings, resource);
-      return tx(namedQuery.persist(dto)).toTrack();
+      final Track created = persist(dto).toTrack();
+      publish(Type.TRACK, created.getId(), none(), created, true, () -> some(videoId));
+      return created;
     } else {
       throw notFound;
     }
@@ -273,12 +591,15 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
 
   @Override
   public boolean deleteTrack(Track t) throws ExtendedAnnotationException {
-    Resource deleteResource = deleteResource(t);
-    final Track updated = new TrackImpl(t.getId(), t.getVideoId(), t.getName(), t.getDescription(), t.getSettings(),
-            deleteResource);
-    updateTrack(updated);
-
-    getAnnotations(t.getId()).forEach(this::deleteAnnotation);
+    final Resource deleteResource = deleteResource(t);
+    final Pair<String, Object> trackId = id(t.getId());
+    tx(em -> {
+      namedQuery.find("Track.findById", TrackDto.class, trackId).apply(em)
+              .update(t.getName(), t.getDescription(), t.getSettings(), deleteResource);
+      return softDelete(em, "Annotation.deleteOfTrack", deleteResource, trackId);
+    });
+    dropIntervalIndex(t.getVideoId());
+    publish(Type.TRACK, t.getId(), none(), deleteResource, false, () -> some(t.getVideoId()));
     return true;
   }
 
@@ -290,19 +611,21 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   @Override
   public Stream<Track> getTracks(final long videoId)
           throws ExtendedAnnotationException {
+    final Principal principal = principal();
     return findAll(TrackDto.class, "Track.findAllOfVideo", id(videoId)).stream()
         .map(TrackDto::toTrack)
-        .filter(this::hasResourceAccess);
+        .filter(track -> hasResourceAccess(principal, track));
   }
 
   @Override
   public void updateTrack(final Track track) throws ExtendedAnnotationException {
-    update(TrackDto.class, "Track.findById", track.getId(), new Effect<>() {
+    final Track updated = update(TrackDto.class, "Track.findById", track.getId(), new Effect<>() {
       @Override
       protected void run(TrackDto dto) {
         dto.update(track.getName(), track.getDescription(), track.getSettings(), track);
       }
-    });
+    }).toTrack();
+    publish(Type.TRACK, updated.getId(), none(), updated, false, () -> some(updated.getVideoId()));
   }
 
   @Override
@@ -312,7 +635,10 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
     if (getTrack(trackId).isSome()) {
       final AnnotationDto dto = AnnotationDto.create(trackId, start, duration, content, createdFromQuestionnaire,
               settings, resource);
-      return tx(namedQuery.persist(dto)).toAnnotation();
+      final Annotation created = persist(dto).toAnnotation();
+      reindex(trackId, index -> index.with(List.of(created)));
+      publish(created, true);
+      return created;
     } else {
       throw notFound;
     }
@@ -321,30 +647,73 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   @Override
   public Annotation createAnnotation(final Annotation annotation) throws ExtendedAnnotationException {
     if (getTrack(annotation.getTrackId()).isSome()) {
-      return tx(namedQuery.persist(AnnotationDto.fromAnnotation(annotation))).toAnnotation();
+      final Annotation created = persist(AnnotationDto.fromAnnotation(annotation)).toAnnotation();
+      reindex(created.getTrackId(), index -> index.with(List.of(created)));
+      publish(created, true);
+      return created;
     } else {
       throw notFound;
     }
   }
 
+  @Override
+  public List<Annotation> createAnnotations(final List<Annotation> annotations) throws ExtendedAnnotationException {
+    if (annotations.size() > annotationsBatchMax) {
+      throw new IllegalArgumentException("At most " + annotationsBatchMax + " annotations can be created at once, not "
+              + annotations.size());
+    }
+    for (long trackId : annotations.stream().map(Annotation::getTrackId).collect(Collectors.toSet())) {
+      if (getTrack(trackId).isNone()) {
+        throw notFound;
+      }
+    }
+    final List<AnnotationDto> dtos = annotations.stream()
+            .map(AnnotationDto::fromAnnotation)
+            .collect(Collectors.toList());
+    final List<Annotation> created = tx(em -> {
+      dtos.forEach(em::persist);
+      return dtos;
+    }).stream()
+            .map(AnnotationDto::toAnnotation)
+            .collect(Collectors.toList());
+    created.stream()
+            .collect(Collectors.groupingBy(Annotation::getTrackId))
+            .forEach((trackId, annotationsOfTrack) -> reindex(trackId, index -> index.with(annotationsOfTrack)));
+    created.forEach(annotation -> publish(annotation, true));
+    return created;
+  }
+
   @Override
   public void updateAnnotation(final Annotation a) throws ExtendedAnnotationException {
-    update(AnnotationDto.class, "Annotation.findById", a.getId(), new Effect<>() {
+    final Annotation updated = update(AnnotationDto.class, "Annotation.findById", a.getId(), new Effect<>() {
       @Override
       protected void run(AnnotationDto dto) {
         dto.update(a.getStart(), a.getDuration(), a.getContent(), a.getCreatedFromQuestionnaire(), a.getSettings(), a);
       }
-    });
+    }).toAnnotation();
+    reindex(updated.getTrackId(), index -> updated.getDeletedAt().isSome()
+            ? index.without(updated.getId())
+            : index.with(List.of(updated)));
+    publish(updated, false);
   }
 
   /** Generic update method. */
-  private <A> void update(Class<A> type, String q, long id, Effect<A> update) {
-    tx(em -> {
+  private <A> A update(Class<A> type, String q, long id, Effect<A> update) {
+    final A updated = tx(em -> {
       A o = namedQuery.find(q, type, id(id)).apply(em);
 
       update.apply(o);
       return o;
     });
+    entityCache.invalidate(type);
+    return updated;
+  }
+
+  /** Persist a new entity, invalidating the cached entities of its type. */
+  private <A> A persist(A dto) {
+    final A persisted = tx(namedQuery.persist(dto));
+    entityCache.invalidate(dto.getClass());
+    return persisted;
   }
 
   @Override
@@ -365,10 +734,359 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   public Stream<Annotation> getAnnotations(final long trackId)
           throws ExtendedAnnotationException {
 
-    return findAll(AnnotationDto.class, "Annotation.findAllOfTrack", id(trackId))
+    return filterByCategoryAccess(stream(AnnotationDto.class, "Annotation.findAllOfTrack", id(trackId))
+            .map(AnnotationDto::toAnnotation));
+  }
+
+  @Override
+  public Page<Annotation> getAnnotations(final long trackId, final Option<String> after, final int limit)
+          throws ExtendedAnnotationException {
+    return getAnnotations(trackId, none(), none(), after, limit);
+  }
+
+  @Override
+  public Stream<Annotation> getAnnotations(final long trackId, final Option<Double> from, final Option<Double> to)
+          throws ExtendedAnnotationException {
+    return filterByCategoryAccess(stream(AnnotationDto.class, "Annotation.findAllOfTrackInWindow", id(trackId),
+            from(from), to(to))
+            .map(AnnotationDto::toAnnotation));
+  }
+
+  @Override
+  public Page<Annotation> getAnnotations(final long trackId, final Option<Double> from, final Option<Double> to,
+          final Option<String> after, final int limit) throws ExtendedAnnotationException {
+    // The first page starts before any possible start time and id
+    double start = -Double.MAX_VALUE;
+    long afterId = -1;
+    if (after.isSome()) {
+      final String[] cursor = after.get().split(",", 2);
+      if (cursor.length != 2) {
+        throw new IllegalArgumentException("Malformed annotation cursor " + after.get());
+      }
+      start = Double.parseDouble(cursor[0]);
+      afterId = Long.parseLong(cursor[1]);
+    }
+    final List<Annotation> annotations = findAll(AnnotationDto.class, "Annotation.findPageOfTrack", limit,
+            id(trackId), from(from), to(to), Pair.of("start", start), Pair.of("after", afterId)).stream()
+            .map(AnnotationDto::toAnnotation)
+            .collect(Collectors.toList());
+    // The cursor is taken before filtering, so that inaccessible annotations do not end the pagination
+    return new Page<>(filterByCategoryAccess(annotations),
+            nextCursor(annotations, limit, a -> a.getStart() + "," + a.getId()));
+  }
+
+  @Override
+  public Stream<Annotation> getAnnotationsOfVideo(final long videoId)
+          throws ExtendedAnnotationException {
+    final Set<Long> trackIds = getTracks(videoId).map(Track::getId).collect(Collectors.toSet());
+    return filterByCategoryAccess(stream(AnnotationDto.class, "Annotation.findAllOfVideo", id(videoId))
+            .map(AnnotationDto::toAnnotation)
+            .filter(annotation -> trackIds.contains(annotation.getTrackId())));
+  }
+
+  @Override
+  public Stream<Annotation> getAnnotationsOfVideo(final long videoId, final Option<Double> from,
+          final Option<Double> to) throws ExtendedAnnotationException {
+    final Set<Long> trackIds = getTracks(videoId).map(Track::getId).collect(Collectors.toSet());
+    return filterByCategoryAccess(stream(AnnotationDto.class, "Annotation.findAllOfVideoInWindow", id(videoId),
+            from(from), to(to))
+            .map(AnnotationDto::toAnnotation)
+            .filter(annotation -> trackIds.contains(annotation.getTrackId())));
+  }
+
+  @Override
+  public Stream<Annotation> getActiveAnnotations(final long videoId, final double from, final double to)
+          throws ExtendedAnnotationException {
+    final Set<Long> trackIds = getTracks(videoId).map(Track::getId).collect(Collectors.toSet());
+    return filterByCategoryAccess(intervalIndex(videoId).overlapping(from, to).stream()
+            .filter(annotation -> trackIds.contains(annotation.getTrackId()))
+            .collect(Collectors.toList()))
+            .stream();
+  }
+
+  @Override
+  public Changes getChanges(final long videoId, final Date since) throws ExtendedAnnotationException {
+    final Date cursor = new Date(System.currentTimeMillis() - commitLag);
+    final Principal principal = principal();
+    final Pair<String, Object> sinceParam = Pair.of("since", since);
+    final List<Track> tracks = findAll(TrackDto.class, "Track.findChangesOfVideo", id(videoId), sinceParam)
+            .stream()
+            .map(TrackDto::toTrack)
+            .filter(track -> hasResourceAccess(principal, track))
+            .collect(Collectors.toList());
+    final Set<Long> trackIds = Stream.concat(getTracks(videoId), tracks.stream())
+            .map(Track::getId)
+            .collect(Collectors.toSet());
+    final List<Annotation> annotations = filterByCategoryAccess(findAll(AnnotationDto.class,
+            "Annotation.findChangesOfVideo", id(videoId), sinceParam)
             .stream()
             .map(AnnotationDto::toAnnotation)
-            .filter(this::hasCategoryAccess);
+            .filter(annotation -> trackIds.contains(annotation.getTrackId()))
+            .collect(Collectors.toList()));
+    final List<Category> categories = findAll(CategoryDto.class, "Category.findChangesOfVideo", id(videoId),
+            sinceParam).stream()
+            .map(CategoryDto::toCategory)
+            .filter(category -> hasResourceAccess(principal, category))
+            .collect(Collectors.toList());
+    // Many changes share their parent, so check the access to each parent only once
+    final Map<Long, Boolean> categoryAccess = new HashMap<>();
+    final List<Label> labels = findAll(LabelDto.class, "Label.findChangesOfVideo", id(videoId), sinceParam)
+            .stream()
+            .map(LabelDto::toLabel)
+            .filter(label -> categoryAccess.computeIfAbsent(label.getCategoryId(),
+                    categoryId -> hasCategoryAccess(principal, categoryId)))
+            .collect(Collectors.toList());
+    final List<Scale> scales = findAll(ScaleDto.class, "Scale.findChangesOfVideo", id(videoId), sinceParam)
+            .stream()
+            .map(ScaleDto::toScale)
+            .filter(scale -> hasResourceAccess(principal, scale))
+            .collect(Collectors.toList());
+    final Map<Long, Boolean> scaleAccess = new HashMap<>();
+    final List<ScaleValue> scaleValues = findAll(ScaleValueDto.class, "ScaleValue.findChangesOfVideo", id(videoId),
+            sinceParam).stream()
+            .map(ScaleValueDto::toScaleValue)
+            .filter(scaleValue -> scaleAccess.computeIfAbsent(scaleValue.getScaleId(),
+                    scaleId -> hasScaleAccess(principal, scaleId)))
+            .collect(Collectors.toList());
+    final List<Questionnaire> questionnaires = findAll(QuestionnaireDto.class, "Questionnaire.findChangesOfVideo",
+            id(videoId), sinceParam).stream()
+            .map(QuestionnaireDto::toQuestionnaire)
+            .filter(questionnaire -> hasResourceAccess(principal, questionnaire))
+            .collect(Collectors.toList());
+    final Map<Long, Boolean> annotationAccess = new HashMap<>();
+    final List<Comment> comments = findAll(CommentDto.class, "Comment.findChangesOfVideo", id(videoId), sinceParam)
+            .stream()
+            .map(CommentDto::toComment)
+            .filter(comment -> annotationAccess.computeIfAbsent(comment.getAnnotationId(),
+                    annotationId -> hasAnnotationAccess(principal, annotationId)))
+            .collect(Collectors.toList());
+    return new Changes(cursor, tracks, annotations, categories, labels, scales, scaleValues, questionnaires,
+            comments);
+  }
+
+  @Override
+  public Option<ChangeSubscription> subscribe(final long videoId) {
+    return changeEvents.subscribe(videoId);
+  }
+
+  @Override
+  public boolean hasEventAccess(final ChangeEvent event) throws ExtendedAnnotationException {
+    final Principal principal = principal();
+    if (!hasResourceAccess(principal, event.getResource())) {
+      return false;
+    }
+    final Option<Long> parentId = event.getParentId();
+    switch (event.getType()) {
+      case ANNOTATION:
+        return parentId.isSome() && hasTrackAccess(principal, parentId.get())
+                && (!(event.getResource() instanceof Annotation)
+                        || !filterByCategoryAccess(List.of((Annotation) event.getResource())).isEmpty());
+      case COMMENT:
+        return parentId.isSome() && hasAnnotationAccess(principal, parentId.get());
+      case LABEL:
+        return parentId.isSome() && hasCategoryAccess(principal, parentId.get());
+      case SCALE_VALUE:
+        return parentId.isSome() && hasScaleAccess(principal, parentId.get());
+      default:
+        return true;
+    }
+  }
+
+  private boolean hasTrackAccess(Principal principal, long trackId) {
+    final Option<Track> track = getTrack(trackId);
+    return track.isSome() && hasResourceAccess(principal, track.get());
+  }
+
+  /** Whether one may see what belongs to an annotation, i.e. its track and its category. */
+  private boolean hasAnnotationAccess(Principal principal, long annotationId) {
+    final Option<Annotation> annotation = getAnnotation(annotationId);
+    return annotation.isSome() && hasTrackAccess(principal, annotation.get().getTrackId())
+            && !filterByCategoryAccess(List.of(annotation.get())).isEmpty();
+  }
+
+  private boolean hasCategoryAccess(Principal principal, long categoryId) {
+    final Option<Category> category = getCategory(categoryId, true);
+    return category.isSome() && hasResourceAccess(principal, category.get());
+  }
+
+  private boolean hasScaleAccess(Principal principal, long scaleId) {
+    final Option<Scale> scale = getScale(scaleId, true);
+    return scale.isSome() && hasResourceAccess(principal, scale.get());
+  }
+
+  @Override
+  public CollectionVersion getTracksVersion(final long videoId) throws ExtendedAnnotationException {
+    return qualify(version("Track.versionOfVideo", id(videoId)));
+  }
+
+  @Override
+  public CollectionVersion getAnnotationsVersion(final long trackId) throws ExtendedAnnotationException {
+    final CollectionVersion version = version("Annotation.versionOfTrack", id(trackId))
+            .and(version("Track.versionById", id(trackId)));
+    final Option<Long> videoId = videoOfTrack(trackId);
+    return qualify(videoId.isSome() ? version.and(version("Category.versionOfVideo", id(videoId.get()))) : version);
+  }
+
+  @Override
+  public CollectionVersion getAnnotationsOfVideoVersion(final long videoId) throws ExtendedAnnotationException {
+    return qualify(version("Annotation.versionOfVideo", id(videoId))
+            .and(version("Track.versionOfVideo", id(videoId)))
+            .and(version("Category.versionOfVideo", id(videoId))));
+  }
+
+  @Override
+  public CollectionVersion getCategoriesVersion(final long videoId) throws ExtendedAnnotationException {
+    return qualify(version("Category.versionOfVideo", id(videoId)));
+  }
+
+  @Override
+  public CollectionVersion getLabelsVersion(final long categoryId) throws ExtendedAnnotationException {
+    return qualify(version("Label.versionOfCategory", id(categoryId))
+            .and(version("Category.versionOfCategory", id(categoryId))));
+  }
+
+  @Override
+  public CollectionVersion getScalesVersion(final long videoId) throws ExtendedAnnotationException {
+    return qualify(version("Scale.versionOfVideo", id(videoId)));
+  }
+
+  @Override
+  public CollectionVersion getScaleValuesVersion(final long scaleId) throws ExtendedAnnotationException {
+    return qualify(version("ScaleValue.versionOfScale", id(scaleId)).and(version("Scale.versionById", id(scaleId))));
+  }
+
+  @Override
+  public CollectionVersion getQuestionnairesVersion(final long videoId) throws ExtendedAnnotationException {
+    return qualify(version("Questionnaire.versionOfVideo", id(videoId)));
+  }
+
+  /**
+   * Qualify the version of a collection by the principal, as the resources of the collection one may see depend on who
+   * one is. Collections changed within the commit lag might have further changes stamped before but not committed yet,
+   * which would not change the version once they are, so their version is made unique to never be reused.
+   */
+  private CollectionVersion qualify(CollectionVersion version) {
+    final CollectionVersion qualified = version.qualify(principal().getTag());
+    final Option<Date> lastModified = version.getLastModified();
+    if (lastModified.isSome() && lastModified.get().getTime() > System.currentTimeMillis() - commitLag) {
+      return qualified.qualify(UUID.randomUUID().toString());
+    }
+    return qualified;
+  }
+
+  /**
+   * Run a named aggregate query selecting the number of resources and their latest update and deletion dates.
+   * Creating a resource sets its update date as well, so these cover every change but hard deletes, which the number
+   * covers instead.
+   */
+  @SafeVarargs
+  private CollectionVersion version(String q, Pair<String, Object>... params) {
+    final Object[] row = tx(em -> configureQuery(em.createNamedQuery(q, Object[].class), params).getSingleResult());
+    return new CollectionVersion(((Number) row[0]).longValue(),
+            CollectionVersion.latest((Date) row[1], (Date) row[2]));
+  }
+
+  /** Get the bus delivering the changes of videos, e.g. to inspect its counters. */
+  public ChangeEventBus getChangeEvents() {
+    return changeEvents;
+  }
+
+  /**
+   * Tell the subscribers of a video about the change of one of its resources.
+   * The video is only looked up if there are subscribers at all, so writes do not pay for events nobody listens to.
+   *
+   * @param resource the changed resource; it is deleted if its deletion date is set
+   * @param videoId  looks up the video of the resource, or none if the resource does not belong to one anymore
+   */
+  private void publish(Type type, long id, Option<Long> parentId, Resource resource, boolean created,
+          Supplier<Option<Long>> videoId) {
+    if (!changeEvents.hasSubscribers()) {
+      return;
+    }
+    final Option<Long> video = videoId.get();
+    if (video.isSome()) {
+      final Action action = created
+              ? Action.CREATED
+              : resource.getDeletedAt().isSome() ? Action.DELETED : Action.UPDATED;
+      changeEvents.publish(new ChangeEvent(type, action, video.get(), id, parentId, resource));
+    }
+  }
+
+  private void publish(Annotation a, boolean created) {
+    publish(Type.ANNOTATION, a.getId(), some(a.getTrackId()), a, created, () -> videoOfTrack(a.getTrackId()));
+  }
+
+  private void publish(Label l, boolean created) {
+    publish(Type.LABEL, l.getId(), some(l.getCategoryId()), l, created, () -> {
+      final Option<Category> category = getCategory(l.getCategoryId(), true);
+      return category.isSome() ? some(category.get().getVideoId()) : none();
+    });
+  }
+
+  private void publish(ScaleValue sv, boolean created) {
+    publish(Type.SCALE_VALUE, sv.getId(), some(sv.getScaleId()), sv, created, () -> {
+      final Option<Scale> scale = getScale(sv.getScaleId(), true);
+      return scale.isSome() ? some(scale.get().getVideoId()) : none();
+    });
+  }
+
+  private void publish(Comment c, boolean created) {
+    publish(Type.COMMENT, c.getId(), some(c.getAnnotationId()), c, created, () -> {
+      final Option<Annotation> annotation = getAnnotation(c.getAnnotationId());
+      return annotation.isSome() ? videoOfTrack(annotation.get().getTrackId()) : none();
+    });
+  }
+
+  private Option<Long> videoOfTrack(long trackId) {
+    final Option<Track> track = getTrack(trackId);
+    return track.isSome() ? some(track.get().getVideoId()) : none();
+  }
+
+  /** Get the interval index of the annotations of a video, building it if it is not in memory. */
+  private AnnotationIntervalIndex intervalIndex(long videoId) {
+    final long writes;
+    synchronized (intervalIndexes) {
+      final AnnotationIntervalIndex index = intervalIndexes.get(videoId);
+      if (index != null) {
+        return index;
+      }
+      writes = annotationWrites;
+    }
+    final AnnotationIntervalIndex index = AnnotationIntervalIndex.of(
+            findAll(AnnotationDto.class, "Annotation.findAllOfVideo", id(videoId)).stream()
+                    .map(AnnotationDto::toAnnotation)
+                    .collect(Collectors.toList()));
+    synchronized (intervalIndexes) {
+      // The index might miss annotations written while it was built, so it is only used for this query then
+      if (annotationWrites == writes) {
+        intervalIndexes.put(videoId, index);
+      }
+    }
+    return index;
+  }
+
+  /** Apply a change of the annotations of a track to the interval index of its video, if that is in memory. */
+  private void reindex(long trackId, UnaryOperator<AnnotationIntervalIndex> change) {
+    synchronized (intervalIndexes) {
+      annotationWrites++;
+      if (intervalIndexes.isEmpty()) {
+        return;
+      }
+    }
+    final Option<Track> track = getTrack(trackId);
+    if (track.isSome()) {
+      synchronized (intervalIndexes) {
+        intervalIndexes.computeIfPresent(track.get().getVideoId(), (videoId, index) -> change.apply(index));
+      }
+    }
+  }
+
+  /** Forget the interval index of a video, e.g. after many of its annotations have been changed at once. */
+  private void dropIntervalIndex(long videoId) {
+    synchronized (intervalIndexes) {
+      annotationWrites++;
+      intervalIndexes.remove(videoId);
+    }
   }
 
   @Override
@@ -376,7 +1094,9 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
           throws ExtendedAnnotationException {
     if (getVideo(videoId).isSome()) {
       final ScaleDto dto = ScaleDto.create(videoId, name, description, resource);
-      return tx(namedQuery.persist(dto)).toScale();
+      final Scale created = persist(dto).toScale();
+      publish(Type.SCALE, created.getId(), none(), created, true, () -> some(videoId));
+      return created;
     } else {
       throw notFound;
     }
@@ -400,13 +1120,6 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
         .map(ScaleDto::toScale);
   }
 
-  private List<ScaleValue> getScaleValuesByScaleId(final long scaleId) throws ExtendedAnnotationException {
-    List<ScaleValueDto> scaleValueDtos = findAll(ScaleValueDto.class, "ScaleValue.findAllOfScale", id(scaleId));
-    return scaleValueDtos.stream()
-            .map(ScaleValueDto::toScaleValue)
-            .collect(Collectors.toList());
-  }
-
   @Override
   public Stream<ScaleValue> getScaleValues(final long scaleId)
           throws ExtendedAnnotationException {
@@ -415,26 +1128,38 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
             .map(ScaleValueDto::toScaleValue);
   }
 
+  @Override
+  public Stream<ScaleValue> getScaleValuesOfVideo(final long videoId)
+          throws ExtendedAnnotationException {
+    return findAll(ScaleValueDto.class, "ScaleValue.findAllOfVideo", id(videoId))
+            .stream()
+            .map(ScaleValueDto::toScaleValue);
+  }
+
   @Override
   public void updateScale(final Scale s) throws ExtendedAnnotationException {
-    update(ScaleDto.class, "Scale.findByIdIncludeDeleted", s.getId(), new Effect<>() {
+    final Scale updated = update(ScaleDto.class, "Scale.findByIdIncludeDeleted", s.getId(), new Effect<>() {
       @Override
       public void run(ScaleDto dto) {
         dto.update(s.getName(), s.getDescription(), s).toScale();
       }
-    });
+    }).toScale();
+    publish(Type.SCALE, updated.getId(), none(), updated, false, () -> some(updated.getVideoId()));
   }
 
   @Override
   public Scale deleteScale(Scale s) throws ExtendedAnnotationException {
-    Resource deleteResource = deleteResource(s);
-    final Scale updated = new ScaleImpl(s.getId(), s.getVideoId(), s.getName(), s.getDescription(), deleteResource);
-    updateScale(updated);
-
-    for (ScaleValue sv : getScaleValuesByScaleId(s.getId())) {
-      deleteScaleValue(sv);
-    }
-    return updated;
+    final Resource deleteResource = deleteResource(s);
+    final Pair<String, Object> scaleId = id(s.getId());
+    tx(em -> {
+      namedQuery.find("Scale.findById", ScaleDto.class, scaleId).apply(em)
+              .update(s.getName(), s.getDescription(), deleteResource);
+      return softDelete(em, "ScaleValue.deleteOfScale", deleteResource, scaleId);
+    });
+    entityCache.invalidate(ScaleDto.class);
+    entityCache.invalidate(ScaleValueDto.class);
+    publish(Type.SCALE, s.getId(), none(), deleteResource, false, () -> some(s.getVideoId()));
+    return new ScaleImpl(s.getId(), s.getVideoId(), s.getName(), s.getDescription(), deleteResource);
   }
 
   @Override
@@ -442,7 +1167,9 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
           throws ExtendedAnnotationException {
     final ScaleValueDto dto = ScaleValueDto.create(scaleId, name, value, order, resource);
 
-    return tx(namedQuery.persist(dto)).toScaleValue();
+    final ScaleValue created = persist(dto).toScaleValue();
+    publish(created, true);
+    return created;
   }
 
   @Override
@@ -456,12 +1183,14 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
 
   @Override
   public void updateScaleValue(final ScaleValue s) throws ExtendedAnnotationException {
-    update(ScaleValueDto.class, "ScaleValue.findByIdIncludeDeleted", s.getId(), new Effect<>() {
-      @Override
-      public void run(ScaleValueDto dto) {
-        dto.update(s.getName(), s.getValue(), s.getOrder(), s);
-      }
-    });
+    final ScaleValue updated = update(ScaleValueDto.class, "ScaleValue.findByIdIncludeDeleted", s.getId(),
+            new Effect<>() {
+              @Override
+              public void run(ScaleValueDto dto) {
+                dto.update(s.getName(), s.getValue(), s.getOrder(), s);
+              }
+            }).toScaleValue();
+    publish(updated, false);
   }
 
   @Override
@@ -480,7 +1209,9 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
     if (getVideo(videoId).isSome()) {
       final CategoryDto dto = CategoryDto.create(seriesExtId, seriesCategoryId, videoId, scaleId, name, description,
           settings, resource);
-      return tx(namedQuery.persist(dto)).toCategory();
+      final Category created = persist(dto).toCategory();
+      publish(Type.CATEGORY, created.getId(), none(), created, true, () -> some(videoId));
+      return created;
     } else {
       throw notFound;
     }
@@ -488,13 +1219,18 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
 
   @Override
   public void updateCategory(final Category c) throws ExtendedAnnotationException {
-    update(CategoryDto.class, "Category.findByIdIncludeDeleted", c.getId(), new Effect<>() {
-      @Override
-      public void run(CategoryDto dto) {
-        dto.update(c.getSeriesExtId(), c.getSeriesCategoryId(), c.getVideoId(), c.getName(), c.getDescription(),
-                c.getScaleId(), c.getSettings(), c);
-      }
-    });
+    final Category updated = update(CategoryDto.class, "Category.findByIdIncludeDeleted", c.getId(),
+            new Effect<>() {
+              @Override
+              public void run(CategoryDto dto) {
+                dto.update(c.getSeriesExtId(), c.getSeriesCategoryId(), c.getVideoId(), c.getName(),
+                        c.getDescription(), c.getScaleId(), c.getSettings(), c);
+              }
+            }).toCategory();
+    publish(Type.CATEGORY, updated.getId(), none(), updated, false, () -> some(updated.getVideoId()));
+    if (isSeriesCategory(updated)) {
+      seriesPropagation.schedule(updated.getId());
+    }
   }
 
   @Override
@@ -504,21 +1240,18 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
 
     // Get all categories on all videos belonging to the seriesCategoryId (including the master)
     if (pastC.isSome() && pastC.get().getSeriesCategoryId().isSome()) {
-      List<CategoryDto> categoryDtos = findAll(CategoryDto.class, "Category.findAllOfSeriesCategory",
-          id(pastC.get().getSeriesCategoryId().get()));
-      List<Category> categoryAndClones = categoryDtos.stream()
-              .map(CategoryDto::toCategory)
-              .collect(Collectors.toList());
-
-      // Delete all but the master category (which is the "c" passed to this function)
-      // Update the master category with the videoId to move it to this video
-      for (Category categoryAndClone : categoryAndClones) {
-        long a = categoryAndClone.getId();
-        long b = c.getId();
-        if (a != b) {
-          deleteCategoryImpl(categoryAndClone);
-        }
-      }
+      final Resource deleteResource = deleteResource(c);
+      tx(em -> {
+        // Delete all but the master category (which is the "c" passed to this function)
+        // Update the master category with the videoId to move it to this video
+        List<Long> clones = namedQuery.findAll("Category.findIdsOfSeriesCategory", Long.class,
+                id(pastC.get().getSeriesCategoryId().get())).apply(em).stream()
+                .filter(id -> id != c.getId())
+                .collect(Collectors.toList());
+        return deleteCategories(em, clones, deleteResource);
+      });
+      entityCache.invalidate(CategoryDto.class);
+      entityCache.invalidate(LabelDto.class);
     }
     updateCategory(c);
   }
@@ -535,124 +1268,227 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   }
 
   @Override
-  public Stream<Category> getCategories(final Option<String> seriesExtId, final long videoId)
-          throws ExtendedAnnotationException {
-    List<Category> categories = findAll(CategoryDto.class, "Category.findAllOfVideo", id(videoId))
-        .stream()
-        .map(CategoryDto::toCategory)
-        .filter(this::hasResourceAccess)
-        .collect(Collectors.toList());
-
-    if (seriesExtId.isSome()) {
-      // Make categories editable
-      List<Category> allCategories = new ArrayList<>(categories);
-
-      List<Category> createdCategories = new ArrayList<>();
-      // Grab the categories with seriesExtId.
-      List<CategoryDto> categoryDtos = findAll(CategoryDto.class, "Category.findAllOfExtSeries", id(seriesExtId.get()));
-
-      // Grab all master series categories by removing every category that is not referencing itself
-      List<Category> seriesCategories = categoryDtos.stream()
-              .map(CategoryDto::toCategory)
-              .filter(category -> Option.some(category.getId()).equals(category.getSeriesCategoryId()))
-              .collect(Collectors.toList());
+  public Stream<Category> getCategories(final long videoId) throws ExtendedAnnotationException {
+    final Principal principal = principal();
+    return findAll(CategoryDto.class, "Category.findAllOfVideo", id(videoId)).stream()
+            .map(CategoryDto::toCategory)
+            .filter(category -> hasResourceAccess(principal, category));
+  }
 
-      // Link a category to a master series category if they are "sufficiently" equal
-      for (Category videoCategory : allCategories) {
-        for (Category seriesCategory: seriesCategories) {
-          if (categoriesSufficientlyEqual(videoCategory, seriesCategory)) {
-            Category update = new CategoryImpl(videoCategory.getId(), seriesCategory.getSeriesExtId(),
-                    option(seriesCategory.getId()), videoCategory.getVideoId(), seriesCategory.getScaleId(),
-                    seriesCategory.getName(), seriesCategory.getDescription(), seriesCategory.getSettings(),
-                    new ResourceImpl(option(seriesCategory.getAccess()), seriesCategory.getCreatedBy(),
-                            seriesCategory.getUpdatedBy(), seriesCategory.getDeletedBy(), seriesCategory.getCreatedAt(),
-                            seriesCategory.getUpdatedAt(), seriesCategory.getDeletedAt(), seriesCategory.getTags()));
-            updateCategory(update);
-            allCategories.set(allCategories.indexOf(videoCategory), update);
-          }
+  @Override
+  public void copySeriesCategories(final String seriesExtId, final long videoId) throws ExtendedAnnotationException {
+    final List<Category> seriesCategories = findAll(CategoryDto.class, "Category.findAllOfExtSeries",
+            id(seriesExtId)).stream()
+            .map(CategoryDto::toCategory)
+            .filter(ExtendedAnnotationServiceJpaImpl::isSeriesCategory)
+            .filter(seriesCategory -> seriesCategory.getVideoId() != videoId)
+            .collect(Collectors.toList());
+    if (seriesCategories.isEmpty()) {
+      return;
+    }
+    // Existing copies are brought up to date as well, in case their background propagation got lost in a restart or
+    // failed for good. Syncing an up to date copy does not write anything.
+    published(tx(em -> {
+      final Map<Long, CategoryDto> copies = new HashMap<>();
+      for (CategoryDto dto : namedQuery.findAll("Category.findAllOfVideo", CategoryDto.class, id(videoId))
+              .apply(em)) {
+        final Category category = dto.toCategory();
+        if (category.getDeletedAt().isNone() && category.getSeriesCategoryId().isSome()) {
+          copies.putIfAbsent(category.getSeriesCategoryId().get(), dto);
         }
       }
-
-      // Check for every master series category if a local copy needs to be created or updated
-      for (Category seriesCategory : seriesCategories) {
-        boolean alreadyExists = false;
-        Category existingCategory = null;
-
-        // Check if we already have video category corresponding to the series category
-        for (Category videoCategory : allCategories) {
-          // If we have, update the existing video category
-          if (videoCategory.getSeriesCategoryId().isSome() && videoCategory.getSeriesCategoryId().get() == seriesCategory.getId()) {
-            alreadyExists = true;
-            existingCategory = videoCategory;
-            break;  // Don't need to continue the loop
-          }
-        }
-        // If we have, update the existing video category
-        if (alreadyExists) {
-          Category update = new CategoryImpl(existingCategory.getId(), seriesCategory.getSeriesExtId(),
-                  option(seriesCategory.getId()), videoId, seriesCategory.getScaleId(), seriesCategory.getName(),
-                  seriesCategory.getDescription(), seriesCategory.getSettings(),
-                  new ResourceImpl(option(seriesCategory.getAccess()), seriesCategory.getCreatedBy(),
-                          seriesCategory.getUpdatedBy(), seriesCategory.getDeletedBy(), seriesCategory.getCreatedAt(),
-                          seriesCategory.getUpdatedAt(), seriesCategory.getDeletedAt(), seriesCategory.getTags()));
-          updateCategory(update);
-          allCategories.set(allCategories.indexOf(existingCategory), update);
-          // If we don't have, create a new video category
-        } else {
-          Category newCategory;
-          newCategory = createCategory(seriesCategory.getSeriesExtId(), option(seriesCategory.getId()), videoId,
-                  seriesCategory.getScaleId(), seriesCategory.getName(), seriesCategory.getDescription(),
-                  seriesCategory.getSettings(), new ResourceImpl(option(seriesCategory.getAccess()),
-                          seriesCategory.getCreatedBy(), seriesCategory.getUpdatedBy(), seriesCategory.getDeletedBy(),
-                          seriesCategory.getCreatedAt(), seriesCategory.getUpdatedAt(), seriesCategory.getDeletedAt(),
-                          seriesCategory.getTags()));
-          createdCategories.add(newCategory);
+      final Set<Long> linked = new HashSet<>();
+      for (Object[] row : namedQuery.findAll("Category.findLinkableOfVideo", Object[].class, id(videoId),
+              Pair.of("seriesExtId", seriesExtId)).apply(em)) {
+        final CategoryDto category = (CategoryDto) row[0];
+        final long seriesCategoryId = ((CategoryDto) row[1]).toCategory().getId();
+        if (!copies.containsKey(seriesCategoryId) && linked.add(category.toCategory().getId())) {
+          copies.put(seriesCategoryId, category);
         }
       }
+      final List<Runnable> changes = new ArrayList<>();
+      for (Category seriesCategory : seriesCategories) {
+        copySeriesCategory(em, seriesCategory, seriesLabels(em, seriesCategory.getId()), videoId,
+                option(copies.get(seriesCategory.getId())), changes);
+      }
+      return changes;
+    }));
+  }
 
-      allCategories.addAll(createdCategories);
-      categories = allCategories;
+  /** Get the videos of the series of a series category but its own, or none if it is no series category. */
+  private List<Long> videosOfSeriesCategory(long seriesCategoryId) {
+    final Option<Category> seriesCategory = getCategory(seriesCategoryId, false);
+    if (seriesCategory.isNone() || !isSeriesCategory(seriesCategory.get())) {
+      return Collections.emptyList();
     }
+    return getVideosOfSeries(seriesCategory.get().getSeriesExtId().get())
+            .map(Video::getId)
+            .filter(videoId -> videoId != seriesCategory.get().getVideoId())
+            .collect(Collectors.toList());
+  }
 
-    return categories.stream();
+  /**
+   * Bring the copies of a series category and of its labels in some videos of its series up to date in one
+   * transaction, giving the videos without a copy one. This is the work of the {@link SeriesPropagation}, which runs
+   * it in the background whenever a series category or one of its labels is written, so that reading never has to.
+   */
+  private void propagateSeriesCategory(long seriesCategoryId, List<Long> videoIds) {
+    published(tx(em -> {
+      final List<CategoryDto> found = namedQuery.findAll("Category.findById", CategoryDto.class,
+              id(seriesCategoryId)).apply(em);
+      if (found.isEmpty() || !isSeriesCategory(found.get(0).toCategory())) {
+        return Collections.<Runnable> emptyList();
+      }
+      final Category seriesCategory = found.get(0).toCategory();
+      final Map<Long, CategoryDto> copies = new HashMap<>();
+      for (CategoryDto dto : namedQuery.findAll("Category.findAllOfSeriesCategoryInVideos", CategoryDto.class,
+              id(seriesCategoryId), Pair.of("ids", videoIds)).apply(em)) {
+        copies.putIfAbsent(dto.toCategory().getVideoId(), dto);
+      }
+      final List<Long> uncopied = videoIds.stream()
+              .filter(videoId -> !copies.containsKey(videoId))
+              .collect(Collectors.toList());
+      if (!uncopied.isEmpty()) {
+        for (CategoryDto dto : namedQuery.findAll("Category.findLinkableOfSeriesCategory", CategoryDto.class,
+                Pair.of("contentHash", CategoryDto.contentHash(seriesCategory.getName(),
+                        seriesCategory.getDescription(), seriesCategory.getSettings())),
+                Pair.of("ids", uncopied)).apply(em)) {
+          copies.putIfAbsent(dto.toCategory().getVideoId(), dto);
+        }
+      }
+      final List<LabelDto> seriesLabels = seriesLabels(em, seriesCategoryId);
+      final List<Runnable> changes = new ArrayList<>();
+      for (long videoId : videoIds) {
+        copySeriesCategory(em, seriesCategory, seriesLabels, videoId, option(copies.get(videoId)), changes);
+      }
+      return changes;
+    }));
   }
 
-  private boolean categoriesSufficientlyEqual(Category a, Category b) {
-    return a.getName().equals(b.getName()) && a.getDescription().equals(b.getDescription())
-            && a.getSettings().equals(b.getSettings()) && a.getTags().equals(b.getTags());
+  /** Get all labels of a series category inside of a running transaction, including deleted ones. */
+  private static List<LabelDto> seriesLabels(EntityManager em, long seriesCategoryId) {
+    return namedQuery.findAll("Label.findAllOfCategory", LabelDto.class, id(seriesCategoryId)).apply(em);
   }
 
-  @Override
-  public Category deleteCategory(Category category) throws ExtendedAnnotationException {
-    Category result = null;
-
-    // If the category is a series category, delete all corresponding series category
-    if (category.getSeriesCategoryId().isSome()) {
-      List<CategoryDto> categoryDtos = findAll(CategoryDto.class, "Category.findAllOfSeriesCategory",
-          id(category.getSeriesCategoryId().get()));
-      List<Category> withSeriesCategoryId = categoryDtos.stream()
-              .map(CategoryDto::toCategory)
-              .collect(Collectors.toList());
-      for (Category categoryBelongingToMaster: withSeriesCategoryId) {
-        result = deleteCategoryImpl(categoryBelongingToMaster);
+  /**
+   * Update the copy of a series category in a video or create one inside of a running transaction, and sync its labels
+   * with the labels of the series category. The copy may also be a category of the video with the same content which
+   * has not been linked to any series category yet. Changes to publish once the transaction committed are collected.
+   */
+  private void copySeriesCategory(EntityManager em, Category seriesCategory, List<LabelDto> seriesLabels,
+          long videoId, Option<CategoryDto> copy, List<Runnable> changes) {
+    final Resource resource = new ResourceImpl(option(seriesCategory.getAccess()), seriesCategory.getCreatedBy(),
+            seriesCategory.getUpdatedBy(), seriesCategory.getDeletedBy(), seriesCategory.getCreatedAt(),
+            seriesCategory.getUpdatedAt(), seriesCategory.getDeletedAt(), seriesCategory.getTags());
+    final CategoryDto dto;
+    if (copy.isSome()) {
+      dto = copy.get();
+      final Category update = new CategoryImpl(dto.toCategory().getId(), seriesCategory.getSeriesExtId(),
+              some(seriesCategory.getId()), videoId, seriesCategory.getScaleId(), seriesCategory.getName(),
+              seriesCategory.getDescription(), seriesCategory.getSettings(), resource);
+      if (!update.equals(dto.toCategory())) {
+        final Category updated = dto.update(update.getSeriesExtId(), update.getSeriesCategoryId(), videoId,
+                update.getName(), update.getDescription(), update.getScaleId(), update.getSettings(), update)
+                .toCategory();
+        changes.add(() -> publish(Type.CATEGORY, updated.getId(), none(), updated, false, () -> some(videoId)));
       }
-    // Delete the category
     } else {
-      result = deleteCategoryImpl(category);
+      dto = CategoryDto.create(seriesCategory.getSeriesExtId(), some(seriesCategory.getId()), videoId,
+              seriesCategory.getScaleId(), seriesCategory.getName(), seriesCategory.getDescription(),
+              seriesCategory.getSettings(), resource);
+      em.persist(dto);
+      final Category created = dto.toCategory();
+      changes.add(() -> publish(Type.CATEGORY, created.getId(), none(), created, true, () -> some(videoId)));
     }
+    syncSeriesLabels(em, dto.toCategory().getId(), seriesCategory, seriesLabels, changes);
+  }
 
-    return result;
+  /**
+   * Bring the labels of a copy of a series category up to date with the labels of its series category inside of a
+   * running transaction. Every label copy refers to its series label and carries the revision it was copied at, so
+   * only the copies of labels which changed since are written, in place. Syncing an up to date copy does not write
+   * anything. Labels of the copy not referring to a series label are from before it became a copy and get deleted.
+   */
+  private void syncSeriesLabels(EntityManager em, long categoryId, Category seriesCategory,
+          List<LabelDto> seriesLabels, List<Runnable> changes) {
+    final Map<Long, LabelDto> copies = new HashMap<>();
+    final List<LabelDto> obsolete = new ArrayList<>();
+    for (LabelDto dto : namedQuery.findAll("Label.findAllOfCategory", LabelDto.class, id(categoryId)).apply(em)) {
+      final Label label = dto.toLabel();
+      if (label.getDeletedAt().isNone()) {
+        if (label.getSeriesLabelId().isNone() || copies.putIfAbsent(label.getSeriesLabelId().get(), dto) != null) {
+          obsolete.add(dto);
+        }
+      }
+    }
+    for (LabelDto seriesDto : seriesLabels) {
+      final LabelDto copy = copies.remove(seriesDto.toLabel().getId());
+      if (copy == null && seriesDto.toLabel().getDeletedAt().isNone()) {
+        final LabelDto created = LabelDto.copyOf(seriesDto, categoryId);
+        em.persist(created);
+        final Label label = created.toLabel();
+        changes.add(() -> publish(label, true));
+      } else if (copy != null && !copy.isCopyOf(seriesDto)) {
+        // Also takes over the deletion of the series label
+        final Label label = copy.copy(seriesDto).toLabel();
+        changes.add(() -> publish(label, false));
+      }
+    }
+    // Copies of labels which do not belong to the series category anymore
+    obsolete.addAll(copies.values());
+    final Date now = new Date();
+    for (LabelDto dto : obsolete) {
+      final Label label = dto.toLabel();
+      final Label deleted = dto.update(none(), label.getValue(), label.getAbbreviation(), label.getDescription(),
+              label.getSettings(), new ResourceImpl(option(label.getAccess()), label.getCreatedBy(),
+                      label.getUpdatedBy(), seriesCategory.getUpdatedBy(), label.getCreatedAt(), label.getUpdatedAt(),
+                      some(now), null)).toLabel();
+      changes.add(() -> publish(deleted, false));
+    }
   }
 
-  public Category deleteCategoryImpl(Category category) throws ExtendedAnnotationException {
-    Resource deleteResource = deleteResource(category);
-    final Category updated = new CategoryImpl(category.getId(), category.getSeriesExtId(),
-            category.getSeriesCategoryId(), category.getVideoId(), category.getScaleId(), category.getName(),
-            category.getDescription(), category.getSettings(), deleteResource);
-    updateCategory(updated);
+  /** Publish the changes of propagating series categories after their transaction committed. */
+  private void published(List<Runnable> changes) {
+    if (!changes.isEmpty()) {
+      entityCache.invalidate(CategoryDto.class);
+      entityCache.invalidate(LabelDto.class);
+      changes.forEach(Runnable::run);
+    }
+  }
 
-    getLabelsByCategoryId(category.getId()).forEach(this::deleteLabel);
-    return updated;
+  /** Whether a category is the master of a series category, which all its copies refer to. */
+  private static boolean isSeriesCategory(Category category) {
+    return category.getSeriesExtId().isSome() && some(category.getId()).equals(category.getSeriesCategoryId());
+  }
+
+  @Override
+  public Category deleteCategory(Category category) throws ExtendedAnnotationException {
+    final Resource deleteResource = deleteResource(category);
+    tx(em -> {
+      // If the category is a series category, delete all corresponding series category
+      final List<Long> ids = category.getSeriesCategoryId().isSome()
+              ? namedQuery.findAll("Category.findIdsOfSeriesCategory", Long.class,
+                      id(category.getSeriesCategoryId().get())).apply(em)
+              : Collections.singletonList(category.getId());
+      return deleteCategories(em, ids, deleteResource);
+    });
+    entityCache.invalidate(CategoryDto.class);
+    entityCache.invalidate(LabelDto.class);
+    publish(Type.CATEGORY, category.getId(), none(), deleteResource, false, () -> some(category.getVideoId()));
+
+    return new CategoryImpl(category.getId(), category.getSeriesExtId(), category.getSeriesCategoryId(),
+            category.getVideoId(), category.getScaleId(), category.getName(), category.getDescription(),
+            category.getSettings(), deleteResource);
+  }
+
+  /** Soft delete the given categories together with their labels inside of a running transaction. */
+  private static int deleteCategories(EntityManager em, Collection<Long> ids, Resource deleted) {
+    int count = 0;
+    for (List<Long> chunk : partition(ids)) {
+      softDelete(em, "Label.deleteOfCategories", deleted, Pair.of("ids", chunk));
+      count += softDelete(em, "Category.deleteByIds", deleted, Pair.of("ids", chunk));
+    }
+    return count;
   }
 
   @Override
@@ -670,13 +1506,19 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
       if (seriesCategory.isSome() && categoryId != (seriesCategory.get().getId())) {
         final LabelDto dto = LabelDto.create(none(), categorySeriesCategoryId, value, abbreviation, description,
                 settings, resource);
-        return tx(namedQuery.persist(dto)).toLabel();
+        final Label created = persist(dto).toLabel();
+        publish(created, true);
+        scheduleSeriesLabels(created.getCategoryId());
+        return created;
       }
     }
 
     // Normal Create
     final LabelDto dto = LabelDto.create(none(), categoryId, value, abbreviation, description, settings, resource);
-    return tx(namedQuery.persist(dto)).toLabel();
+    final Label created = persist(dto).toLabel();
+    publish(created, true);
+    scheduleSeriesLabels(created.getCategoryId());
+    return created;
   }
 
   @Override
@@ -688,12 +1530,22 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
       updateLabelId = l.getSeriesLabelId().get();
     }
 
-    update(LabelDto.class, "Label.findByIdIncludeDeleted", updateLabelId, new Effect<>() {
+    final Label updated = update(LabelDto.class, "Label.findByIdIncludeDeleted", updateLabelId, new Effect<>() {
       @Override
       protected void run(LabelDto dto) {
         dto.update(l.getSeriesLabelId(), l.getValue(), l.getAbbreviation(), l.getDescription(), l.getSettings(), l);
       }
-    });
+    }).toLabel();
+    publish(updated, false);
+    scheduleSeriesLabels(updated.getCategoryId());
+  }
+
+  /** Propagate the labels of a category to its copies in the background if it is a series category. */
+  private void scheduleSeriesLabels(long categoryId) {
+    final Option<Category> category = getCategory(categoryId, false);
+    if (category.isSome() && isSeriesCategory(category.get())) {
+      seriesPropagation.schedule(categoryId);
+    }
   }
 
   @Override
@@ -708,65 +1560,14 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   }
 
   @Override
-  public Stream<Label> getLabels(final long categoryId)
-          throws ExtendedAnnotationException {
-
-    List<Label> labels;
-
-    List<LabelDto> labelDtos = findAll(LabelDto.class, "Label.findAllOfCategory", id(categoryId));
-    labels = labelDtos.stream().map(LabelDto::toLabel).collect(Collectors.toList());
-
-    // Handle series categories
-    // Series categories initially do not have any labels of themselves, so we need to generate them in case they
-    // ever turn into back into normal categories
-    Option<Category> category = getCategory(categoryId, false);
-    Option<Category> seriesCategory;
-    // If the category belongs to a series
-    if (category.isSome() && category.get().getSeriesCategoryId().isSome()) {
-      Long categorySeriesCategoryId = category.get().getSeriesCategoryId().get();
-      seriesCategory = getCategory(categorySeriesCategoryId, false);
-      // And the category is not itself (aka the master series category)
-      if (seriesCategory.isSome() && categoryId != (seriesCategory.get().getId())) {
-        // Get labels from the master series category
-        List<Label> seriesCategoryLabels = getLabels(seriesCategory.get().getId()).collect(Collectors.toList());
-
-        // Update our labels with the labels from the master series category
-        // Note: Maybe do an actual update instead of delete/create
-        for (Label label: labels) {
-          deleteLabel(label);
-        }
-        List<Label> newLabels = new ArrayList<>();
-        for (Label seriesLabel : seriesCategoryLabels) {
-          final LabelDto dto = LabelDto.create(some(seriesLabel.getId()), categoryId, seriesLabel.getValue(),
-                  seriesLabel.getAbbreviation(), seriesLabel.getDescription(), seriesLabel.getSettings(),
-                  new ResourceImpl(option(seriesLabel.getAccess()),
-                          seriesLabel.getCreatedBy(), seriesLabel.getUpdatedBy(), seriesLabel.getDeletedBy(),
-                          seriesLabel.getCreatedAt(), seriesLabel.getUpdatedAt(), seriesLabel.getDeletedAt(),
-                          seriesLabel.getTags()));
-          newLabels.add(tx(namedQuery.persist(dto)).toLabel());
-        }
-
-        // Return series labels, so that they are updated in the backend
-        // At some point you probably want to associated copied labels with their original, so they can be properly updated
-        // This will lose changes made on non-master category labels if the master then looses their series.
-        // But that is quite a rare scenario (hopefully) and I'm running out of time.
-
-        // @todo CC | Fix: 1) Series labels get infinitely duplicated on each HTTP request.
-        // @todo CC | Fix: 2) Overriding labels (like old code did) prevented accessing potentially deleted labels, breaking annotations that use it (= full app error).
-        // @todo CC | Fix: 3) Remove temporary workaround that simply merges old + new labels (just to get the app running until a fix is there)
-        List<Label> merged = new ArrayList<>();
-        merged.addAll(labels);
-        merged.addAll(newLabels);
-
-        labels = merged;
-      }
-    }
-
-    return labels.stream();
+  public Stream<Label> getLabels(final long categoryId) throws ExtendedAnnotationException {
+    return findAll(LabelDto.class, "Label.findAllOfCategory", id(categoryId)).stream().map(LabelDto::toLabel);
   }
 
-  private Stream<Label> getLabelsByCategoryId(final long categoryId) throws ExtendedAnnotationException {
-    return findAll(LabelDto.class, "Label.findAllOfCategory", id(categoryId)).stream()
+  @Override
+  public Stream<Label> getLabelsOfVideo(final long videoId)
+          throws ExtendedAnnotationException {
+    return findAll(LabelDto.class, "Label.findAllOfVideo", id(videoId)).stream()
             .map(LabelDto::toLabel);
   }
 
@@ -782,7 +1583,9 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   @Override
   public Comment createComment(long annotationId, Option<Long> replyToId, String text, Resource resource) {
     final CommentDto dto = CommentDto.create(annotationId, text, replyToId, resource);
-    return tx(namedQuery.persist(dto)).toComment();
+    final Comment created = persist(dto).toComment();
+    publish(created, true);
+    return created;
   }
 
   @Override
@@ -801,14 +1604,35 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
     return comments.stream().map(CommentDto::toComment);
   }
 
+  @Override
+  public Page<Comment> getComments(final long annotationId, final Option<Long> replyToId, final Option<String> after,
+          final int limit) {
+    final long afterId = after.isSome() ? Long.parseLong(after.get()) : -1;
+    final List<CommentDto> dtos = replyToId.isSome()
+            ? findAll(CommentDto.class, "Comment.findPageOfReplies", limit, id(replyToId.get()),
+                    Pair.of("after", afterId))
+            : findAll(CommentDto.class, "Comment.findPageOfAnnotation", limit, id(annotationId),
+                    Pair.of("after", afterId));
+    final List<Comment> comments = dtos.stream().map(CommentDto::toComment).collect(Collectors.toList());
+    return new Page<>(comments, nextCursor(comments, limit, c -> Long.toString(c.getId())));
+  }
+
+  @Override
+  public Stream<Comment> getCommentsOfAnnotations(final Collection<Long> annotationIds) {
+    return partition(annotationIds).stream()
+            .flatMap(chunk -> findAll(CommentDto.class, "Comment.findAllOfAnnotations", Pair.of("ids", chunk)).stream())
+            .map(CommentDto::toComment);
+  }
+
   @Override
   public void updateComment(final Comment comment) {
-    update(CommentDto.class, "Comment.findById", comment.getId(), new Effect<>() {
+    final Comment updated = update(CommentDto.class, "Comment.findById", comment.getId(), new Effect<>() {
       @Override
       public void run(CommentDto dto) {
         dto.update(comment.getText(), comment);
       }
-    });
+    }).toComment();
+    publish(updated, false);
   }
 
   @Override
@@ -826,7 +1650,9 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
           throws ExtendedAnnotationException {
     if (getVideo(videoId).isSome()) {
       final QuestionnaireDto dto = QuestionnaireDto.create(videoId, title, content, settings, resource);
-      return tx(namedQuery.persist(dto)).toQuestionnaire();
+      final Questionnaire created = persist(dto).toQuestionnaire();
+      publish(Type.QUESTIONNAIRE, created.getId(), none(), created, true, () -> some(videoId));
+      return created;
     } else {
       throw notFound;
     }
@@ -844,19 +1670,22 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   @Override
   public Stream<Questionnaire> getQuestionnaires(final long videoId)
           throws ExtendedAnnotationException {
+    final Principal principal = principal();
     return findAll(QuestionnaireDto.class, "Questionnaire.findAllOfVideo", id(videoId)).stream()
             .map(QuestionnaireDto::toQuestionnaire)
-            .filter(this::hasResourceAccess);
+            .filter(questionnaire -> hasResourceAccess(principal, questionnaire));
   }
 
   @Override
   public void updateQuestionnaire(final Questionnaire q) throws ExtendedAnnotationException {
-    update(QuestionnaireDto.class, "Questionnaire.findByIdIncludeDeleted", q.getId(), new Effect<>() {
-      @Override
-      public void run(QuestionnaireDto dto) {
-        dto.update(q.getVideoId(), q.getTitle(), q.getContent(), q.getSettings(), q);
-      }
-    });
+    final Questionnaire updated = update(QuestionnaireDto.class, "Questionnaire.findByIdIncludeDeleted", q.getId(),
+            new Effect<>() {
+              @Override
+              public void run(QuestionnaireDto dto) {
+                dto.update(q.getVideoId(), q.getTitle(), q.getContent(), q.getSettings(), q);
+              }
+            }).toQuestionnaire();
+    publish(Type.QUESTIONNAIRE, updated.getId(), none(), updated, false, () -> some(updated.getVideoId()));
   }
 
   @Override
@@ -873,6 +1702,9 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
 
   // --
 
+  /** Maximum number of parameters passed to a single <code>IN</code> clause. */
+  private static final int MAX_IN_CLAUSE_SIZE = 1000;
+
   private static final ExtendedAnnotationException notFound = new ExtendedAnnotationException(Cause.NOT_FOUND);
 
   @Override
@@ -887,7 +1719,7 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
 
   @Override
   public Resource createResource(final Option<Integer> access, final Option<Map<String, String>> tags) {
-    final Option<Long> userId = getCurrentUserId();
+    final Option<Long> userId = principal().getUserId();
     final Option<Date> now = some(new Date());
     Map<String, String> tagsMap;
     tagsMap = tags.getOrElse(new Function0<>() {
@@ -906,13 +1738,13 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
       tagsMap = tags.get();
     else
       tagsMap = new HashMap<>();
-    return new ResourceImpl(some(r.getAccess()), r.getCreatedBy(), getCurrentUserId(), r.getDeletedBy(),
+    return new ResourceImpl(some(r.getAccess()), r.getCreatedBy(), principal().getUserId(), r.getDeletedBy(),
             r.getCreatedAt(), some(new Date()), r.getDeletedAt(), tagsMap);
   }
 
   @Override
   public Resource deleteResource(final Resource r) {
-    return new ResourceImpl(option(r.getAccess()), r.getCreatedBy(), r.getUpdatedBy(), getCurrentUserId(),
+    return new ResourceImpl(option(r.getAccess()), r.getCreatedBy(), r.getUpdatedBy(), principal().getUserId(),
             r.getCreatedAt(), r.getUpdatedAt(), some(new Date()), r.getTags());
   }
 
@@ -932,29 +1764,47 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
     });
   }
 
+  @Override
+  public void endRequest() {
+    principals.remove();
+  }
+
+  /** Whether the current thread holds on to a principal, i.e. did not end its request yet. */
+  public boolean hasPrincipal() {
+    return principals.get() != null;
+  }
+
   /**
-   * Get the ID of the current user. The current user is retrieved from the security service.
-   *
-   * @return the created resource
+   * Get the principal the current request acts as. It is resolved once and reused by the following calls of the
+   * request, see {@link Principal}.
    */
-  private Option<Long> getCurrentUserId() {
-    return getUserId(securityService.getUser());
+  private Principal principal() {
+    final org.opencastproject.security.api.User user = securityService.getUser();
+    final Organization organization = securityService.getOrganization();
+    final long writes = userWrites.get();
+    Principal principal = principals.get();
+    if (principal == null || !principal.isOf(user, organization, writes)) {
+      principal = new Principal(user, organization, writes, getUserId(user), isOpencastAdmin(user, organization));
+      principals.set(principal);
+    }
+    return principal;
   }
 
   @Override
   public boolean hasResourceAccess(Resource resource) {
-    org.opencastproject.security.api.User opencastUser = securityService.getUser();
+    return hasResourceAccess(principal(), resource);
+  }
 
+  private boolean hasResourceAccess(Principal principal, Resource resource) {
     return resource.getAccess() == Resource.PUBLIC
         || resource.getAccess() == Resource.SHARED_WITH_EVERYONE
-        || resource.getCreatedBy().equals(getUserId(opencastUser))
-        || isOpencastAdmin(opencastUser)
+        || resource.getCreatedBy().equals(principal.getUserId())
+        || principal.isAdmin()
         || resource.getAccess() == Resource.SHARED_WITH_ADMIN && isAnnotateAdmin(getResourceVideo(resource));
   }
 
-  private boolean isOpencastAdmin(org.opencastproject.security.api.User user) {
-    return user.hasRole(SecurityConstants.GLOBAL_ADMIN_ROLE)
-            || user.hasRole(securityService.getOrganization().getAdminRole());
+  private static boolean isOpencastAdmin(org.opencastproject.security.api.User user, Organization organization) {
+    return user.hasRole(SecurityConstants.GLOBAL_ADMIN_ROLE) || user.hasRole(organization.getAdminRole());
   }
 
   private boolean isAnnotateAdmin(Option<Video> video) {
@@ -977,16 +1827,22 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
 
   @Override
   public Option<MediaPackage> findMediaPackage(String id) {
-    try {
-      return Option.some(searchService.get(id));
-    } catch (NotFoundException | UnauthorizedException e) {
-      return Option.none();
-    }
+    final Principal principal = principal();
+    return mediaPackageCache.getMediaPackage(principal.getOrganizationId(), id, principal.getUsername(), () -> {
+      try {
+        return Option.some(searchService.get(id));
+      } catch (NotFoundException | UnauthorizedException e) {
+        return Option.none();
+      }
+    });
   }
 
   @Override
   public boolean hasVideoAccess(MediaPackage mediaPackage, String access) {
-    return isOpencastAdmin(securityService.getUser()) || authorizationService.hasPermission(mediaPackage, access);
+    final Principal principal = principal();
+    return principal.isAdmin() || mediaPackageCache.hasAccess(principal.getOrganizationId(),
+            mediaPackage.getIdentifier().toString(), principal.getUsername(), access,
+            () -> authorizationService.hasPermission(mediaPackage, access));
   }
 
   private Option<Video> getResourceVideo(Resource resource) {
@@ -1005,44 +1861,23 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
     }
   };
 
-  private static final boolean INCLUDE_DELETED = true;
-
-  private boolean hasCategoryAccess(Annotation annotation) {
-    try {
-      @SuppressWarnings("unchecked")
-      List<Map<String, Object>> content = (List<Map<String, Object>>) new JSONParser().parse(annotation.getContent());
-      for (Map<String, Object> contentItem : content) {
-        Object type = contentItem.get("type");
-        long labelId;
-        if ("label".equals(type)) {
-          labelId = (long) contentItem.get("value");
-        } else if ("scaling".equals(type)) {
-          @SuppressWarnings("unchecked")
-          Map<String, Long> value = (Map<String, Long>) contentItem.get("value");
-          labelId = value.get("label");
-        } else {
-          continue;
-        }
+  /** Create an index to decide category access with for the duration of one request. */
+  private CategoryAccessIndex newCategoryAccessIndex() {
+    final Principal principal = principal();
+    return new CategoryAccessIndex(this::findCategoriesOfLabels, category -> hasResourceAccess(principal, category));
+  }
 
-        Label label = getLabel(labelId, INCLUDE_DELETED).get();
-        Category category = getCategory(label.getCategoryId(), INCLUDE_DELETED).get();
-        if (!hasResourceAccess(category)) {
-          return false;
-        }
+  /** Find the categories owning the given labels, including deleted ones, keyed by label id. */
+  private Map<Long, Category> findCategoriesOfLabels(Collection<Long> labelIds) {
+    final Map<Long, Category> categories = new HashMap<>();
+    for (List<Long> chunk : partition(labelIds)) {
+      for (Object[] row : findAll(Object[].class, "Label.findCategoriesOfLabels", Pair.of("ids", chunk))) {
+        categories.put((Long) row[0], ((CategoryDto) row[1]).toCategory());
       }
-    } catch (ParseException e) {
-      throw new RuntimeException(e);
     }
-    return true;
+    return categories;
   }
 
-  private final Function<Annotation, Boolean> hasCategoryAccess = new Function<>() {
-    @Override
-    public Boolean apply(Annotation annotation) {
-      return hasCategoryAccess(annotation);
-    }
-  };
-
   private <T extends Resource> List<T> filterOrTags(List<T> originalList, Map<String, String> tags) {
     if (tags.size() < 1)
       return originalList;
@@ -1068,7 +1903,12 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
   }
 
   private <T extends Annotation> List<T> filterByCategoryAccess(List<T> originalList) {
-    return mlist(originalList).filter(hasCategoryAccess).value();
+    return newCategoryAccessIndex().filter(originalList);
+  }
+
+  /** Like {@link #filterByCategoryAccess(List)}, but filter lazily while the stream is read. */
+  private <T extends Annotation> Stream<T> filterByCategoryAccess(Stream<T> annotations) {
+    return newCategoryAccessIndex().filter(annotations, cursorFetchSize);
   }
 
   private <T extends Resource> List<T> filterAndTags(final List<T> originalList, final Map<String, String> tags) {
@@ -1097,6 +1937,10 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
    *          value of the ":id" parameter in the named query.
    */
   private <A, B> Option<A> findById(final Function<B, A> toA, final String queryName, final Object id, Class<B> type) {
+    return entityCache.get(type, queryName, id, () -> load(toA, queryName, id, type));
+  }
+
+  private <A, B> Option<A> load(final Function<B, A> toA, final String queryName, final Object id, Class<B> type) {
     Optional<B> result = tx(em -> namedQuery.findOpt(queryName, type, id(id)).apply(em));
     if (result.isPresent()) {
       A appliedResult = toA.apply(result.get());
@@ -1124,6 +1968,56 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
     });
   }
 
+  /**
+   * Like {@link #findAll(Class, String, Pair[])} but fetch at most <code>limit</code> results.
+   * Used for keyset pagination, so the query is expected to order and filter by the cursor.
+   */
+  @SafeVarargs
+  private <T> List<T> findAll(Class<T> type, String q, int limit, Pair<String, Object>... params) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("The page size must be positive");
+    }
+    return tx(em -> configureQuery(em.createNamedQuery(q, type), params).setMaxResults(limit).getResultList());
+  }
+
+  /**
+   * Like {@link #findAll(Class, String, Pair[])}, but read the results through a database cursor while the returned
+   * stream is consumed, so that large result sets are never held in memory at once. The stream keeps a transaction
+   * open until it has been read to the end or closed, so callers not reading all of it have to close it.
+   */
+  @SafeVarargs
+  private <T> Stream<T> stream(Class<T> type, String q, Pair<String, Object>... params) {
+    final EntityManager em = entityManagerFactory.createEntityManager();
+    try {
+      em.getTransaction().begin();
+      // Run the query on the connection of the transaction, which databases need to fetch the results in chunks
+      em.unwrap(Connection.class);
+      final Object cursor = configureQuery(em.createNamedQuery(q, type), params)
+              .setHint(QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE)
+              .setHint(QueryHints.JDBC_FETCH_SIZE, cursorFetchSize)
+              .getSingleResult();
+      return ResultCursor.stream(em, (ScrollableCursor) cursor, cursorFetchSize);
+    } catch (RuntimeException e) {
+      if (em.getTransaction().isActive()) {
+        em.getTransaction().rollback();
+      }
+      em.close();
+      throw new ExtendedAnnotationException(Cause.SERVER_ERROR, e);
+    }
+  }
+
+  /**
+   * Get the cursor pointing behind the last of the fetched resources.
+   * There is no next page if fewer resources than requested were fetched.
+   */
+  private static <A> Option<String> nextCursor(List<A> fetched, int limit,
+          java.util.function.Function<A, String> cursor) {
+    if (fetched.size() < limit) {
+      return none();
+    }
+    return some(cursor.apply(fetched.get(fetched.size() - 1)));
+  }
+
   @SafeVarargs
   private <T> TypedQuery<T> configureQuery(TypedQuery<T> q, Pair<String, Object>... params) {
     for (Pair<String, Object> pair : params) {
@@ -1134,6 +2028,40 @@ public final class ExtendedAnnotationServiceJpaImpl implements ExtendedAnnotatio
     return q;
   }
 
+  /**
+   * Split a collection into lists small enough to be passed as the parameter of an <code>IN</code> clause.
+   * An empty collection yields no lists at all, since an empty <code>IN</code> clause is not valid SQL.
+   */
+  private static <A> List<List<A>> partition(Collection<A> as) {
+    final List<A> list = new ArrayList<>(as);
+    final List<List<A>> chunks = new ArrayList<>();
+    for (int i = 0; i < list.size(); i += MAX_IN_CLAUSE_SIZE) {
+      chunks.add(list.subList(i, Math.min(i + MAX_IN_CLAUSE_SIZE, list.size())));
+    }
+    return chunks;
+  }
+
+  /**
+   * Run the named bulk update <code>q</code> inside of a running transaction, stamping the matched resources with the
+   * deletion user and date of <code>deleted</code>.
+   *
+   * @return the number of resources marked as deleted
+   */
+  private static int softDelete(EntityManager em, String q, Resource deleted, Pair<String, Object> param) {
+    return namedQuery.update(q, param, Pair.of("deletedAt", deleted.getDeletedAt().get()),
+            Pair.of("deletedBy", deleted.getDeletedBy().getOrElseNull())).apply(em);
+  }
+
+  /** Create the parameter pair of the beginning of a time window, which is unbounded if none. */
+  private static Pair<String, Object> from(Option<Double> from) {
+    return Pair.of("from", from.getOrElse(-Double.MAX_VALUE));
+  }
+
+  /** Create the parameter pair of the end of a time window, which is unbounded if none. */
+  private static Pair<String, Object> to(Option<Double> to) {
+    return Pair.of("to", to.getOrElse(Double.MAX_VALUE));
+  }
+
   /** Create an "id" parameter pair. */
   private static <A> Pair<String, A> id(A id) {
     return Pair.of("id", id);
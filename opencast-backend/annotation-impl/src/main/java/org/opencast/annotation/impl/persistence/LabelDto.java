@@ -20,6 +20,7 @@ import static org.opencast.annotation.impl.Jsons.jA;
 import static org.opencast.annotation.impl.Jsons.jO;
 import static org.opencast.annotation.impl.Jsons.p;
 import static org.opencastproject.util.data.Option.option;
+import static org.opencastproject.util.data.Option.some;
 
 import org.opencast.annotation.api.Category;
 import org.opencast.annotation.api.ExtendedAnnotationService;
@@ -34,6 +35,8 @@ import org.opencastproject.util.data.Option;
 
 import org.json.simple.JSONObject;
 
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.persistence.Column;
@@ -41,17 +44,24 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 /** JPA/JSON link to {@link Label}. */
 @Entity(name = "Label")
-@Table(name = "xannotations_label")
+@Table(name = "xannotations_label", indexes = {
+        @Index(name = "IX_xannotations_label_category", columnList = "category_id, deleted_at") })
 @NamedQueries({
         @NamedQuery(name = "Label.findByIdIncludeDeleted", query = "select a from Label a where a.id = :id"),
         @NamedQuery(name = "Label.findById", query = "select a from Label a where a.id = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "Label.findAllOfCategory", query = "select a from Label a where a.categoryId = :id"),
+        @NamedQuery(name = "Label.findAllOfVideo", query = "select a from Label a, Category c where a.categoryId = c.id and c.videoId = :id"),
+        @NamedQuery(name = "Label.findCategoriesOfLabels", query = "select a.id, c from Label a, Category c where a.categoryId = c.id and a.id in :ids"),
+        @NamedQuery(name = "Label.deleteOfCategories", query = "update Label a set a.deletedAt = :deletedAt, a.deletedBy = :deletedBy, a.seriesLabelId = NULL where a.categoryId in :ids and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Label.findChangesOfVideo", query = "select a from Label a, Category c where a.categoryId = c.id and c.videoId = :id and (a.updatedAt > :since or a.deletedAt > :since)"),
+        @NamedQuery(name = "Label.versionOfCategory", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Label a where a.categoryId = :id or a.categoryId in (select c.seriesCategoryId from Category c where c.id = :id)"),
         @NamedQuery(name = "Label.clear", query = "delete from Label") })
 public class LabelDto extends AbstractResourceDto {
   @Id
@@ -78,6 +88,13 @@ public class LabelDto extends AbstractResourceDto {
   @Column(name = "category_id", nullable = false)
   private long categoryId;
 
+  /**
+   * Counts the updates of the label. A copy of a series label has the revision of the series label it was last copied
+   * from, which tells whether it is up to date.
+   */
+  @Column(name = "revision", nullable = false)
+  private long revision;
+
   public static LabelDto create(Option<Long> seriesLabelId, long categoryId, String value, String abbreviation,
           Option<String> description, Option<String> settings, Resource resource) {
     LabelDto dto = new LabelDto().update(seriesLabelId, value, abbreviation, description, settings, resource);
@@ -93,9 +110,30 @@ public class LabelDto extends AbstractResourceDto {
     this.abbreviation = abbreviation;
     this.description = description.getOrElseNull();
     this.settings = settings.getOrElseNull();
+    this.revision++;
+    return this;
+  }
+
+  /** Create a copy of a series label in a copy of its series category. */
+  static LabelDto copyOf(LabelDto seriesLabel, long categoryId) {
+    final LabelDto dto = new LabelDto().copy(seriesLabel);
+    dto.categoryId = categoryId;
+    return dto;
+  }
+
+  /** Take over the content, the logging attributes and the revision of the series label this label copies. */
+  LabelDto copy(LabelDto seriesLabel) {
+    update(some(seriesLabel.id), seriesLabel.value, seriesLabel.abbreviation, option(seriesLabel.description),
+            option(seriesLabel.settings), seriesLabel.toLabel());
+    this.revision = seriesLabel.revision;
     return this;
   }
 
+  /** Whether this label is a copy of the given series label taken at its current revision. */
+  boolean isCopyOf(LabelDto seriesLabel) {
+    return seriesLabelId != null && seriesLabelId == seriesLabel.id && revision == seriesLabel.revision;
+  }
+
   public Label toLabel() {
     return new LabelImpl(id, option(seriesLabelId), categoryId, value, abbreviation, option(description),
             option(settings), new ResourceImpl(option(access), option(createdBy), option(updatedBy), option(deletedBy),
@@ -112,15 +150,26 @@ public class LabelDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, Label, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService s, Label l) {
-      Category category = s.getCategory(l.getCategoryId(), true).get();
-
-      return conc(AbstractResourceDto.toJson.apply(s, l),
-          jO(p("id", l.getId()), p("value", l.getValue()), p("abbreviation", l.getAbbreviation()), p("description", l.getDescription()), p("settings", l.getSettings()),
-              p("category", CategoryDto.toJson.apply(s, category))));
+      return LabelDto.toJson(new SerializationContext(s), l);
     }
   };
 
+  public static JSONObject toJson(SerializationContext ctx, Label l) {
+    return toJson(ctx, l, ctx.getCategory(l.getCategoryId()).get());
+  }
+
+  /** Serialize a label whose category has already been loaded. */
+  public static JSONObject toJson(SerializationContext ctx, Label l, Category category) {
+    return conc(AbstractResourceDto.toJson(ctx, l),
+        jO(p("id", l.getId()), p("value", l.getValue()), p("abbreviation", l.getAbbreviation()), p("description", l.getDescription()), p("settings", l.getSettings()),
+            p("category", CategoryDto.toJson(ctx, category))));
+  }
+
   public static JSONObject toJson(ExtendedAnnotationService s, Stream<Label> ls) {
-    return jO(p("labels", jA(ls.map(l -> toJson.apply(s, l)).toArray())));
+    final List<Label> labels = ls.collect(Collectors.toList());
+    final SerializationContext ctx = SerializationContext.of(s, labels);
+    ctx.preload(labels.stream().map(Label::getCategoryId).distinct()
+            .map(id -> ctx.getCategory(id).get()).collect(Collectors.toList()));
+    return jO(p("labels", jA(labels.stream().map(l -> toJson(ctx, l)).toArray())));
   }
 }
@@ -0,0 +1,204 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.util.data.Option;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A bounded read-through cache for looking up media packages in the search index and for deciding access to them,
+ * which the annotation tool asks Opencast for on almost every request.
+ * Both depend on who asks, so lookups are keyed by organization, media package id and user, and access decisions
+ * additionally by action. Entries expire after a short time to pick up changes made elsewhere in Opencast, and the
+ * least recently used ones are evicted once the cache is full. Changes known to the tool invalidate the entries of
+ * their media package right away.
+ */
+public final class MediaPackageCache {
+  private final long ttl;
+  private final LongSupplier clock;
+  private final Map<Key, CacheEntry> entries;
+  /** Counts the invalidations, to not cache values loaded before one. */
+  private long generation;
+  private long hits;
+  private long misses;
+  private long expirations;
+  private long evictions;
+
+  /**
+   * @param ttl
+   *          the milliseconds an entry is used for; <code>0</code> disables the cache
+   * @param size
+   *          the maximum number of cached entries; <code>0</code> disables the cache
+   */
+  public MediaPackageCache(long ttl, int size) {
+    this(ttl, size, System::currentTimeMillis);
+  }
+
+  MediaPackageCache(long ttl, final int size, LongSupplier clock) {
+    if (ttl < 0 || size < 0) {
+      throw new IllegalArgumentException("The time to live and the cache size must not be negative: " + ttl + ", "
+              + size);
+    }
+    this.ttl = size > 0 ? ttl : 0;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CacheEntry> eldest) {
+        if (size() > size) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /** Look up a media package for a user, loading it on a miss. Media packages not found are cached as well. */
+  public Option<MediaPackage> getMediaPackage(String organization, String mediaPackageId, String user,
+          Supplier<Option<MediaPackage>> load) {
+    return get(new Key(organization, mediaPackageId, user, null), load);
+  }
+
+  /** Decide whether a user may perform an action on a media package, deciding it on a miss. */
+  public boolean hasAccess(String organization, String mediaPackageId, String user, String action,
+          BooleanSupplier decide) {
+    return get(new Key(organization, mediaPackageId, user, action), decide::getAsBoolean);
+  }
+
+  /**
+   * Get a value from the cache, loading and remembering it on a miss.
+   * The loader runs outside of the cache's lock. If the cache has been invalidated in the meantime,
+   * the loaded value is returned but not cached.
+   */
+  private <A> A get(Key key, Supplier<A> load) {
+    if (ttl == 0) {
+      return load.get();
+    }
+    final long loaded;
+    synchronized (this) {
+      final CacheEntry entry = entries.get(key);
+      if (entry != null) {
+        if (clock.getAsLong() < entry.expires) {
+          hits++;
+          @SuppressWarnings("unchecked")
+          final A value = (A) entry.value;
+          return value;
+        }
+        entries.remove(key);
+        expirations++;
+      }
+      misses++;
+      loaded = generation;
+    }
+    final A value = load.get();
+    synchronized (this) {
+      if (generation == loaded) {
+        entries.put(key, new CacheEntry(clock.getAsLong() + ttl, value));
+      }
+    }
+    return value;
+  }
+
+  /** Drop all entries of a media package, for all organizations, users and actions. */
+  public synchronized void invalidate(String mediaPackageId) {
+    generation++;
+    entries.keySet().removeIf(key -> key.mediaPackageId.equals(mediaPackageId));
+  }
+
+  /** Drop all entries. */
+  public synchronized void clear() {
+    generation++;
+    entries.clear();
+  }
+
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getExpirations() {
+    return expirations;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "MediaPackageCache(size=" + entries.size() + ", hits=" + hits + ", misses=" + misses
+            + ", expirations=" + expirations + ", evictions=" + evictions + ")";
+  }
+
+  private static final class Key {
+    private final String organization;
+    private final String mediaPackageId;
+    private final String user;
+    /** The action of an access decision, <code>null</code> for a lookup. */
+    private final String action;
+
+    Key(String organization, String mediaPackageId, String user, String action) {
+      this.organization = organization;
+      this.mediaPackageId = mediaPackageId;
+      this.user = user;
+      this.action = action;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key that = (Key) o;
+      return organization.equals(that.organization) && mediaPackageId.equals(that.mediaPackageId)
+              && user.equals(that.user) && Objects.equals(action, that.action);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(organization, mediaPackageId, user, action);
+    }
+  }
+
+  private static final class CacheEntry {
+    private final long expires;
+    private final Object value;
+
+    CacheEntry(long expires, Object value) {
+      this.expires = expires;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.Role;
+import org.opencastproject.security.api.User;
+import org.opencastproject.util.data.Option;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Who a request acts as: the annotation tool user of the current Opencast user, if there is one, and whether the
+ * Opencast user is an administrator of the organization or of the whole system.
+ * Resolving it takes a user lookup, so it is resolved once and then reused by the access checks and resource stamps
+ * of a request for as long as it acts for the same Opencast user with the same roles and no user was written.
+ * Users written by other nodes are only seen by the following requests, as every request resolves it anew.
+ */
+final class Principal {
+  private final String organizationId;
+  private final String username;
+  private final Set<String> roles;
+  private final long userWrites;
+  private final Option<Long> userId;
+  private final boolean admin;
+  private final String tag;
+
+  /**
+   * @param user
+   *          the Opencast user
+   * @param organization
+   *          the organization the user acts in
+   * @param userWrites
+   *          the number of user writes at the time the principal is resolved
+   * @param userId
+   *          the id of the annotation tool user of the Opencast user
+   * @param admin
+   *          whether the Opencast user is an administrator
+   */
+  Principal(User user, Organization organization, long userWrites, Option<Long> userId, boolean admin) {
+    this.organizationId = organization.getId();
+    this.username = user.getUsername();
+    this.roles = roleNames(user);
+    this.userWrites = userWrites;
+    this.userId = userId;
+    this.admin = admin;
+    this.tag = tag(organizationId, userId, admin, roles);
+  }
+
+  /**
+   * Hash everything the resources one may see depend on as hex encoded SHA-256, shortened to 64 bits: the
+   * organization, the annotation tool user, whether one is an administrator and the roles.
+   */
+  private static String tag(String organizationId, Option<Long> userId, boolean admin, Set<String> roles) {
+    final String principal = organizationId + '\0' + (userId.isSome() ? userId.get() : "") + '\0' + admin + '\0'
+            + String.join("\0", new TreeSet<>(roles));
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256").digest(principal.getBytes(StandardCharsets.UTF_8));
+      return String.format("%016x", new BigInteger(1, digest).shiftRight(192));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform has to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Whether this principal is still valid for the given Opencast user acting in the given organization. */
+  boolean isOf(User user, Organization organization, long userWrites) {
+    if (userWrites != this.userWrites) {
+      return false;
+    }
+    // The security service may hand out a new but equal user every time it is asked
+    return organizationId.equals(organization.getId()) && username.equals(user.getUsername())
+            && roles.equals(roleNames(user));
+  }
+
+  private static Set<String> roleNames(User user) {
+    return user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
+  }
+
+  String getOrganizationId() {
+    return organizationId;
+  }
+
+  String getUsername() {
+    return username;
+  }
+
+  /** The id of the annotation tool user of the Opencast user, none if the Opencast user has none yet. */
+  Option<Long> getUserId() {
+    return userId;
+  }
+
+  /** Whether the Opencast user is an administrator and may thus access everything. */
+  boolean isAdmin() {
+    return admin;
+  }
+
+  /** A short string which differs for principals who may see different resources, to qualify versions with. */
+  String getTag() {
+    return tag;
+  }
+}
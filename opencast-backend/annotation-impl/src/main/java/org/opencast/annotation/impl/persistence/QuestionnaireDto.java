@@ -1,14 +1,17 @@
 package org.opencast.annotation.impl.persistence;
 
+import static org.opencast.annotation.impl.JsonStreamWriter.object;
 import static org.opencast.annotation.impl.Jsons.conc;
 import static org.opencast.annotation.impl.Jsons.jA;
 import static org.opencast.annotation.impl.Jsons.jO;
 import static org.opencast.annotation.impl.Jsons.p;
+import static org.opencast.annotation.impl.persistence.AbstractResourceDto.writeAll;
 import static org.opencastproject.util.data.Option.option;
 
 import org.opencast.annotation.api.ExtendedAnnotationService;
 import org.opencast.annotation.api.Questionnaire;
 import org.opencast.annotation.api.Resource;
+import org.opencast.annotation.impl.JsonStreamWriter;
 import org.opencast.annotation.impl.QuestionnaireImpl;
 import org.opencast.annotation.impl.ResourceImpl;
 
@@ -18,6 +21,9 @@ import org.opencastproject.util.data.Option;
 
 import org.json.simple.JSONObject;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.persistence.Column;
@@ -25,17 +31,21 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 @Entity(name = "Questionnaire")
-@Table(name = "xannotations_questionnaire")
+@Table(name = "xannotations_questionnaire", indexes = {
+        @Index(name = "IX_xannotations_questionnaire_video", columnList = "video_id, deleted_at") })
 @NamedQueries({
         @NamedQuery(name = "Questionnaire.findByIdIncludeDeleted", query = "select a from Questionnaire a where a.id = :id"),
         @NamedQuery(name = "Questionnaire.findById", query = "select a from Questionnaire a where a.id = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "Questionnaire.findAllOfVideo", query = "select a from Questionnaire a where a.videoId = :id"),
+        @NamedQuery(name = "Questionnaire.findChangesOfVideo", query = "select a from Questionnaire a where a.videoId = :id and (a.updatedAt > :since or a.deletedAt > :since)"),
+        @NamedQuery(name = "Questionnaire.versionOfVideo", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Questionnaire a where a.videoId = :id"),
         @NamedQuery(name = "Questionnaire.clear", query = "delete from Questionnaire") })
 public class QuestionnaireDto extends AbstractResourceDto {
   @Id
@@ -90,12 +100,38 @@ public class QuestionnaireDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, Questionnaire, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService eas, Questionnaire s) {
-      return conc(AbstractResourceDto.toJson.apply(eas, s),
-          jO(p("id", s.getId()), p("title", s.getTitle()), p("settings", s.getSettings()), p("content", s.getContent())));
+      return QuestionnaireDto.toJson(new SerializationContext(eas), s);
     }
   };
 
+  public static JSONObject toJson(SerializationContext ctx, Questionnaire s) {
+    return conc(AbstractResourceDto.toJson(ctx, s),
+        jO(p("id", s.getId()), p("title", s.getTitle()), p("settings", s.getSettings()), p("content", s.getContent())));
+  }
+
+  /** Write a questionnaire, like {@link #toJson(SerializationContext, Questionnaire)}. */
+  public static void writeJson(SerializationContext ctx, Questionnaire s, JsonStreamWriter writer)
+          throws IOException {
+    writer.beginObject();
+    AbstractResourceDto.writeFields(ctx, s, writer);
+    writer.field("id", s.getId()).field("title", s.getTitle()).field("settings", s.getSettings())
+            .field("content", s.getContent());
+    writer.endObject(() -> toJson(ctx, s));
+  }
+
   public static JSONObject toJson(ExtendedAnnotationService eas, Stream<Questionnaire> questionnaires) {
-    return jO(p("questionnaires", jA(questionnaires.map(q -> toJson.apply(eas, q)).toArray())));
+    final List<Questionnaire> questionnaireList = questionnaires.collect(Collectors.toList());
+    final SerializationContext ctx = SerializationContext.of(eas, questionnaireList);
+    return jO(p("questionnaires", jA(questionnaireList.stream().map(q -> toJson(ctx, q)).toArray())));
   }
+  /**
+   * Write questionnaires like {@link #toJson(ExtendedAnnotationService, Stream)}, reading them from the stream while
+   * they are written. The stream is closed afterwards.
+   */
+  public static JsonStreamWriter.Value writeJson(ExtendedAnnotationService eas, Stream<Questionnaire> questionnaires) {
+    final SerializationContext ctx = new SerializationContext(eas);
+    return object("questionnaires", writeAll(ctx, questionnaires, (q, writer) -> writeJson(ctx, q, writer)));
+  }
+
+
 }
@@ -0,0 +1,394 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.option;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencast.annotation.api.Resource;
+import org.opencast.annotation.impl.ResourceImpl;
+
+import org.opencastproject.util.data.Option;
+
+import org.json.simple.JSONValue;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Imports records as described by {@link org.opencast.annotation.api.ExtendedAnnotationService#importRecords(Iterator)}
+ * within a running transaction. The new ids of the imported resources are remembered by record type and source id to
+ * translate the references of the records following. The persistence context is flushed and cleared every
+ * <code>batchSize</code> records, so that neither the inserts nor the managed entities pile up.
+ * <p>
+ * The records of a {@link SeriesExport} can be imported as well. Their annotations carry the names of the labels,
+ * categories, scale values and scales of their content instead of referring to records of them, so these are created in
+ * the video of the annotation the first time they are referred to.
+ */
+final class RecordImport {
+  private final EntityManager em;
+  private final int batchSize;
+  /** The new ids of the imported resources by record type and source id. */
+  private final Map<String, Map<Long, Long>> ids = new HashMap<>();
+  /** The new ids of the videos of the imported tracks by the new track id. */
+  private final Map<Long, Long> videosOfTracks = new HashMap<>();
+  private final Map<String, Long> counts = new LinkedHashMap<>();
+  private final JSONParser parser = new JSONParser();
+  private final Date now = new Date();
+  private long record;
+  private int pending;
+
+  RecordImport(EntityManager em, int batchSize) {
+    this.em = em;
+    this.batchSize = batchSize;
+  }
+
+  /** Import the records and return how many records of each type were imported. */
+  Map<String, Long> run(Iterator<Map<String, Object>> records) {
+    while (records.hasNext()) {
+      final Map<String, Object> r = records.next();
+      record++;
+      final String type = string(r, "type");
+      final long id;
+      switch (type) {
+        case "user":
+          id = importUser(r);
+          break;
+        case "video":
+          id = importVideo(r);
+          break;
+        case "scale":
+          id = persist(ScaleDto.create(ref(r, "video_id", "video"), string(r, "name"), optString(r, "description"),
+                  resource(r))).toScale().getId();
+          break;
+        case "scale_value":
+          id = persist(ScaleValueDto.create(ref(r, "scale_id", "scale"), string(r, "name"),
+                  number(r, "value").doubleValue(), number(r, "order").intValue(), resource(r))).toScaleValue().getId();
+          break;
+        case "category":
+          id = importCategory(r);
+          break;
+        case "label":
+          id = importLabel(r);
+          break;
+        case "track":
+          id = importTrack(r);
+          break;
+        case "annotation":
+          id = importAnnotation(r);
+          break;
+        case "comment":
+          id = persist(CommentDto.create(ref(r, "annotation_id", "annotation"), string(r, "text"),
+                  optRef(r, "reply_to_id", "comment"), resource(r))).toComment().getId();
+          break;
+        default:
+          throw invalid("unknown type " + type);
+      }
+      ids.computeIfAbsent(type, t -> new HashMap<>()).put(number(r, "id").longValue(), id);
+      counts.merge(type, 1L, Long::sum);
+    }
+    em.flush();
+    em.clear();
+    return counts;
+  }
+
+  private long importUser(Map<String, Object> r) {
+    final String extId = string(r, "user_extid");
+    final List<UserDto> known = em.createNamedQuery("User.findByUserId", UserDto.class)
+            .setParameter("id", extId).getResultList();
+    if (!known.isEmpty()) {
+      return known.get(0).toUser().getId();
+    }
+    return persist(UserDto.create(extId, string(r, "nickname"), optString(r, "email"), resource(r))).toUser().getId();
+  }
+
+  private long importVideo(Map<String, Object> r) {
+    final String extId = string(r, "video_extid");
+    final List<VideoDto> known = em.createNamedQuery("Video.findByExtId", VideoDto.class)
+            .setParameter("id", extId).getResultList();
+    if (!known.isEmpty()) {
+      return known.get(0).toVideo().getId();
+    }
+    return persist(VideoDto.create(extId, resource(r))).toVideo().getId();
+  }
+
+  private long importCategory(Map<String, Object> r) {
+    final long sourceId = number(r, "id").longValue();
+    final Option<Long> seriesCategoryId = optLong(r, "series_category_id");
+    // The series category of a series is the category itself, so it can only be referred to once it got its new id
+    final boolean self = seriesCategoryId.isSome() && seriesCategoryId.get() == sourceId;
+    final Option<String> seriesExtId = optString(r, "series_extid");
+    final long videoId = ref(r, "video_id", "video");
+    final String name = string(r, "name");
+    final Option<String> description = optString(r, "description");
+    final Option<Long> scaleId = optRef(r, "scale_id", "scale");
+    final Option<String> settings = optJson(r, "settings");
+    final Resource resource = resource(r);
+    final CategoryDto dto = persist(CategoryDto.create(seriesExtId,
+            self ? Option.<Long> none() : optRef(r, "series_category_id", "category"), videoId, scaleId, name,
+            description, settings, resource));
+    final long id = dto.toCategory().getId();
+    if (self) {
+      dto.update(seriesExtId, some(id), videoId, name, description, scaleId, settings, resource);
+    }
+    return id;
+  }
+
+  private long importLabel(Map<String, Object> r) {
+    final long sourceId = number(r, "id").longValue();
+    final Option<Long> seriesLabelId = optLong(r, "series_label_id");
+    final boolean self = seriesLabelId.isSome() && seriesLabelId.get() == sourceId;
+    final String value = string(r, "value");
+    final String abbreviation = string(r, "abbreviation");
+    final Option<String> description = optString(r, "description");
+    final Option<String> settings = optJson(r, "settings");
+    final Resource resource = resource(r);
+    final LabelDto dto = persist(LabelDto.create(self ? Option.<Long> none() : optRef(r, "series_label_id", "label"),
+            ref(r, "category_id", "category"), value, abbreviation, description, settings, resource));
+    final long id = dto.toLabel().getId();
+    if (self) {
+      dto.update(some(id), value, abbreviation, description, settings, resource);
+    }
+    return id;
+  }
+
+  private long importTrack(Map<String, Object> r) {
+    final long videoId = ref(r, "video_id", "video");
+    final long id = persist(TrackDto.create(videoId, string(r, "name"), optString(r, "description"),
+            optJson(r, "settings"), resource(r))).toTrack().getId();
+    videosOfTracks.put(id, videoId);
+    return id;
+  }
+
+  private long importAnnotation(Map<String, Object> r) {
+    final long trackId = ref(r, "track_id", "track");
+    final Resource resource = resource(r);
+    return persist(AnnotationDto.create(trackId, number(r, "start").doubleValue(), optDouble(r, "duration"),
+            content(r, videosOfTracks.get(trackId), resource), 0L, optJson(r, "settings"), resource))
+            .toAnnotation().getId();
+  }
+
+  /** Persist an entity, flushing and clearing the persistence context before every batch. */
+  private <A> A persist(A dto) {
+    // Clear before rather than after persisting, so the new entity stays managed for updates right after
+    if (pending == batchSize) {
+      em.flush();
+      em.clear();
+      pending = 0;
+    }
+    em.persist(dto);
+    pending++;
+    return dto;
+  }
+
+  /**
+   * Get the content of an annotation with the ids of its labels and scale values translated. Exported content is
+   * translated to refer to the labels and scale values it names, which are created with the given resource if needed.
+   */
+  private String content(Map<String, Object> r, long videoId, Resource resource) {
+    final Object content = r.get("content");
+    final List<?> items;
+    try {
+      items = (List<?>) (content instanceof String ? parser.parse((String) content) : content);
+    } catch (ParseException | ClassCastException e) {
+      throw invalid("malformed content");
+    }
+    if (items == null) {
+      throw invalid("missing content");
+    }
+    final List<Map<String, Object>> imported = new ArrayList<>();
+    for (Object item : items) {
+      @SuppressWarnings("unchecked")
+      final Map<String, Object> contentItem = (Map<String, Object>) item;
+      final Object type = contentItem.get("type");
+      if (("label".equals(type) || "scaling".equals(type)) && !contentItem.containsKey("value")) {
+        final Option<Map<String, Object>> exported = exportedItem(contentItem, videoId, resource);
+        if (exported.isSome()) {
+          imported.add(exported.get());
+        }
+        continue;
+      }
+      if ("label".equals(type)) {
+        contentItem.put("value", ref(contentItem, "value", "label"));
+      } else if ("scaling".equals(type)) {
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> value = (Map<String, Object>) contentItem.get("value");
+        value.put("label", ref(value, "label", "label"));
+        value.put("scaling", ref(value, "scaling", "scale_value"));
+      }
+      imported.add(contentItem);
+    }
+    return JSONValue.toJSONString(imported);
+  }
+
+  /**
+   * Translate a label or scaling item of exported content, which names its label, category, scale value and scale.
+   * Items whose label was gone at the time of the export are dropped, as there is nothing left to refer to.
+   */
+  private Option<Map<String, Object>> exportedItem(Map<String, Object> item, long videoId, Resource resource) {
+    final boolean scaling = "scaling".equals(item.get("type"));
+    if (item.get("label_id") == null || scaling && item.get("scale_value_id") == null) {
+      return none();
+    }
+    final Option<Long> scaleId = item.get("scale_id") == null ? none()
+            : some(exported(item, "scale_id", "scale", () -> persist(ScaleDto.create(videoId, string(item, "scale"),
+                    none(), resource)).toScale().getId()));
+    final long categoryId = exported(item, "category_id", "category", () -> persist(CategoryDto.create(none(),
+            none(), videoId, scaleId, string(item, "category"), none(), none(), resource)).toCategory().getId());
+    final long labelId = exported(item, "label_id", "label", () -> persist(LabelDto.create(none(), categoryId,
+            string(item, "label"), optString(item, "abbreviation").getOrElse(""), none(), none(), resource))
+            .toLabel().getId());
+    final Map<String, Object> translated = new LinkedHashMap<>();
+    translated.put("type", item.get("type"));
+    if (!scaling) {
+      translated.put("value", labelId);
+      return some(translated);
+    }
+    if (scaleId.isNone()) {
+      throw invalid("missing scale_id");
+    }
+    final long scaleValueId = exported(item, "scale_value_id", "scale_value", () -> persist(ScaleValueDto.create(
+            scaleId.get(), string(item, "scale_value"), number(item, "scale_value_value").doubleValue(), 0,
+            resource)).toScaleValue().getId());
+    final Map<String, Object> value = new LinkedHashMap<>();
+    value.put("label", labelId);
+    value.put("scaling", scaleValueId);
+    translated.put("value", value);
+    return some(translated);
+  }
+
+  /**
+   * Get the new id of a resource named by exported content, creating it the first time it is referred to, unless it
+   * has been imported as a record already.
+   */
+  private long exported(Map<String, Object> item, String key, String type, Supplier<Long> create) {
+    final long sourceId = number(item, key).longValue();
+    final Long known = ids(type).get(sourceId);
+    if (known != null) {
+      return known;
+    }
+    final long id = create.get();
+    ids.computeIfAbsent(type, t -> new HashMap<>()).put(sourceId, id);
+    counts.merge(type, 1L, Long::sum);
+    return id;
+  }
+
+  private Resource resource(Map<String, Object> r) {
+    final Option<Long> access = optLong(r, "access");
+    return new ResourceImpl(access.isSome() ? some(access.get().intValue()) : Option.<Integer> none(),
+            user(r, "created_by"), user(r, "updated_by"), user(r, "deleted_by"),
+            some(optDate(r, "created_at").getOrElse(now)), some(optDate(r, "updated_at").getOrElse(now)),
+            optDate(r, "deleted_at"), null);
+  }
+
+  /** Translate a reference to a user, dropping it if the user has not been imported. */
+  private Option<Long> user(Map<String, Object> r, String key) {
+    final Option<Long> id = optLong(r, key);
+    return id.isSome() ? option(ids("user").get(id.get())) : none();
+  }
+
+  /** Translate a mandatory reference to a record of the given type. */
+  private long ref(Map<String, Object> r, String key, String type) {
+    final Long id = ids(type).get(number(r, key).longValue());
+    if (id == null) {
+      throw invalid(key + " refers to a " + type + " that has not been imported");
+    }
+    return id;
+  }
+
+  /** Translate an optional reference to a record of the given type. */
+  private Option<Long> optRef(Map<String, Object> r, String key, String type) {
+    return r.get(key) == null ? none() : some(ref(r, key, type));
+  }
+
+  private Map<Long, Long> ids(String type) {
+    return ids.getOrDefault(type, Map.of());
+  }
+
+  private String string(Map<String, Object> r, String key) {
+    final Option<String> value = optString(r, key);
+    if (value.isNone()) {
+      throw invalid("missing " + key);
+    }
+    return value.get();
+  }
+
+  private Option<String> optString(Map<String, Object> r, String key) {
+    final Object value = r.get(key);
+    if (value != null && !(value instanceof String)) {
+      throw invalid(key + " is no string");
+    }
+    return option((String) value);
+  }
+
+  /** Get a JSON valued property like the settings, which may be given either as string or as JSON. */
+  private Option<String> optJson(Map<String, Object> r, String key) {
+    final Object value = r.get(key);
+    return value == null || value instanceof String ? option((String) value) : some(JSONValue.toJSONString(value));
+  }
+
+  private Number number(Map<String, Object> r, String key) {
+    final Option<Number> value = optNumber(r, key);
+    if (value.isNone()) {
+      throw invalid("missing " + key);
+    }
+    return value.get();
+  }
+
+  private Option<Number> optNumber(Map<String, Object> r, String key) {
+    final Object value = r.get(key);
+    if (value != null && !(value instanceof Number)) {
+      throw invalid(key + " is no number");
+    }
+    return option((Number) value);
+  }
+
+  private Option<Long> optLong(Map<String, Object> r, String key) {
+    final Option<Number> value = optNumber(r, key);
+    return value.isSome() ? some(value.get().longValue()) : none();
+  }
+
+  private Option<Double> optDouble(Map<String, Object> r, String key) {
+    final Option<Number> value = optNumber(r, key);
+    return value.isSome() ? some(value.get().doubleValue()) : none();
+  }
+
+  private Option<Date> optDate(Map<String, Object> r, String key) {
+    final Option<String> value = optString(r, key);
+    try {
+      return value.isSome() ? some(Date.from(Instant.parse(value.get()))) : none();
+    } catch (DateTimeParseException e) {
+      throw invalid(key + " is no ISO 8601 date");
+    }
+  }
+
+  private IllegalArgumentException invalid(String message) {
+    return new IllegalArgumentException("Record " + record + ": " + message);
+  }
+}
@@ -0,0 +1,107 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import org.opencast.annotation.api.ExtendedAnnotationException;
+import org.opencast.annotation.api.ExtendedAnnotationException.Cause;
+
+import org.eclipse.persistence.queries.ScrollableCursor;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.EntityManager;
+
+/**
+ * The results of a query read through a scrollable database cursor, so that only a few of them are in memory at a
+ * time. The cursor is read inside a transaction of its own entity manager, which are both released as soon as all
+ * results have been read or the stream is closed, whichever happens first.
+ */
+final class ResultCursor<T> extends Spliterators.AbstractSpliterator<T> {
+  private final EntityManager em;
+  private final ScrollableCursor cursor;
+  private final int clearEvery;
+  private int read;
+  private boolean closed;
+
+  private ResultCursor(EntityManager em, ScrollableCursor cursor, int clearEvery) {
+    super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+    this.em = em;
+    this.cursor = cursor;
+    this.clearEvery = clearEvery;
+  }
+
+  /**
+   * Stream the results of a cursor opened inside a transaction of the given entity manager.
+   *
+   * @param clearEvery
+   *          after how many results the entity manager is cleared, which should be the fetch size of the cursor
+   */
+  static <T> Stream<T> stream(EntityManager em, ScrollableCursor cursor, int clearEvery) {
+    final ResultCursor<T> results = new ResultCursor<>(em, cursor, clearEvery);
+    return StreamSupport.stream(results, false).onClose(results::close);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    if (closed) {
+      return false;
+    }
+    final T result;
+    try {
+      if (!cursor.hasNext()) {
+        close();
+        return false;
+      }
+      // Results are passed on as soon as they are read, so the earlier ones do not have to stay managed
+      if (read > 0 && read % clearEvery == 0) {
+        em.clear();
+      }
+      read++;
+      @SuppressWarnings("unchecked")
+      final T next = (T) cursor.next();
+      result = next;
+    } catch (RuntimeException e) {
+      close();
+      throw new ExtendedAnnotationException(Cause.SERVER_ERROR, e);
+    }
+    action.accept(result);
+    return true;
+  }
+
+  /** Release the cursor, the transaction and the entity manager. Closing more than once does nothing. */
+  void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      cursor.close();
+    } finally {
+      try {
+        // Nothing has been written, so the transaction is just rolled back
+        if (em.getTransaction().isActive()) {
+          em.getTransaction().rollback();
+        }
+      } finally {
+        em.close();
+      }
+    }
+  }
+}
@@ -15,15 +15,18 @@
  */
 package org.opencast.annotation.impl.persistence;
 
+import static org.opencast.annotation.impl.JsonStreamWriter.object;
 import static org.opencast.annotation.impl.Jsons.conc;
 import static org.opencast.annotation.impl.Jsons.jA;
 import static org.opencast.annotation.impl.Jsons.jO;
 import static org.opencast.annotation.impl.Jsons.p;
+import static org.opencast.annotation.impl.persistence.AbstractResourceDto.writeAll;
 import static org.opencastproject.util.data.Option.option;
 
 import org.opencast.annotation.api.ExtendedAnnotationService;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.api.Scale;
+import org.opencast.annotation.impl.JsonStreamWriter;
 import org.opencast.annotation.impl.ResourceImpl;
 import org.opencast.annotation.impl.ScaleImpl;
 
@@ -33,6 +36,9 @@ import org.opencastproject.util.data.Option;
 
 import org.json.simple.JSONObject;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.persistence.Column;
@@ -40,17 +46,23 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 /** JPA/JSON link to {@link Scale}. */
 @Entity(name = "Scale")
-@Table(name = "xannotations_scale")
+@Table(name = "xannotations_scale", indexes = {
+        @Index(name = "IX_xannotations_scale_video", columnList = "video_id, deleted_at") })
 @NamedQueries({
         @NamedQuery(name = "Scale.findById", query = "select a from Scale a where a.id = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "Scale.findByIdIncludeDeleted", query = "select a from Scale a where a.id = :id"),
         @NamedQuery(name = "Scale.findAllOfVideo", query = "select a from Scale a where a.videoId = :id"),
+        @NamedQuery(name = "Scale.deleteOfVideo", query = "update Scale a set a.deletedAt = :deletedAt, a.deletedBy = :deletedBy where a.videoId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Scale.findChangesOfVideo", query = "select a from Scale a where a.videoId = :id and (a.updatedAt > :since or a.deletedAt > :since)"),
+        @NamedQuery(name = "Scale.versionOfVideo", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Scale a where a.videoId = :id"),
+        @NamedQuery(name = "Scale.versionById", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Scale a where a.id = :id"),
         @NamedQuery(name = "Scale.clear", query = "delete from Scale") })
 public class ScaleDto extends AbstractResourceDto {
   @Id
@@ -97,12 +109,36 @@ public class ScaleDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, Scale, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService eas, Scale s) {
-      return conc(AbstractResourceDto.toJson.apply(eas, s),
-          jO(p("id", s.getId()), p("name", s.getName()), p("description", s.getDescription())));
+      return ScaleDto.toJson(new SerializationContext(eas), s);
     }
   };
 
+  public static JSONObject toJson(SerializationContext ctx, Scale s) {
+    return conc(AbstractResourceDto.toJson(ctx, s),
+        jO(p("id", s.getId()), p("name", s.getName()), p("description", s.getDescription())));
+  }
+
+  /** Write a scale, like {@link #toJson(SerializationContext, Scale)}. */
+  public static void writeJson(SerializationContext ctx, Scale s, JsonStreamWriter writer) throws IOException {
+    writer.beginObject();
+    AbstractResourceDto.writeFields(ctx, s, writer);
+    writer.field("id", s.getId()).field("name", s.getName()).field("description", s.getDescription());
+    writer.endObject(() -> toJson(ctx, s));
+  }
+
   public static JSONObject toJson(ExtendedAnnotationService eas, Stream<Scale> scales) {
-    return jO(p("scales", jA(scales.map(s -> toJson.apply(eas, s)).toArray())));
+    final List<Scale> scaleList = scales.collect(Collectors.toList());
+    final SerializationContext ctx = SerializationContext.of(eas, scaleList);
+    return jO(p("scales", jA(scaleList.stream().map(s -> toJson(ctx, s)).toArray())));
   }
+  /**
+   * Write scales like {@link #toJson(ExtendedAnnotationService, Stream)}, reading them from the stream while they
+   * are written. The stream is closed afterwards.
+   */
+  public static JsonStreamWriter.Value writeJson(ExtendedAnnotationService eas, Stream<Scale> scales) {
+    final SerializationContext ctx = new SerializationContext(eas);
+    return object("scales", writeAll(ctx, scales, (s, writer) -> writeJson(ctx, s, writer)));
+  }
+
+
 }
@@ -33,6 +33,8 @@ import org.opencastproject.util.data.Function2;
 
 import org.json.simple.JSONObject;
 
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.persistence.Column;
@@ -40,17 +42,24 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 /** JPA/JSON link to {@link ScaleValue}. */
 @Entity(name = "ScaleValue")
-@Table(name = "xannotations_scale_value")
+@Table(name = "xannotations_scale_value", indexes = {
+        @Index(name = "IX_xannotations_scale_value_scale", columnList = "scale_id, deleted_at") })
 @NamedQueries({
         @NamedQuery(name = "ScaleValue.findById", query = "select a from ScaleValue a where a.id = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "ScaleValue.findByIdIncludeDeleted", query = "select a from ScaleValue a where a.id = :id"),
         @NamedQuery(name = "ScaleValue.findAllOfScale", query = "select a from ScaleValue a where a.scaleId = :id"),
+        @NamedQuery(name = "ScaleValue.findAllOfVideo", query = "select a from ScaleValue a, Scale s where a.scaleId = s.id and s.videoId = :id"),
+        @NamedQuery(name = "ScaleValue.deleteOfScale", query = "update ScaleValue a set a.deletedAt = :deletedAt, a.deletedBy = :deletedBy where a.scaleId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "ScaleValue.deleteOfVideo", query = "update ScaleValue a set a.deletedAt = :deletedAt, a.deletedBy = :deletedBy where a.deletedAt IS NULL and a.scaleId in (select s.id from Scale s where s.videoId = :id and s.deletedAt IS NULL)"),
+        @NamedQuery(name = "ScaleValue.findChangesOfVideo", query = "select a from ScaleValue a, Scale s where a.scaleId = s.id and s.videoId = :id and (a.updatedAt > :since or a.deletedAt > :since)"),
+        @NamedQuery(name = "ScaleValue.versionOfScale", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from ScaleValue a where a.scaleId = :id"),
         @NamedQuery(name = "ScaleValue.clear", query = "delete from ScaleValue") })
 public class ScaleValueDto extends AbstractResourceDto {
   @Id
@@ -100,15 +109,26 @@ public class ScaleValueDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, ScaleValue, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService eas, ScaleValue s) {
-      Scale scale = eas.getScale(s.getScaleId(), true).get();
-
-      return conc(AbstractResourceDto.toJson.apply(eas, s),
-          jO(p("id", s.getId()), p("name", s.getName()), p("value", s.getValue()), p("order", s.getOrder()),
-              p("scale", ScaleDto.toJson.apply(eas, scale))));
+      return ScaleValueDto.toJson(new SerializationContext(eas), s);
     }
   };
 
+  public static JSONObject toJson(SerializationContext ctx, ScaleValue s) {
+    return toJson(ctx, s, ctx.getScale(s.getScaleId()).get());
+  }
+
+  /** Serialize a scale value whose scale has already been loaded. */
+  public static JSONObject toJson(SerializationContext ctx, ScaleValue s, Scale scale) {
+    return conc(AbstractResourceDto.toJson(ctx, s),
+        jO(p("id", s.getId()), p("name", s.getName()), p("value", s.getValue()), p("order", s.getOrder()),
+            p("scale", ScaleDto.toJson(ctx, scale))));
+  }
+
   public static JSONObject toJson(ExtendedAnnotationService s, Stream<ScaleValue> scaleValues) {
-    return jO(p("scaleValues", jA(scaleValues.map(sv -> toJson.apply(s, sv)).toArray())));
+    final List<ScaleValue> scaleValueList = scaleValues.collect(Collectors.toList());
+    final SerializationContext ctx = SerializationContext.of(s, scaleValueList);
+    ctx.preload(scaleValueList.stream().map(ScaleValue::getScaleId).distinct()
+            .map(id -> ctx.getScale(id).get()).collect(Collectors.toList()));
+    return jO(p("scaleValues", jA(scaleValueList.stream().map(sv -> toJson(ctx, sv)).toArray())));
   }
 }
@@ -0,0 +1,97 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.opencastproject.util.data.Option.option;
+
+import org.opencast.annotation.api.Category;
+import org.opencast.annotation.api.ExtendedAnnotationService;
+import org.opencast.annotation.api.Resource;
+import org.opencast.annotation.api.Scale;
+import org.opencast.annotation.api.User;
+
+import org.opencastproject.util.data.Option;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Remembers the entities referenced while serializing resources to JSON, most notably the users behind the
+ * created/updated/deleted-by properties. Preloading a result set resolves all of its users with a single query
+ * instead of several lookups per resource. A context is meant to live for the duration of one request only.
+ */
+public final class SerializationContext {
+  private final ExtendedAnnotationService eas;
+  private final Map<Long, Option<User>> users = new HashMap<>();
+  private final Map<Long, Option<Category>> categories = new HashMap<>();
+  private final Map<Long, Option<Scale>> scales = new HashMap<>();
+
+  public SerializationContext(ExtendedAnnotationService eas) {
+    this.eas = eas;
+  }
+
+  /** Create a context with the users referenced by the given resources already loaded. */
+  public static SerializationContext of(ExtendedAnnotationService eas, Collection<? extends Resource> resources) {
+    return new SerializationContext(eas).preload(resources);
+  }
+
+  public ExtendedAnnotationService getExtendedAnnotationService() {
+    return eas;
+  }
+
+  /** Load all users referenced by the given resources which are not known yet with one query. */
+  public SerializationContext preload(Collection<? extends Resource> resources) {
+    final Set<Long> ids = new HashSet<>();
+    for (Resource resource : resources) {
+      addUnknownUser(ids, resource.getCreatedBy());
+      addUnknownUser(ids, resource.getUpdatedBy());
+      addUnknownUser(ids, resource.getDeletedBy());
+    }
+    if (!ids.isEmpty()) {
+      final Map<Long, User> found = eas.getUsers(ids).collect(Collectors.toMap(User::getId, Function.identity()));
+      for (Long id : ids) {
+        users.put(id, option(found.get(id)));
+      }
+    }
+    return this;
+  }
+
+  private void addUnknownUser(Set<Long> ids, Option<Long> userId) {
+    if (userId.isSome() && !users.containsKey(userId.get())) {
+      ids.add(userId.get());
+    }
+  }
+
+  /** Get a user, falling back to a single lookup if it has not been preloaded. */
+  public Option<User> getUser(long id) {
+    return users.computeIfAbsent(id, eas::getUser);
+  }
+
+  /** Get a category, including deleted ones. */
+  public Option<Category> getCategory(long id) {
+    return categories.computeIfAbsent(id, categoryId -> eas.getCategory(categoryId, true));
+  }
+
+  /** Get a scale, including deleted ones. */
+  public Option<Scale> getScale(long id) {
+    return scales.computeIfAbsent(id, scaleId -> eas.getScale(scaleId, true));
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.opencast.annotation.api.ExtendedAnnotationService.ANNOTATE_ACTION;
+import static org.opencast.annotation.impl.Jsons.conc;
+import static org.opencast.annotation.impl.Jsons.jA;
+import static org.opencast.annotation.impl.Jsons.jO;
+import static org.opencast.annotation.impl.Jsons.p;
+import static org.opencast.annotation.impl.persistence.AbstractResourceDto.getDateAsUtc;
+
+import org.opencast.annotation.api.Annotation;
+import org.opencast.annotation.api.Category;
+import org.opencast.annotation.api.ExtendedAnnotationService;
+import org.opencast.annotation.api.Label;
+import org.opencast.annotation.api.Scale;
+import org.opencast.annotation.api.ScaleValue;
+import org.opencast.annotation.api.Track;
+import org.opencast.annotation.api.Video;
+
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.util.data.Option;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Exports the annotations of all videos of a series as newline delimited JSON: a <code>video</code> record for every
+ * video the current user may annotate, followed by <code>track</code> records for its tracks and an
+ * <code>annotation</code> record for every annotation, with the labels, categories and scales of its content resolved
+ * to their names. The records can be imported again, see
+ * {@link ExtendedAnnotationService#importRecords(Iterator)}.
+ * <p>
+ * The videos are exported one after the other, reading their annotations through a cursor and writing every record
+ * as soon as it is built. Content is resolved with one {@link ContentDictionary} for the whole series, which is
+ * filled with the definitions of each video before its annotations are read, so the memory needed grows with the
+ * number of labels but not with the number of annotations. Instances are meant to be used for one export only.
+ */
+public final class SeriesExport {
+  private final ExtendedAnnotationService eas;
+  private final String seriesExtId;
+  private final ContentDictionary dictionary;
+
+  public SeriesExport(ExtendedAnnotationService eas, String seriesExtId) {
+    this.eas = eas;
+    this.seriesExtId = seriesExtId;
+    this.dictionary = new ContentDictionary(eas);
+  }
+
+  /** Write the records of the series, flushing after every video. */
+  public void write(Writer out) throws IOException {
+    final List<Video> videos = eas.getVideosOfSeries(seriesExtId).filter(this::mayAnnotate)
+            .collect(Collectors.toList());
+    for (Video video : videos) {
+      dictionary.addVideo(video.getId());
+      write(out, jO(p("type", "video"), p("id", video.getId()), p("video_extid", video.getExtId()),
+              p("series_extid", seriesExtId)));
+      for (Track track : eas.getTracks(video.getId()).collect(Collectors.toList())) {
+        write(out, jO(p("type", "track"), p("id", track.getId()), p("video_id", video.getId()),
+                p("name", track.getName()), p("description", track.getDescription()),
+                p("access", track.getAccess())));
+      }
+      try (Stream<Annotation> annotations = eas.getAnnotationsOfVideo(video.getId())) {
+        final Iterator<Annotation> source = annotations.iterator();
+        while (source.hasNext()) {
+          write(out, toJson(video, source.next()));
+        }
+      }
+      out.flush();
+    }
+  }
+
+  /** Whether the current user may annotate a video, checked against its media package like every request on it is. */
+  private boolean mayAnnotate(Video video) {
+    final Option<MediaPackage> mediaPackage = eas.findMediaPackage(video.getExtId());
+    return mediaPackage.isSome() && eas.hasVideoAccess(mediaPackage.get(), ANNOTATE_ACTION);
+  }
+
+  private JSONObject toJson(Video video, Annotation annotation) {
+    return jO(p("type", "annotation"), p("id", annotation.getId()), p("video_id", video.getId()),
+            p("track_id", annotation.getTrackId()), p("start", annotation.getStart()),
+            p("duration", annotation.getDuration()), p("access", annotation.getAccess()),
+            p("created_at", annotation.getCreatedAt().map(getDateAsUtc)),
+            p("created_by", annotation.getCreatedBy()),
+            p("content", jA(dictionary.items(annotation.getContent()).stream().map(this::toJson).toArray())));
+  }
+
+  /** Resolve a content item to the names of the label, category, scale value and scale it references. */
+  private JSONObject toJson(Map<?, ?> item) {
+    final Object type = item.get("type");
+    if (!"label".equals(type) && !"scaling".equals(type)) {
+      return jO(p("type", type), p("value", item.get("value")));
+    }
+    JSONObject json = jO(p("type", type));
+    final Option<Label> label = dictionary.labelOf(item);
+    if (label.isSome()) {
+      final Option<Category> category = dictionary.getCategory(label.get().getCategoryId());
+      json = conc(json, jO(p("label_id", label.get().getId()), p("label", label.get().getValue()),
+              p("abbreviation", label.get().getAbbreviation()), p("category_id", label.get().getCategoryId()),
+              p("category", category.isSome() ? category.get().getName() : null)));
+    }
+    final Option<ScaleValue> scaleValue = dictionary.scaleValueOf(item);
+    if (scaleValue.isSome()) {
+      final Option<Scale> scale = dictionary.getScale(scaleValue.get().getScaleId());
+      json = conc(json, jO(p("scale_value_id", scaleValue.get().getId()), p("scale_value", scaleValue.get().getName()),
+              p("scale_value_value", scaleValue.get().getValue()), p("scale_id", scaleValue.get().getScaleId()),
+              p("scale", scale.isSome() ? scale.get().getName() : null)));
+    }
+    return json;
+  }
+
+  private static void write(Writer out, JSONObject record) throws IOException {
+    JSONValue.writeJSONString(record, out);
+    out.write('\n');
+  }
+}
@@ -0,0 +1,206 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Propagates series categories and their labels to the copies in the other videos of their series in the background,
+ * so that writing a series category does not have to wait for every video of its series.
+ * Series categories are propagated one at a time, in batches of videos with one transaction each. A series category
+ * which changes again while it is waiting to be propagated is propagated only once. Propagating a series category is
+ * idempotent, so a propagation that failed is simply started over, up to a maximum number of attempts.
+ * Propagations are not persisted. Ones failed for good or lost in a restart are caught up on by
+ * {@link ExtendedAnnotationServiceJpaImpl#copySeriesCategories(String, long)} when a video is opened.
+ */
+public final class SeriesPropagation {
+  private static final Logger logger = LoggerFactory.getLogger(SeriesPropagation.class);
+
+  /** The work of propagating a series category. */
+  interface Worker {
+    /** Get the videos a series category has to be propagated to, none if it is not a series category (anymore). */
+    List<Long> videosOf(long seriesCategoryId);
+
+    /** Propagate a series category to some videos of its series in one transaction. */
+    void propagate(long seriesCategoryId, List<Long> videoIds);
+  }
+
+  private final Worker worker;
+  private final int batchSize;
+  private final int attempts;
+  private final long retryDelay;
+  private final ScheduledExecutorService executor;
+  /** The series categories waiting to be propagated. Guarded by this. */
+  private final Set<Long> pending = new HashSet<>();
+  private Long running;
+  private long videosDone;
+  private long videosTotal;
+  private long completed;
+  private long failed;
+  private long retries;
+
+  /**
+   * @param worker
+   *          does the actual work
+   * @param batchSize
+   *          the number of videos propagated to in one transaction
+   * @param attempts
+   *          the maximum number of attempts to propagate a series category
+   * @param retryDelay
+   *          the milliseconds to wait before retrying a failed propagation
+   */
+  SeriesPropagation(Worker worker, int batchSize, int attempts, long retryDelay) {
+    if (batchSize < 1 || attempts < 1) {
+      throw new IllegalArgumentException("The batch size and the attempts must be positive: " + batchSize + ", "
+              + attempts);
+    }
+    this.worker = worker;
+    this.batchSize = batchSize;
+    this.attempts = attempts;
+    this.retryDelay = retryDelay;
+    this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "annotation-series-propagation");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /** Propagate a series category soon, unless it is already waiting to be propagated. */
+  public synchronized void schedule(long seriesCategoryId) {
+    if (pending.add(seriesCategoryId)) {
+      executor.execute(() -> run(seriesCategoryId, 1));
+    }
+  }
+
+  private void run(long seriesCategoryId, int attempt) {
+    synchronized (this) {
+      // Changes from now on need another propagation
+      pending.remove(seriesCategoryId);
+      running = seriesCategoryId;
+      videosDone = 0;
+      videosTotal = 0;
+    }
+    final long start = System.currentTimeMillis();
+    try {
+      final List<Long> videoIds = worker.videosOf(seriesCategoryId);
+      synchronized (this) {
+        videosTotal = videoIds.size();
+      }
+      for (int from = 0; from < videoIds.size(); from += batchSize) {
+        final List<Long> batch = videoIds.subList(from, Math.min(from + batchSize, videoIds.size()));
+        worker.propagate(seriesCategoryId, batch);
+        synchronized (this) {
+          videosDone += batch.size();
+        }
+        logger.debug("Propagated series category {} to {} of {} videos", seriesCategoryId, from + batch.size(),
+                videoIds.size());
+      }
+      logger.info("Propagated series category {} to {} videos in {} ms", seriesCategoryId, videoIds.size(),
+              System.currentTimeMillis() - start);
+      synchronized (this) {
+        completed++;
+      }
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        if (attempt < attempts) {
+          retries++;
+          logger.warn("Propagating series category {} failed in attempt {} of {}, retrying", seriesCategoryId,
+                  attempt, attempts, e);
+          // A change in the meantime is going to be propagated anyway
+          if (pending.add(seriesCategoryId)) {
+            executor.schedule(() -> run(seriesCategoryId, attempt + 1), retryDelay, TimeUnit.MILLISECONDS);
+          }
+        } else {
+          failed++;
+          logger.error("Propagating series category {} failed in all {} attempts", seriesCategoryId, attempts, e);
+        }
+      }
+    } finally {
+      synchronized (this) {
+        running = null;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Wait until no series category is being or waiting to be propagated anymore.
+   *
+   * @return whether that was the case before the timeout elapsed
+   */
+  public synchronized boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (running != null || !pending.isEmpty()) {
+      final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      if (remaining <= 0) {
+        return false;
+      }
+      wait(remaining);
+    }
+    return true;
+  }
+
+  /** Stop propagating. Series categories still waiting to be propagated are not. */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  public synchronized int getPending() {
+    return pending.size();
+  }
+
+  /** Whether a series category is being propagated right now. */
+  public synchronized boolean isRunning() {
+    return running != null;
+  }
+
+  /** The number of videos the running propagation has reached so far. */
+  public synchronized long getVideosDone() {
+    return videosDone;
+  }
+
+  /** The number of videos the running propagation has to reach. */
+  public synchronized long getVideosTotal() {
+    return videosTotal;
+  }
+
+  public synchronized long getCompleted() {
+    return completed;
+  }
+
+  public synchronized long getFailed() {
+    return failed;
+  }
+
+  public synchronized long getRetries() {
+    return retries;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "SeriesPropagation(pending=" + pending.size()
+            + (running != null ? ", running=" + running + " at " + videosDone + "/" + videosTotal + " videos" : "")
+            + ", completed=" + completed + ", failed=" + failed + ", retries=" + retries + ")";
+  }
+}
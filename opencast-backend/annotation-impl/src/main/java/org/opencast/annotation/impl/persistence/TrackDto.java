@@ -15,15 +15,18 @@
  */
 package org.opencast.annotation.impl.persistence;
 
+import static org.opencast.annotation.impl.JsonStreamWriter.object;
 import static org.opencast.annotation.impl.Jsons.conc;
 import static org.opencast.annotation.impl.Jsons.jA;
 import static org.opencast.annotation.impl.Jsons.jO;
 import static org.opencast.annotation.impl.Jsons.p;
+import static org.opencast.annotation.impl.persistence.AbstractResourceDto.writeAll;
 import static org.opencastproject.util.data.Option.option;
 
 import org.opencast.annotation.api.ExtendedAnnotationService;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.api.Track;
+import org.opencast.annotation.impl.JsonStreamWriter;
 import org.opencast.annotation.impl.ResourceImpl;
 import org.opencast.annotation.impl.TrackImpl;
 
@@ -33,6 +36,9 @@ import org.opencastproject.util.data.Option;
 
 import org.json.simple.JSONObject;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.persistence.Column;
@@ -40,16 +46,22 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 /** JPA/JSON link to {@link org.opencast.annotation.api.Track}. */
 @Entity(name = "Track")
-@Table(name = "xannotations_track")
+@Table(name = "xannotations_track", indexes = {
+        @Index(name = "IX_xannotations_track_video", columnList = "video_id, deleted_at") })
 @NamedQueries({
         @NamedQuery(name = "Track.findById", query = "select a from Track a where a.id = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "Track.findAllOfVideo", query = "select a from Track a where a.videoId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Track.deleteOfVideo", query = "update Track a set a.deletedAt = :deletedAt, a.deletedBy = :deletedBy where a.videoId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Track.findChangesOfVideo", query = "select a from Track a where a.videoId = :id and (a.updatedAt > :since or a.deletedAt > :since)"),
+        @NamedQuery(name = "Track.versionOfVideo", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Track a where a.videoId = :id"),
+        @NamedQuery(name = "Track.versionById", query = "select count(a), max(a.updatedAt), max(a.deletedAt) from Track a where a.id = :id"),
         @NamedQuery(name = "Track.clear", query = "delete from Track") })
 public class TrackDto extends AbstractResourceDto {
   @Id
@@ -103,12 +115,37 @@ public class TrackDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, Track, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService s, Track t) {
-      return conc(AbstractResourceDto.toJson.apply(s, t),
-          jO(p("id", t.getId()), p("name", t.getName()), p("description", t.getDescription()), p("settings", t.getSettings())));
+      return TrackDto.toJson(new SerializationContext(s), t);
     }
   };
 
+  public static JSONObject toJson(SerializationContext ctx, Track t) {
+    return conc(AbstractResourceDto.toJson(ctx, t),
+        jO(p("id", t.getId()), p("name", t.getName()), p("description", t.getDescription()), p("settings", t.getSettings())));
+  }
+
+  /** Write a track, like {@link #toJson(SerializationContext, Track)}. */
+  public static void writeJson(SerializationContext ctx, Track t, JsonStreamWriter writer) throws IOException {
+    writer.beginObject();
+    AbstractResourceDto.writeFields(ctx, t, writer);
+    writer.field("id", t.getId()).field("name", t.getName()).field("description", t.getDescription())
+            .field("settings", t.getSettings());
+    writer.endObject(() -> toJson(ctx, t));
+  }
+
   public static JSONObject toJson(ExtendedAnnotationService eas, Stream<Track> ts) {
-    return jO(p("tracks", jA(ts.map(t -> toJson.apply(eas, t)).toArray())));
+    final List<Track> tracks = ts.collect(Collectors.toList());
+    final SerializationContext ctx = SerializationContext.of(eas, tracks);
+    return jO(p("tracks", jA(tracks.stream().map(t -> toJson(ctx, t)).toArray())));
   }
+  /**
+   * Write tracks like {@link #toJson(ExtendedAnnotationService, Stream)}, reading them from the stream while they
+   * are written. The stream is closed afterwards.
+   */
+  public static JsonStreamWriter.Value writeJson(ExtendedAnnotationService eas, Stream<Track> ts) {
+    final SerializationContext ctx = new SerializationContext(eas);
+    return object("tracks", writeAll(ctx, ts, (t, writer) -> writeJson(ctx, t, writer)));
+  }
+
+
 }
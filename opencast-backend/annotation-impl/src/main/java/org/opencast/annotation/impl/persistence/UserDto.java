@@ -46,6 +46,7 @@ import javax.persistence.Table;
 @Table(name = "xannotations_user")
 @NamedQueries({
         @NamedQuery(name = "User.findById", query = "select a from User a where a.id = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "User.findByIds", query = "select a from User a where a.id in :ids and a.deletedAt IS NULL"),
         @NamedQuery(name = "User.findByUserId", query = "select a from User a where a.userId = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "User.clear", query = "delete from User") })
 public class UserDto extends AbstractResourceDto {
@@ -90,8 +91,12 @@ public class UserDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, User, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService s, User u) {
-      return conc(AbstractResourceDto.toJson.apply(s, u),
-          jO(p("id", u.getId()), p("user_extid", u.getExtId()), p("nickname", u.getNickname()), p("email", u.getEmail())));
+      return UserDto.toJson(new SerializationContext(s), u);
     }
   };
+
+  public static JSONObject toJson(SerializationContext ctx, User u) {
+    return conc(AbstractResourceDto.toJson(ctx, u),
+        jO(p("id", u.getId()), p("user_extid", u.getExtId()), p("nickname", u.getNickname()), p("email", u.getEmail())));
+  }
 }
@@ -46,6 +46,7 @@ import javax.persistence.Table;
 @NamedQueries({
         @NamedQuery(name = "Video.findById", query = "select a from Video a where a.id = :id and a.deletedAt IS NULL"),
         @NamedQuery(name = "Video.findByExtId", query = "select a from Video a where a.extId = :id and a.deletedAt IS NULL"),
+        @NamedQuery(name = "Video.findAllOfExtSeries", query = "select a from Video a where a.deletedAt IS NULL and a.id in (select c.videoId from Category c where c.seriesExtId = :id and c.deletedAt IS NULL) order by a.id"),
         @NamedQuery(name = "Video.clear", query = "delete from Video") })
 public final class VideoDto extends AbstractResourceDto {
 
@@ -82,7 +83,11 @@ public final class VideoDto extends AbstractResourceDto {
   public static final Function2<ExtendedAnnotationService, Video, JSONObject> toJson = new Function2<>() {
     @Override
     public JSONObject apply(ExtendedAnnotationService s, Video v) {
-      return conc(AbstractResourceDto.toJson.apply(s, v), jO(p("id", v.getId()), p("video_extid", v.getExtId())));
+      return VideoDto.toJson(new SerializationContext(s), v);
     }
   };
+
+  public static JSONObject toJson(SerializationContext ctx, Video v) {
+    return conc(AbstractResourceDto.toJson(ctx, v), jO(p("id", v.getId()), p("video_extid", v.getExtId())));
+  }
 }
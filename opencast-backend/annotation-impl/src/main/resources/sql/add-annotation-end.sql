@@ -0,0 +1,8 @@
+-- Adds the end time of annotations, which is used to query the annotations overlapping a time window,
+-- to an existing database and fills it in for the annotations already stored.
+-- New installations get the column when the tables are created, so this is only needed when upgrading.
+-- The script can safely be run more than once. It works with MariaDB and PostgreSQL.
+
+ALTER TABLE xannotations_annotation ADD COLUMN IF NOT EXISTS end_time DOUBLE PRECISION;
+UPDATE xannotations_annotation SET end_time = start + COALESCE(duration, 0) WHERE end_time IS NULL;
+CREATE INDEX IF NOT EXISTS IX_xannotations_annotation_track_end ON xannotations_annotation (track_id, deleted_at, end_time);
@@ -0,0 +1,8 @@
+-- Adds the content hash of categories, which links categories of a video to equal series categories,
+-- to an existing database. Categories stored before get their hash when the annotation tool starts,
+-- before any category can be linked.
+-- New installations get the column when the tables are created, so this is only needed when upgrading.
+-- The script can safely be run more than once. It works with MariaDB and PostgreSQL.
+
+ALTER TABLE xannotations_category ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+CREATE INDEX IF NOT EXISTS IX_xannotations_category_series_content ON xannotations_category (series_extid, content_hash);
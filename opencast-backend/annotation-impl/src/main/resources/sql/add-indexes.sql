@@ -0,0 +1,16 @@
+-- Adds the indexes declared on the annotation tool's tables to an existing database.
+-- New installations get them when the tables are created, so this is only needed when upgrading.
+-- The script can safely be run more than once. It works with MariaDB and PostgreSQL.
+-- Run it after the upgraded tool has been started once, which creates the questionnaire table if it is missing.
+
+CREATE INDEX IF NOT EXISTS IX_xannotations_annotation_track ON xannotations_annotation (track_id, deleted_at, start);
+CREATE INDEX IF NOT EXISTS IX_xannotations_track_video ON xannotations_track (video_id, deleted_at);
+CREATE INDEX IF NOT EXISTS IX_xannotations_category_video ON xannotations_category (video_id, deleted_at);
+CREATE INDEX IF NOT EXISTS IX_xannotations_category_series ON xannotations_category (series_extid, deleted_at);
+CREATE INDEX IF NOT EXISTS IX_xannotations_category_series_category ON xannotations_category (series_category_id, deleted_at);
+CREATE INDEX IF NOT EXISTS IX_xannotations_label_category ON xannotations_label (category_id, deleted_at);
+CREATE INDEX IF NOT EXISTS IX_xannotations_comment_annotation ON xannotations_comment (annotation_id, deleted_at, reply_to_id);
+CREATE INDEX IF NOT EXISTS IX_xannotations_comment_reply_to ON xannotations_comment (reply_to_id, deleted_at);
+CREATE INDEX IF NOT EXISTS IX_xannotations_scale_video ON xannotations_scale (video_id, deleted_at);
+CREATE INDEX IF NOT EXISTS IX_xannotations_scale_value_scale ON xannotations_scale_value (scale_id, deleted_at);
+CREATE INDEX IF NOT EXISTS IX_xannotations_questionnaire_video ON xannotations_questionnaire (video_id, deleted_at);
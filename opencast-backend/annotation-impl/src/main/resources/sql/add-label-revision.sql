@@ -0,0 +1,5 @@
+-- Adds the revision of labels, which tells whether the copy of a series label is up to date, to an existing database.
+-- New installations get the column when the tables are created, so this is only needed when upgrading.
+-- The script can safely be run more than once. It works with MariaDB and PostgreSQL.
+
+ALTER TABLE xannotations_label ADD COLUMN IF NOT EXISTS revision BIGINT NOT NULL DEFAULT 0;
@@ -20,7 +20,9 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.iterableWithSize;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.opencast.annotation.Annotations.scalingAnnotation;
 import static org.opencast.annotation.Annotations.textAnnotation;
 import static org.opencast.annotation.endpoint.ExtendedAnnotationsRestServiceTest.RegexMatcher.regex;
@@ -32,17 +34,24 @@ import org.opencast.annotation.api.Annotation;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.impl.AnnotationImpl;
 import org.opencast.annotation.impl.ResourceImpl;
+import org.opencast.annotation.impl.persistence.AnnotationExport;
+import org.opencast.annotation.impl.persistence.ExtendedAnnotationServiceJpaImpl;
 
 import org.opencastproject.test.rest.RestServiceTestEnv;
+import org.opencastproject.util.data.Function0;
 
 import io.restassured.http.ContentType;
 
 import org.hamcrest.Description;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.regex.Pattern;
@@ -52,10 +61,12 @@ import javax.ws.rs.core.Response;
 public class ExtendedAnnotationsRestServiceTest {
 
   private static final int BAD_REQUEST = Response.Status.BAD_REQUEST.getStatusCode();
+  private static final int PAYLOAD_TOO_LARGE = Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode();
   private static final int OK = Response.Status.OK.getStatusCode();
   private static final int CREATED = Response.Status.CREATED.getStatusCode();
   private static final int NOT_FOUND = Response.Status.NOT_FOUND.getStatusCode();
   private static final int NO_CONTENT = Response.Status.NO_CONTENT.getStatusCode();
+  private static final int NOT_MODIFIED = Response.Status.NOT_MODIFIED.getStatusCode();
   private static final int CONFLICT = Response.Status.CONFLICT.getStatusCode();
   private static final String LOCATION = "Location";
 
@@ -213,6 +224,12 @@ public class ExtendedAnnotationsRestServiceTest {
     given().pathParam("videoId", videoId).pathParam("trackId", trackId).expect().statusCode(OK)
             .body("annotations", iterableWithSize(2)).when()
             .get(host("/videos/{videoId}/tracks/{trackId}/annotations"));
+    // get/all annotations of the video grouped by track
+    given().pathParam("videoId", videoId).expect().statusCode(OK)
+            .body("tracks", iterableWithSize(1)).body("tracks[0].id", equalTo(Integer.parseInt(trackId)))
+            .body("tracks[0].annotations", iterableWithSize(2)).when()
+            .get(host("/videos/{videoId}/annotations"));
+    given().expect().statusCode(NOT_FOUND).when().get(host("/videos/12345/annotations"));
     // delete
     given().pathParam("videoId", 12345).pathParam("trackId", 12345).pathParam("id", 12345).expect()
             .statusCode(BAD_REQUEST).when().delete(host("/videos/{videoId}/tracks/{trackId}/annotations/{id}"));
@@ -228,6 +245,43 @@ public class ExtendedAnnotationsRestServiceTest {
             .statusCode(NOT_FOUND).when().get(host("/videos/{videoId}/tracks/{trackId}/annotations/{id}"));
   }
 
+  @Test
+  public void testAnnotationBatch() {
+    given().formParam("user_extid", "admin").formParam("nickname", "klausi").expect().when().put(host("/users"));
+    final String videoId = extractLocationId(given().formParam("video_extid", "lecture").expect().statusCode(CREATED)
+            .when().post(host("/videos")));
+    final String trackId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "track")
+            .expect().statusCode(CREATED).when().post(host("/videos/{videoId}/tracks")));
+    final String batch = "[{\"start\": 10, \"duration\": 2.5, \"content\": " + JSONValue.toJSONString(textAnnotation("first"))
+            + "}, {\"start\": 20, \"content\": " + textAnnotation("second") + ", \"settings\": {\"type\": \"test\"}}]";
+    // post/malformed
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId).contentType(ContentType.JSON)
+            .body("[{\"duration\": 2}]").expect().statusCode(BAD_REQUEST).when()
+            .post(host("/videos/{videoId}/tracks/{trackId}/annotations/batch"));
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId).contentType(ContentType.JSON)
+            .body("{\"start\": 2}").expect().statusCode(BAD_REQUEST).when()
+            .post(host("/videos/{videoId}/tracks/{trackId}/annotations/batch"));
+    // post/track does not exist
+    given().pathParam("videoId", videoId).contentType(ContentType.JSON).body(batch).expect().statusCode(NOT_FOUND)
+            .when().post(host("/videos/{videoId}/tracks/12345/annotations/batch"));
+    // post
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId).contentType(ContentType.JSON).body(batch)
+            .expect().statusCode(CREATED).body("ids", iterableWithSize(2)).when()
+            .post(host("/videos/{videoId}/tracks/{trackId}/annotations/batch"));
+    // post/more than may be created at once
+    final String tooLarge = "[" + String.join(",", Collections.nCopies(
+            ExtendedAnnotationServiceJpaImpl.DEFAULT_ANNOTATIONS_BATCH_MAX + 1, "{\"start\": 1}")) + "]";
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId).contentType(ContentType.JSON)
+            .body(tooLarge).expect().statusCode(PAYLOAD_TOO_LARGE).when()
+            .post(host("/videos/{videoId}/tracks/{trackId}/annotations/batch"));
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId).expect().statusCode(OK)
+            .body("annotations", iterableWithSize(2))
+            .body("annotations.find { it.start == 10 }.content", equalTo(textAnnotation("first")))
+            .body("annotations.find { it.start == 20 }.content", equalTo(textAnnotation("second")))
+            .body("annotations.find { it.start == 20 }.settings", equalTo("{\"type\":\"test\"}"))
+            .when().get(host("/videos/{videoId}/tracks/{trackId}/annotations"));
+  }
+
   @Test
   public void testCategory() {
     // create user and video
@@ -399,6 +453,250 @@ public class ExtendedAnnotationsRestServiceTest {
             .statusCode(OK).when().delete(host("/videos/{videoId}/categories/{categoryId}/labels/{labelId}"));
   }
 
+  @Test
+  public void testSnapshot() {
+    given().formParam("user_extid", "admin").formParam("nickname", "klausi").expect().when().put(host("/users"));
+    final String videoId = extractLocationId(given().formParam("video_extid", "lecture").expect().statusCode(CREATED)
+            .when().post(host("/videos")));
+    final String scaleId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "scaleName")
+            .expect().statusCode(CREATED).when().post(host("/videos/{videoId}/scales")));
+    given().pathParam("videoId", videoId).pathParam("scaleId", scaleId).formParam("name", "scaleValueName").expect()
+            .statusCode(CREATED).when().post(host("/videos/{videoId}/scales/{scaleId}/scalevalues"));
+    final String categoryId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "categoryName")
+            .expect().statusCode(CREATED).when().post(host("/videos/{videoId}/categories")));
+    given().pathParam("videoId", videoId).pathParam("categoryId", categoryId).formParam("value", "testValue")
+            .formParam("abbreviation", "testAbbreviation").expect().statusCode(CREATED).when()
+            .post(host("/videos/{videoId}/categories/{categoryId}/labels"));
+    final String trackId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "track")
+            .expect().statusCode(CREATED).when().post(host("/videos/{videoId}/tracks")));
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId).formParam("content", textAnnotation("nice"))
+            .formParam("start", 50).expect().statusCode(CREATED).when()
+            .post(host("/videos/{videoId}/tracks/{trackId}/annotations"));
+    // get
+    given().pathParam("videoId", videoId).expect().statusCode(OK)
+            .body("video_extid", equalTo("lecture"))
+            .body("categories", iterableWithSize(1)).body("categories[0].labels", iterableWithSize(1))
+            .body("categories[0].labels[0].abbreviation", equalTo("testAbbreviation"))
+            .body("scales", iterableWithSize(1)).body("scales[0].scaleValues", iterableWithSize(1))
+            .body("tracks", iterableWithSize(1)).body("tracks[0].annotations", iterableWithSize(1))
+            .body("tracks[0].annotations[0].content", equalTo(textAnnotation("nice")))
+            .body("questionnaires", iterableWithSize(0))
+            .when().get(host("/videos/{videoId}/snapshot"));
+    given().expect().statusCode(NOT_FOUND).when().get(host("/videos/12345/snapshot"));
+  }
+
+  @Test
+  public void testExport() {
+    given().formParam("user_extid", "admin").formParam("nickname", "klausi").expect().when().put(host("/users"));
+    final String videoId = extractLocationId(given().formParam("video_extid", "lecture").expect().statusCode(CREATED)
+            .when().post(host("/videos")));
+    final String scaleId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "scaleName")
+            .expect().statusCode(CREATED).when().post(host("/videos/{videoId}/scales")));
+    final String scaleValueId = extractLocationId(given().pathParam("videoId", videoId).pathParam("scaleId", scaleId)
+            .formParam("name", "scaleValueName").formParam("value", 2).expect().statusCode(CREATED).when()
+            .post(host("/videos/{videoId}/scales/{scaleId}/scalevalues")));
+    final String categoryId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "categoryName")
+            .formParam("scale_id", scaleId).expect().statusCode(CREATED).when()
+            .post(host("/videos/{videoId}/categories")));
+    final String labelId = extractLocationId(given().pathParam("videoId", videoId).pathParam("categoryId", categoryId)
+            .formParam("value", "testValue").formParam("abbreviation", "testAbbreviation").expect().statusCode(CREATED)
+            .when().post(host("/videos/{videoId}/categories/{categoryId}/labels")));
+    final String trackId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "track")
+            .expect().statusCode(CREATED).when().post(host("/videos/{videoId}/tracks")));
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId)
+            .formParam("content", scalingAnnotation(Long.parseLong(labelId), Long.parseLong(scaleValueId)))
+            .formParam("start", 65).formParam("duration", 10).expect().statusCode(CREATED).when()
+            .post(host("/videos/{videoId}/tracks/{trackId}/annotations"));
+    final String annotationId = extractLocationId(given().pathParam("videoId", videoId).pathParam("trackId", trackId)
+            .formParam("content", textAnnotation("nice, isn't it")).formParam("start", 5).expect().statusCode(CREATED)
+            .when().post(host("/videos/{videoId}/tracks/{trackId}/annotations")));
+    final String commentId = extractLocationId(given().pathParam("videoId", videoId).pathParam("trackId", trackId)
+            .pathParam("annotationId", annotationId).formParam("text", "New comment").expect().statusCode(CREATED)
+            .when().post(host("/videos/{videoId}/tracks/{trackId}/annotations/{annotationId}/comments")));
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId).pathParam("annotationId", annotationId)
+            .pathParam("commentId", commentId).formParam("text", "New reply").expect().statusCode(CREATED).when()
+            .post(host("/videos/{videoId}/tracks/{trackId}/annotations/{annotationId}/comments/{commentId}/replies"));
+
+    // everything, ordered by start, every annotation followed by its comments and their replies
+    final String[] rows = given().pathParam("videoId", videoId).expect().statusCode(OK)
+            .header("Content-Disposition", equalTo("attachment; filename=export.csv")).when()
+            .get(host("/videos/{videoId}/export.csv")).asString().split("\r\n");
+    assertEquals(5, rows.length);
+    assertEquals(String.join(",", AnnotationExport.HEADER), rows[0]);
+    assertTrue(rows[1].startsWith(annotationId + ","));
+    assertTrue(rows[1].endsWith(",klausi,,track,0:00:05,0:00:05,0:00:00,\"nice, isn't it\",,,,,,,,,,,,,,content"));
+    assertTrue(rows[2].contains(",0:00:00,,,,,,,," + commentId + ","));
+    assertTrue(rows[2].endsWith(",klausi,,New comment,,comment"));
+    assertTrue(rows[3].endsWith(",klausi,,New reply," + commentId + ",comment"));
+    assertTrue(rows[4].endsWith(",track,0:01:05,0:01:15,0:00:10,testAbbreviation (scaleValueName),categoryName,"
+            + "testValue,testAbbreviation,scaleName,scaleValueName,2,,,,,,,,content-scale"));
+    // only labels of the category
+    assertEquals(2, given().pathParam("videoId", videoId).queryParam("tracks", trackId)
+            .queryParam("categories", categoryId).queryParam("freetext", false).expect().statusCode(OK).when()
+            .get(host("/videos/{videoId}/export.csv")).asString().split("\r\n").length);
+    // nothing but the header
+    assertEquals(1, given().pathParam("videoId", videoId).queryParam("categories", "").queryParam("freetext", false)
+            .expect().statusCode(OK).when().get(host("/videos/{videoId}/export.csv")).asString()
+            .split("\r\n").length);
+    given().pathParam("videoId", videoId).queryParam("tracks", "one").expect().statusCode(BAD_REQUEST).when()
+            .get(host("/videos/{videoId}/export.csv"));
+    given().pathParam("videoId", videoId).expect().statusCode(OK)
+            .header("Content-Disposition", equalTo("attachment; filename=export.xlsx")).when()
+            .get(host("/videos/{videoId}/export.xlsx"));
+    given().expect().statusCode(NOT_FOUND).when().get(host("/videos/12345/export.csv"));
+  }
+
+  @Test
+  public void testSeriesExport() {
+    given().formParam("user_extid", "admin").formParam("nickname", "klausi").expect().when().put(host("/users"));
+    final String videoId = extractLocationId(given().formParam("video_extid", "lecture").expect().statusCode(CREATED)
+            .when().post(host("/videos")));
+    final String scaleId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "scaleName")
+            .expect().statusCode(CREATED).when().post(host("/videos/{videoId}/scales")));
+    final String scaleValueId = extractLocationId(given().pathParam("videoId", videoId).pathParam("scaleId", scaleId)
+            .formParam("name", "scaleValueName").formParam("value", 2).expect().statusCode(CREATED).when()
+            .post(host("/videos/{videoId}/scales/{scaleId}/scalevalues")));
+    final String categoryId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "categoryName")
+            .formParam("series_extid", "course").formParam("scale_id", scaleId).expect().statusCode(CREATED).when()
+            .post(host("/videos/{videoId}/categories")));
+    final String labelId = extractLocationId(given().pathParam("videoId", videoId).pathParam("categoryId", categoryId)
+            .formParam("value", "testValue").formParam("abbreviation", "testAbbreviation").expect().statusCode(CREATED)
+            .when().post(host("/videos/{videoId}/categories/{categoryId}/labels")));
+    final String trackId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "track")
+            .expect().statusCode(CREATED).when().post(host("/videos/{videoId}/tracks")));
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId)
+            .formParam("content", scalingAnnotation(Long.parseLong(labelId), Long.parseLong(scaleValueId)))
+            .formParam("start", 65).expect().statusCode(CREATED).when()
+            .post(host("/videos/{videoId}/tracks/{trackId}/annotations"));
+
+    final String[] records = given().expect().statusCode(OK).when().get(host("/series/course/export.ndjson"))
+            .asString().split("\n");
+    assertEquals(3, records.length);
+    final JSONObject video = (JSONObject) JSONValue.parse(records[0]);
+    assertEquals("video", video.get("type"));
+    assertEquals("lecture", video.get("video_extid"));
+    final JSONObject track = (JSONObject) JSONValue.parse(records[1]);
+    assertEquals("track", track.get("type"));
+    assertEquals(Long.parseLong(videoId), track.get("video_id"));
+    final JSONObject annotation = (JSONObject) JSONValue.parse(records[2]);
+    assertEquals("annotation", annotation.get("type"));
+    assertEquals(Long.parseLong(trackId), annotation.get("track_id"));
+    final JSONObject content = (JSONObject) ((JSONArray) annotation.get("content")).get(0);
+    assertEquals("scaling", content.get("type"));
+    assertEquals("testValue", content.get("label"));
+    assertEquals("categoryName", content.get("category"));
+    assertEquals("scaleValueName", content.get("scale_value"));
+    assertEquals("scaleName", content.get("scale"));
+    // the export can be imported again, creating the labels and scales its content names
+    given().body(String.join("\n", records)).contentType("application/x-ndjson").expect().statusCode(OK)
+            .body("records", equalTo(7)).body("imported.annotation", equalTo(1))
+            .body("imported.category", equalTo(1)).body("imported.label", equalTo(1))
+            .body("imported.scale", equalTo(1)).body("imported.scale_value", equalTo(1)).when().post(host("/import"));
+    // a series without videos
+    assertEquals("", given().expect().statusCode(OK).when().get(host("/series/unknown/export.ndjson")).asString());
+  }
+
+  @Test
+  public void testImport() {
+    final String records = String.join("\n",
+            "{\"type\":\"user\",\"id\":100,\"user_extid\":\"importer\",\"nickname\":\"importer\"}",
+            "{\"type\":\"video\",\"id\":100,\"video_extid\":\"imported\",\"created_by\":100}",
+            "{\"type\":\"scale\",\"id\":100,\"video_id\":100,\"name\":\"scaleName\"}",
+            "{\"type\":\"scale_value\",\"id\":100,\"scale_id\":100,\"name\":\"good\",\"value\":2,\"order\":0}",
+            "{\"type\":\"category\",\"id\":100,\"video_id\":100,\"scale_id\":100,\"name\":\"categoryName\","
+                    + "\"series_extid\":\"course\",\"series_category_id\":100}",
+            "{\"type\":\"label\",\"id\":100,\"category_id\":100,\"value\":\"labelValue\",\"abbreviation\":\"LV\"}",
+            "",
+            "{\"type\":\"track\",\"id\":100,\"video_id\":100,\"name\":\"track\"}",
+            "{\"type\":\"annotation\",\"id\":100,\"track_id\":100,\"start\":5,"
+                    + "\"content\":[{\"type\":\"scaling\",\"value\":{\"label\":100,\"scaling\":100}}]}",
+            "{\"type\":\"comment\",\"id\":100,\"annotation_id\":100,\"text\":\"imported comment\"}");
+    given().body(records).contentType("application/x-ndjson").expect().statusCode(OK)
+            .body("records", equalTo(9)).body("imported.annotation", equalTo(1)).when().post(host("/import"));
+
+    final String videoId = extractLocationId(given().formParam("video_extid", "imported").expect().statusCode(OK)
+            .when().put(host("/videos")));
+    final JSONObject category = (JSONObject) ((JSONArray) ((JSONObject) JSONValue.parse(given()
+            .pathParam("videoId", videoId).expect().statusCode(OK).when().get(host("/videos/{videoId}/categories"))
+            .asString())).get("categories")).get(0);
+    assertEquals(category.get("id"), category.get("series_category_id"));
+    final String labelId = given().pathParam("videoId", videoId).pathParam("categoryId", category.get("id")).expect()
+            .statusCode(OK).body("labels", iterableWithSize(1)).when()
+            .get(host("/videos/{videoId}/categories/{categoryId}/labels")).path("labels[0].id").toString();
+    final String trackId = given().pathParam("videoId", videoId).expect().statusCode(OK)
+            .body("tracks", iterableWithSize(1)).when().get(host("/videos/{videoId}/tracks"))
+            .path("tracks[0].id").toString();
+    final String content = given().pathParam("videoId", videoId).pathParam("trackId", trackId).expect()
+            .statusCode(OK).body("annotations", iterableWithSize(1)).when()
+            .get(host("/videos/{videoId}/tracks/{trackId}/annotations")).path("annotations[0].content");
+    final JSONObject value = (JSONObject) ((JSONObject) ((JSONArray) JSONValue.parse(content)).get(0)).get("value");
+    assertEquals(Long.parseLong(labelId), value.get("label"));
+    assertNotEquals(100L, value.get("label"));
+
+    // a reference to a record that has not been imported
+    given().body("{\"type\":\"track\",\"id\":1,\"video_id\":4711,\"name\":\"track\"}")
+            .contentType("application/x-ndjson").expect().statusCode(BAD_REQUEST).when().post(host("/import"));
+    given().body("no json").contentType("application/x-ndjson").expect().statusCode(BAD_REQUEST).when()
+            .post(host("/import"));
+  }
+
+  @Test
+  public void testBadRequestEndsRequest() {
+    final ExtendedAnnotationServiceJpaImpl eas = TestRestService.extendedAnnotationService;
+    final TestRestService service = new TestRestService();
+    eas.createResource();
+    assertTrue(eas.hasPrincipal());
+    final Response missingParam = service.run(new Object[] { null }, new Function0<>() {
+      @Override
+      public Response apply() {
+        throw new AssertionError("run without its mandatory parameter");
+      }
+    });
+    assertEquals(BAD_REQUEST, missingParam.getStatus());
+    assertFalse(eas.hasPrincipal());
+
+    // a handler refusing a missing video before looking at anything else
+    final VideoEndpoint video = new VideoEndpoint(4711, service, eas);
+    eas.createResource();
+    assertEquals(BAD_REQUEST, video.getScale(1).getStatus());
+    assertFalse(eas.hasPrincipal());
+  }
+
+  @Test
+  public void testStatistics() {
+    given().expect().statusCode(OK).body("series_propagation.failed", equalTo(0))
+            .body("media_package_cache.evictions", equalTo(0)).body("entity_cache.expirations", equalTo(0)).when()
+            .get(host("/statistics"));
+    given().pathParam("mpId", "lecture").expect().statusCode(NO_CONTENT).when()
+            .delete(host("/media-packages/{mpId}/cache"));
+  }
+
+  @Test
+  public void testConditionalGet() {
+    given().formParam("user_extid", "admin").formParam("nickname", "klausi").expect().when().put(host("/users"));
+    final String videoId = extractLocationId(given().formParam("video_extid", "lecture").expect().statusCode(CREATED)
+            .when().post(host("/videos")));
+    final String trackId = extractLocationId(given().pathParam("videoId", videoId).formParam("name", "track")
+            .expect().statusCode(CREATED).when().post(host("/videos/{videoId}/tracks")));
+    final String etag = given().pathParam("videoId", videoId).expect().statusCode(OK)
+            .body("tracks", iterableWithSize(1)).when().get(host("/videos/{videoId}/tracks")).header("ETag");
+    // unchanged
+    given().pathParam("videoId", videoId).header("If-None-Match", etag).expect().statusCode(NOT_MODIFIED)
+            .header("ETag", equalTo(etag)).when().get(host("/videos/{videoId}/tracks"));
+    // updated
+    given().pathParam("videoId", videoId).pathParam("trackId", trackId).formParam("name", "track2").expect()
+            .statusCode(OK).when().put(host("/videos/{videoId}/tracks/{trackId}"));
+    final String updated = given().pathParam("videoId", videoId).header("If-None-Match", etag).expect()
+            .statusCode(OK).body("tracks[0].name", equalTo("track2")).when().get(host("/videos/{videoId}/tracks"))
+            .header("ETag");
+    assertNotEquals(etag, updated);
+    // deleted
+    given().pathParam("videoId", videoId).pathParam("id", trackId).expect().statusCode(NO_CONTENT).when()
+            .delete(host("/videos/{videoId}/tracks/{id}"));
+    given().pathParam("videoId", videoId).header("If-None-Match", updated).expect().statusCode(OK)
+            .body("tracks", iterableWithSize(0)).when().get(host("/videos/{videoId}/tracks"));
+  }
+
   @Test
   public void testComment() {
     // create user, video and scale
@@ -34,6 +34,8 @@ import org.opencastproject.util.NotFoundException;
 import org.easymock.EasyMock;
 import org.junit.Ignore;
 
+import java.util.Map;
+
 import javax.ws.rs.DELETE;
 import javax.ws.rs.Path;
 import javax.ws.rs.core.Response;
@@ -53,7 +55,8 @@ public class TestRestService extends AbstractExtendedAnnotationsRestService {
     extendedAnnotationService.setEntityManagerFactory(
             newEntityManagerFactory("org.opencast.annotation.impl.persistence"));
     extendedAnnotationService.setDBSessionFactory(getDbSessionFactory());
-    extendedAnnotationService.activate();
+    // Do not wait for commits, so that lists can be revalidated right after they changed
+    extendedAnnotationService.activate(Map.of(ExtendedAnnotationServiceJpaImpl.COMMIT_LAG_KEY, "0"));
   }
 
   @Override
@@ -17,6 +17,7 @@ package org.opencast.annotation.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.opencast.annotation.Annotations.textAnnotation;
@@ -27,11 +28,16 @@ import static org.opencastproject.util.data.Option.some;
 
 import org.opencast.annotation.api.Annotation;
 import org.opencast.annotation.api.Category;
+import org.opencast.annotation.api.ChangeEvent;
+import org.opencast.annotation.api.ChangeSubscription;
+import org.opencast.annotation.api.Changes;
+import org.opencast.annotation.api.CollectionVersion;
 import org.opencast.annotation.api.Comment;
 import org.opencast.annotation.api.ExtendedAnnotationException;
 import org.opencast.annotation.api.ExtendedAnnotationException.Cause;
 import org.opencast.annotation.api.ExtendedAnnotationService;
 import org.opencast.annotation.api.Label;
+import org.opencast.annotation.api.Page;
 import org.opencast.annotation.api.Resource;
 import org.opencast.annotation.api.Scale;
 import org.opencast.annotation.api.ScaleValue;
@@ -51,8 +57,17 @@ import org.opencastproject.util.data.Option;
 import org.easymock.EasyMock;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
 public class ExtendedAnnotationServiceJpaImplTest {
 
@@ -122,6 +137,60 @@ public class ExtendedAnnotationServiceJpaImplTest {
     assertTrue(eas.getUser(u.getId()).isNone());
   }
 
+  @Test
+  public void testResourcesStampedWithCurrentUser() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    // the current Opencast user has no annotation tool user yet
+    assertTrue(eas.createResource().getCreatedBy().isNone());
+    final User admin = eas.createUser("admin", "Admin", none(), eas.createResource());
+    // the principal resolved before does not outlive the creation of the user
+    final Resource resource = eas.createResource();
+    assertEquals(some(admin.getId()), resource.getCreatedBy());
+    assertEquals(some(admin.getId()), eas.updateResource(resource, none()).getUpdatedBy());
+    assertEquals(some(admin.getId()), eas.deleteResource(resource).getDeletedBy());
+  }
+
+  @Test
+  public void testUserOfOtherNodeSeenByNextRequest() {
+    final EntityManagerFactory emf = newEntityManagerFactory("org.opencast.annotation.impl.persistence");
+    final ExtendedAnnotationService eas = newExtendedAnnotationService(
+            Map.of(ExtendedAnnotationServiceJpaImpl.ENTITY_CACHE_SIZE_KEY, "0"), emf);
+    final ExtendedAnnotationService otherNode = newExtendedAnnotationService(Collections.emptyMap(), emf);
+    assertTrue(eas.createResource().getCreatedBy().isNone());
+    final User admin = otherNode.createUser("admin", "Admin", none(), otherNode.createResource());
+    // the principal resolved before does not outlive the request
+    eas.endRequest();
+    assertEquals(some(admin.getId()), eas.createResource().getCreatedBy());
+  }
+
+  @Test
+  public void testInvalidateMediaPackageOnlyByAdmins() {
+    final EntityManagerFactory emf = newEntityManagerFactory("org.opencast.annotation.impl.persistence");
+    newExtendedAnnotationService(Collections.emptyMap(), emf).invalidateMediaPackage("lecture");
+    final ExtendedAnnotationService eas = newUserExtendedAnnotationService("jsbach", emf);
+    expectCause(Cause.UNAUTHORIZED, new Effect0() {
+      @Override
+      protected void run() {
+        eas.invalidateMediaPackage("lecture");
+      }
+    });
+  }
+
+  @Test
+  public void testGetUsers() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final User bach = eas.createUser("jsbach", "J.S. Bach", none(), resource);
+    final User handel = eas.createUser("handel", "G.F. Handel", none(), resource);
+    final User telemann = eas.createUser("telemann", "G.P. Telemann", none(), resource);
+    eas.deleteUser(telemann);
+
+    final List<String> nicknames = eas.getUsers(List.of(bach.getId(), handel.getId(), telemann.getId(), 12345L))
+            .map(User::getNickname).sorted().collect(Collectors.toList());
+    assertEquals(List.of("G.F. Handel", "J.S. Bach"), nicknames);
+    assertTrue(eas.getUsers(List.of()).findAny().isEmpty());
+  }
+
   @Test
   public void testCreateFindAndDeleteVideo() {
     ExtendedAnnotationService eas = newExtendedAnnotationService();
@@ -133,6 +202,239 @@ public class ExtendedAnnotationServiceJpaImplTest {
     assertTrue(eas.getUserByExtId("lecture1").isNone());
   }
 
+  @Test
+  public void testChangesOfHiddenParentsFiltered() {
+    final EntityManagerFactory emf = newEntityManagerFactory("org.opencast.annotation.impl.persistence");
+    final ExtendedAnnotationService owner = newUserExtendedAnnotationService("owner", emf);
+    owner.createUser("owner", "Owner", none(), owner.createResource(some(Resource.PUBLIC), none()));
+    final Resource shared = owner.createResource(some(Resource.PUBLIC), none());
+    final Resource hidden = owner.createResource(some(Resource.PRIVATE), none());
+    final Video v = owner.createVideo("lecture", shared);
+    final Track t = owner.createTrack(v.getId(), "track", none(), none(), hidden);
+    final Annotation a = owner.createAnnotation(t.getId(), 10.0D, none(), textAnnotation("private"), 0, none(),
+            shared);
+    owner.createComment(a.getId(), none(), "comment", shared);
+    final Scale s = owner.createScale(v.getId(), "scale", none(), hidden);
+    owner.createScaleValue(s.getId(), "low", 0D, 0, shared);
+    final Category c = owner.createCategory(none(), none(), v.getId(), none(), "category", none(), none(), hidden);
+    owner.createLabel(c.getId(), "Good", "G", none(), none(), shared);
+
+    final Changes own = owner.getChanges(v.getId(), new Date(0));
+    assertEquals(1, own.getComments().size());
+    assertEquals(1, own.getLabels().size());
+    assertEquals(1, own.getScaleValues().size());
+    // someone else learns nothing about what belongs to the private track, category and scale
+    final Changes changes = newUserExtendedAnnotationService("other", emf).getChanges(v.getId(), new Date(0));
+    assertTrue(changes.getComments().isEmpty());
+    assertTrue(changes.getLabels().isEmpty());
+    assertTrue(changes.getScales().isEmpty());
+    assertTrue(changes.getScaleValues().isEmpty());
+  }
+
+  @Test
+  public void testDeleteVideoCascades() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v = eas.createVideo("lecture", resource);
+    final Video other = eas.createVideo("other lecture", resource);
+    final Track t = eas.createTrack(v.getId(), "track", none(), none(), resource);
+    final Annotation a = eas.createAnnotation(t.getId(), 10.0D, none(), textAnnotation("gone"), 0, none(), resource);
+    final Scale s = eas.createScale(v.getId(), "scale", none(), resource);
+    final ScaleValue sv = eas.createScaleValue(s.getId(), "low", 0D, 0, resource);
+    final Category c = eas.createCategory(none(), none(), v.getId(), some(s.getId()), "category", none(), none(),
+            resource);
+    final Label l = eas.createLabel(c.getId(), "Good", "G", none(), none(), resource);
+    final Track otherTrack = eas.createTrack(other.getId(), "track", none(), none(), resource);
+    final Category otherCategory = eas.createCategory(none(), none(), other.getId(), none(), "category", none(),
+            none(), resource);
+
+    eas.deleteVideo(v);
+    assertTrue(eas.getVideo(v.getId()).isNone());
+    assertTrue(eas.getTrack(t.getId()).isNone());
+    assertTrue(eas.getAnnotation(a.getId()).isNone());
+    assertTrue(eas.getScale(s.getId(), false).isNone());
+    assertTrue(eas.getScaleValue(sv.getId(), false).isNone());
+    assertTrue(eas.getCategory(c.getId(), false).isNone());
+    assertTrue(eas.getLabel(l.getId(), false).isNone());
+    // all children are stamped like the video itself
+    final Label deleted = eas.getLabel(l.getId(), true).get();
+    assertTrue(deleted.getDeletedAt().isSome());
+    assertEquals(eas.getScaleValue(sv.getId(), true).get().getDeletedAt(), deleted.getDeletedAt());
+    assertTrue(deleted.getSeriesLabelId().isNone());
+    // the children of other videos are untouched
+    assertTrue(eas.getTrack(otherTrack.getId()).isSome());
+    assertTrue(eas.getCategory(otherCategory.getId(), false).isSome());
+  }
+
+  @Test
+  public void testDeleteSeriesCategory() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v1 = eas.createVideo("lecture1", resource);
+    final Video v2 = eas.createVideo("lecture2", resource);
+    final Category master = eas.createCategory(some("series"), none(), v1.getId(), none(), "category", none(),
+            none(), resource);
+    final Category updatedMaster = new CategoryImpl(master.getId(), master.getSeriesExtId(), some(master.getId()),
+            master.getVideoId(), master.getScaleId(), master.getName(), master.getDescription(),
+            master.getSettings(), resource);
+    eas.updateCategory(updatedMaster);
+    final Category copy = eas.createCategory(some("series"), some(master.getId()), v2.getId(), none(), "category",
+            none(), none(), resource);
+    final Label l = eas.createLabel(copy.getId(), "Good", "G", none(), none(), resource);
+
+    final Category deleted = eas.deleteCategory(updatedMaster);
+    assertTrue(deleted.getDeletedAt().isSome());
+    assertTrue(eas.getCategory(master.getId(), false).isNone());
+    assertTrue(eas.getCategory(copy.getId(), false).isNone());
+    assertTrue(eas.getLabel(l.getId(), false).isNone());
+  }
+
+  @Test
+  public void testSeriesCategoryPropagation() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v1 = eas.createVideo("lecture1", resource);
+    final Video v2 = eas.createVideo("lecture2", resource);
+    final Category master = eas.createCategory(some("series"), none(), v1.getId(), none(), "category", none(),
+            none(), resource);
+    eas.updateCategory(new CategoryImpl(master.getId(), master.getSeriesExtId(), some(master.getId()),
+            master.getVideoId(), master.getScaleId(), master.getName(), master.getDescription(),
+            master.getSettings(), resource));
+
+    // a video joining the series gets a copy once
+    eas.copySeriesCategories("series", v2.getId());
+    eas.copySeriesCategories("series", v2.getId());
+    final List<Category> copies = eas.getCategories(v2.getId()).collect(Collectors.toList());
+    assertEquals(1, copies.size());
+    assertEquals(some(master.getId()), copies.get(0).getSeriesCategoryId());
+
+    // updating the series category updates its copies in the background
+    eas.updateCategory(new CategoryImpl(master.getId(), master.getSeriesExtId(), some(master.getId()),
+            master.getVideoId(), master.getScaleId(), "renamed", master.getDescription(), master.getSettings(),
+            resource));
+    awaitSeriesPropagation(eas);
+    assertEquals("renamed", eas.getCategory(copies.get(0).getId(), false).get().getName());
+    assertEquals(1, eas.getCategories(v2.getId()).count());
+  }
+
+  @Test
+  public void testSeriesCategoryLinking() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v1 = eas.createVideo("lecture1", resource);
+    final Video v2 = eas.createVideo("lecture2", resource);
+    final Category own = eas.createCategory(none(), none(), v2.getId(), none(), " category ", some("description"),
+            none(), resource);
+    final Category master = eas.createCategory(some("series"), none(), v1.getId(), none(), "category",
+            some("description"), none(), resource);
+    eas.updateCategory(new CategoryImpl(master.getId(), master.getSeriesExtId(), some(master.getId()),
+            master.getVideoId(), master.getScaleId(), master.getName(), master.getDescription(),
+            master.getSettings(), resource));
+
+    // the equal category of the video becomes the copy instead of getting a copy next to it
+    eas.copySeriesCategories("series", v2.getId());
+    final List<Category> categories = eas.getCategories(v2.getId()).collect(Collectors.toList());
+    assertEquals(1, categories.size());
+    assertEquals(own.getId(), categories.get(0).getId());
+    assertEquals(some(master.getId()), categories.get(0).getSeriesCategoryId());
+  }
+
+  @Test
+  public void testCategoriesHashedOnUpgrade() {
+    final EntityManagerFactory emf = newEntityManagerFactory("org.opencast.annotation.impl.persistence");
+    final ExtendedAnnotationService before = newExtendedAnnotationService(Collections.emptyMap(), emf);
+    final Resource resource = before.createResource();
+    final Video v1 = before.createVideo("lecture1", resource);
+    final Video v2 = before.createVideo("lecture2", resource);
+    final Category own = before.createCategory(none(), none(), v2.getId(), none(), "category", none(), none(),
+            resource);
+    final Category master = before.createCategory(some("series"), none(), v1.getId(), none(), "category", none(),
+            none(), resource);
+    before.updateCategory(new CategoryImpl(master.getId(), master.getSeriesExtId(), some(master.getId()),
+            master.getVideoId(), master.getScaleId(), master.getName(), master.getDescription(),
+            master.getSettings(), resource));
+    // like categories stored before content hashes were introduced
+    final EntityManager em = emf.createEntityManager();
+    em.getTransaction().begin();
+    em.createNativeQuery("UPDATE xannotations_category SET content_hash = NULL").executeUpdate();
+    em.getTransaction().commit();
+    em.close();
+
+    // the next activation hashes them, so the equal category of the video is still linked
+    final ExtendedAnnotationService eas = newExtendedAnnotationService(Collections.emptyMap(), emf);
+    eas.copySeriesCategories("series", v2.getId());
+    final List<Category> categories = eas.getCategories(v2.getId()).collect(Collectors.toList());
+    assertEquals(1, categories.size());
+    assertEquals(own.getId(), categories.get(0).getId());
+  }
+
+  @Test
+  public void testStaleSeriesCategoryCopiesReconciled() {
+    final EntityManagerFactory emf = newEntityManagerFactory("org.opencast.annotation.impl.persistence");
+    final ExtendedAnnotationService before = newExtendedAnnotationService(Collections.emptyMap(), emf);
+    final Resource resource = before.createResource();
+    final Video v1 = before.createVideo("lecture1", resource);
+    final Video v2 = before.createVideo("lecture2", resource);
+    final Category master = before.createCategory(some("series"), none(), v1.getId(), none(), "category", none(),
+            none(), resource);
+    before.updateCategory(new CategoryImpl(master.getId(), master.getSeriesExtId(), some(master.getId()),
+            master.getVideoId(), master.getScaleId(), master.getName(), master.getDescription(),
+            master.getSettings(), resource));
+    before.copySeriesCategories("series", v2.getId());
+    // like a series category whose propagation got lost in a restart
+    final EntityManager em = emf.createEntityManager();
+    em.getTransaction().begin();
+    em.createNativeQuery("UPDATE xannotations_category SET name = 'renamed' WHERE id = " + master.getId())
+            .executeUpdate();
+    em.getTransaction().commit();
+    em.close();
+
+    // opening the video again brings its copy up to date
+    final ExtendedAnnotationService eas = newExtendedAnnotationService(Collections.emptyMap(), emf);
+    eas.copySeriesCategories("series", v2.getId());
+    final List<Category> categories = eas.getCategories(v2.getId()).collect(Collectors.toList());
+    assertEquals(1, categories.size());
+    assertEquals("renamed", categories.get(0).getName());
+    assertEquals(0L, (long) eas.getStatistics().get("series_propagation").get("failed"));
+  }
+
+  @Test
+  public void testSeriesLabelCopies() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v1 = eas.createVideo("lecture1", resource);
+    final Video v2 = eas.createVideo("lecture2", resource);
+    final Category master = eas.createCategory(some("series"), none(), v1.getId(), none(), "category", none(),
+            none(), resource);
+    eas.updateCategory(new CategoryImpl(master.getId(), master.getSeriesExtId(), some(master.getId()),
+            master.getVideoId(), master.getScaleId(), master.getName(), master.getDescription(),
+            master.getSettings(), resource));
+    eas.copySeriesCategories("series", v2.getId());
+    final long copyId = eas.getCategories(v2.getId()).findFirst().get().getId();
+    final Label label = eas.createLabel(master.getId(), "Good", "G", none(), none(), resource);
+    awaitSeriesPropagation(eas);
+
+    // reading the labels of the copy does not change them
+    final List<Label> copies = eas.getLabels(copyId).collect(Collectors.toList());
+    assertEquals(1, copies.size());
+    assertEquals(some(label.getId()), copies.get(0).getSeriesLabelId());
+    assertEquals(copies, eas.getLabels(copyId).collect(Collectors.toList()));
+
+    // label copies are updated in place
+    eas.updateLabel(new LabelImpl(label.getId(), none(), master.getId(), "Better", "B", none(), none(),
+            eas.updateResource(label, none())));
+    awaitSeriesPropagation(eas);
+    final List<Label> updated = eas.getLabels(copyId).collect(Collectors.toList());
+    assertEquals(1, updated.size());
+    assertEquals(copies.get(0).getId(), updated.get(0).getId());
+    assertEquals("Better", updated.get(0).getValue());
+
+    eas.deleteLabel(eas.getLabel(label.getId(), false).get());
+    awaitSeriesPropagation(eas);
+    assertEquals(1, eas.getLabels(copyId).count());
+    assertTrue(eas.getLabel(copies.get(0).getId(), false).isNone());
+  }
+
   @Test
   public void testCreateDuplicateVideo() {
     final ExtendedAnnotationService eas = newExtendedAnnotationService();
@@ -246,6 +548,283 @@ public class ExtendedAnnotationServiceJpaImplTest {
             eas.getAnnotations(t.getId()).count());
   }
 
+  @Test
+  public void testGetAnnotationsOfVideo() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource(some(Resource.PUBLIC), none());
+    final Video v = eas.createVideo("lecture", resource);
+    final Track t1 = eas.createTrack(v.getId(), "track1", none(), none(), resource);
+    final Track t2 = eas.createTrack(v.getId(), "track2", none(), none(), resource);
+    eas.createAnnotation(t1.getId(), 20.0D, some(10.0D), textAnnotation("cool video"), 0, none(), resource);
+    eas.createAnnotation(t1.getId(), 30.0D, some(3.0D), textAnnotation("nice!"), 0, none(), resource);
+    eas.createAnnotation(t2.getId(), 40.0D, some(5.0D), textAnnotation("look at this"), 0, none(), resource);
+    // annotations of other videos must not show up
+    final Video other = eas.createVideo("other lecture", resource);
+    final Track otherTrack = eas.createTrack(other.getId(), "track", none(), none(), resource);
+    eas.createAnnotation(otherTrack.getId(), 10.0D, none(), textAnnotation("elsewhere"), 0, none(), resource);
+
+    assertTrue(eas.getAnnotationsOfVideo(12345).findAny().isEmpty());
+    assertEquals(3, eas.getAnnotationsOfVideo(v.getId()).count());
+    // annotations of deleted tracks are gone as well
+    eas.deleteTrack(t1);
+    final List<Annotation> remaining = eas.getAnnotationsOfVideo(v.getId()).collect(Collectors.toList());
+    assertEquals(1, remaining.size());
+    assertEquals(t2.getId(), remaining.get(0).getTrackId());
+  }
+
+  @Test
+  public void testAnnotationCursor() {
+    // Fetch and clear after every other row, so that reading crosses several fetches
+    final ExtendedAnnotationService eas = newExtendedAnnotationService(
+            Map.of(ExtendedAnnotationServiceJpaImpl.CURSOR_FETCH_SIZE_KEY, "2"));
+    final Resource resource = eas.createResource(some(Resource.PUBLIC), none());
+    final Video v = eas.createVideo("lecture", resource);
+    final Track t1 = eas.createTrack(v.getId(), "track1", none(), none(), resource);
+    final Track t2 = eas.createTrack(v.getId(), "track2", none(), none(), resource);
+    for (int i = 0; i < 5; i++) {
+      eas.createAnnotation(t1.getId(), i, none(), textAnnotation("a" + i), 0, none(), resource);
+      eas.createAnnotation(t2.getId(), i, none(), textAnnotation("b" + i), 0, none(), resource);
+    }
+    assertEquals(5, eas.getAnnotations(t1.getId()).count());
+    final Set<String> contents = eas.getAnnotations(t1.getId()).map(Annotation::getContent)
+            .collect(Collectors.toSet());
+    assertEquals(5, contents.size());
+    assertTrue(contents.contains(textAnnotation("a4")));
+    final List<Long> trackIds = eas.getAnnotationsOfVideo(v.getId()).map(Annotation::getTrackId)
+            .collect(Collectors.toList());
+    assertEquals(10, trackIds.size());
+    assertEquals(List.of(t1.getId(), t2.getId()), trackIds.stream().distinct().collect(Collectors.toList()));
+    // A stream read only partially releases its transaction when closed, so writing goes on
+    try (Stream<Annotation> annotations = eas.getAnnotations(t1.getId())) {
+      assertTrue(annotations.findFirst().isPresent());
+    }
+    eas.createAnnotation(t1.getId(), 5, none(), textAnnotation("a5"), 0, none(), resource);
+    assertEquals(6, eas.getAnnotations(t1.getId()).count());
+  }
+
+  @Test
+  public void testAnnotationPages() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource(some(Resource.PUBLIC), none());
+    final Video v = eas.createVideo("lecture", resource);
+    final Track t = eas.createTrack(v.getId(), "track", none(), none(), resource);
+    final Annotation a3 = eas.createAnnotation(t.getId(), 30.0D, none(), textAnnotation("3"), 0, none(), resource);
+    final Annotation a1 = eas.createAnnotation(t.getId(), 10.0D, none(), textAnnotation("1"), 0, none(), resource);
+    final Annotation a2 = eas.createAnnotation(t.getId(), 10.0D, none(), textAnnotation("2"), 0, none(), resource);
+
+    final Page<Annotation> first = eas.getAnnotations(t.getId(), none(), 2);
+    assertEquals(List.of(a1.getId(), a2.getId()),
+            first.getItems().stream().map(Annotation::getId).collect(Collectors.toList()));
+    assertTrue(first.getNext().isSome());
+    final Page<Annotation> second = eas.getAnnotations(t.getId(), first.getNext(), 2);
+    assertEquals(1, second.getItems().size());
+    assertEquals(a3.getId(), second.getItems().get(0).getId());
+    assertTrue(second.getNext().isNone());
+    // malformed cursors
+    for (String cursor : List.of("10.0", "ten,1")) {
+      try {
+        eas.getAnnotations(t.getId(), some(cursor), 2);
+        fail("Malformed cursor " + cursor + " has been accepted");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testAnnotationsInWindow() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource(some(Resource.PUBLIC), none());
+    final Video v = eas.createVideo("lecture", resource);
+    final Track t = eas.createTrack(v.getId(), "track", none(), none(), resource);
+    final Annotation before = eas.createAnnotation(t.getId(), 0.0D, some(5.0D), textAnnotation("before"), 0, none(),
+            resource);
+    final Annotation overlapping = eas.createAnnotation(t.getId(), 8.0D, some(4.0D), textAnnotation("overlapping"),
+            0, none(), resource);
+    final Annotation point = eas.createAnnotation(t.getId(), 15.0D, none(), textAnnotation("point"), 0, none(),
+            resource);
+    final Annotation after = eas.createAnnotation(t.getId(), 30.0D, some(1.0D), textAnnotation("after"), 0, none(),
+            resource);
+
+    assertEquals(List.of(overlapping.getId(), point.getId()), idsOf(eas.getAnnotations(t.getId(), some(10.0D),
+            some(20.0D))));
+    assertEquals(List.of(before.getId(), overlapping.getId()), idsOf(eas.getAnnotations(t.getId(), none(),
+            some(10.0D))));
+    assertEquals(List.of(after.getId()), idsOf(eas.getAnnotations(t.getId(), some(15.5D), none())));
+    assertEquals(List.of(overlapping.getId(), point.getId()),
+            idsOf(eas.getAnnotationsOfVideo(v.getId(), some(10.0D), some(20.0D))));
+    // the end follows updates of the duration
+    eas.updateAnnotation(new AnnotationImpl(before.getId(), t.getId(), 0.0D, some(10.0D), textAnnotation("before"),
+            0, none(), resource));
+    assertEquals(List.of(before.getId(), overlapping.getId(), point.getId()),
+            idsOf(eas.getAnnotations(t.getId(), some(10.0D), some(20.0D))));
+    // windows and pages can be combined
+    final Page<Annotation> page = eas.getAnnotations(t.getId(), some(10.0D), some(20.0D), none(), 2);
+    assertEquals(List.of(before.getId(), overlapping.getId()), idsOf(page.getItems().stream()));
+    assertEquals(List.of(point.getId()),
+            idsOf(eas.getAnnotations(t.getId(), some(10.0D), some(20.0D), page.getNext(), 2).getItems().stream()));
+  }
+
+  @Test
+  public void testActiveAnnotations() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource(some(Resource.PUBLIC), none());
+    final Video v = eas.createVideo("lecture", resource);
+    final Track t1 = eas.createTrack(v.getId(), "track1", none(), none(), resource);
+    final Track t2 = eas.createTrack(v.getId(), "track2", none(), none(), resource);
+    final Annotation a = eas.createAnnotation(t1.getId(), 0.0D, some(10.0D), textAnnotation("a"), 0, none(), resource);
+    final Annotation b = eas.createAnnotation(t2.getId(), 5.0D, some(10.0D), textAnnotation("b"), 0, none(), resource);
+
+    // the first query builds the index
+    assertEquals(List.of(a.getId(), b.getId()), idsOf(eas.getActiveAnnotations(v.getId(), 7.0D, 7.0D)));
+    assertEquals(List.of(b.getId()), idsOf(eas.getActiveAnnotations(v.getId(), 12.0D, 20.0D)));
+    // later changes are applied to it
+    final Annotation c = eas.createAnnotation(t1.getId(), 12.0D, none(), textAnnotation("c"), 0, none(), resource);
+    eas.updateAnnotation(new AnnotationImpl(a.getId(), t1.getId(), 0.0D, some(20.0D), textAnnotation("a"), 0, none(),
+            resource));
+    eas.deleteAnnotation(eas.getAnnotation(b.getId()).get());
+    assertEquals(List.of(a.getId(), c.getId()), idsOf(eas.getActiveAnnotations(v.getId(), 12.0D, 12.0D)));
+    eas.deleteTrack(t1);
+    assertTrue(eas.getActiveAnnotations(v.getId(), 12.0D, 12.0D).findAny().isEmpty());
+  }
+
+  @Test
+  public void testChanges() throws Exception {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v = eas.createVideo("lecture", resource);
+    final Video other = eas.createVideo("other lecture", resource);
+    final Track t = eas.createTrack(v.getId(), "track", none(), none(), resource);
+    final Annotation a = eas.createAnnotation(t.getId(), 10.0D, none(), textAnnotation("a"), 0, none(), resource);
+    final Annotation b = eas.createAnnotation(t.getId(), 20.0D, none(), textAnnotation("b"), 0, none(), resource);
+    final Scale s = eas.createScale(v.getId(), "scale", none(), resource);
+    final ScaleValue sv = eas.createScaleValue(s.getId(), "low", 0D, 0, resource);
+    final Category c = eas.createCategory(none(), none(), v.getId(), some(s.getId()), "category", none(), none(),
+            resource);
+    final Label l = eas.createLabel(c.getId(), "Good", "G", none(), none(), resource);
+    final Comment comment = eas.createComment(a.getId(), none(), "comment", resource);
+    eas.createTrack(other.getId(), "track", none(), none(), resource);
+
+    final Changes all = eas.getChanges(v.getId(), new Date(0));
+    assertEquals(List.of(t.getId()), all.getTracks().stream().map(Track::getId).collect(Collectors.toList()));
+    assertEquals(List.of(a.getId(), b.getId()), idsOf(all.getAnnotations().stream()));
+    assertEquals(List.of(c.getId()), all.getCategories().stream().map(Category::getId).collect(Collectors.toList()));
+    assertEquals(List.of(l.getId()), all.getLabels().stream().map(Label::getId).collect(Collectors.toList()));
+    assertEquals(List.of(s.getId()), all.getScales().stream().map(Scale::getId).collect(Collectors.toList()));
+    assertEquals(List.of(sv.getId()),
+            all.getScaleValues().stream().map(ScaleValue::getId).collect(Collectors.toList()));
+    assertEquals(List.of(comment.getId()),
+            all.getComments().stream().map(Comment::getId).collect(Collectors.toList()));
+    assertTrue(all.getCursor().before(new Date()));
+
+    // only what changed afterwards is returned, including tombstones
+    Thread.sleep(10);
+    final Date since = new Date();
+    Thread.sleep(10);
+    eas.deleteAnnotation(eas.getAnnotation(b.getId()).get());
+    final Changes changes = eas.getChanges(v.getId(), since);
+    assertEquals(List.of(b.getId()), idsOf(changes.getAnnotations().stream()));
+    assertTrue(changes.getAnnotations().get(0).getDeletedAt().isSome());
+    assertTrue(changes.getTracks().isEmpty());
+    assertTrue(changes.getCategories().isEmpty());
+    assertTrue(changes.getLabels().isEmpty());
+    assertTrue(changes.getComments().isEmpty());
+  }
+
+  @Test
+  public void testVersionsOfRecentChangesNotReused() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v = eas.createVideo("lecture", resource);
+    eas.createTrack(v.getId(), "track", none(), none(), resource);
+    // a change stamped just before might not be committed yet
+    assertNotEquals(eas.getTracksVersion(v.getId()).getTag(), eas.getTracksVersion(v.getId()).getTag());
+
+    final ExtendedAnnotationService settled = newExtendedAnnotationService(
+            Map.of(ExtendedAnnotationServiceJpaImpl.COMMIT_LAG_KEY, "0"));
+    final Resource settledResource = settled.createResource();
+    final Video other = settled.createVideo("other lecture", settledResource);
+    settled.createTrack(other.getId(), "track", none(), none(), settledResource);
+    final CollectionVersion version = settled.getTracksVersion(other.getId());
+    assertEquals(version.getTag(), settled.getTracksVersion(other.getId()).getTag());
+    assertFalse(version.getQualifier().isEmpty());
+  }
+
+  @Test
+  public void testChangeEvents() throws Exception {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v = eas.createVideo("lecture", resource);
+    final Video other = eas.createVideo("other lecture", resource);
+    final Track t = eas.createTrack(v.getId(), "track", none(), none(), resource);
+    try (ChangeSubscription subscription = eas.subscribe(v.getId()).get()) {
+      final Annotation a = eas.createAnnotation(t.getId(), 10.0D, none(), textAnnotation("a"), 0, none(), resource);
+      eas.createTrack(other.getId(), "track", none(), none(), resource);
+      eas.deleteAnnotation(a);
+      eas.deleteTrack(t);
+
+      final ChangeEvent created = subscription.next(0, TimeUnit.SECONDS).get();
+      assertEquals(ChangeEvent.Type.ANNOTATION, created.getType());
+      assertEquals(ChangeEvent.Action.CREATED, created.getAction());
+      assertEquals(a.getId(), created.getId());
+      assertEquals(some(t.getId()), created.getParentId());
+      assertTrue(eas.hasEventAccess(created));
+      final ChangeEvent deleted = subscription.next(0, TimeUnit.SECONDS).get();
+      assertEquals(ChangeEvent.Action.DELETED, deleted.getAction());
+      assertEquals(a.getId(), deleted.getId());
+      final ChangeEvent trackDeleted = subscription.next(0, TimeUnit.SECONDS).get();
+      assertEquals(ChangeEvent.Type.TRACK, trackDeleted.getType());
+      assertEquals(ChangeEvent.Action.DELETED, trackDeleted.getAction());
+      // the track of the other video is not reported
+      assertTrue(subscription.next(0, TimeUnit.SECONDS).isNone());
+    }
+  }
+
+  private static List<Long> idsOf(Stream<Annotation> annotations) {
+    return annotations.map(Annotation::getId).sorted().collect(Collectors.toList());
+  }
+
+  @Test
+  public void testCreateAnnotations() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v = eas.createVideo("lecture", resource);
+    final Track t = eas.createTrack(v.getId(), "track", none(), none(), resource);
+    final List<Annotation> created = eas.createAnnotations(List.of(
+            new AnnotationImpl(0, t.getId(), 30.0D, none(), textAnnotation("first"), 0, none(), resource),
+            new AnnotationImpl(0, t.getId(), 10.0D, some(2.0D), textAnnotation("second"), 0, none(), resource),
+            new AnnotationImpl(0, t.getId(), 20.0D, none(), textAnnotation("third"), 0, none(), resource)));
+    assertEquals(3, created.size());
+    // the created annotations keep the order they were given in
+    assertEquals(textAnnotation("first"), eas.getAnnotation(created.get(0).getId()).get().getContent());
+    assertEquals(textAnnotation("second"), eas.getAnnotation(created.get(1).getId()).get().getContent());
+    assertEquals(some(2.0D), eas.getAnnotation(created.get(1).getId()).get().getDuration());
+    assertEquals(textAnnotation("third"), eas.getAnnotation(created.get(2).getId()).get().getContent());
+    assertEquals(3, eas.getAnnotations(t.getId()).count());
+    // nothing is stored if a track does not exist
+    expectCause(Cause.NOT_FOUND, new Effect0() {
+      @Override
+      protected void run() {
+        eas.createAnnotations(List.of(
+                new AnnotationImpl(0, t.getId(), 40.0D, none(), textAnnotation("fourth"), 0, none(), resource),
+                new AnnotationImpl(0, 12345, 50.0D, none(), textAnnotation("fifth"), 0, none(), resource)));
+      }
+    });
+    assertEquals(3, eas.getAnnotations(t.getId()).count());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCreateAnnotationsLimited() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService(
+            Map.of(ExtendedAnnotationServiceJpaImpl.ANNOTATIONS_BATCH_MAX_KEY, "2"));
+    final Resource resource = eas.createResource();
+    final Track t = eas.createTrack(eas.createVideo("lecture", resource).getId(), "track", none(), none(), resource);
+    eas.createAnnotations(List.of(
+            new AnnotationImpl(0, t.getId(), 10.0D, none(), textAnnotation("first"), 0, none(), resource),
+            new AnnotationImpl(0, t.getId(), 20.0D, none(), textAnnotation("second"), 0, none(), resource),
+            new AnnotationImpl(0, t.getId(), 30.0D, none(), textAnnotation("third"), 0, none(), resource)));
+  }
+
   @Test
   public void testUpdateAnnotation() {
     final ExtendedAnnotationService eas = newExtendedAnnotationService();
@@ -351,6 +930,25 @@ public class ExtendedAnnotationServiceJpaImplTest {
     assertTrue(eas.getAnnotation(c.getId()).isNone());
   }
 
+  @Test
+  public void testEntityCache() {
+    final ExtendedAnnotationServiceJpaImpl eas = (ExtendedAnnotationServiceJpaImpl) newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v = eas.createVideo("lecture", resource);
+    final Category c = eas.createCategory(none(), none(), v.getId(), none(), "Sozialform", none(), none(), resource);
+    final long hits = eas.getEntityCache().getHits();
+    assertEquals("Sozialform", eas.getCategory(c.getId(), false).get().getName());
+    assertEquals("Sozialform", eas.getCategory(c.getId(), false).get().getName());
+    assertEquals(hits + 1, eas.getEntityCache().getHits());
+    // writes must invalidate the cached entities
+    eas.updateCategory(new CategoryImpl(c.getId(), none(), none(), v.getId(), none(), "Verhalten", none(), none(),
+            resource));
+    assertEquals("Verhalten", eas.getCategory(c.getId(), false).get().getName());
+    eas.deleteCategory(eas.getCategory(c.getId(), false).get());
+    assertTrue(eas.getCategory(c.getId(), false).isNone());
+    assertTrue(eas.getCategory(c.getId(), true).isSome());
+  }
+
   @Test
   public void testCreateScale() {
     final ExtendedAnnotationService eas = newExtendedAnnotationService();
@@ -421,6 +1019,32 @@ public class ExtendedAnnotationServiceJpaImplTest {
     assertEquals(2, scaleValue.get().getOrder());
   }
 
+  @Test
+  public void testGetChildrenOfVideo() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Video v = eas.createVideo("lecture", resource);
+    final Video other = eas.createVideo("other lecture", resource);
+    final Scale s1 = eas.createScale(v.getId(), "scale1", none(), resource);
+    final Scale s2 = eas.createScale(v.getId(), "scale2", none(), resource);
+    final Scale otherScale = eas.createScale(other.getId(), "scale", none(), resource);
+    eas.createScaleValue(s1.getId(), "low", 0D, 0, resource);
+    eas.createScaleValue(s1.getId(), "high", 1D, 1, resource);
+    eas.createScaleValue(s2.getId(), "yes", 1D, 0, resource);
+    eas.createScaleValue(otherScale.getId(), "no", 0D, 0, resource);
+    final Category c1 = eas.createCategory(none(), none(), v.getId(), none(), "category1", none(), none(), resource);
+    final Category c2 = eas.createCategory(none(), none(), v.getId(), none(), "category2", none(), none(), resource);
+    final Category otherCategory = eas.createCategory(none(), none(), other.getId(), none(), "category", none(),
+            none(), resource);
+    eas.createLabel(c1.getId(), "Good", "G", none(), none(), resource);
+    eas.createLabel(c2.getId(), "Bad", "B", none(), none(), resource);
+    eas.createLabel(otherCategory.getId(), "Ugly", "U", none(), none(), resource);
+
+    assertEquals(3, eas.getScaleValuesOfVideo(v.getId()).count());
+    assertEquals(2, eas.getLabelsOfVideo(v.getId()).count());
+    assertTrue(eas.getLabelsOfVideo(12345).findAny().isEmpty());
+  }
+
   @Test
   public void testUpdateScaleValue() {
     final ExtendedAnnotationService eas = newExtendedAnnotationService();
@@ -516,6 +1140,26 @@ public class ExtendedAnnotationServiceJpaImplTest {
     assertEquals("New comment", comment.get().getText());
   }
 
+  @Test
+  public void testCommentPages() {
+    final ExtendedAnnotationService eas = newExtendedAnnotationService();
+    final Resource resource = eas.createResource();
+    final Comment c1 = eas.createComment(32, none(), "first", resource);
+    final Comment c2 = eas.createComment(32, none(), "second", resource);
+    final Comment reply = eas.createComment(32, some(c1.getId()), "reply", resource);
+
+    final Page<Comment> first = eas.getComments(32, none(), none(), 1);
+    assertEquals(c1.getId(), first.getItems().get(0).getId());
+    final Page<Comment> second = eas.getComments(32, none(), first.getNext(), 1);
+    assertEquals(c2.getId(), second.getItems().get(0).getId());
+    assertTrue(eas.getComments(32, none(), second.getNext(), 1).getItems().isEmpty());
+
+    final Page<Comment> replies = eas.getComments(32, some(c1.getId()), none(), 10);
+    assertEquals(1, replies.getItems().size());
+    assertEquals(reply.getId(), replies.getItems().get(0).getId());
+    assertTrue(replies.getNext().isNone());
+  }
+
   @Test
   public void testUpdateComment() {
     final ExtendedAnnotationService eas = newExtendedAnnotationService();
@@ -582,10 +1226,45 @@ public class ExtendedAnnotationServiceJpaImplTest {
     }
   }
 
+  /** Wait for the series categories written so far to be propagated to their copies. */
+  private static void awaitSeriesPropagation(ExtendedAnnotationService eas) {
+    try {
+      assertTrue(((ExtendedAnnotationServiceJpaImpl) eas).getSeriesPropagation().awaitIdle(10, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private static ExtendedAnnotationService newExtendedAnnotationService() {
+    return newExtendedAnnotationService(Collections.emptyMap());
+  }
+
+  private static ExtendedAnnotationService newExtendedAnnotationService(Map<String, Object> properties) {
+    return newExtendedAnnotationService(properties,
+            newEntityManagerFactory("org.opencast.annotation.impl.persistence"));
+  }
+
+  private static ExtendedAnnotationService newExtendedAnnotationService(Map<String, Object> properties,
+          EntityManagerFactory entityManagerFactory) {
+    return newExtendedAnnotationService(properties, entityManagerFactory,
+            SecurityUtil.createSystemUser("admin", new DefaultOrganization()));
+  }
+
+  /** Create a service acting as an Opencast user without any roles, who is thus no administrator. */
+  private static ExtendedAnnotationService newUserExtendedAnnotationService(String username,
+          EntityManagerFactory entityManagerFactory) {
+    final org.opencastproject.security.api.User user = EasyMock.createNiceMock(
+            org.opencastproject.security.api.User.class);
+    EasyMock.expect(user.getUsername()).andReturn(username).anyTimes();
+    EasyMock.expect(user.getRoles()).andReturn(Set.of()).anyTimes();
+    EasyMock.replay(user);
+    return newExtendedAnnotationService(Collections.emptyMap(), entityManagerFactory, user);
+  }
+
+  private static ExtendedAnnotationService newExtendedAnnotationService(Map<String, Object> properties,
+          EntityManagerFactory entityManagerFactory, org.opencastproject.security.api.User user) {
     SecurityService securityService = EasyMock.createNiceMock(SecurityService.class);
 
-    org.opencastproject.security.api.User user = SecurityUtil.createSystemUser("admin", new DefaultOrganization());
     EasyMock.expect(securityService.getOrganization()).andReturn(new DefaultOrganization()).anyTimes();
     EasyMock.expect(securityService.getUser()).andReturn(user).anyTimes();
     EasyMock.replay(securityService);
@@ -597,9 +1276,9 @@ public class ExtendedAnnotationServiceJpaImplTest {
     extendedAnnotationService.setSecurityService(securityService);
     extendedAnnotationService.setSearchService(searchService);
     extendedAnnotationService.setAuthorizationService(authorizationService);
-    extendedAnnotationService.setEntityManagerFactory(newEntityManagerFactory("org.opencast.annotation.impl.persistence"));
+    extendedAnnotationService.setEntityManagerFactory(entityManagerFactory);
     extendedAnnotationService.setDBSessionFactory(getDbSessionFactory());
-    extendedAnnotationService.activate();
+    extendedAnnotationService.activate(properties);
     return extendedAnnotationService;
   }
 }
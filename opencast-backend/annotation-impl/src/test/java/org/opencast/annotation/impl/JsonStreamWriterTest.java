@@ -0,0 +1,103 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.opencast.annotation.impl.JsonStreamWriter.array;
+import static org.opencast.annotation.impl.JsonStreamWriter.object;
+import static org.opencast.annotation.impl.Jsons.jO;
+import static org.opencast.annotation.impl.Jsons.p;
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencast.annotation.api.Annotation;
+import org.opencast.annotation.api.Category;
+import org.opencast.annotation.api.Resource;
+import org.opencast.annotation.api.Track;
+import org.opencast.annotation.impl.persistence.AnnotationDto;
+import org.opencast.annotation.impl.persistence.CategoryDto;
+import org.opencast.annotation.impl.persistence.TrackDto;
+
+import org.opencastproject.util.data.Option;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class JsonStreamWriterTest {
+  private static final Resource RESOURCE = new ResourceImpl(some(Resource.PUBLIC), none(), none(), none(),
+          some(new Date(1000000L)), some(new Date(2000000L)), Option.<Date> none(), null);
+
+  @Test
+  public void testObjects() throws Exception {
+    assertEquals(jO(p("b", 1), p("a", "x\"y"), p("c", (Object) null)).toString(), write(writer -> {
+      writer.beginObject().field("b", 1).field("a", "x\"y").field("c", (Object) null).field("d", none());
+      writer.endObject(() -> jO(p("b", ""), p("a", ""), p("c", "")));
+    }));
+    assertEquals("{\"list\":[1,\"2\",{\"a\":[]}]}", write(object("list", writer -> {
+      writer.beginArray().value(1).value("2");
+      object("a", array(Arrays.asList(), (x, w) -> w.value(x))).write(writer);
+      writer.endArray();
+    })));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testTemplateMismatch() throws Exception {
+    write(writer -> {
+      writer.beginObject().field("a", 1);
+      writer.endObject(() -> jO(p("b", 1)));
+    });
+  }
+
+  @Test
+  public void testCompatibility() throws Exception {
+    final Annotation a = new AnnotationImpl(1L, 2L, 1.5, some(2.0), "Text with \"quotes\", \\ and \u00e9\n", 0L,
+            Option.<String> none(), RESOURCE);
+    final Annotation b = new AnnotationImpl(2L, 3L, 3.0, Option.<Double> none(), "/path", 4L, some("{}"), RESOURCE);
+    b.getTags().put("color", "red");
+    b.getTags().put("size", "10");
+    final List<Annotation> annotations = Arrays.asList(a, b, a);
+    assertEquals(AnnotationDto.toJson(null, annotations.stream()).toString(),
+            write(AnnotationDto.writeJson(null, annotations::stream)));
+    // Annotations are grouped by track as they come, so they have to be ordered by track
+    final List<Annotation> byTrack = Arrays.asList(a, a, b);
+    assertEquals(AnnotationDto.toJsonByTrack(null, byTrack.stream()).toString(),
+            write(AnnotationDto.writeJsonByTrack(null, byTrack::stream)));
+
+    final List<Track> tracks = Arrays.asList(
+            new TrackImpl(1L, 1L, "Track", some("A track"), Option.<String> none(), RESOURCE),
+            new TrackImpl(2L, 1L, "Other", Option.<String> none(), some("{\"a\":1}"), RESOURCE));
+    assertEquals(TrackDto.toJson(null, tracks.stream()).toString(), write(TrackDto.writeJson(null, tracks.stream())));
+
+    final List<Category> categories = Arrays.asList(
+            new CategoryImpl(1L, some("series"), some(4L), 1L, some(2L), "Category", Option.<String> none(),
+                    some("{}"), RESOURCE),
+            new CategoryImpl(2L, Option.<String> none(), Option.<Long> none(), 1L, Option.<Long> none(), "Other",
+                    some("Description"), Option.<String> none(), RESOURCE));
+    assertEquals(CategoryDto.toJson(null, categories.stream()).toString(),
+            write(CategoryDto.writeJson(null, categories.stream())));
+  }
+
+  private static String write(JsonStreamWriter.Value value) throws IOException {
+    final StringWriter out = new StringWriter();
+    value.write(new JsonStreamWriter(out));
+    return out.toString();
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class TableWriterTest {
+  private static final List<List<?>> TABLE = Arrays.asList(
+          Arrays.asList("ID", "Text", "Value"),
+          Arrays.asList(1L, "a, \"quoted\"\ntext", 2.0),
+          Arrays.asList(2L, null, 0.5),
+          Arrays.asList(3L, " padded", "<&>"));
+
+  @Test
+  public void testCsv() throws Exception {
+    final StringWriter out = new StringWriter();
+    final TableWriter csv = new CsvTableWriter(out);
+    for (List<?> row : TABLE) {
+      csv.row(row);
+    }
+    csv.finish();
+    assertEquals("ID,Text,Value\r\n1,\"a, \"\"quoted\"\"\ntext\",2\r\n2,,0.5\r\n3,\" padded\",<&>", out.toString());
+  }
+
+  @Test
+  public void testXlsx() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final TableWriter xlsx = new XlsxTableWriter(out, "Sheet 1");
+    for (List<?> row : TABLE) {
+      xlsx.row(row);
+    }
+    xlsx.finish();
+
+    final Map<String, String> parts = unzip(out.toByteArray());
+    assertEquals(5, parts.size());
+    assertTrue(parts.get("xl/workbook.xml").contains("<sheet name=\"Sheet 1\" sheetId=\"1\" r:id=\"rId1\"/>"));
+    final String sheet = parts.get("xl/worksheets/sheet1.xml");
+    assertTrue(sheet.contains("<col min=\"2\" max=\"2\" width=\"5\" customWidth=\"1\"/>"));
+    assertTrue(sheet.contains("<row r=\"2\"><c r=\"A2\"><v>1</v></c>"
+            + "<c r=\"B2\" t=\"inlineStr\"><is><t xml:space=\"preserve\">a, &quot;quoted&quot;\ntext</t></is></c>"
+            + "<c r=\"C2\"><v>2.0</v></c></row>"));
+    assertTrue(sheet.contains("<row r=\"3\"><c r=\"A3\"><v>2</v></c><c r=\"C3\"><v>0.5</v></c></row>"));
+    assertTrue(sheet.contains("<t xml:space=\"preserve\">&lt;&amp;&gt;</t>"));
+    assertTrue(sheet.endsWith("</sheetData></worksheet>"));
+  }
+
+  @Test
+  public void testColumns() {
+    assertEquals("A", XlsxTableWriter.column(0));
+    assertEquals("X", XlsxTableWriter.column(23));
+    assertEquals("Z", XlsxTableWriter.column(25));
+    assertEquals("AA", XlsxTableWriter.column(26));
+    assertEquals("AZ", XlsxTableWriter.column(51));
+    assertEquals("BA", XlsxTableWriter.column(52));
+  }
+
+  private static Map<String, String> unzip(byte[] zip) throws IOException {
+    final Map<String, String> parts = new HashMap<>();
+    try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+      for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+        parts.put(entry.getName(), new String(in.readAllBytes(), UTF_8));
+      }
+    }
+    return parts;
+  }
+}
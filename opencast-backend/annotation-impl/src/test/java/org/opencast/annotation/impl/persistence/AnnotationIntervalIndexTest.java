@@ -0,0 +1,119 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.opencast.annotation.Annotations.textAnnotation;
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.option;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencast.annotation.api.Annotation;
+import org.opencast.annotation.impl.AnnotationImpl;
+import org.opencast.annotation.impl.ResourceImpl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class AnnotationIntervalIndexTest {
+
+  @Test
+  public void testOverlapping() {
+    final Annotation a = annotation(1L, 0.0D, 10.0D);
+    final Annotation b = annotation(2L, 5.0D, 2.0D);
+    final Annotation point = annotation(3L, 7.0D, null);
+    final Annotation c = annotation(4L, 20.0D, 5.0D);
+    final AnnotationIntervalIndex index = AnnotationIntervalIndex.of(List.of(c, point, b, a));
+
+    assertEquals(List.of(a, b, point), index.overlapping(7.0D, 7.0D));
+    assertEquals(List.of(a), index.overlapping(10.0D, 10.0D));
+    assertEquals(List.of(), index.overlapping(15.0D, 15.0D));
+    assertEquals(List.of(a, c), index.overlapping(8.0D, 20.0D));
+    assertEquals(List.of(a, b, point, c), index.overlapping(-1.0D, 100.0D));
+    assertEquals(List.of(), index.overlapping(8.0D, 7.0D));
+  }
+
+  @Test
+  public void testChanges() {
+    final Annotation a = annotation(1L, 0.0D, 10.0D);
+    final Annotation b = annotation(2L, 5.0D, 2.0D);
+    final AnnotationIntervalIndex index = AnnotationIntervalIndex.of(List.of(a, b));
+
+    final Annotation moved = annotation(2L, 30.0D, 2.0D);
+    final Annotation created = annotation(3L, 1.0D, null);
+    final AnnotationIntervalIndex changed = index.with(List.of(moved, created)).without(1L);
+    assertEquals(List.of(created), changed.overlapping(0.0D, 6.0D));
+    assertEquals(List.of(moved), changed.overlapping(31.0D, 31.0D));
+    assertEquals(2, changed.size());
+    // the original index is not affected
+    assertEquals(List.of(a, b), index.overlapping(0.0D, 6.0D));
+    // removing an unknown annotation changes nothing
+    assertSame(changed, changed.without(42L));
+  }
+
+  @Test
+  public void testMatchesLinearScan() {
+    final Random random = new Random(4711);
+    final Map<Long, Annotation> annotations = new HashMap<>();
+    for (long id = 0; id < 2000; id++) {
+      annotations.put(id, randomAnnotation(random, id));
+    }
+    AnnotationIntervalIndex index = AnnotationIntervalIndex.of(annotations.values());
+    for (int round = 0; round < 500; round++) {
+      // change the index now and then, often enough to also cause rebuilds
+      final long id = random.nextInt(2500);
+      if (random.nextBoolean()) {
+        final Annotation a = randomAnnotation(random, id);
+        annotations.put(id, a);
+        index = index.with(List.of(a));
+      } else {
+        annotations.remove(id);
+        index = index.without(id);
+      }
+      final double from = random.nextInt(1000) + random.nextDouble();
+      final double to = random.nextInt(4) == 0 ? from : from + random.nextInt(100);
+      assertEquals(linearScan(annotations, from, to), index.overlapping(from, to));
+      assertEquals(annotations.size(), index.size());
+    }
+  }
+
+  private static List<Annotation> linearScan(Map<Long, Annotation> annotations, double from, double to) {
+    return annotations.values().stream()
+            .filter(a -> a.getStart() <= to && a.getStart() + a.getDuration().getOrElse(0.0D) >= from)
+            .sorted(Comparator.comparingDouble(Annotation::getStart).thenComparingLong(Annotation::getId))
+            .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  private static Annotation randomAnnotation(Random random, long id) {
+    // Integral starts cause plenty of ties and annotations touching the window
+    final double start = random.nextInt(1000);
+    final Double duration = random.nextInt(5) == 0 ? null : (double) random.nextInt(60);
+    return annotation(id, start, duration);
+  }
+
+  private static Annotation annotation(long id, double start, Double duration) {
+    return new AnnotationImpl(id, 1L, start, option(duration), textAnnotation(Long.toString(id)), 0, none(),
+            new ResourceImpl(some(0), none(), none(), none(), none(), none(), none(), null));
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.opencast.annotation.Annotations.scalingAnnotation;
+import static org.opencast.annotation.Annotations.textAnnotation;
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencast.annotation.api.Annotation;
+import org.opencast.annotation.api.Category;
+import org.opencast.annotation.api.Resource;
+import org.opencast.annotation.impl.AnnotationImpl;
+import org.opencast.annotation.impl.CategoryImpl;
+import org.opencast.annotation.impl.ResourceImpl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CategoryAccessIndexTest {
+  private static final Category PUBLIC_CATEGORY = category(1L, Resource.PUBLIC);
+  private static final Category PRIVATE_CATEGORY = category(2L, Resource.PRIVATE);
+
+  private final List<Collection<Long>> lookups = new ArrayList<>();
+  private final List<Long> accessChecks = new ArrayList<>();
+
+  @Test
+  public void testFilter() {
+    final CategoryAccessIndex index = newIndex();
+    final Annotation text = annotation(1L, textAnnotation("label"));
+    final Annotation visible = annotation(2L, labelAnnotation(10L));
+    final Annotation hidden = annotation(3L, scalingAnnotation(20L, 5L));
+    final Annotation sameCategory = annotation(4L, scalingAnnotation(11L, 5L));
+    final Annotation unknownLabel = annotation(5L, labelAnnotation(99L));
+
+    assertEquals(List.of(text, visible, sameCategory, unknownLabel),
+            index.filter(List.of(text, visible, hidden, sameCategory, unknownLabel)));
+    // all labels are resolved at once and every category is checked only once
+    assertEquals(1, lookups.size());
+    assertEquals(List.of(10L, 11L, 20L, 99L), new ArrayList<>(lookups.get(0)));
+    assertEquals(2, accessChecks.size());
+  }
+
+  @Test
+  public void testKnownLabelsAreNotLoadedAgain() {
+    final CategoryAccessIndex index = newIndex();
+    index.filter(List.of(annotation(1L, labelAnnotation(10L))));
+    index.filter(List.of(annotation(2L, labelAnnotation(10L)), annotation(3L, labelAnnotation(11L))));
+    assertEquals(2, lookups.size());
+    assertEquals(List.of(11L), new ArrayList<>(lookups.get(1)));
+    // text only annotations need no lookup at all
+    index.filter(List.of(annotation(4L, textAnnotation("nice!"))));
+    assertEquals(2, lookups.size());
+  }
+
+  @Test
+  public void testFilterStreamInBatches() {
+    final CategoryAccessIndex index = newIndex();
+    final Annotation visible = annotation(1L, labelAnnotation(10L));
+    final Annotation hidden = annotation(2L, labelAnnotation(20L));
+    final Annotation other = annotation(3L, labelAnnotation(11L));
+    final boolean[] closed = { false };
+    final Stream<Annotation> annotations = Stream.of(visible, hidden, other).onClose(() -> closed[0] = true);
+    try (Stream<Annotation> filtered = index.filter(annotations, 2)) {
+      assertEquals(List.of(visible, other), filtered.collect(Collectors.toList()));
+    }
+    // every batch looks up its new labels only
+    assertEquals(List.of(List.of(10L, 20L), List.of(11L)),
+            lookups.stream().map(ArrayList::new).collect(Collectors.toList()));
+    assertTrue(closed[0]);
+  }
+
+  private CategoryAccessIndex newIndex() {
+    final Map<Long, Category> categoriesOfLabels = new HashMap<>();
+    categoriesOfLabels.put(10L, PUBLIC_CATEGORY);
+    categoriesOfLabels.put(11L, PUBLIC_CATEGORY);
+    categoriesOfLabels.put(20L, PRIVATE_CATEGORY);
+    return new CategoryAccessIndex(labelIds -> {
+      lookups.add(new TreeSet<>(labelIds));
+      final Map<Long, Category> found = new HashMap<>(categoriesOfLabels);
+      found.keySet().retainAll(labelIds);
+      return found;
+    }, category -> {
+      accessChecks.add(category.getId());
+      return category.getAccess() == Resource.PUBLIC;
+    });
+  }
+
+  private static String labelAnnotation(long labelId) {
+    return "[{\"type\":\"label\",\"value\":" + labelId + "}]";
+  }
+
+  private static Annotation annotation(long id, String content) {
+    return new AnnotationImpl(id, 1L, 0.0D, none(), content, 0, none(), resource(Resource.PUBLIC));
+  }
+
+  private static Category category(long id, int access) {
+    return new CategoryImpl(id, none(), none(), 1L, none(), "category " + id, none(), none(), resource(access));
+  }
+
+  private static Resource resource(int access) {
+    return new ResourceImpl(some(access), none(), none(), none(), none(), none(), none(), new HashMap<>());
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencast.annotation.api.ChangeEvent;
+import org.opencast.annotation.api.ChangeEvent.Action;
+import org.opencast.annotation.api.ChangeEvent.Type;
+import org.opencast.annotation.api.ChangeSubscription;
+import org.opencast.annotation.impl.ResourceImpl;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class ChangeEventBusTest {
+
+  @Test
+  public void testDeliverToSubscribersOfVideo() throws Exception {
+    final ChangeEventBus bus = new ChangeEventBus(10, 10, 10);
+    assertFalse(bus.hasSubscribers());
+    try (ChangeSubscription first = bus.subscribe(1).get(); ChangeSubscription other = bus.subscribe(2).get()) {
+      assertTrue(bus.hasSubscribers());
+      bus.publish(event(1, 10));
+      bus.publish(event(2, 20));
+      assertEquals(10, first.next(0, TimeUnit.SECONDS).get().getId());
+      assertTrue(first.next(0, TimeUnit.SECONDS).isNone());
+      assertEquals(20, other.next(0, TimeUnit.SECONDS).get().getId());
+    }
+    assertFalse(bus.hasSubscribers());
+    // nobody listens anymore
+    bus.publish(event(1, 11));
+    assertEquals(2, bus.getPublished());
+  }
+
+  @Test
+  public void testEvictSlowSubscriber() throws Exception {
+    final ChangeEventBus bus = new ChangeEventBus(2, 10, 10);
+    final ChangeSubscription slow = bus.subscribe(1).get();
+    final ChangeSubscription fast = bus.subscribe(1).get();
+    for (int i = 0; i < 3; i++) {
+      bus.publish(event(1, i));
+      assertEquals(i, fast.next(0, TimeUnit.SECONDS).get().getId());
+    }
+    // the third event did not fit into the buffer of the slow subscriber anymore
+    assertTrue(slow.isClosed());
+    assertTrue(slow.isEvicted());
+    assertTrue(slow.next(0, TimeUnit.SECONDS).isNone());
+    assertFalse(fast.isClosed());
+    assertEquals(1, bus.getEvictions());
+    fast.close();
+    // closing is no eviction
+    assertFalse(fast.isEvicted());
+    assertFalse(bus.hasSubscribers());
+  }
+
+  @Test
+  public void testLimitSubscribers() {
+    final ChangeEventBus bus = new ChangeEventBus(10, 3, 2);
+    final ChangeSubscription first = bus.subscribe(1).get();
+    final ChangeSubscription second = bus.subscribe(1).get();
+    // too many for the video, but not in total
+    assertTrue(bus.subscribe(1).isNone());
+    final ChangeSubscription other = bus.subscribe(2).get();
+    // too many in total
+    assertTrue(bus.subscribe(3).isNone());
+    assertEquals(2, bus.getRejections());
+    first.close();
+    first.close();
+    assertEquals(2, bus.getSubscribers());
+    bus.subscribe(1).get().close();
+    second.close();
+    other.close();
+    assertEquals(0, bus.getSubscribers());
+    assertFalse(bus.hasSubscribers());
+  }
+
+  private static ChangeEvent event(long videoId, long id) {
+    return new ChangeEvent(Type.ANNOTATION, Action.CREATED, videoId, id, some(1L),
+            new ResourceImpl(some(0), none(), none(), none(), none(), none(), none(), null));
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EntityCacheTest {
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  public void testReadThrough() {
+    final EntityCache cache = new EntityCache(Set.of(VideoDto.class), 10, 0);
+    assertEquals("video 1", cache.get(VideoDto.class, "Video.findById", 1L, () -> load("video 1")));
+    assertEquals("video 1", cache.get(VideoDto.class, "Video.findById", 1L, () -> load("video 1")));
+    // other queries and parameters are cached separately
+    cache.get(VideoDto.class, "Video.findByExtId", 1L, () -> load("video 1"));
+    cache.get(VideoDto.class, "Video.findById", 2L, () -> load("video 2"));
+    assertEquals(3, loads.get());
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+    assertEquals(3, cache.getSize());
+  }
+
+  @Test
+  public void testUncachedTypes() {
+    final EntityCache cache = new EntityCache(Set.of(VideoDto.class), 10, 0);
+    cache.get(TrackDto.class, "Track.findById", 1L, () -> load("track"));
+    cache.get(TrackDto.class, "Track.findById", 1L, () -> load("track"));
+    assertEquals(2, loads.get());
+    assertEquals(0, cache.getSize());
+
+    final EntityCache disabled = new EntityCache(Set.of(VideoDto.class), 0, 0);
+    disabled.get(VideoDto.class, "Video.findById", 1L, () -> load("video"));
+    disabled.get(VideoDto.class, "Video.findById", 1L, () -> load("video"));
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  public void testEviction() {
+    final EntityCache cache = new EntityCache(Set.of(VideoDto.class), 2, 0);
+    cache.get(VideoDto.class, "Video.findById", 1L, () -> load("video 1"));
+    cache.get(VideoDto.class, "Video.findById", 2L, () -> load("video 2"));
+    // touch the first video, so that the second one is the least recently used
+    cache.get(VideoDto.class, "Video.findById", 1L, () -> load("video 1"));
+    cache.get(VideoDto.class, "Video.findById", 3L, () -> load("video 3"));
+    assertEquals(1, cache.getEvictions());
+    assertEquals(2, cache.getSize());
+    cache.get(VideoDto.class, "Video.findById", 1L, () -> load("video 1"));
+    assertEquals(3, loads.get());
+    cache.get(VideoDto.class, "Video.findById", 2L, () -> load("video 2"));
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  public void testInvalidate() {
+    final EntityCache cache = new EntityCache(Set.of(VideoDto.class, UserDto.class), 10, 0);
+    cache.get(VideoDto.class, "Video.findById", 1L, () -> load("video"));
+    cache.get(UserDto.class, "User.findById", 1L, () -> load("user"));
+    cache.invalidate(VideoDto.class);
+    assertEquals("updated video", cache.get(VideoDto.class, "Video.findById", 1L, () -> load("updated video")));
+    assertEquals("user", cache.get(UserDto.class, "User.findById", 1L, () -> load("updated user")));
+    cache.clear();
+    assertEquals("updated user", cache.get(UserDto.class, "User.findById", 1L, () -> load("updated user")));
+  }
+
+  @Test
+  public void testWriteWhileLoading() {
+    final EntityCache cache = new EntityCache(Set.of(VideoDto.class), 10, 0);
+    // a value loaded before a concurrent write must not end up in the cache
+    assertEquals("stale", cache.get(VideoDto.class, "Video.findById", 1L, () -> {
+      cache.invalidate(VideoDto.class);
+      return load("stale");
+    }));
+    assertEquals("fresh", cache.get(VideoDto.class, "Video.findById", 1L, () -> load("fresh")));
+  }
+
+  @Test
+  public void testExpiry() {
+    final AtomicLong now = new AtomicLong();
+    final EntityCache cache = new EntityCache(Set.of(VideoDto.class), 10, 1000, now::get);
+    cache.get(VideoDto.class, "Video.findById", 1L, () -> load("video 1"));
+    now.set(999);
+    assertEquals("video 1", cache.get(VideoDto.class, "Video.findById", 1L, () -> load("changed elsewhere")));
+    now.set(1000);
+    assertEquals("changed elsewhere", cache.get(VideoDto.class, "Video.findById", 1L, () -> load("changed elsewhere")));
+    assertEquals(2, loads.get());
+    assertEquals(1, cache.getExpirations());
+    assertEquals(1, cache.getSize());
+  }
+
+  private String load(String value) {
+    loads.incrementAndGet();
+    return value;
+  }
+}
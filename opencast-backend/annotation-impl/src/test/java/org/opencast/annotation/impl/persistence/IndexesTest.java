@@ -0,0 +1,110 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.opencastproject.db.DBTestEnv.newEntityManagerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.persistence.EntityManager;
+
+/** Checks the indexes declared on the tables against the H2 query plans and the migration script. */
+public class IndexesTest {
+  private static final String[] MIGRATIONS = { "/sql/add-indexes.sql", "/sql/add-annotation-end.sql",
+          "/sql/add-category-content-hash.sql" };
+
+  private EntityManager em;
+
+  @Before
+  public void setUp() {
+    em = newEntityManagerFactory("org.opencast.annotation.impl.persistence").createEntityManager();
+  }
+
+  @After
+  public void tearDown() {
+    em.close();
+  }
+
+  @Test
+  public void testQueryPlansUseIndexes() {
+    assertUsesIndex("IX_xannotations_annotation_track",
+            "select * from xannotations_annotation where track_id = 1 and deleted_at is null");
+    assertUsesIndex("IX_xannotations_track_video",
+            "select * from xannotations_track where video_id = 1 and deleted_at is null");
+    assertUsesIndex("IX_xannotations_category_video",
+            "select * from xannotations_category where video_id = 1");
+    assertUsesIndex("IX_xannotations_category_series",
+            "select * from xannotations_category where series_extid = 'series' and deleted_at is null");
+    assertUsesIndex("IX_xannotations_category_series_category",
+            "select * from xannotations_category where series_category_id = 1 and deleted_at is null");
+    assertUsesIndex("IX_xannotations_label_category",
+            "select * from xannotations_label where category_id = 1");
+    assertUsesIndex("IX_xannotations_comment_annotation",
+            "select * from xannotations_comment where annotation_id = 1 and deleted_at is null and reply_to_id is null");
+    assertUsesIndex("IX_xannotations_comment_reply_to",
+            "select * from xannotations_comment where reply_to_id = 1 and deleted_at is null");
+    assertUsesIndex("IX_xannotations_scale_video",
+            "select * from xannotations_scale where video_id = 1");
+    assertUsesIndex("IX_xannotations_scale_value_scale",
+            "select * from xannotations_scale_value where scale_id = 1");
+    assertUsesIndex("IX_xannotations_questionnaire_video",
+            "select * from xannotations_questionnaire where video_id = 1");
+  }
+
+  @Test
+  public void testMigrationMatchesDeclaredIndexes() throws IOException {
+    assertEquals(13, countIndexes());
+    // The scripts must not add anything to a schema which already has the declared indexes,
+    // and they have to be safe to run repeatedly.
+    migrate();
+    migrate();
+    assertEquals(13, countIndexes());
+  }
+
+  private void assertUsesIndex(String index, String query) {
+    final String plan = em.createNativeQuery("EXPLAIN " + query).getSingleResult().toString();
+    assertTrue(plan, plan.toUpperCase().contains(index.toUpperCase()));
+  }
+
+  private long countIndexes() {
+    return ((Number) em.createNativeQuery("SELECT COUNT(DISTINCT index_name) FROM information_schema.indexes "
+            + "WHERE index_name LIKE 'IX_XANNOTATIONS_%'").getSingleResult()).longValue();
+  }
+
+  private void migrate() throws IOException {
+    em.getTransaction().begin();
+    for (String migration : MIGRATIONS) {
+      final String script;
+      try (InputStream in = IndexesTest.class.getResourceAsStream(migration)) {
+        script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      }
+      for (String statement : script.replaceAll("(?m)^--.*$", "").split(";")) {
+        if (!statement.isBlank()) {
+          em.createNativeQuery(statement).executeUpdate();
+        }
+      }
+    }
+    em.getTransaction().commit();
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.opencastproject.util.data.Option.none;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MediaPackageCacheTest {
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger decisions = new AtomicInteger();
+
+  @Test
+  public void testKeys() {
+    final MediaPackageCache cache = new MediaPackageCache(1000, 10, now::get);
+    assertTrue(cache.hasAccess("org", "mp1", "alice", "annotate", () -> decide(true)));
+    assertTrue(cache.hasAccess("org", "mp1", "alice", "annotate", () -> decide(false)));
+    // other actions, users, media packages and organizations are decided separately
+    assertFalse(cache.hasAccess("org", "mp1", "alice", "annotate-admin", () -> decide(false)));
+    assertFalse(cache.hasAccess("org", "mp1", "bob", "annotate", () -> decide(false)));
+    assertFalse(cache.hasAccess("org", "mp2", "alice", "annotate", () -> decide(false)));
+    assertFalse(cache.hasAccess("other", "mp1", "alice", "annotate", () -> decide(false)));
+    assertEquals(5, decisions.get());
+    assertEquals(1, cache.getHits());
+    assertEquals(5, cache.getMisses());
+
+    // lookups are cached apart from access decisions, including media packages not found
+    assertTrue(cache.getMediaPackage("org", "mp1", "alice", () -> none()).isNone());
+    assertTrue(cache.getMediaPackage("org", "mp1", "alice", () -> {
+      throw new AssertionError("cached");
+    }).isNone());
+    assertEquals(6, cache.getSize());
+  }
+
+  @Test
+  public void testExpiry() {
+    final MediaPackageCache cache = new MediaPackageCache(1000, 10, now::get);
+    cache.hasAccess("org", "mp", "alice", "annotate", () -> decide(true));
+    now.set(999);
+    assertTrue(cache.hasAccess("org", "mp", "alice", "annotate", () -> decide(false)));
+    now.set(1000);
+    assertFalse(cache.hasAccess("org", "mp", "alice", "annotate", () -> decide(false)));
+    assertEquals(2, decisions.get());
+    assertEquals(1, cache.getExpirations());
+  }
+
+  @Test
+  public void testEviction() {
+    final MediaPackageCache cache = new MediaPackageCache(1000, 2, now::get);
+    cache.hasAccess("org", "mp1", "alice", "annotate", () -> decide(true));
+    cache.hasAccess("org", "mp2", "alice", "annotate", () -> decide(true));
+    cache.hasAccess("org", "mp3", "alice", "annotate", () -> decide(true));
+    assertEquals(1, cache.getEvictions());
+    assertEquals(2, cache.getSize());
+  }
+
+  @Test
+  public void testInvalidate() {
+    final MediaPackageCache cache = new MediaPackageCache(1000, 10, now::get);
+    cache.hasAccess("org", "mp1", "alice", "annotate", () -> decide(true));
+    cache.hasAccess("org", "mp1", "bob", "annotate", () -> decide(true));
+    cache.hasAccess("org", "mp2", "alice", "annotate", () -> decide(true));
+    cache.invalidate("mp1");
+    assertEquals(1, cache.getSize());
+    assertFalse(cache.hasAccess("org", "mp1", "alice", "annotate", () -> decide(false)));
+    assertTrue(cache.hasAccess("org", "mp2", "alice", "annotate", () -> decide(false)));
+
+    // a decision made while the cache is invalidated is not cached
+    assertTrue(cache.hasAccess("org", "mp3", "alice", "annotate", () -> {
+      cache.clear();
+      return decide(true);
+    }));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void testDisabled() {
+    final MediaPackageCache cache = new MediaPackageCache(0, 10, now::get);
+    cache.hasAccess("org", "mp", "alice", "annotate", () -> decide(true));
+    cache.hasAccess("org", "mp", "alice", "annotate", () -> decide(true));
+    assertEquals(2, decisions.get());
+    assertEquals(0, cache.getSize());
+  }
+
+  private boolean decide(boolean decision) {
+    decisions.incrementAndGet();
+    return decision;
+  }
+}
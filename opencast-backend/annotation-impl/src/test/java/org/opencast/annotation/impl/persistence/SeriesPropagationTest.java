@@ -0,0 +1,118 @@
+/**
+ *  Copyright 2026, ELAN e.V., Germany
+ *  Licensed under the Educational Community License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *  http://www.osedu.org/licenses/ECL-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS"
+ *  BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ *
+ */
+package org.opencast.annotation.impl.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class SeriesPropagationTest {
+  private final List<String> work = Collections.synchronizedList(new ArrayList<>());
+
+  @Test
+  public void testBatches() throws Exception {
+    final SeriesPropagation propagation = new SeriesPropagation(new Worker(0, null), 2, 1, 0);
+    propagation.schedule(1);
+    assertTrue(propagation.awaitIdle(10, TimeUnit.SECONDS));
+    assertEquals(List.of("videos of 1", "1 to [10, 11]", "1 to [12, 13]", "1 to [14]"), work);
+    assertEquals(1, propagation.getCompleted());
+    propagation.shutdown();
+  }
+
+  @Test
+  public void testCoalesce() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final SeriesPropagation propagation = new SeriesPropagation(new Worker(0, null) {
+      @Override
+      public List<Long> videosOf(long seriesCategoryId) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        return super.videosOf(seriesCategoryId);
+      }
+    }, 10, 1, 0);
+    propagation.schedule(1);
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    // the running propagation does not cover these changes anymore, but the waiting one covers them all
+    propagation.schedule(1);
+    propagation.schedule(2);
+    propagation.schedule(1);
+    assertEquals(2, propagation.getPending());
+    release.countDown();
+    assertTrue(propagation.awaitIdle(10, TimeUnit.SECONDS));
+    assertEquals(3, propagation.getCompleted());
+    assertEquals(6, work.size());
+    propagation.shutdown();
+  }
+
+  @Test
+  public void testRetry() throws Exception {
+    final SeriesPropagation propagation = new SeriesPropagation(new Worker(2, "1 to [12, 13]"), 2, 3, 0);
+    propagation.schedule(1);
+    assertTrue(propagation.awaitIdle(10, TimeUnit.SECONDS));
+    // every attempt starts over, which is fine since propagating is idempotent
+    assertEquals(3, Collections.frequency(work, "1 to [10, 11]"));
+    assertEquals(1, propagation.getCompleted());
+    assertEquals(2, propagation.getRetries());
+    assertEquals(0, propagation.getFailed());
+
+    final SeriesPropagation failing = new SeriesPropagation(new Worker(3, "1 to [12, 13]"), 2, 3, 0);
+    failing.schedule(1);
+    assertTrue(failing.awaitIdle(10, TimeUnit.SECONDS));
+    assertEquals(0, failing.getCompleted());
+    assertEquals(1, failing.getFailed());
+    propagation.shutdown();
+    failing.shutdown();
+  }
+
+  /** Propagates to five videos, failing a number of times at the given work. */
+  private class Worker implements SeriesPropagation.Worker {
+    private int failures;
+    private final String failing;
+
+    Worker(int failures, String failing) {
+      this.failures = failures;
+      this.failing = failing;
+    }
+
+    @Override
+    public List<Long> videosOf(long seriesCategoryId) {
+      work.add("videos of " + seriesCategoryId);
+      return List.of(10L, 11L, 12L, 13L, 14L);
+    }
+
+    @Override
+    public void propagate(long seriesCategoryId, List<Long> videoIds) {
+      final String step = seriesCategoryId + " to " + videoIds;
+      if (step.equals(failing) && failures > 0) {
+        failures--;
+        throw new IllegalStateException("Failing " + step);
+      }
+      work.add(step);
+    }
+  }
+}